@@ -34,6 +34,7 @@ import androidx.preference.PreferenceManager;
 import org.gnucash.android.BuildConfig;
 import org.gnucash.android.R;
 import org.gnucash.android.model.db.BookDbHelper;
+import org.gnucash.android.model.db.BookSession;
 import org.gnucash.android.model.db.DatabaseHelper;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BooksDbAdapter;
@@ -53,6 +54,8 @@ import org.gnucash.android.ui.settings.PreferenceActivity;
 
 import java.util.Currency;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import dagger.hilt.android.HiltAndroidApp;
 
@@ -65,6 +68,8 @@ import dagger.hilt.android.HiltAndroidApp;
 @HiltAndroidApp
 public class GnuCashApplication extends MultiDexApplication {
 
+    private static final String LOG_TAG = "GnuCashApplication";
+
     /**
      * Authority (domain) for the file provider. Also used in the app manifest
      */
@@ -103,6 +108,16 @@ public class GnuCashApplication extends MultiDexApplication {
     private static BooksDbAdapter mBooksDbAdapter;
     private static DatabaseHelper mDbHelper;
 
+    /**
+     * Opening of the databases started in {@link #onCreate()}
+     */
+    private static volatile FutureTask<Void> sDatabaseInitialization;
+
+    /**
+     * Thread opening the databases, which must not wait for itself
+     */
+    private static volatile Thread sInitializingThread;
+
     /**
      * Returns darker version of specified <code>color</code>.
      * Use for theming the status bar color when setting the color of the actionBar
@@ -116,22 +131,111 @@ public class GnuCashApplication extends MultiDexApplication {
 
     @Override
     public void onCreate(){
-        super.onCreate();
-        GnuCashApplication.context = getApplicationContext();
+        //only happens when the application is created again in the same process, as in unit tests
+        FutureTask<Void> previousInitialization = sDatabaseInitialization;
+        if (previousInitialization != null) {
+            try {
+                previousInitialization.get();
+            } catch (ExecutionException | InterruptedException e) {
+                Log.w(LOG_TAG, "Previous database initialization failed", e);
+            }
+        }
+
+        StartupTrace.reset();
+        try (StartupTrace.Section ignored = StartupTrace.begin("Application.onCreate")) {
+            super.onCreate();
+            GnuCashApplication.context = getApplicationContext();
 
 //        Fabric.with(this, new Crashlytics.Builder().core(
 //                new CrashlyticsCore.Builder().disabled(!isCrashlyticsEnabled()).build())
 //                .build());
 
-        setUpUserVoice();
+            setUpUserVoice();
+
+            startDatabaseInitialization();
+
+            StethoUtils.install(this);
+        }
+    }
+
+    /**
+     * Starts opening the books database and the active book on a background thread.
+     * <p>Nothing waits for it here: the database getters of this class wait until it is done,
+     * so the first activity only blocks if it needs the database before it is ready</p>
+     */
+    private static void startDatabaseInitialization() {
+        FutureTask<Void> initialization = new FutureTask<>(GnuCashApplication::initializeDatabase, null);
+        sDatabaseInitialization = initialization;
+        new Thread(initialization, "DatabaseInitialization").start();
+    }
+
+    /**
+     * Opens the books database and the active book, and sets up the default currency
+     */
+    private static void initializeDatabase() {
+        sInitializingThread = Thread.currentThread();
+        try (StartupTrace.Section ignored = StartupTrace.begin("initializeDatabase")) {
+            try (StartupTrace.Section ignored2 = StartupTrace.begin("openBooksDatabase")) {
+                BookDbHelper bookDbHelper = new BookDbHelper(getAppContext());
+                mBooksDbAdapter = new BooksDbAdapter(bookDbHelper.getWritableDatabase());
+            }
+
+            initializeDatabaseAdapters();
+
+            try (StartupTrace.Section ignored2 = StartupTrace.begin("setDefaultCurrency")) {
+                setDefaultCurrencyCode(getDefaultCurrencyCode());
+            }
+        } finally {
+            sInitializingThread = null;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the databases have been opened and the adapters can be used without waiting
+     * @return {@code true} if the database initialization is complete
+     */
+    public static boolean isDatabaseReady() {
+        FutureTask<Void> initialization = sDatabaseInitialization;
+        return initialization == null || initialization.isDone();
+    }
 
-        BookDbHelper bookDbHelper = new BookDbHelper(getApplicationContext());
-        mBooksDbAdapter = new BooksDbAdapter(bookDbHelper.getWritableDatabase());
+    /**
+     * Waits until the books database and the active book have been opened.
+     * <p>If the background thread has not started opening them yet, they are opened on the calling thread.
+     * All the database getters of this class call this method, so it only needs to be called
+     * explicitly to wait for the database at a chosen time</p>
+     * @throws IllegalStateException if the database could not be opened
+     */
+    public static void awaitDatabase() {
+        FutureTask<Void> initialization = sDatabaseInitialization;
+        if (initialization == null || Thread.currentThread() == sInitializingThread)
+            return;
 
-        initializeDatabaseAdapters();
-        setDefaultCurrencyCode(getDefaultCurrencyCode());
+        if (!initialization.isDone()) {
+            try (StartupTrace.Section ignored = StartupTrace.begin("awaitDatabase")) {
+                //does nothing if the background thread is already running it
+                initialization.run();
+                getInitializationResult(initialization);
+            }
+        } else {
+            getInitializationResult(initialization);
+        }
+    }
 
-        StethoUtils.install(this);
+    private static void getInitializationResult(FutureTask<Void> initialization) {
+        try {
+            initialization.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the database", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException("Error opening the database", cause);
+        }
     }
 
     /**
@@ -139,75 +243,93 @@ public class GnuCashApplication extends MultiDexApplication {
      * This method should be called every time a new book is opened
      */
     public static void initializeDatabaseAdapters() {
+        awaitDatabase();
         if (mDbHelper != null){ //close if open
-            mDbHelper.getReadableDatabase().close();
+            SQLiteDatabase previousDb = mDbHelper.getReadableDatabase();
+            BookSession.release(previousDb);
+            previousDb.close();
         }
 
-        try {
-            mDbHelper = new DatabaseHelper(getAppContext(),
-                                           mBooksDbAdapter.getActiveBookUID());
-        } catch (BooksDbAdapter.NoActiveBookFoundException e) {
-            mBooksDbAdapter.fixBooksDatabase();
-            mDbHelper = new DatabaseHelper(getAppContext(),
-                                           mBooksDbAdapter.getActiveBookUID());
-        }
         SQLiteDatabase mainDb;
-        try {
-            mainDb = mDbHelper.getWritableDatabase();
-        } catch (SQLException e) {
+        try (StartupTrace.Section ignored = StartupTrace.begin("openBook")) {
+            try {
+                mDbHelper = new DatabaseHelper(getAppContext(),
+                                               mBooksDbAdapter.getActiveBookUID());
+            } catch (BooksDbAdapter.NoActiveBookFoundException e) {
+                mBooksDbAdapter.fixBooksDatabase();
+                mDbHelper = new DatabaseHelper(getAppContext(),
+                                               mBooksDbAdapter.getActiveBookUID());
+            }
+            try {
+                mainDb = mDbHelper.getWritableDatabase();
+            } catch (SQLException e) {
 //            Crashlytics.logException(e);
-            Log.e("GnuCashApplication", "Error getting database: " + e.getMessage());
-            mainDb = mDbHelper.getReadableDatabase();
+                Log.e(LOG_TAG, "Error getting database: " + e.getMessage());
+                mainDb = mDbHelper.getReadableDatabase();
+            }
         }
 
-        mSplitsDbAdapter            = new SplitsDbAdapter(mainDb);
-        mTransactionsDbAdapter      = new TransactionsDbAdapter(mainDb, mSplitsDbAdapter);
-        mAccountsDbAdapter          = new AccountsDbAdapter(mainDb, mTransactionsDbAdapter);
-        mRecurrenceDbAdapter        = new RecurrenceDbAdapter(mainDb);
-        mScheduledActionDbAdapter   = new ScheduledActionDbAdapter(mainDb, mRecurrenceDbAdapter);
-        mPricesDbAdapter            = new PricesDbAdapter(mainDb);
-        mCommoditiesDbAdapter       = new CommoditiesDbAdapter(mainDb);
-        mBudgetAmountsDbAdapter     = new BudgetAmountsDbAdapter(mainDb);
-        mBudgetsDbAdapter           = new BudgetsDbAdapter(mainDb, mBudgetAmountsDbAdapter, mRecurrenceDbAdapter);
+        try (StartupTrace.Section ignored = StartupTrace.begin("createAdapters")) {
+            BookSession session = BookSession.of(mainDb);
+            mSplitsDbAdapter            = session.getSplitsDbAdapter();
+            mTransactionsDbAdapter      = session.getTransactionsDbAdapter();
+            mAccountsDbAdapter          = session.getAccountsDbAdapter();
+            mRecurrenceDbAdapter        = session.getRecurrenceDbAdapter();
+            mScheduledActionDbAdapter   = session.getScheduledActionDbAdapter();
+            mPricesDbAdapter            = session.getPricesDbAdapter();
+            mCommoditiesDbAdapter       = session.getCommoditiesDbAdapter();
+            mBudgetAmountsDbAdapter     = session.getBudgetAmountsDbAdapter();
+            mBudgetsDbAdapter           = session.getBudgetsDbAdapter();
+        }
     }
 
     public static AccountsDbAdapter getAccountsDbAdapter() {
+        awaitDatabase();
         return mAccountsDbAdapter;
     }
 
     public static TransactionsDbAdapter getTransactionDbAdapter() {
+        awaitDatabase();
         return mTransactionsDbAdapter;
     }
 
     public static SplitsDbAdapter getSplitsDbAdapter() {
+        awaitDatabase();
         return mSplitsDbAdapter;
     }
 
     public static ScheduledActionDbAdapter getScheduledEventDbAdapter(){
+        awaitDatabase();
         return mScheduledActionDbAdapter;
     }
 
     public static CommoditiesDbAdapter getCommoditiesDbAdapter(){
+        awaitDatabase();
         return mCommoditiesDbAdapter;
     }
 
     public static PricesDbAdapter getPricesDbAdapter(){
+        awaitDatabase();
         return mPricesDbAdapter;
     }
 
     public static BudgetsDbAdapter getBudgetDbAdapter() {
+        awaitDatabase();
         return mBudgetsDbAdapter;
     }
 
     public static RecurrenceDbAdapter getRecurrenceDbAdapter() {
+        awaitDatabase();
         return mRecurrenceDbAdapter;
     }
 
     public static BudgetAmountsDbAdapter getBudgetAmountsDbAdapter(){
+        awaitDatabase();
         return mBudgetAmountsDbAdapter;
     }
 
     public static BooksDbAdapter getBooksDbAdapter(){
+        awaitDatabase();
         return mBooksDbAdapter;
     }
 
@@ -216,6 +338,7 @@ public class GnuCashApplication extends MultiDexApplication {
      * @return Currently active {@link SQLiteDatabase}
      */
     public static SQLiteDatabase getActiveDb(){
+        awaitDatabase();
         return mDbHelper.getWritableDatabase();
     }
 
@@ -297,7 +420,7 @@ public class GnuCashApplication extends MultiDexApplication {
                 .putString(getAppContext().getString(R.string.key_default_currency), currencyCode)
                 .apply();
         Money.DEFAULT_CURRENCY_CODE = currencyCode;
-        Commodity.DEFAULT_COMMODITY = mCommoditiesDbAdapter.getCommodity(currencyCode);
+        Commodity.DEFAULT_COMMODITY = getCommoditiesDbAdapter().getCommodity(currencyCode);
     }
 
     /**
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.app;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Traces the phases of the application startup.
+ * <p>Each phase is a section of the system trace, so it shows up in systrace and Perfetto,
+ * and is also recorded with its duration and thread in a local log which can be read with
+ * {@link #getPhases()}. Phases are used with try-with-resources:</p>
+ * <pre>
+ * try (StartupTrace.Section ignored = StartupTrace.begin("openBooksDatabase")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class StartupTrace {
+
+    private static final String LOG_TAG = "StartupTrace";
+
+    private static final List<Phase> PHASES = new CopyOnWriteArrayList<>();
+
+    private StartupTrace() {
+        //utility class
+    }
+
+    /**
+     * Starts a phase on the current thread
+     * @param name Name of the phase. Should be short, the system trace truncates long names
+     * @return Section to close when the phase ends, on the same thread
+     */
+    public static Section begin(@NonNull String name) {
+        Trace.beginSection(name);
+        return new Section(name);
+    }
+
+    /**
+     * Returns the phases completed since the last {@link #reset()}, in the order they ended
+     * @return List of phases
+     */
+    public static List<Phase> getPhases() {
+        return new ArrayList<>(PHASES);
+    }
+
+    /**
+     * Clears the recorded phases, at the start of the application
+     */
+    static void reset() {
+        PHASES.clear();
+    }
+
+    /**
+     * Running phase, ended by {@link #close()}
+     */
+    public static final class Section implements AutoCloseable {
+        private final String mName;
+        private final long mStartMillis = SystemClock.elapsedRealtime();
+        private final boolean mMainThread = Looper.getMainLooper().getThread() == Thread.currentThread();
+        private boolean mClosed;
+
+        private Section(String name) {
+            mName = name;
+        }
+
+        @Override
+        public void close() {
+            if (mClosed)
+                return;
+            mClosed = true;
+            Trace.endSection();
+            Phase phase = new Phase(mName, SystemClock.elapsedRealtime() - mStartMillis, mMainThread);
+            PHASES.add(phase);
+            Log.i(LOG_TAG, phase.toString());
+        }
+    }
+
+    /**
+     * Completed phase of the startup
+     */
+    public static final class Phase {
+        private final String mName;
+        private final long mDurationMillis;
+        private final boolean mMainThread;
+
+        Phase(String name, long durationMillis, boolean mainThread) {
+            mName = name;
+            mDurationMillis = durationMillis;
+            mMainThread = mainThread;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public long getDurationMillis() {
+            return mDurationMillis;
+        }
+
+        /**
+         * Returns {@code true} if the phase ran on the main thread
+         */
+        public boolean isOnMainThread() {
+            return mMainThread;
+        }
+
+        @Override
+        public String toString() {
+            return mName + ": " + mDurationMillis + "ms" + (mMainThread ? " (main thread)" : "");
+        }
+    }
+}
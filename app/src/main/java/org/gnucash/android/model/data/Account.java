@@ -28,6 +28,7 @@ import org.w3c.dom.Element;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * An account represents a transaction account in with {@link Transaction}s may be recorded
@@ -145,7 +146,7 @@ public class Account extends BaseModel {
     public Account(String name) {
         setName(name);
         this.mFullName = mName;
-        setCommodity(Commodity.DEFAULT_COMMODITY);
+        setCommodity(Commodity.getDefaultCommodity());
     }
 
     /**
@@ -457,6 +458,23 @@ public class Account extends BaseModel {
      * @param exportStartTime Time from which to export transactions which are created/modified after
      */
     public void toOfx(Document doc, Element parent, Timestamp exportStartTime) {
+        toOfx(doc, parent, exportStartTime, null);
+    }
+
+    /**
+     * Converts this account's changed transactions into XML and adds them to the DOM document
+     * @param doc                    XML DOM document for the OFX data
+     * @param parent                 Parent node to which to add this account's transactions in XML
+     * @param changedTransactionUIDs GUIDs of the transactions to export
+     */
+    public void toOfx(Document doc, Element parent, Set<String> changedTransactionUIDs) {
+        toOfx(doc, parent, null, changedTransactionUIDs);
+    }
+
+    /**
+     * Converts this account's transactions into XML, selected either by modification time or by GUID
+     */
+    private void toOfx(Document doc, Element parent, Timestamp exportStartTime, Set<String> changedTransactionUIDs) {
         Element currency = doc.createElement(OfxHelper.TAG_CURRENCY_DEF);
         currency.appendChild(doc.createTextNode(mCommodity.getCurrencyCode()));
 
@@ -513,7 +531,8 @@ public class Account extends BaseModel {
         bankTransactionsList.appendChild(dtend);
 
         for (Transaction transaction : mTransactionsList) {
-            if (transaction.getModifiedTimestamp().before(exportStartTime))
+            if (changedTransactionUIDs != null ? !changedTransactionUIDs.contains(transaction.getUID())
+                    : transaction.getModifiedTimestamp().before(exportStartTime))
                 continue;
             bankTransactionsList.appendChild(transaction.toOFX(doc, getUID()));
         }
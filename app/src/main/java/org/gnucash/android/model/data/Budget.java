@@ -366,7 +366,7 @@ public class Budget extends BaseModel {
                     }
                 } else {
                     BudgetAmount bgtAmount = new BudgetAmount(getUID(), entry.getKey());
-                    bgtAmount.setAmount(new Money(first, Commodity.DEFAULT_COMMODITY));
+                    bgtAmount.setAmount(new Money(first, Commodity.getDefaultCommodity()));
                     bgtAmount.setPeriodNum(-1);
                     compactBudgetAmounts.add(bgtAmount);
                 }
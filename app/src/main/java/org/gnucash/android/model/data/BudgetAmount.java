@@ -142,7 +142,7 @@ public class BudgetAmount extends BaseModel implements Parcelable {
         setUID(source.readString());
         mBudgetUID = source.readString();
         mAccountUID = source.readString();
-        mAmount = new Money(new BigDecimal(source.readString()), Commodity.DEFAULT_COMMODITY);
+        mAmount = new Money(new BigDecimal(source.readString()), Commodity.getDefaultCommodity());
         mPeriodNum = source.readLong();
     }
 
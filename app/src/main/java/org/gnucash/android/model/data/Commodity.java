@@ -32,8 +32,9 @@ public class Commodity extends BaseModel {
      * Default commodity for device locale
      * <p>This value is set when a new application instance is created in {@link GnuCashApplication#onCreate()}.
      * The value initialized here is just a placeholder for unit tests</p>
+     * <p>The value is set on the thread opening the database, so read it with {@link #getDefaultCommodity()}</p>
      */
-    public static Commodity DEFAULT_COMMODITY = new Commodity("US Dollars", "USD", 100); //this value is a stub. Will be overwritten when the app is launched
+    public static volatile Commodity DEFAULT_COMMODITY = new Commodity("US Dollars", "USD", 100); //this value is a stub. Will be overwritten when the app is launched
 
     public static Commodity USD = new Commodity("", "USD", 100);
     public static Commodity EUR = new Commodity("", "EUR", 100);
@@ -69,6 +70,16 @@ public class Commodity extends BaseModel {
      * Returns an instance of commodity for the specified currencyCode
      * @param currencyCode ISO 4217 currency code (3-letter)
      */
+    /**
+     * Returns the default commodity, after waiting for the database initialization which sets it
+     * @return Default commodity for the device locale or the one chosen by the user
+     * @see GnuCashApplication#awaitDatabase()
+     */
+    public static Commodity getDefaultCommodity() {
+        GnuCashApplication.awaitDatabase();
+        return DEFAULT_COMMODITY;
+    }
+
     public static Commodity getInstance(String currencyCode){
         switch (currencyCode){ //save time for database trip
             case "USD": return USD;
@@ -20,12 +20,11 @@ package org.gnucash.android.model.data;
 import androidx.annotation.NonNull;
 import android.util.Log;
 
+import org.gnucash.android.app.GnuCashApplication;
+
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.text.NumberFormat;
 import java.util.Locale;
 
 /**
@@ -61,25 +60,40 @@ public final class Money implements Comparable<Money>{
 	/**
 	 * Default currency code (according ISO 4217) 
 	 * This is typically initialized to the currency of the device default locale,
-	 * otherwise US dollars are used
+	 * otherwise US dollars are used.
+	 * <p>The value is set on the thread opening the database, so read it with {@link #getDefaultCurrencyCode()}</p>
 	 */
-	public static String DEFAULT_CURRENCY_CODE 	= "USD";
+	public static volatile String DEFAULT_CURRENCY_CODE 	= "USD";
 
     /**
      * A zero instance with the currency of the default locale.
      * This can be used anywhere where a starting amount is required without having to create a new object
      */
-    private static Money sDefaultZero;
+    private static volatile Money sDefaultZero;
+
+    /**
+     * Returns the default currency code, after waiting for the database initialization which sets it
+     * @return ISO 4217 code of the default currency
+     * @see GnuCashApplication#awaitDatabase()
+     */
+    public static String getDefaultCurrencyCode() {
+        GnuCashApplication.awaitDatabase();
+        return DEFAULT_CURRENCY_CODE;
+    }
 
     /**
      * Returns a Money instance initialized to the local currency and value 0
+     * <p>The instance is created anew when the default commodity changes</p>
      * @return Money instance of value 0 in locale currency
      */
     public static Money getZeroInstance(){
-		if (sDefaultZero == null) {
-			sDefaultZero = new Money(BigDecimal.ZERO, Commodity.DEFAULT_COMMODITY);
+		Commodity commodity = Commodity.getDefaultCommodity();
+		Money zero = sDefaultZero;
+		if (zero == null || zero.getCommodity() != commodity) {
+			zero = new Money(BigDecimal.ZERO, commodity);
+			sDefaultZero = zero;
 		}
-		return sDefaultZero;
+		return zero;
     }
 
 	/**
@@ -259,36 +273,13 @@ public final class Money implements Comparable<Money>{
 	/**
 	 * Returns a string representation of the Money object formatted according to 
 	 * the <code>locale</code> and includes the currency symbol. 
-	 * The output precision is limited to the number of fractional digits supported by the currency
+	 * The output precision is limited to the number of fractional digits supported by the currency.
+	 * The formatters are cached per thread by {@link MoneyFormatter}
 	 * @param locale Locale to use when formatting the object
 	 * @return String containing formatted Money representation
 	 */
     public String formattedString(Locale locale){
-
-		NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(locale);
-
-		String symbol;
-		//if we want to show US Dollars for locales which also use Dollars, for example, Canada
-		if (mCommodity.equals(Commodity.USD) && !locale.equals(Locale.US)) {
-			symbol = "US$";
-		} else {
-			symbol = mCommodity.getSymbol();
-		}
-		DecimalFormatSymbols decimalFormatSymbols = ((DecimalFormat)currencyFormat).getDecimalFormatSymbols();
-		decimalFormatSymbols.setCurrencySymbol(symbol);
-		((DecimalFormat)currencyFormat).setDecimalFormatSymbols(decimalFormatSymbols);
-		currencyFormat.setMinimumFractionDigits(mCommodity.getSmallestFractionDigits());
-		currencyFormat.setMaximumFractionDigits(mCommodity.getSmallestFractionDigits());
-
-		return currencyFormat.format(asDouble());
-/*
-// 	old currency formatting code
-		NumberFormat formatter = NumberFormat.getInstance(locale);
-		formatter.setMinimumFractionDigits(mCommodity.getSmallestFractionDigits());
-		formatter.setMaximumFractionDigits(mCommodity.getSmallestFractionDigits());
-		Currency currency = Currency.getInstance(mCommodity.getCurrencyCode());
-		return formatter.format(asDouble()) + " " + currency.getSymbol(locale);
-*/
+		return MoneyFormatter.format(this, locale);
 	}
 
     /**
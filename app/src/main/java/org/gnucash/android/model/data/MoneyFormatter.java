@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.data;
+
+import androidx.annotation.NonNull;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Currency formatters of {@link Money#formattedString(Locale)}, cached by locale and commodity.
+ * <p>{@link DecimalFormat} is not thread-safe, so each thread keeps its own formatters. Amounts are
+ * formatted from their {@link BigDecimal} value, which is already rounded to the fraction digits
+ * of the commodity, instead of going through a double.</p>
+ */
+final class MoneyFormatter {
+
+    /**
+     * Commodities cached per locale and thread before the cache of that locale is cleared
+     */
+    private static final int MAX_COMMODITIES_PER_LOCALE = 64;
+
+    private static final ThreadLocal<Map<Locale, Map<String, MoneyFormatter>>> sFormatters =
+            new ThreadLocal<Map<Locale, Map<String, MoneyFormatter>>>() {
+                @Override
+                protected Map<Locale, Map<String, MoneyFormatter>> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+    private final String mSymbol;
+    private final int mFractionDigits;
+    private final DecimalFormat mFormat;
+    private final StringBuffer mBuffer = new StringBuffer();
+    private final FieldPosition mFieldPosition = new FieldPosition(0);
+
+    private MoneyFormatter(Locale locale, String symbol, int fractionDigits) {
+        mSymbol = symbol;
+        mFractionDigits = fractionDigits;
+        mFormat = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
+        DecimalFormatSymbols decimalFormatSymbols = mFormat.getDecimalFormatSymbols();
+        decimalFormatSymbols.setCurrencySymbol(symbol);
+        mFormat.setDecimalFormatSymbols(decimalFormatSymbols);
+        mFormat.setMinimumFractionDigits(fractionDigits);
+        mFormat.setMaximumFractionDigits(fractionDigits);
+    }
+
+    /**
+     * Formats a money amount with the currency symbol of its commodity
+     * @param money Amount to format
+     * @param locale Locale to format the amount for
+     * @return Formatted amount
+     */
+    static String format(@NonNull Money money, @NonNull Locale locale) {
+        Commodity commodity = money.getCommodity();
+        String symbol;
+        //if we want to show US Dollars for locales which also use Dollars, for example, Canada
+        if (commodity.equals(Commodity.USD) && !locale.equals(Locale.US)) {
+            symbol = "US$";
+        } else {
+            symbol = commodity.getSymbol();
+        }
+        int fractionDigits = commodity.getSmallestFractionDigits();
+
+        Map<Locale, Map<String, MoneyFormatter>> formatters = sFormatters.get();
+        Map<String, MoneyFormatter> localeFormatters = formatters.get(locale);
+        if (localeFormatters == null) {
+            localeFormatters = new HashMap<>();
+            formatters.put(locale, localeFormatters);
+        }
+        String currencyCode = commodity.getCurrencyCode();
+        MoneyFormatter formatter = localeFormatters.get(currencyCode);
+        //commodities of the same code can be edited, so the symbol and digits are checked each time
+        if (formatter == null || formatter.mFractionDigits != fractionDigits || !formatter.mSymbol.equals(symbol)) {
+            if (localeFormatters.size() >= MAX_COMMODITIES_PER_LOCALE)
+                localeFormatters.clear();
+            formatter = new MoneyFormatter(locale, symbol, fractionDigits);
+            localeFormatters.put(currencyCode, formatter);
+        }
+        return formatter.format(money.asBigDecimal());
+    }
+
+    private String format(BigDecimal amount) {
+        mBuffer.setLength(0);
+        mFormat.format(amount, mBuffer, mFieldPosition);
+        return mBuffer.toString();
+    }
+}
@@ -17,6 +17,7 @@
 package org.gnucash.android.model.data;
 
 import android.content.Intent;
+import android.os.Bundle;
 import androidx.annotation.NonNull;
 
 import org.gnucash.android.BuildConfig;
@@ -80,6 +81,14 @@ public class Transaction extends BaseModel{
      */
     public static final String EXTRA_SPLITS = "org.gnucash.android.extra.transaction.splits";
 
+    /**
+     * Argument key for passing several transactions in one intent.
+     * The value is an {@link ArrayList} of {@link Bundle}s, each of which holds the same
+     * arguments as an intent for a single transaction.
+     * @see #createBulkIntent(List)
+     */
+    public static final String EXTRA_TRANSACTIONS = "org.gnucash.android.extra.transactions";
+
     /**
      * GUID of commodity associated with this transaction
      */
@@ -161,7 +170,7 @@ public class Transaction extends BaseModel{
 	 * Initializes the different fields to their default values.
 	 */
 	private void initDefaults(){
-        setCommodity(Commodity.DEFAULT_COMMODITY);
+        setCommodity(Commodity.getDefaultCommodity());
 		this.mTimestamp = System.currentTimeMillis();
 	}
 
@@ -572,4 +581,22 @@ public class Transaction extends BaseModel{
         intent.putExtra(Transaction.EXTRA_SPLITS, stringBuilder.toString());
         return intent;
     }
+
+    /**
+     * Creates an Intent for recording several transactions at once.
+     * <p>The transactions are saved in a single database transaction when the intent is received</p>
+     * @param transactions Transactions used to create the intent
+     * @return Intent with the details of each transaction as a bundle in {@link #EXTRA_TRANSACTIONS}
+     * @see #createIntent(Transaction)
+     */
+    public static Intent createBulkIntent(List<Transaction> transactions){
+        ArrayList<Bundle> transactionArgs = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            transactionArgs.add(createIntent(transaction).getExtras());
+        }
+        Intent intent = new Intent(Intent.ACTION_INSERT);
+        intent.setType(Transaction.MIME_TYPE);
+        intent.putParcelableArrayListExtra(Transaction.EXTRA_TRANSACTIONS, transactionArgs);
+        return intent;
+    }
 }
@@ -0,0 +1,375 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
+import org.gnucash.android.model.db.DatabaseSchema.CommodityEntry;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the metadata of all accounts of a book.
+ * <p>The accounts are numbered from 0 in the order of their database IDs, and each attribute is held
+ * in an array indexed by that number. The snapshot is read with one query and never modified:
+ * the {@link BookSession} replaces it as a whole after the accounts or commodities change,
+ * so readers always see a consistent state without locking.</p>
+ * <p>Looking up metadata here replaces one database query per call, which matters for code
+ * calling the lookups for every row of a list, export or report.</p>
+ */
+public final class AccountDirectory {
+
+    private static final int[] NO_CHILDREN = new int[0];
+
+    private final String[] mUIDs;
+    private final long[] mIds;
+    private final String[] mNames;
+    private final String[] mFullNames;
+    private final String[] mQualifiedNames;
+    private final AccountType[] mTypes;
+    private final String[] mCurrencyCodes;
+    private final String[] mCommodityUIDs;
+    private final String[] mColorCodes;
+    private final boolean[] mPlaceholder;
+    private final boolean[] mHidden;
+    private final boolean[] mFavorite;
+    private final int[] mParents;
+    private final int[][] mChildren;
+
+    private final Map<String, Integer> mIndexByUID;
+    private final Map<Long, Integer> mIndexById;
+    private final Map<String, String> mCommodityUIDByCode;
+
+    /**
+     * {@code true} if the snapshot was read inside a database transaction
+     * and may contain uncommitted changes
+     */
+    private final boolean mProvisional;
+
+    private AccountDirectory(int size, boolean provisional) {
+        mUIDs = new String[size];
+        mIds = new long[size];
+        mNames = new String[size];
+        mFullNames = new String[size];
+        mQualifiedNames = new String[size];
+        mTypes = new AccountType[size];
+        mCurrencyCodes = new String[size];
+        mCommodityUIDs = new String[size];
+        mColorCodes = new String[size];
+        mPlaceholder = new boolean[size];
+        mHidden = new boolean[size];
+        mFavorite = new boolean[size];
+        mParents = new int[size];
+        mChildren = new int[size][];
+        mIndexByUID = new HashMap<>(size * 2);
+        mIndexById = new HashMap<>(size * 2);
+        mCommodityUIDByCode = new HashMap<>();
+        mProvisional = provisional;
+    }
+
+    /**
+     * Reads the accounts and commodities of a book database
+     * @param db Book database
+     * @return New snapshot of the accounts
+     */
+    static AccountDirectory load(@NonNull SQLiteDatabase db) {
+        Cursor cursor = db.query(AccountEntry.TABLE_NAME, new String[]{
+                        AccountEntry._ID, AccountEntry.COLUMN_UID, AccountEntry.COLUMN_NAME,
+                        AccountEntry.COLUMN_FULL_NAME, AccountEntry.COLUMN_PARENT_ACCOUNT_UID,
+                        AccountEntry.COLUMN_TYPE, AccountEntry.COLUMN_CURRENCY, AccountEntry.COLUMN_COMMODITY_UID,
+                        AccountEntry.COLUMN_COLOR_CODE, AccountEntry.COLUMN_PLACEHOLDER,
+                        AccountEntry.COLUMN_HIDDEN, AccountEntry.COLUMN_FAVORITE},
+                null, null, null, null, AccountEntry._ID + " ASC");
+        AccountDirectory directory;
+        String[] parentUIDs;
+        try {
+            directory = new AccountDirectory(cursor.getCount(), db.inTransaction());
+            parentUIDs = new String[cursor.getCount()];
+            int index = 0;
+            while (cursor.moveToNext()) {
+                directory.mIds[index] = cursor.getLong(0);
+                directory.mUIDs[index] = cursor.getString(1);
+                directory.mNames[index] = cursor.getString(2);
+                directory.mFullNames[index] = cursor.getString(3);
+                parentUIDs[index] = cursor.getString(4);
+                directory.mTypes[index] = AccountType.valueOf(cursor.getString(5));
+                directory.mCurrencyCodes[index] = cursor.getString(6);
+                directory.mCommodityUIDs[index] = cursor.getString(7);
+                directory.mColorCodes[index] = cursor.getString(8);
+                directory.mPlaceholder[index] = cursor.getInt(9) == 1;
+                directory.mHidden[index] = cursor.getInt(10) == 1;
+                directory.mFavorite[index] = cursor.getInt(11) == 1;
+                directory.mIndexByUID.put(directory.mUIDs[index], index);
+                directory.mIndexById.put(directory.mIds[index], index);
+                index++;
+            }
+        } finally {
+            cursor.close();
+        }
+        directory.linkParents(parentUIDs);
+
+        cursor = db.query(CommodityEntry.TABLE_NAME,
+                new String[]{CommodityEntry.COLUMN_MNEMONIC, CommodityEntry.COLUMN_UID},
+                null, null, null, null, CommodityEntry._ID + " ASC");
+        try {
+            while (cursor.moveToNext()) {
+                //the first commodity with a mnemonic wins, like for the query this replaces
+                if (!directory.mCommodityUIDByCode.containsKey(cursor.getString(0)))
+                    directory.mCommodityUIDByCode.put(cursor.getString(0), cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return directory;
+    }
+
+    /**
+     * Resolves the parent indexes, builds the lists of children and computes the fully qualified names
+     */
+    private void linkParents(String[] parentUIDs) {
+        int size = mUIDs.length;
+        int[] childCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            Integer parent = parentUIDs[i] == null ? null : mIndexByUID.get(parentUIDs[i]);
+            mParents[i] = parent == null ? -1 : parent;
+            if (parent != null)
+                childCounts[parent]++;
+        }
+        for (int i = 0; i < size; i++) {
+            mChildren[i] = childCounts[i] == 0 ? NO_CHILDREN : new int[childCounts[i]];
+            childCounts[i] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            int parent = mParents[i];
+            if (parent >= 0)
+                mChildren[parent][childCounts[parent]++] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            qualifiedName(i, 0);
+        }
+    }
+
+    /**
+     * Computes the name of the account prefixed with the names of its ancestors below the root account
+     * @param depth Number of accounts visited so far, to stop at broken parent cycles
+     */
+    private String qualifiedName(int index, int depth) {
+        if (mQualifiedNames[index] != null)
+            return mQualifiedNames[index];
+        int parent = mParents[index];
+        String name;
+        if (parent < 0 || mTypes[parent] == AccountType.ROOT || depth > mUIDs.length) {
+            name = mNames[index];
+        } else {
+            name = qualifiedName(parent, depth + 1) + AccountsDbAdapter.ACCOUNT_NAME_SEPARATOR + mNames[index];
+        }
+        mQualifiedNames[index] = name;
+        return name;
+    }
+
+    /**
+     * Returns {@code true} if the snapshot was read inside a database transaction.
+     * <p>Such a snapshot may contain changes which are later rolled back,
+     * and is read again once the transaction has ended</p>
+     */
+    boolean isProvisional() {
+        return mProvisional;
+    }
+
+    /**
+     * Returns the number of accounts, including the root account
+     */
+    public int size() {
+        return mUIDs.length;
+    }
+
+    /**
+     * Returns {@code true} if an account with GUID {@code accountUID} exists
+     * @param accountUID GUID of the account
+     */
+    public boolean contains(String accountUID) {
+        return mIndexByUID.containsKey(accountUID);
+    }
+
+    /**
+     * Returns the index of an account in this snapshot
+     * @param accountUID GUID of the account
+     * @return Index of the account
+     * @throws IllegalArgumentException if the account does not exist
+     */
+    public int indexOf(@NonNull String accountUID) {
+        Integer index = mIndexByUID.get(accountUID);
+        if (index == null)
+            throw new IllegalArgumentException("Account " + accountUID + " does not exist");
+        return index;
+    }
+
+    /**
+     * Returns the index of the account with database ID {@code accountId}
+     * @param accountId Database record ID of the account
+     * @return Index of the account, or -1 if the account does not exist
+     */
+    public int indexOf(long accountId) {
+        Integer index = mIndexById.get(accountId);
+        return index == null ? -1 : index;
+    }
+
+    public String getUID(int index) {
+        return mUIDs[index];
+    }
+
+    public long getId(int index) {
+        return mIds[index];
+    }
+
+    public String getName(int index) {
+        return mNames[index];
+    }
+
+    /**
+     * Returns the full name of the account, as stored in the database
+     */
+    public String getFullName(int index) {
+        return mFullNames[index];
+    }
+
+    /**
+     * Returns the name of the account prefixed with the names of its ancestors.
+     * Top level accounts and the root account have their simple name
+     */
+    public String getQualifiedName(int index) {
+        return mQualifiedNames[index];
+    }
+
+    public AccountType getType(int index) {
+        return mTypes[index];
+    }
+
+    public String getCurrencyCode(int index) {
+        return mCurrencyCodes[index];
+    }
+
+    public String getCommodityUID(int index) {
+        return mCommodityUIDs[index];
+    }
+
+    /**
+     * Returns the color code of the account in format #rrggbb, or {@code null} if it has none
+     */
+    public String getColorCode(int index) {
+        return mColorCodes[index];
+    }
+
+    public boolean isPlaceholder(int index) {
+        return mPlaceholder[index];
+    }
+
+    public boolean isHidden(int index) {
+        return mHidden[index];
+    }
+
+    public boolean isFavorite(int index) {
+        return mFavorite[index];
+    }
+
+    /**
+     * Returns the index of the parent account, or -1 if the account has no parent
+     */
+    public int getParent(int index) {
+        return mParents[index];
+    }
+
+    /**
+     * Returns the GUID of the parent of an account
+     * @param accountUID GUID of the account
+     * @return GUID of the parent account, {@code null} if the account has no parent or does not exist
+     */
+    @Nullable
+    public String getParentUID(@NonNull String accountUID) {
+        Integer index = mIndexByUID.get(accountUID);
+        if (index == null || mParents[index] < 0)
+            return null;
+        return mUIDs[mParents[index]];
+    }
+
+    /**
+     * Returns the GUIDs of the direct children of an account
+     * @param accountUID GUID of the account
+     * @return List of GUIDs, empty if the account has no children or does not exist
+     */
+    public List<String> getChildUIDs(@NonNull String accountUID) {
+        Integer index = mIndexByUID.get(accountUID);
+        if (index == null)
+            return Collections.emptyList();
+        List<String> children = new ArrayList<>(mChildren[index].length);
+        for (int child : mChildren[index]) {
+            children.add(mUIDs[child]);
+        }
+        return children;
+    }
+
+    /**
+     * Returns the GUIDs of all descendants of an account, level by level
+     * @param accountUID GUID of the account
+     * @return List of GUIDs, not including {@code accountUID}
+     */
+    public List<String> getDescendantUIDs(@NonNull String accountUID) {
+        Integer index = mIndexByUID.get(accountUID);
+        List<String> descendants = new ArrayList<>();
+        if (index == null)
+            return descendants;
+        int[] queue = new int[mUIDs.length];
+        int head = 0;
+        int tail = 0;
+        boolean[] visited = new boolean[mUIDs.length];
+        queue[tail++] = index;
+        visited[index] = true;
+        while (head < tail) {
+            for (int child : mChildren[queue[head++]]) {
+                if (visited[child])
+                    continue;
+                visited[child] = true;
+                queue[tail++] = child;
+                descendants.add(mUIDs[child]);
+            }
+        }
+        return descendants;
+    }
+
+    /**
+     * Returns the GUID of the commodity with an ISO 4217 currency code
+     * @param currencyCode ISO 4217 currency code
+     * @return GUID of the commodity, or {@code null} if there is none
+     */
+    @Nullable
+    public String getCommodityUIDForCurrency(String currencyCode) {
+        return mCommodityUIDByCode.get(currencyCode);
+    }
+
+    @Override
+    public String toString() {
+        return "AccountDirectory{accounts=" + mUIDs.length + (mProvisional ? " provisional}" : "}");
+    }
+}
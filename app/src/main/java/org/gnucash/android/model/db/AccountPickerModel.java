@@ -0,0 +1,246 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db;
+
+import androidx.annotation.NonNull;
+
+import org.gnucash.android.model.data.AccountType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sorted list of the accounts of a book, for the account pickers.
+ * <p>The model is derived from an {@link AccountDirectory} and shared through the {@link BookSession},
+ * which creates a new one when the directory changes. Opening a picker therefore does not query the
+ * database: it {@link #select(Filter, boolean) selects} the accounts it offers from the cached order.</p>
+ */
+public final class AccountPickerModel {
+
+    private final AccountDirectory mAccounts;
+
+    /**
+     * Directory indexes of the accounts, sorted by full name
+     */
+    private final int[] mByFullName;
+
+    /**
+     * Directory indexes of the accounts, favorites first and then sorted by full name
+     */
+    private final int[] mByFavoriteAndFullName;
+
+    AccountPickerModel(@NonNull AccountDirectory accounts) {
+        mAccounts = accounts;
+        int size = accounts.size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        //same order as ORDER BY full_name, which compares the names without collation
+        Arrays.sort(order, (a, b) -> compareFullNames(accounts.getFullName(a), accounts.getFullName(b)));
+        mByFullName = new int[size];
+        for (int i = 0; i < size; i++) {
+            mByFullName[i] = order[i];
+        }
+        mByFavoriteAndFullName = new int[size];
+        int position = 0;
+        for (int index : mByFullName) {
+            if (accounts.isFavorite(index))
+                mByFavoriteAndFullName[position++] = index;
+        }
+        for (int index : mByFullName) {
+            if (!accounts.isFavorite(index))
+                mByFavoriteAndFullName[position++] = index;
+        }
+    }
+
+    private static int compareFullNames(String a, String b) {
+        if (a == null)
+            return b == null ? 0 : -1;
+        return b == null ? 1 : a.compareTo(b);
+    }
+
+    /**
+     * Returns the account directory this model was built from
+     */
+    public AccountDirectory getDirectory() {
+        return mAccounts;
+    }
+
+    /**
+     * Selects the accounts accepted by a filter
+     * @param filter Filter of the accounts to offer
+     * @param favoritesFirst {@code true} to list the favorite accounts first
+     * @return Sorted list of accounts
+     */
+    public Selection select(@NonNull Filter filter, boolean favoritesFirst) {
+        int[] order = favoritesFirst ? mByFavoriteAndFullName : mByFullName;
+        int[] selected = new int[order.length];
+        int count = 0;
+        for (int index : order) {
+            if (filter.accept(mAccounts, index))
+                selected[count++] = index;
+        }
+        return new Selection(this, Arrays.copyOf(selected, count));
+    }
+
+    /**
+     * Accounts offered by a picker, in display order.
+     * <p>Positions are resolved from account GUIDs or database IDs through an index,
+     * without searching the list</p>
+     */
+    public static final class Selection {
+
+        private final AccountPickerModel mModel;
+        private final int[] mIndexes;
+
+        /**
+         * Position in this list by directory index, -1 if the account is not listed
+         */
+        private final int[] mPositions;
+
+        private Selection(AccountPickerModel model, int[] indexes) {
+            mModel = model;
+            mIndexes = indexes;
+            mPositions = new int[model.mAccounts.size()];
+            Arrays.fill(mPositions, -1);
+            for (int position = 0; position < indexes.length; position++) {
+                mPositions[indexes[position]] = position;
+            }
+        }
+
+        public int size() {
+            return mIndexes.length;
+        }
+
+        public String getUID(int position) {
+            return mModel.mAccounts.getUID(mIndexes[position]);
+        }
+
+        public long getId(int position) {
+            return mModel.mAccounts.getId(mIndexes[position]);
+        }
+
+        public String getFullName(int position) {
+            return mModel.mAccounts.getFullName(mIndexes[position]);
+        }
+
+        public boolean isFavorite(int position) {
+            return mModel.mAccounts.isFavorite(mIndexes[position]);
+        }
+
+        /**
+         * Returns the position of an account in the list
+         * @param accountUID GUID of the account
+         * @return Position of the account, or -1 if it is not listed
+         */
+        public int getPosition(String accountUID) {
+            if (accountUID == null || !mModel.mAccounts.contains(accountUID))
+                return -1;
+            return mPositions[mModel.mAccounts.indexOf(accountUID)];
+        }
+
+        /**
+         * Returns the position of an account in the list
+         * @param accountId Database record ID of the account
+         * @return Position of the account, or -1 if it is not listed
+         */
+        public int getPosition(long accountId) {
+            int index = mModel.mAccounts.indexOf(accountId);
+            return index < 0 ? -1 : mPositions[index];
+        }
+    }
+
+    /**
+     * Criteria for the accounts offered by a picker.
+     * <p>An empty filter accepts all accounts, each method adds a condition</p>
+     */
+    public static final class Filter {
+        private final Set<String> mExcludedUIDs = new HashSet<>();
+        private Set<AccountType> mTypes = EnumSet.allOf(AccountType.class);
+        private boolean mVisibleOnly;
+        private boolean mWithoutPlaceholders;
+        private String mCurrencyCode;
+
+        /**
+         * Excludes some accounts. {@code null} GUIDs are ignored
+         */
+        public Filter excluding(String... accountUIDs) {
+            return excluding(Arrays.asList(accountUIDs));
+        }
+
+        /**
+         * Excludes some accounts. {@code null} GUIDs are ignored
+         */
+        public Filter excluding(@NonNull Collection<String> accountUIDs) {
+            for (String accountUID : accountUIDs) {
+                if (accountUID != null)
+                    mExcludedUIDs.add(accountUID);
+            }
+            return this;
+        }
+
+        /**
+         * Excludes the root account
+         */
+        public Filter withoutRoot() {
+            mTypes.remove(AccountType.ROOT);
+            return this;
+        }
+
+        /**
+         * Only accepts accounts of some types
+         */
+        public Filter withTypes(@NonNull Collection<AccountType> types) {
+            mTypes.retainAll(types);
+            return this;
+        }
+
+        /**
+         * Excludes hidden accounts
+         */
+        public Filter visibleOnly() {
+            mVisibleOnly = true;
+            return this;
+        }
+
+        /**
+         * Excludes placeholder accounts, which cannot hold transactions
+         */
+        public Filter withoutPlaceholders() {
+            mWithoutPlaceholders = true;
+            return this;
+        }
+
+        /**
+         * Only accepts accounts in a currency
+         * @param currencyCode ISO 4217 currency code
+         */
+        public Filter withCurrency(@NonNull String currencyCode) {
+            mCurrencyCode = currencyCode;
+            return this;
+        }
+
+        boolean accept(AccountDirectory accounts, int index) {
+            return mTypes.contains(accounts.getType(index))
+                    && !(mVisibleOnly && accounts.isHidden(index))
+                    && !(mWithoutPlaceholders && accounts.isPlaceholder(index))
+                    && (mCurrencyCode == null || mCurrencyCode.equals(accounts.getCurrencyCode(index)))
+                    && !mExcludedUIDs.contains(accounts.getUID(index));
+        }
+    }
+}
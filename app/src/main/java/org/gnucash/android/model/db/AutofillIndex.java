@@ -0,0 +1,747 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.gnucash.android.model.data.Commodity;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.data.TransactionType;
+import org.gnucash.android.model.db.DatabaseSchema.AutofillEntry;
+import org.gnucash.android.model.db.DatabaseSchema.AutofillSourceEntry;
+import org.gnucash.android.model.db.DatabaseSchema.AutofillStateEntry;
+import org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
+import org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of the past transactions of a book by description, for autocompleting new transactions.
+ * <p>The transactions are grouped by normalized description, currency and split template, i.e. the accounts,
+ * amounts and memos of their splits. Each group is an {@link Entry} which counts how many transactions used
+ * it and when the latest one was booked. Suggestions for a typed prefix are ranked by a weight combining both,
+ * and carry the split template the form is prefilled with, so choosing one does not read the transaction again.</p>
+ * <p>The entries are stored in the autofill tables and kept in memory by the {@link BookSession}.
+ * The index follows the change log instead of using triggers: before suggesting, it applies the transactions
+ * changed since the last sequence number it processed. Without state, e.g. after an upgrade or an import,
+ * the tables are rebuilt from all transactions.</p>
+ */
+public final class AutofillIndex {
+
+    /**
+     * Maximum number of suggestions returned for a prefix
+     */
+    public static final int MAX_SUGGESTIONS = 5;
+
+    /**
+     * Age after which the use count of an entry weighs half as much in the ranking
+     */
+    static final long HALF_LIFE_MILLIS = 90 * DatabaseSchema.SplitRollupEntry.MILLIS_PER_DAY;
+
+    /**
+     * Number of changed transactions above which the tables are rebuilt instead of updated
+     */
+    static final int REBUILD_THRESHOLD = 1000;
+
+    /**
+     * Columns of the cursor returned by {@link #fetchSuggestions(String, String)}
+     */
+    public static final String[] SUGGESTION_COLUMNS = {
+            AutofillEntry.COLUMN_ID, AutofillEntry.COLUMN_DESCRIPTION, AutofillEntry.COLUMN_LAST_USED};
+
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final char SPLIT_SEPARATOR = '\u001E';
+
+    private static final String CONTRIBUTION_QUERY = "SELECT "
+            + "t." + TransactionEntry.COLUMN_UID + ", t." + TransactionEntry.COLUMN_DESCRIPTION + ", "
+            + "t." + TransactionEntry.COLUMN_NOTES + ", t." + TransactionEntry.COLUMN_CURRENCY + ", "
+            + "t." + TransactionEntry.COLUMN_TIMESTAMP + ", s." + SplitEntry.COLUMN_ACCOUNT_UID + ", "
+            + "s." + SplitEntry.COLUMN_TYPE + ", s." + SplitEntry.COLUMN_VALUE_NUM + ", "
+            + "s." + SplitEntry.COLUMN_VALUE_DENOM + ", s." + SplitEntry.COLUMN_QUANTITY_NUM + ", "
+            + "s." + SplitEntry.COLUMN_QUANTITY_DENOM + ", s." + SplitEntry.COLUMN_MEMO
+            + " FROM " + TransactionEntry.TABLE_NAME + " t INNER JOIN " + SplitEntry.TABLE_NAME + " s"
+            + " ON s." + SplitEntry.COLUMN_TRANSACTION_UID + " = t." + TransactionEntry.COLUMN_UID;
+
+    private static final String[] ENTRY_COLUMNS = {
+            AutofillEntry.COLUMN_ID, AutofillEntry.COLUMN_KEY, AutofillEntry.COLUMN_DESCRIPTION,
+            AutofillEntry.COLUMN_NOTES, AutofillEntry.COLUMN_CURRENCY, AutofillEntry.COLUMN_SPLITS,
+            AutofillEntry.COLUMN_USE_COUNT, AutofillEntry.COLUMN_LAST_USED};
+
+    private final BookSession mSession;
+    private final SQLiteDatabase mDb;
+
+    /**
+     * Entries by normalized description. The lists are replaced, never modified, so they can be read without lock
+     */
+    private final ConcurrentSkipListMap<String, List<Entry>> mEntriesByKey = new ConcurrentSkipListMap<>();
+    private final Map<Long, Entry> mEntriesById = new ConcurrentHashMap<>();
+
+    /**
+     * Change sequence of the entries in memory, -1 if they are not loaded
+     */
+    private long mSequence = -1;
+
+    AutofillIndex(@NonNull BookSession session) {
+        mSession = session;
+        mDb = session.getDatabase();
+    }
+
+    /**
+     * Normalizes a transaction description for the index: surrounding white space is removed,
+     * inner white space collapsed and the letters are converted to lower case
+     * @param description Transaction description
+     * @return Normalized description, empty if the description is {@code null} or blank
+     */
+    public static String normalize(@Nullable String description) {
+        return normalize(description, true);
+    }
+
+    private static String normalize(@Nullable String text, boolean trimEnd) {
+        if (text == null)
+            return "";
+        StringBuilder key = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = key.length() > 0;
+            } else {
+                if (space)
+                    key.append(' ');
+                space = false;
+                key.append(c);
+            }
+        }
+        if (space && !trimEnd)
+            key.append(' ');
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the suggestions for a description being typed, as rows of {@link #SUGGESTION_COLUMNS}
+     * @param prefix Start of the description, compared after normalization
+     * @param accountUID GUID of the account the transaction is entered in
+     * @return Cursor over the suggested entries, best first
+     * @see #getSuggestions(String, String)
+     */
+    public Cursor fetchSuggestions(@NonNull String prefix, @NonNull String accountUID) {
+        List<Entry> entries = getSuggestions(prefix, accountUID);
+        MatrixCursor cursor = new MatrixCursor(SUGGESTION_COLUMNS, entries.size());
+        for (Entry entry : entries) {
+            cursor.addRow(new Object[]{entry.getId(), entry.getDescription(), entry.getLastUsed()});
+        }
+        return cursor;
+    }
+
+    /**
+     * Returns the suggestions for a description being typed.
+     * <p>For each description starting with the prefix, the best ranked entry with a split in the account is
+     * suggested, and up to {@link #MAX_SUGGESTIONS} descriptions are returned. Entries with splits in deleted
+     * accounts are not suggested.</p>
+     * @param prefix Start of the description, compared after normalization
+     * @param accountUID GUID of the account the transaction is entered in
+     * @return List of entries, best first
+     */
+    public List<Entry> getSuggestions(@NonNull String prefix, @NonNull String accountUID) {
+        refresh();
+        String key = normalize(prefix, false);
+        Map<String, List<Entry>> candidates = key.isEmpty() ? mEntriesByKey
+                : mEntriesByKey.subMap(key, true, key + Character.MAX_VALUE, false);
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        final long now = System.currentTimeMillis();
+        Comparator<Entry> ranking = (a, b) -> {
+            int result = Double.compare(a.getWeight(now), b.getWeight(now));
+            return result != 0 ? result : Long.compare(a.getLastUsed(), b.getLastUsed());
+        };
+
+        PriorityQueue<Entry> best = new PriorityQueue<>(MAX_SUGGESTIONS + 1, ranking);
+        for (List<Entry> entries : candidates.values()) {
+            Entry top = null;
+            for (Entry entry : entries) {
+                if (entry.isUsable(accountUID, accounts) && (top == null || ranking.compare(entry, top) > 0))
+                    top = entry;
+            }
+            if (top == null)
+                continue;
+            best.add(top);
+            if (best.size() > MAX_SUGGESTIONS)
+                best.poll();
+        }
+        List<Entry> suggestions = new ArrayList<>(best);
+        Collections.sort(suggestions, Collections.reverseOrder(ranking));
+        return suggestions;
+    }
+
+    /**
+     * Returns an entry of the index, e.g. the one of a suggestion chosen by the user
+     * @param entryId ID of the entry
+     * @return Entry, or {@code null} if it does not exist anymore
+     */
+    @Nullable
+    public Entry getEntry(long entryId) {
+        return mEntriesById.get(entryId);
+    }
+
+    /**
+     * Creates a new transaction from an entry, with the description, note, currency and splits of the entry.
+     * <p>The transaction and its splits have new GUIDs, and the time is set to now</p>
+     * @param entry Entry of this index
+     * @return New transaction, not saved to the database
+     */
+    public Transaction buildTransaction(@NonNull Entry entry) {
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        Transaction transaction = new Transaction(entry.getDescription());
+        transaction.setNote(entry.getNote());
+        transaction.setCommodity(Commodity.getInstance(entry.getCurrencyCode()));
+        for (SplitTemplate template : entry.mSplits) {
+            String quantityCurrencyCode = accounts.contains(template.mAccountUID)
+                    ? accounts.getCurrencyCode(accounts.indexOf(template.mAccountUID))
+                    : entry.getCurrencyCode();
+            Split split = new Split(new Money(template.mValueNum, template.mValueDenom, entry.getCurrencyCode()),
+                    new Money(template.mQuantityNum, template.mQuantityDenom, quantityCurrencyCode),
+                    template.mAccountUID);
+            split.setType(template.mType);
+            split.setMemo(template.mMemo);
+            transaction.addSplit(split);
+        }
+        return transaction;
+    }
+
+    /**
+     * Brings the index up to date with the change log.
+     * <p>Loads the entries if they are not in memory yet, then applies the transactions changed since the
+     * last processed sequence number, or rebuilds the index if it has no state or too many transactions changed.
+     * Nothing is done inside a database transaction, whose changes could still be rolled back.</p>
+     */
+    public synchronized void refresh() {
+        if (mDb.inTransaction())
+            return;
+        long stored = readChangeSequence();
+        if (stored < 0) {
+            rebuild();
+            return;
+        }
+        if (mSequence != stored)
+            load(stored);
+
+        TransactionsDbAdapter transactionsDbAdapter = mSession.getTransactionsDbAdapter();
+        if (transactionsDbAdapter.getLastChangeSequence() <= stored)
+            return;
+
+        Set<Long> touchedIds = new HashSet<>();
+        long sequence;
+        mDb.beginTransaction();
+        try {
+            sequence = transactionsDbAdapter.getLastChangeSequence();
+            Set<String> transactionUIDs = transactionsDbAdapter.getChangedRecordUIDs(stored);
+            if (transactionUIDs.size() > REBUILD_THRESHOLD) {
+                sequence = -1;
+            } else {
+                for (String transactionUID : transactionUIDs) {
+                    removeSource(transactionUID, touchedIds);
+                    readContributions(" WHERE t." + TransactionEntry.COLUMN_UID + " = ?",
+                            new String[]{transactionUID}, contribution -> addSource(contribution, touchedIds));
+                }
+                writeChangeSequence(sequence);
+                mDb.setTransactionSuccessful();
+            }
+        } finally {
+            mDb.endTransaction();
+        }
+
+        if (sequence < 0) {
+            rebuild();
+            return;
+        }
+        for (long entryId : touchedIds) {
+            reloadEntry(entryId);
+        }
+        mSequence = sequence;
+    }
+
+    /**
+     * Rebuilds the index from all transactions of the book
+     */
+    public synchronized void rebuild() {
+        long sequence;
+        mDb.beginTransaction();
+        try {
+            sequence = mSession.getTransactionsDbAdapter().getLastChangeSequence();
+            mDb.delete(AutofillEntry.TABLE_NAME, null, null);
+            mDb.delete(AutofillSourceEntry.TABLE_NAME, null, null);
+
+            final Map<String, Aggregate> aggregates = new HashMap<>();
+            readContributions(" ORDER BY t." + TransactionEntry._ID, null, contribution -> {
+                String identity = contribution.mKey + SPLIT_SEPARATOR + contribution.mCurrencyCode
+                        + SPLIT_SEPARATOR + contribution.mSplits;
+                Aggregate aggregate = aggregates.get(identity);
+                if (aggregate == null) {
+                    aggregate = new Aggregate(contribution);
+                    aggregates.put(identity, aggregate);
+                }
+                aggregate.add(contribution);
+            });
+
+            SQLiteStatement insertEntry = mDb.compileStatement("INSERT INTO " + AutofillEntry.TABLE_NAME + " ("
+                    + AutofillEntry.COLUMN_KEY + ", " + AutofillEntry.COLUMN_DESCRIPTION + ", "
+                    + AutofillEntry.COLUMN_NOTES + ", " + AutofillEntry.COLUMN_CURRENCY + ", "
+                    + AutofillEntry.COLUMN_SPLITS + ", " + AutofillEntry.COLUMN_USE_COUNT + ", "
+                    + AutofillEntry.COLUMN_LAST_USED + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+            SQLiteStatement insertSource = mDb.compileStatement("INSERT INTO " + AutofillSourceEntry.TABLE_NAME + " ("
+                    + AutofillSourceEntry.COLUMN_TRANSACTION_UID + ", " + AutofillSourceEntry.COLUMN_ENTRY_ID + ", "
+                    + AutofillSourceEntry.COLUMN_TIMESTAMP + ") VALUES (?, ?, ?)");
+            try {
+                for (Aggregate aggregate : aggregates.values()) {
+                    Contribution latest = aggregate.mLatest;
+                    insertEntry.clearBindings();
+                    insertEntry.bindString(1, latest.mKey);
+                    insertEntry.bindString(2, latest.mDescription);
+                    if (latest.mNote != null)
+                        insertEntry.bindString(3, latest.mNote);
+                    insertEntry.bindString(4, latest.mCurrencyCode);
+                    insertEntry.bindString(5, latest.mSplits);
+                    insertEntry.bindLong(6, aggregate.mSourceUIDs.size());
+                    insertEntry.bindLong(7, latest.mTimestamp);
+                    long entryId = insertEntry.executeInsert();
+                    for (int i = 0; i < aggregate.mSourceUIDs.size(); i++) {
+                        insertSource.bindString(1, aggregate.mSourceUIDs.get(i));
+                        insertSource.bindLong(2, entryId);
+                        insertSource.bindLong(3, aggregate.mSourceTimestamps.get(i));
+                        insertSource.executeInsert();
+                    }
+                }
+            } finally {
+                insertEntry.close();
+                insertSource.close();
+            }
+            writeChangeSequence(sequence);
+            mDb.setTransactionSuccessful();
+        } finally {
+            mDb.endTransaction();
+        }
+        load(sequence);
+    }
+
+    /**
+     * Drops the state of the index, so that it is rebuilt on next use.
+     * <p>Should be called after transactions were written without logging the changes, e.g. by an import</p>
+     */
+    public synchronized void invalidate() {
+        mDb.delete(AutofillStateEntry.TABLE_NAME, null, null);
+        mEntriesByKey.clear();
+        mEntriesById.clear();
+        mSequence = -1;
+    }
+
+    /**
+     * Reads the change log sequence number the stored index is up to date with
+     * @return Sequence number, or -1 if the index has to be rebuilt
+     */
+    long readChangeSequence() {
+        Cursor cursor = mDb.query(AutofillStateEntry.TABLE_NAME,
+                new String[]{AutofillStateEntry.COLUMN_CHANGE_SEQUENCE}, null, null, null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void writeChangeSequence(long sequence) {
+        mDb.delete(AutofillStateEntry.TABLE_NAME, null, null);
+        ContentValues values = new ContentValues();
+        values.put(AutofillStateEntry.COLUMN_CHANGE_SEQUENCE, sequence);
+        mDb.insert(AutofillStateEntry.TABLE_NAME, null, values);
+    }
+
+    private void load(long sequence) {
+        mEntriesByKey.clear();
+        mEntriesById.clear();
+        Cursor cursor = mDb.query(AutofillEntry.TABLE_NAME, ENTRY_COLUMNS, null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                putEntry(readEntry(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        mSequence = sequence;
+    }
+
+    private void reloadEntry(long entryId) {
+        Entry old = mEntriesById.remove(entryId);
+        if (old != null) {
+            mEntriesByKey.computeIfPresent(old.mKey, (key, entries) -> {
+                List<Entry> remaining = new ArrayList<>(entries.size());
+                for (Entry entry : entries) {
+                    if (entry.mId != entryId)
+                        remaining.add(entry);
+                }
+                return remaining.isEmpty() ? null : Collections.unmodifiableList(remaining);
+            });
+        }
+        Cursor cursor = mDb.query(AutofillEntry.TABLE_NAME, ENTRY_COLUMNS, AutofillEntry.COLUMN_ID + " = ?",
+                new String[]{String.valueOf(entryId)}, null, null, null);
+        try {
+            if (cursor.moveToFirst())
+                putEntry(readEntry(cursor));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void putEntry(Entry entry) {
+        mEntriesById.put(entry.mId, entry);
+        mEntriesByKey.compute(entry.mKey, (key, entries) -> {
+            List<Entry> updated = entries == null ? new ArrayList<>(1) : new ArrayList<>(entries);
+            updated.add(entry);
+            return Collections.unmodifiableList(updated);
+        });
+    }
+
+    private static Entry readEntry(Cursor cursor) {
+        return new Entry(cursor.getLong(0), cursor.getString(1), cursor.getString(2), cursor.getString(3),
+                cursor.getString(4), decodeSplits(cursor.getString(5)), cursor.getInt(6), cursor.getLong(7));
+    }
+
+    /**
+     * Takes a transaction out of the entry it was counted in, if any
+     */
+    private void removeSource(String transactionUID, Set<Long> touchedIds) {
+        Cursor cursor = mDb.query(AutofillSourceEntry.TABLE_NAME, new String[]{AutofillSourceEntry.COLUMN_ENTRY_ID},
+                AutofillSourceEntry.COLUMN_TRANSACTION_UID + " = ?", new String[]{transactionUID}, null, null, null);
+        long entryId;
+        try {
+            if (!cursor.moveToFirst())
+                return;
+            entryId = cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+        mDb.delete(AutofillSourceEntry.TABLE_NAME, AutofillSourceEntry.COLUMN_TRANSACTION_UID + " = ?",
+                new String[]{transactionUID});
+        updateEntry(entryId);
+        touchedIds.add(entryId);
+    }
+
+    /**
+     * Counts a transaction in its entry, creating the entry if necessary
+     */
+    private void addSource(Contribution contribution, Set<Long> touchedIds) {
+        long entryId;
+        Cursor cursor = mDb.query(AutofillEntry.TABLE_NAME, new String[]{AutofillEntry.COLUMN_ID},
+                AutofillEntry.COLUMN_KEY + " = ? AND " + AutofillEntry.COLUMN_CURRENCY + " = ? AND "
+                        + AutofillEntry.COLUMN_SPLITS + " = ?",
+                new String[]{contribution.mKey, contribution.mCurrencyCode, contribution.mSplits}, null, null, null);
+        try {
+            entryId = cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+        if (entryId < 0) {
+            ContentValues values = new ContentValues();
+            values.put(AutofillEntry.COLUMN_KEY, contribution.mKey);
+            values.put(AutofillEntry.COLUMN_DESCRIPTION, contribution.mDescription);
+            values.put(AutofillEntry.COLUMN_NOTES, contribution.mNote);
+            values.put(AutofillEntry.COLUMN_CURRENCY, contribution.mCurrencyCode);
+            values.put(AutofillEntry.COLUMN_SPLITS, contribution.mSplits);
+            entryId = mDb.insert(AutofillEntry.TABLE_NAME, null, values);
+        }
+
+        ContentValues values = new ContentValues();
+        values.put(AutofillSourceEntry.COLUMN_TRANSACTION_UID, contribution.mTransactionUID);
+        values.put(AutofillSourceEntry.COLUMN_ENTRY_ID, entryId);
+        values.put(AutofillSourceEntry.COLUMN_TIMESTAMP, contribution.mTimestamp);
+        mDb.insertWithOnConflict(AutofillSourceEntry.TABLE_NAME, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        updateEntry(entryId);
+        touchedIds.add(entryId);
+    }
+
+    /**
+     * Sets the use count, last use, description and note of an entry from its transactions,
+     * or deletes the entry if no transaction is left
+     */
+    private void updateEntry(long entryId) {
+        String[] entryArgs = new String[]{String.valueOf(entryId)};
+        Cursor cursor = mDb.rawQuery("SELECT t." + TransactionEntry.COLUMN_DESCRIPTION + ", t." + TransactionEntry.COLUMN_NOTES
+                + ", s." + AutofillSourceEntry.COLUMN_TIMESTAMP + ", (SELECT COUNT(*) FROM " + AutofillSourceEntry.TABLE_NAME
+                + " WHERE " + AutofillSourceEntry.COLUMN_ENTRY_ID + " = ?)"
+                + " FROM " + AutofillSourceEntry.TABLE_NAME + " s LEFT OUTER JOIN " + TransactionEntry.TABLE_NAME + " t"
+                + " ON t." + TransactionEntry.COLUMN_UID + " = s." + AutofillSourceEntry.COLUMN_TRANSACTION_UID
+                + " WHERE s." + AutofillSourceEntry.COLUMN_ENTRY_ID + " = ?"
+                + " ORDER BY s." + AutofillSourceEntry.COLUMN_TIMESTAMP + " DESC LIMIT 1",
+                new String[]{entryArgs[0], entryArgs[0]});
+        try {
+            if (!cursor.moveToFirst()) {
+                mDb.delete(AutofillEntry.TABLE_NAME, AutofillEntry.COLUMN_ID + " = ?", entryArgs);
+                return;
+            }
+            ContentValues values = new ContentValues();
+            //the latest transaction may have been deleted, then it is taken out of the entry later on
+            if (!cursor.isNull(0)) {
+                values.put(AutofillEntry.COLUMN_DESCRIPTION, cursor.getString(0));
+                values.put(AutofillEntry.COLUMN_NOTES, cursor.getString(1));
+            }
+            values.put(AutofillEntry.COLUMN_LAST_USED, cursor.getLong(2));
+            values.put(AutofillEntry.COLUMN_USE_COUNT, cursor.getLong(3));
+            mDb.update(AutofillEntry.TABLE_NAME, values, AutofillEntry.COLUMN_ID + " = ?", entryArgs);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private interface ContributionConsumer {
+        void accept(Contribution contribution);
+    }
+
+    /**
+     * Reads the transactions with their splits, and passes those with a description to the consumer
+     * @param clause WHERE and ORDER BY clauses appended to the query
+     */
+    private void readContributions(String clause, String[] args, ContributionConsumer consumer) {
+        Cursor cursor = mDb.rawQuery(CONTRIBUTION_QUERY + clause, args);
+        try {
+            String transactionUID = null;
+            Contribution contribution = null;
+            List<String> splits = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                String uid = cursor.getString(0);
+                if (!uid.equals(transactionUID)) {
+                    if (contribution != null)
+                        consumer.accept(contribution.withSplits(splits));
+                    transactionUID = uid;
+                    String key = normalize(cursor.getString(1));
+                    contribution = key.isEmpty() ? null : new Contribution(uid, key, cursor.getString(1),
+                            cursor.getString(2), cursor.getString(3), cursor.getLong(4));
+                    splits.clear();
+                }
+                if (contribution != null)
+                    splits.add(encodeSplit(cursor));
+            }
+            if (contribution != null)
+                consumer.accept(contribution.withSplits(splits));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String encodeSplit(Cursor cursor) {
+        String memo = cursor.isNull(11) ? "" : cursor.getString(11)
+                .replace(FIELD_SEPARATOR, ' ').replace(SPLIT_SEPARATOR, ' ');
+        return cursor.getString(5) + FIELD_SEPARATOR + cursor.getString(6)
+                + FIELD_SEPARATOR + cursor.getLong(7) + FIELD_SEPARATOR + cursor.getLong(8)
+                + FIELD_SEPARATOR + cursor.getLong(9) + FIELD_SEPARATOR + cursor.getLong(10)
+                + FIELD_SEPARATOR + memo;
+    }
+
+    private static SplitTemplate[] decodeSplits(String encoded) {
+        String[] splits = encoded.split(String.valueOf(SPLIT_SEPARATOR), -1);
+        SplitTemplate[] templates = new SplitTemplate[splits.length];
+        for (int i = 0; i < splits.length; i++) {
+            String[] fields = splits[i].split(String.valueOf(FIELD_SEPARATOR), -1);
+            templates[i] = new SplitTemplate(fields[0], TransactionType.valueOf(fields[1]),
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                    Long.parseLong(fields[4]), Long.parseLong(fields[5]),
+                    fields[6].isEmpty() ? null : fields[6]);
+        }
+        return templates;
+    }
+
+    /**
+     * Description and encoded splits of one transaction
+     */
+    private static final class Contribution {
+        final String mTransactionUID;
+        final String mKey;
+        final String mDescription;
+        final String mNote;
+        final String mCurrencyCode;
+        final long mTimestamp;
+        String mSplits;
+
+        Contribution(String transactionUID, String key, String description, String note,
+                     String currencyCode, long timestamp) {
+            mTransactionUID = transactionUID;
+            mKey = key;
+            mDescription = description;
+            mNote = note;
+            mCurrencyCode = currencyCode;
+            mTimestamp = timestamp;
+        }
+
+        /**
+         * Sets the splits, sorted so that the order of the splits in the transaction does not matter
+         */
+        Contribution withSplits(List<String> splits) {
+            List<String> sorted = new ArrayList<>(splits);
+            Collections.sort(sorted);
+            StringBuilder encoded = new StringBuilder();
+            for (String split : sorted) {
+                if (encoded.length() > 0)
+                    encoded.append(SPLIT_SEPARATOR);
+                encoded.append(split);
+            }
+            mSplits = encoded.toString();
+            return this;
+        }
+    }
+
+    /**
+     * Transactions of one entry, collected while rebuilding the index
+     */
+    private static final class Aggregate {
+        Contribution mLatest;
+        final List<String> mSourceUIDs = new ArrayList<>();
+        final List<Long> mSourceTimestamps = new ArrayList<>();
+
+        Aggregate(Contribution contribution) {
+            mLatest = contribution;
+        }
+
+        void add(Contribution contribution) {
+            if (contribution.mTimestamp >= mLatest.mTimestamp)
+                mLatest = contribution;
+            mSourceUIDs.add(contribution.mTransactionUID);
+            mSourceTimestamps.add(contribution.mTimestamp);
+        }
+    }
+
+    private static final class SplitTemplate {
+        final String mAccountUID;
+        final TransactionType mType;
+        final long mValueNum;
+        final long mValueDenom;
+        final long mQuantityNum;
+        final long mQuantityDenom;
+        final String mMemo;
+
+        SplitTemplate(String accountUID, TransactionType type, long valueNum, long valueDenom,
+                      long quantityNum, long quantityDenom, String memo) {
+            mAccountUID = accountUID;
+            mType = type;
+            mValueNum = valueNum;
+            mValueDenom = valueDenom;
+            mQuantityNum = quantityNum;
+            mQuantityDenom = quantityDenom;
+            mMemo = memo;
+        }
+    }
+
+    /**
+     * One way a description has been booked, with the number of transactions which used it
+     * and the time of the latest one. Entries are immutable, changes replace them.
+     */
+    public static final class Entry {
+        private final long mId;
+        private final String mKey;
+        private final String mDescription;
+        private final String mNote;
+        private final String mCurrencyCode;
+        private final SplitTemplate[] mSplits;
+        private final int mUseCount;
+        private final long mLastUsed;
+
+        private Entry(long id, String key, String description, String note, String currencyCode,
+                      SplitTemplate[] splits, int useCount, long lastUsed) {
+            mId = id;
+            mKey = key;
+            mDescription = description;
+            mNote = note;
+            mCurrencyCode = currencyCode;
+            mSplits = splits;
+            mUseCount = useCount;
+            mLastUsed = lastUsed;
+        }
+
+        public long getId() {
+            return mId;
+        }
+
+        /**
+         * Returns the description of the latest transaction of this entry
+         */
+        public String getDescription() {
+            return mDescription;
+        }
+
+        /**
+         * Returns the note of the latest transaction of this entry
+         */
+        public String getNote() {
+            return mNote;
+        }
+
+        public String getCurrencyCode() {
+            return mCurrencyCode;
+        }
+
+        /**
+         * Returns the number of transactions booked this way
+         */
+        public int getUseCount() {
+            return mUseCount;
+        }
+
+        /**
+         * Returns the time of the latest transaction of this entry, in milliseconds
+         */
+        public long getLastUsed() {
+            return mLastUsed;
+        }
+
+        /**
+         * Returns the ranking weight of this entry: its use count, halved for every
+         * {@link AutofillIndex#HALF_LIFE_MILLIS} since it was last used
+         * @param now Current time in milliseconds
+         */
+        public double getWeight(long now) {
+            long age = Math.max(0, now - mLastUsed);
+            return mUseCount * Math.pow(0.5, (double) age / HALF_LIFE_MILLIS);
+        }
+
+        /**
+         * Returns {@code true} if the entry has a split in the account and all its accounts exist
+         */
+        boolean isUsable(String accountUID, AccountDirectory accounts) {
+            boolean involved = false;
+            for (SplitTemplate split : mSplits) {
+                if (!accounts.contains(split.mAccountUID))
+                    return false;
+                involved |= split.mAccountUID.equals(accountUID);
+            }
+            return involved;
+        }
+    }
+}
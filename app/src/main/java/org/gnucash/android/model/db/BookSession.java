@@ -0,0 +1,316 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.gnucash.android.model.data.ScheduledAction;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BudgetAmountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BudgetsDbAdapter;
+import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
+import org.gnucash.android.model.db.adapter.PricesDbAdapter;
+import org.gnucash.android.model.db.adapter.RecurrenceDbAdapter;
+import org.gnucash.android.model.db.adapter.ScheduledActionDbAdapter;
+import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.util.PreferencesHelper;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Registry of the database adapters of one open book database.
+ * <p>Each adapter is created once per {@link SQLiteDatabase} connection, on first use, and shared
+ * by everything working on that connection. Code which needs an adapter for a database it did not open
+ * itself, e.g. an adapter calling into another one, should get it here instead of constructing a new one.</p>
+ * <p>Every adapter keeps a reference to the session of its database, so the session lives as long as
+ * any adapter of the database is in use. The registry itself only holds weak references, and does not
+ * keep databases which are no longer used from being garbage collected.
+ * A session can also be {@link #release(SQLiteDatabase) released} explicitly when its database is closed.</p>
+ * <p>The session also holds the {@link AccountDirectory} of the book, which the adapters
+ * invalidate whenever they write accounts or commodities, and the {@link AutofillIndex} of the transactions,
+ * which catches up with the change log by itself.</p>
+ * <p>Changes written inside a database transaction are held back by the session, and only published
+ * on the {@link DatabaseChangeBus} once the transaction has ended.</p>
+ */
+public final class BookSession {
+
+    private static final String LOG_TAG = "BookSession";
+
+    private static final Map<SQLiteDatabase, WeakReference<BookSession>> SESSIONS = new WeakHashMap<>();
+
+    private final SQLiteDatabase mDb;
+
+    private SplitsDbAdapter mSplitsDbAdapter;
+    private TransactionsDbAdapter mTransactionsDbAdapter;
+    private AccountsDbAdapter mAccountsDbAdapter;
+    private CommoditiesDbAdapter mCommoditiesDbAdapter;
+    private PricesDbAdapter mPricesDbAdapter;
+    private RecurrenceDbAdapter mRecurrenceDbAdapter;
+    private ScheduledActionDbAdapter mScheduledActionDbAdapter;
+    private BudgetAmountsDbAdapter mBudgetAmountsDbAdapter;
+    private BudgetsDbAdapter mBudgetsDbAdapter;
+    private AutofillIndex mAutofillIndex;
+
+    private final Object mDirectoryLock = new Object();
+    private volatile AccountDirectory mAccountDirectory;
+    private volatile AccountPickerModel mAccountPickerModel;
+    private long mDirectoryGeneration;
+
+    /**
+     * Changes written by the current thread inside a database transaction, not published yet
+     */
+    private final ThreadLocal<List<DatabaseChange>> mPendingChanges = ThreadLocal.withInitial(ArrayList::new);
+
+    private BookSession(@NonNull SQLiteDatabase db) {
+        mDb = db;
+    }
+
+    /**
+     * Returns the session of a database, creating it if necessary
+     * @param db Open book database
+     * @return Session of the database
+     */
+    public static BookSession of(@NonNull SQLiteDatabase db) {
+        synchronized (SESSIONS) {
+            WeakReference<BookSession> reference = SESSIONS.get(db);
+            BookSession session = reference == null ? null : reference.get();
+            if (session == null) {
+                session = new BookSession(db);
+                SESSIONS.put(db, new WeakReference<>(session));
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Drops the session of a database, e.g. before the database is closed
+     * @param db Book database
+     */
+    public static void release(@NonNull SQLiteDatabase db) {
+        synchronized (SESSIONS) {
+            SESSIONS.remove(db);
+        }
+    }
+
+    /**
+     * Returns the database of this session
+     */
+    public SQLiteDatabase getDatabase() {
+        return mDb;
+    }
+
+    public synchronized SplitsDbAdapter getSplitsDbAdapter() {
+        if (mSplitsDbAdapter == null)
+            mSplitsDbAdapter = new SplitsDbAdapter(mDb);
+        return mSplitsDbAdapter;
+    }
+
+    public synchronized TransactionsDbAdapter getTransactionsDbAdapter() {
+        if (mTransactionsDbAdapter == null)
+            mTransactionsDbAdapter = new TransactionsDbAdapter(mDb, getSplitsDbAdapter());
+        return mTransactionsDbAdapter;
+    }
+
+    public synchronized AccountsDbAdapter getAccountsDbAdapter() {
+        if (mAccountsDbAdapter == null)
+            mAccountsDbAdapter = new AccountsDbAdapter(mDb, getTransactionsDbAdapter());
+        return mAccountsDbAdapter;
+    }
+
+    public synchronized CommoditiesDbAdapter getCommoditiesDbAdapter() {
+        if (mCommoditiesDbAdapter == null)
+            mCommoditiesDbAdapter = new CommoditiesDbAdapter(mDb);
+        return mCommoditiesDbAdapter;
+    }
+
+    public synchronized PricesDbAdapter getPricesDbAdapter() {
+        if (mPricesDbAdapter == null)
+            mPricesDbAdapter = new PricesDbAdapter(mDb);
+        return mPricesDbAdapter;
+    }
+
+    public synchronized RecurrenceDbAdapter getRecurrenceDbAdapter() {
+        if (mRecurrenceDbAdapter == null)
+            mRecurrenceDbAdapter = new RecurrenceDbAdapter(mDb);
+        return mRecurrenceDbAdapter;
+    }
+
+    public synchronized ScheduledActionDbAdapter getScheduledActionDbAdapter() {
+        if (mScheduledActionDbAdapter == null)
+            mScheduledActionDbAdapter = new ScheduledActionDbAdapter(mDb, getRecurrenceDbAdapter());
+        return mScheduledActionDbAdapter;
+    }
+
+    public synchronized BudgetAmountsDbAdapter getBudgetAmountsDbAdapter() {
+        if (mBudgetAmountsDbAdapter == null)
+            mBudgetAmountsDbAdapter = new BudgetAmountsDbAdapter(mDb);
+        return mBudgetAmountsDbAdapter;
+    }
+
+    public synchronized BudgetsDbAdapter getBudgetsDbAdapter() {
+        if (mBudgetsDbAdapter == null)
+            mBudgetsDbAdapter = new BudgetsDbAdapter(mDb, getBudgetAmountsDbAdapter(), getRecurrenceDbAdapter());
+        return mBudgetsDbAdapter;
+    }
+
+    /**
+     * Returns the transaction autofill index of this book. The entries are loaded on first use
+     */
+    public synchronized AutofillIndex getAutofillIndex() {
+        if (mAutofillIndex == null)
+            mAutofillIndex = new AutofillIndex(this);
+        return mAutofillIndex;
+    }
+
+    /**
+     * Deletes the change log rows which all consumers of the change log have processed.
+     * <p>The consumers are the exports started by the user, each scheduled backup, the sync with
+     * an external GnuCash file and the autofill index. Only the rows below the lowest sequence number
+     * stored by any of them are deleted. Consumers which have not stored a sequence number yet
+     * do not read the change log, and do not hold back the compaction.</p>
+     * @param bookUID GUID of the book of this session
+     * @return Number of deleted rows
+     */
+    public int compactChangeLog(@NonNull String bookUID) {
+        TransactionsDbAdapter transactionsDbAdapter = getTransactionsDbAdapter();
+        long sequence = transactionsDbAdapter.getLastChangeSequence();
+
+        long exportSequence = PreferencesHelper.getLastExportSequence(bookUID);
+        if (exportSequence != PreferencesHelper.NO_EXPORT_SEQUENCE)
+            sequence = Math.min(sequence, exportSequence);
+
+        //disabled backups keep their sequence too, they may be enabled again
+        Cursor cursor = mDb.query(DatabaseSchema.ScheduledActionEntry.TABLE_NAME,
+                new String[]{DatabaseSchema.ScheduledActionEntry.COLUMN_UID},
+                DatabaseSchema.ScheduledActionEntry.COLUMN_TYPE + " = ?",
+                new String[]{ScheduledAction.ActionType.BACKUP.name()}, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                long backupSequence = PreferencesHelper.getScheduledExportSequence(bookUID, cursor.getString(0));
+                if (backupSequence != PreferencesHelper.NO_EXPORT_SEQUENCE)
+                    sequence = Math.min(sequence, backupSequence);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        long syncSequence = PreferencesHelper.getLastSyncSequence(bookUID);
+        if (syncSequence != PreferencesHelper.NO_SYNC_SEQUENCE)
+            sequence = Math.min(sequence, syncSequence);
+
+        long autofillSequence = getAutofillIndex().readChangeSequence();
+        if (autofillSequence >= 0)
+            sequence = Math.min(sequence, autofillSequence);
+
+        int count = transactionsDbAdapter.deleteChangesBefore(sequence);
+        Log.d(LOG_TAG, "Deleted " + count + " change log rows before sequence " + sequence);
+        return count;
+    }
+
+    /**
+     * Returns the snapshot of the account metadata of this book, reading it if necessary.
+     * <p>A snapshot read inside a database transaction is read again after the transaction,
+     * as it may contain changes which were rolled back</p>
+     * @return Current account directory
+     */
+    public AccountDirectory getAccountDirectory() {
+        AccountDirectory directory = mAccountDirectory;
+        if (directory != null && !(directory.isProvisional() && !mDb.inTransaction()))
+            return directory;
+
+        long generation;
+        synchronized (mDirectoryLock) {
+            generation = mDirectoryGeneration;
+        }
+        directory = AccountDirectory.load(mDb);
+        synchronized (mDirectoryLock) {
+            //do not publish a snapshot if the accounts were written while it was read
+            if (generation == mDirectoryGeneration)
+                mAccountDirectory = directory;
+        }
+        return directory;
+    }
+
+    /**
+     * Drops the account directory if a change affects it, so that it is read again on next use
+     * @param change Change written to the database of this session
+     */
+    public void onDatabaseChange(@NonNull DatabaseChange change) {
+        String tableName = change.getTableName();
+        if (tableName.equals(DatabaseSchema.AccountEntry.TABLE_NAME)
+                || tableName.equals(DatabaseSchema.CommodityEntry.TABLE_NAME)) {
+            synchronized (mDirectoryLock) {
+                mDirectoryGeneration++;
+                mAccountDirectory = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the sorted accounts for the account pickers, built from the current {@link AccountDirectory}
+     * @return Account picker model, shared until the accounts change
+     */
+    public AccountPickerModel getAccountPickerModel() {
+        AccountDirectory directory = getAccountDirectory();
+        AccountPickerModel model = mAccountPickerModel;
+        if (model == null || model.getDirectory() != directory) {
+            model = new AccountPickerModel(directory);
+            mAccountPickerModel = model;
+        }
+        return model;
+    }
+
+    /**
+     * Publishes a change written to the database of this session on the {@link DatabaseChangeBus}.
+     * <p>If the change was written inside a database transaction, it is held back until
+     * {@link #publishPendingChanges()} is called after the transaction</p>
+     * @param change Change written to the database of this session
+     */
+    public void publishChange(@NonNull DatabaseChange change) {
+        if (mDb.inTransaction()) {
+            mPendingChanges.get().add(change);
+            return;
+        }
+        publishPendingChanges();
+        DatabaseChangeBus.post(change);
+    }
+
+    /**
+     * Publishes the changes held back while the current thread was in a database transaction.
+     * <p>Does nothing while the thread is still in a transaction, so it can be called after ending
+     * nested transactions as well. The changes of a transaction which was rolled back are published too;
+     * subscribers read the database again anyway and find nothing changed.</p>
+     */
+    public void publishPendingChanges() {
+        if (mDb.inTransaction())
+            return;
+        List<DatabaseChange> pendingChanges = mPendingChanges.get();
+        if (pendingChanges.isEmpty())
+            return;
+        List<DatabaseChange> changes = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        for (DatabaseChange change : changes) {
+            DatabaseChangeBus.post(change);
+        }
+    }
+}
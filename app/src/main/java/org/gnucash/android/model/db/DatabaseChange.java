@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db;
+
+import androidx.annotation.NonNull;
+
+import org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
+import org.gnucash.android.model.db.DatabaseSchema.PriceEntry;
+import org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
+import org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes a write to one table of the database, as published on the {@link DatabaseChangeBus}.
+ * <p>A change is either a <em>table change</em>, when the affected rows are not known (e.g. bulk
+ * imports or deleting all records), or a <em>record change</em> which carries the GUIDs of the
+ * changed records, as well as the accounts and transactions whose data or balances may have changed.</p>
+ * <p>For changes to transactions and splits, the accounts include those the splits belonged to
+ * before the change, so that moving a split to another account affects both of them.
+ * Ancestors of the accounts are not included.</p>
+ */
+public final class DatabaseChange {
+
+    /**
+     * Tables whose table changes affect the balances of any account
+     */
+    private static final List<String> BALANCE_TABLES = Arrays.asList(AccountEntry.TABLE_NAME,
+            TransactionEntry.TABLE_NAME, SplitEntry.TABLE_NAME, PriceEntry.TABLE_NAME);
+
+    private final String mTableName;
+    private final boolean mTableChange;
+    private final Set<String> mRecordUIDs;
+    private final Set<String> mAccountUIDs;
+    private final Set<String> mTransactionUIDs;
+
+    private DatabaseChange(String tableName, boolean tableChange, Set<String> recordUIDs,
+                           Set<String> accountUIDs, Set<String> transactionUIDs) {
+        mTableName = tableName;
+        mTableChange = tableChange;
+        mRecordUIDs = Collections.unmodifiableSet(recordUIDs);
+        mAccountUIDs = Collections.unmodifiableSet(accountUIDs);
+        mTransactionUIDs = Collections.unmodifiableSet(transactionUIDs);
+    }
+
+    /**
+     * Creates a change to an unknown set of rows in a table
+     * @param tableName Name of the changed table
+     * @return Table change
+     */
+    public static DatabaseChange forTable(@NonNull String tableName) {
+        Set<String> none = Collections.emptySet();
+        return new DatabaseChange(tableName, true, none, none, none);
+    }
+
+    /**
+     * Returns the name of the changed table
+     * @return Table name, see {@link DatabaseSchema}
+     */
+    public String getTableName() {
+        return mTableName;
+    }
+
+    /**
+     * Returns {@code true} if the changed rows are not known and any row of the table may have changed
+     * @return {@code true} for table changes, {@code false} for record changes
+     */
+    public boolean isTableChange() {
+        return mTableChange;
+    }
+
+    /**
+     * Returns the GUIDs of the changed records, empty for table changes
+     * @return Set of record GUIDs
+     */
+    public Set<String> getRecordUIDs() {
+        return mRecordUIDs;
+    }
+
+    /**
+     * Returns the GUIDs of the accounts affected by a record change
+     * @return Set of account GUIDs
+     */
+    public Set<String> getAccountUIDs() {
+        return mAccountUIDs;
+    }
+
+    /**
+     * Returns the GUIDs of the transactions affected by a record change
+     * @return Set of transaction GUIDs
+     */
+    public Set<String> getTransactionUIDs() {
+        return mTransactionUIDs;
+    }
+
+    /**
+     * Returns {@code true} if the balance of any account may have changed.
+     * <p>This is the case for table changes to accounts, transactions or splits,
+     * and for any change to the prices</p>
+     * @return {@code true} if all account balances should be considered stale
+     */
+    public boolean affectsAllBalances() {
+        return mTableName.equals(PriceEntry.TABLE_NAME)
+                || (mTableChange && BALANCE_TABLES.contains(mTableName));
+    }
+
+    /**
+     * Returns {@code true} if the data or the balance of the account may have changed.
+     * <p>Changes to sub-accounts are not taken into account</p>
+     * @param accountUID GUID of the account
+     * @return {@code true} if data derived from the account should be considered stale
+     */
+    public boolean affectsAccount(String accountUID) {
+        return affectsAllBalances() || mAccountUIDs.contains(accountUID);
+    }
+
+    @Override
+    public String toString() {
+        if (mTableChange)
+            return "DatabaseChange{" + mTableName + " table}";
+        return "DatabaseChange{" + mTableName + " records=" + mRecordUIDs.size()
+                + " accounts=" + mAccountUIDs.size() + " transactions=" + mTransactionUIDs.size() + "}";
+    }
+
+    /**
+     * Builder for record changes
+     */
+    public static final class Builder {
+        private final String mTableName;
+        private final Set<String> mRecordUIDs = new HashSet<>();
+        private final Set<String> mAccountUIDs = new HashSet<>();
+        private final Set<String> mTransactionUIDs = new HashSet<>();
+
+        /**
+         * Starts a record change
+         * @param tableName Name of the changed table
+         */
+        public Builder(@NonNull String tableName) {
+            mTableName = tableName;
+        }
+
+        public Builder addRecordUID(String recordUID) {
+            if (recordUID != null)
+                mRecordUIDs.add(recordUID);
+            return this;
+        }
+
+        public Builder addRecordUIDs(Collection<String> recordUIDs) {
+            mRecordUIDs.addAll(recordUIDs);
+            return this;
+        }
+
+        public Builder addAccountUID(String accountUID) {
+            if (accountUID != null)
+                mAccountUIDs.add(accountUID);
+            return this;
+        }
+
+        public Builder addAccountUIDs(Collection<String> accountUIDs) {
+            mAccountUIDs.addAll(accountUIDs);
+            return this;
+        }
+
+        public Builder addTransactionUID(String transactionUID) {
+            if (transactionUID != null)
+                mTransactionUIDs.add(transactionUID);
+            return this;
+        }
+
+        public Builder addTransactionUIDs(Collection<String> transactionUIDs) {
+            mTransactionUIDs.addAll(transactionUIDs);
+            return this;
+        }
+
+        public DatabaseChange build() {
+            return new DatabaseChange(mTableName, false, new HashSet<>(mRecordUIDs),
+                    new HashSet<>(mAccountUIDs), new HashSet<>(mTransactionUIDs));
+        }
+    }
+}
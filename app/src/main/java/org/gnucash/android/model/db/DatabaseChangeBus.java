@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.gnucash.android.model.db.adapter.DatabaseAdapter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+
+/**
+ * Publishes the changes written through the {@link DatabaseAdapter}s.
+ * <p>Changes are published synchronously on the writing thread, after the enclosing database
+ * transaction has ended (see {@link BookSession#publishChange(DatabaseChange)}). Subscribers should
+ * observe them on another thread, usually batched with {@link #batchedChanges(long)}, and must not block.</p>
+ * <p>This replaces reloading every list and report after each edit: subscribers reload or
+ * invalidate only what the change affects.</p>
+ */
+public final class DatabaseChangeBus {
+
+    private static final String LOG_TAG = "DatabaseChangeBus";
+
+    /**
+     * Default time without further changes after which a batch of changes is delivered
+     */
+    public static final long DEFAULT_BATCH_MILLIS = 100;
+
+    private static final Subject<DatabaseChange> CHANGES = PublishSubject.<DatabaseChange>create().toSerialized();
+
+    private DatabaseChangeBus() {
+        //utility class
+    }
+
+    /**
+     * Publishes a change to all subscribers
+     * @param change Change written to the database
+     */
+    public static void post(@NonNull DatabaseChange change) {
+        if (Log.isLoggable(LOG_TAG, Log.VERBOSE))
+            Log.v(LOG_TAG, "Posting " + change);
+        CHANGES.onNext(change);
+    }
+
+    /**
+     * Returns the stream of individual changes.
+     * <p>Observers are called on the writing thread</p>
+     * @return Observable of database changes
+     */
+    public static Observable<DatabaseChange> changes() {
+        return CHANGES;
+    }
+
+    /**
+     * Returns the stream of changes, batched until no change has been posted for {@code quietMillis}.
+     * <p>A single save usually posts several changes, e.g. for a transaction and each of its splits,
+     * which are delivered together</p>
+     * @param quietMillis Time without changes after which the batch is delivered
+     * @return Observable of lists of changes
+     */
+    public static Observable<List<DatabaseChange>> batchedChanges(long quietMillis) {
+        return CHANGES.publish(shared -> shared.buffer(shared.debounce(quietMillis, TimeUnit.MILLISECONDS)));
+    }
+}
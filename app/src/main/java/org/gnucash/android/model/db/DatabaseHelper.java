@@ -19,6 +19,7 @@ package org.gnucash.android.model.db;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.text.TextUtils;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -211,6 +212,110 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             + createUpdatedAtTrigger(DatabaseSchema.RecurrenceEntry.TABLE_NAME);
 
 
+    private static final String ACCOUNT_STATS_TABLE_CREATE = "CREATE TABLE " + DatabaseSchema.AccountStatsEntry.TABLE_NAME + " ("
+            + DatabaseSchema.AccountStatsEntry.COLUMN_ACCOUNT_UID       + " varchar(255) primary key, "
+            + DatabaseSchema.AccountStatsEntry.COLUMN_TRANSACTION_COUNT + " integer not null default 0, "
+            + DatabaseSchema.AccountStatsEntry.COLUMN_SPLIT_COUNT       + " integer not null default 0, "
+            + DatabaseSchema.AccountStatsEntry.COLUMN_CHILD_COUNT       + " integer not null default 0)";
+
+    /**
+     * Query computing the account statistics from the accounts and splits tables.
+     * <p>The columns are named and ordered like those of the account statistics table:
+     * account UID, transaction count, split count and child count</p>
+     */
+    public static final String ACCOUNT_STATS_QUERY = "SELECT "
+            + "a." + DatabaseSchema.AccountEntry.COLUMN_UID + " AS " + DatabaseSchema.AccountStatsEntry.COLUMN_ACCOUNT_UID + ", "
+            + "IFNULL(s.transaction_count, 0) AS " + DatabaseSchema.AccountStatsEntry.COLUMN_TRANSACTION_COUNT + ", "
+            + "IFNULL(s.split_count, 0) AS " + DatabaseSchema.AccountStatsEntry.COLUMN_SPLIT_COUNT + ", "
+            + "IFNULL(c.child_count, 0) AS " + DatabaseSchema.AccountStatsEntry.COLUMN_CHILD_COUNT + " "
+            + "FROM " + DatabaseSchema.AccountEntry.TABLE_NAME + " a "
+            + "LEFT JOIN (SELECT " + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + ", "
+            + "    COUNT(DISTINCT " + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID + ") AS transaction_count, "
+            + "    COUNT(*) AS split_count "
+            + "    FROM " + DatabaseSchema.SplitEntry.TABLE_NAME
+            + "    GROUP BY " + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + ") s "
+            + "ON s." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + " = a." + DatabaseSchema.AccountEntry.COLUMN_UID + " "
+            + "LEFT JOIN (SELECT " + DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID + ", COUNT(*) AS child_count "
+            + "    FROM " + DatabaseSchema.AccountEntry.TABLE_NAME
+            + "    GROUP BY " + DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID + ") c "
+            + "ON c." + DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = a." + DatabaseSchema.AccountEntry.COLUMN_UID;
+
+    private static final String SPLIT_ROLLUP_TABLE_CREATE = "CREATE TABLE " + DatabaseSchema.SplitRollupEntry.TABLE_NAME + " ("
+            + DatabaseSchema.SplitRollupEntry.COLUMN_ACCOUNT_UID     + " varchar(255) not null, "
+            + DatabaseSchema.SplitRollupEntry.COLUMN_DAY             + " integer not null, "
+            + DatabaseSchema.SplitRollupEntry.COLUMN_QUANTITY_DENOM  + " integer not null, "
+            + DatabaseSchema.SplitRollupEntry.COLUMN_AMOUNT_NUM      + " integer not null default 0, "
+            + DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT     + " integer not null default 0, "
+            + "PRIMARY KEY (" + DatabaseSchema.SplitRollupEntry.COLUMN_ACCOUNT_UID + ", "
+            + DatabaseSchema.SplitRollupEntry.COLUMN_DAY + ", "
+            + DatabaseSchema.SplitRollupEntry.COLUMN_QUANTITY_DENOM + "))";
+
+    /**
+     * Names of the triggers which maintain the split rollups table
+     */
+    private static final String[] SPLIT_ROLLUP_TRIGGERS = {
+            "split_rollup_split_insert", "split_rollup_split_replace", "split_rollup_split_delete",
+            "split_rollup_split_update", "split_rollup_transaction_replace",
+            "split_rollup_transaction_delete", "split_rollup_transaction_update"};
+
+    /**
+     * Query computing the split rollups from the splits and transactions tables.
+     * <p>The columns are named and ordered like those of the split rollups table:
+     * account UID, day, quantity denominator, amount numerator and split count</p>
+     */
+    public static final String SPLIT_ROLLUP_QUERY = "SELECT "
+            + "s." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + " AS " + DatabaseSchema.SplitRollupEntry.COLUMN_ACCOUNT_UID + ", "
+            + dayOf("t." + DatabaseSchema.TransactionEntry.COLUMN_TIMESTAMP) + " AS " + DatabaseSchema.SplitRollupEntry.COLUMN_DAY + ", "
+            + "s." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM + " AS " + DatabaseSchema.SplitRollupEntry.COLUMN_QUANTITY_DENOM + ", "
+            + "SUM(" + signedQuantity("s") + ") AS " + DatabaseSchema.SplitRollupEntry.COLUMN_AMOUNT_NUM + ", "
+            + "COUNT(*) AS " + DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT + " "
+            + "FROM " + DatabaseSchema.SplitEntry.TABLE_NAME + " s "
+            + "INNER JOIN " + DatabaseSchema.TransactionEntry.TABLE_NAME + " t "
+            + "ON t." + DatabaseSchema.TransactionEntry.COLUMN_UID + " = s." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID + " "
+            + "WHERE t." + DatabaseSchema.TransactionEntry.COLUMN_TEMPLATE + " = 0 "
+            + "GROUP BY s." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + ", "
+            + DatabaseSchema.SplitRollupEntry.COLUMN_DAY + ", s." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM;
+
+    /**
+     * SQL statement to create the change log table
+     */
+    private static final String CHANGE_LOG_TABLE_CREATE = "CREATE TABLE " + DatabaseSchema.ChangeLogEntry.TABLE_NAME + " ("
+            + DatabaseSchema.ChangeLogEntry.COLUMN_SEQUENCE          + " integer primary key autoincrement, "
+            + DatabaseSchema.ChangeLogEntry.COLUMN_TABLE_NAME        + " varchar(255) not null, "
+            + DatabaseSchema.ChangeLogEntry.COLUMN_RECORD_UID        + " varchar(255) not null, "
+            + DatabaseSchema.ChangeLogEntry.COLUMN_OPERATION         + " char(1) not null, "
+            + DatabaseSchema.ChangeLogEntry.COLUMN_TRANSACTION_UID   + " varchar(255), "
+            + DatabaseSchema.ChangeLogEntry.COLUMN_ACCOUNT_UID       + " varchar(255))";
+
+    /**
+     * Names of the triggers which fill the change log table
+     */
+    private static final String[] CHANGE_LOG_TRIGGERS = {
+            "change_log_account_insert", "change_log_account_update", "change_log_account_delete",
+            "change_log_transaction_insert", "change_log_transaction_update", "change_log_transaction_delete",
+            "change_log_split_insert", "change_log_split_update", "change_log_split_delete"};
+
+    /**
+     * SQL statement to create the autofill entries table
+     */
+    private static final String AUTOFILL_ENTRIES_TABLE_CREATE = "CREATE TABLE " + DatabaseSchema.AutofillEntry.TABLE_NAME + " ("
+            + DatabaseSchema.AutofillEntry.COLUMN_ID                 + " integer primary key autoincrement, "
+            + DatabaseSchema.AutofillEntry.COLUMN_KEY                + " varchar(255) not null, "
+            + DatabaseSchema.AutofillEntry.COLUMN_DESCRIPTION        + " varchar(255) not null, "
+            + DatabaseSchema.AutofillEntry.COLUMN_NOTES              + " text, "
+            + DatabaseSchema.AutofillEntry.COLUMN_CURRENCY           + " varchar(255) not null, "
+            + DatabaseSchema.AutofillEntry.COLUMN_SPLITS             + " text not null, "
+            + DatabaseSchema.AutofillEntry.COLUMN_USE_COUNT          + " integer not null default 0, "
+            + DatabaseSchema.AutofillEntry.COLUMN_LAST_USED          + " integer not null default 0)";
+
+    /**
+     * SQL statement to create the autofill sources table
+     */
+    private static final String AUTOFILL_SOURCES_TABLE_CREATE = "CREATE TABLE " + DatabaseSchema.AutofillSourceEntry.TABLE_NAME + " ("
+            + DatabaseSchema.AutofillSourceEntry.COLUMN_TRANSACTION_UID  + " varchar(255) primary key, "
+            + DatabaseSchema.AutofillSourceEntry.COLUMN_ENTRY_ID         + " integer not null, "
+            + DatabaseSchema.AutofillSourceEntry.COLUMN_TIMESTAMP        + " integer not null)";
+
     /**
 	 * Constructor
 	 * @param context Application context
@@ -236,6 +341,485 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + "  END;";
     }
 
+    /**
+     * Creates the account statistics table, together with the triggers which keep it up to date
+     * and the indexes they need.
+     * <p>The counters are maintained by triggers so that every write path, including bulk inserts
+     * and set-based updates, keeps them consistent. Since the recursive triggers are disabled,
+     * the rows deleted by a REPLACE statement do not fire the delete triggers; BEFORE INSERT
+     * triggers take care of the replaced rows instead. For the same reason, the statements in the
+     * triggers do not rely on conflict clauses, which would be overridden by the outer REPLACE.</p>
+     * <p>The table is left empty, it should be populated using {@link #ACCOUNT_STATS_QUERY}
+     * if the database already contains accounts</p>
+     * @param db Database in which to create the table
+     */
+    static void createAccountStatsTable(SQLiteDatabase db) {
+        final String stats      = DatabaseSchema.AccountStatsEntry.TABLE_NAME;
+        final String statsUID   = DatabaseSchema.AccountStatsEntry.COLUMN_ACCOUNT_UID;
+        final String childCount = DatabaseSchema.AccountStatsEntry.COLUMN_CHILD_COUNT;
+        final String accounts   = DatabaseSchema.AccountEntry.TABLE_NAME;
+        final String accountUID = DatabaseSchema.AccountEntry.COLUMN_UID;
+        final String parentUID  = DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID;
+        final String splits     = DatabaseSchema.SplitEntry.TABLE_NAME;
+        final String splitUID   = DatabaseSchema.SplitEntry.COLUMN_UID;
+
+        db.execSQL(ACCOUNT_STATS_TABLE_CREATE);
+
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + DatabaseSchema.SplitEntry.INDEX_TRANSACTION_ACCOUNT
+                + " ON " + splits + " (" + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID
+                + ", " + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + DatabaseSchema.TransactionEntry.INDEX_TEMPLATE
+                + " ON " + DatabaseSchema.TransactionEntry.TABLE_NAME
+                + " (" + DatabaseSchema.TransactionEntry.COLUMN_UID + ")"
+                + " WHERE " + DatabaseSchema.TransactionEntry.COLUMN_TEMPLATE + " = 1");
+
+        db.execSQL("CREATE TRIGGER account_stats_account_insert AFTER INSERT ON " + accounts
+                + " BEGIN "
+                + "INSERT INTO " + stats + " (" + statsUID + ", " + childCount + ")"
+                + " SELECT NEW." + accountUID + ", (SELECT COUNT(*) FROM " + accounts
+                + " WHERE " + parentUID + " = NEW." + accountUID + ")"
+                + " WHERE NOT EXISTS (SELECT 1 FROM " + stats + " WHERE " + statsUID + " = NEW." + accountUID + "); "
+                + updateChildCount("NEW." + parentUID, "+")
+                + " END");
+        db.execSQL("CREATE TRIGGER account_stats_account_replace BEFORE INSERT ON " + accounts
+                + " WHEN EXISTS (SELECT 1 FROM " + accounts + " WHERE " + accountUID + " = NEW." + accountUID + ")"
+                + " BEGIN "
+                + updateChildCount("(SELECT " + parentUID + " FROM " + accounts
+                        + " WHERE " + accountUID + " = NEW." + accountUID + ")", "-")
+                + " END");
+        db.execSQL("CREATE TRIGGER account_stats_account_delete AFTER DELETE ON " + accounts
+                + " BEGIN "
+                + updateChildCount("OLD." + parentUID, "-")
+                + "DELETE FROM " + stats + " WHERE " + statsUID + " = OLD." + accountUID + "; "
+                + " END");
+        db.execSQL("CREATE TRIGGER account_stats_account_update AFTER UPDATE OF " + parentUID + " ON " + accounts
+                + " WHEN OLD." + parentUID + " IS NOT NEW." + parentUID
+                + " BEGIN "
+                + updateChildCount("OLD." + parentUID, "-")
+                + updateChildCount("NEW." + parentUID, "+")
+                + " END");
+
+        db.execSQL("CREATE TRIGGER account_stats_split_insert AFTER INSERT ON " + splits
+                + " BEGIN "
+                + addSplitToStats("NEW")
+                + " END");
+        db.execSQL("CREATE TRIGGER account_stats_split_replace BEFORE INSERT ON " + splits
+                + " WHEN EXISTS (SELECT 1 FROM " + splits + " WHERE " + splitUID + " = NEW." + splitUID + ")"
+                + " BEGIN "
+                + "UPDATE " + stats + " SET "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_SPLIT_COUNT + " = "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_SPLIT_COUNT + " - 1, "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_TRANSACTION_COUNT + " = "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_TRANSACTION_COUNT + " - ("
+                + "(SELECT COUNT(*) FROM " + splits + " s INNER JOIN " + splits + " o"
+                + " ON s." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID + " = o." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID
+                + " AND s." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + " = o." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID
+                + " WHERE o." + splitUID + " = NEW." + splitUID + ") = 1)"
+                + " WHERE " + statsUID + " = (SELECT " + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID
+                + " FROM " + splits + " WHERE " + splitUID + " = NEW." + splitUID + "); "
+                + " END");
+        db.execSQL("CREATE TRIGGER account_stats_split_delete AFTER DELETE ON " + splits
+                + " BEGIN "
+                + removeSplitFromStats("OLD")
+                + " END");
+        db.execSQL("CREATE TRIGGER account_stats_split_update AFTER UPDATE OF "
+                + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + ", " + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID
+                + " ON " + splits
+                + " WHEN OLD." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + " IS NOT NEW." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID
+                + " OR OLD." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID + " IS NOT NEW." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID
+                + " BEGIN "
+                + removeSplitFromStats("OLD")
+                + addSplitToStats("NEW")
+                + " END");
+    }
+
+    /**
+     * Returns the trigger statement incrementing or decrementing the child count of an account
+     * @param parentUIDExpression SQL expression for the GUID of the parent account
+     * @param operator Either "+" or "-"
+     */
+    private static String updateChildCount(String parentUIDExpression, String operator) {
+        return "UPDATE " + DatabaseSchema.AccountStatsEntry.TABLE_NAME
+                + " SET " + DatabaseSchema.AccountStatsEntry.COLUMN_CHILD_COUNT + " = "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_CHILD_COUNT + " " + operator + " 1"
+                + " WHERE " + DatabaseSchema.AccountStatsEntry.COLUMN_ACCOUNT_UID + " = " + parentUIDExpression + "; ";
+    }
+
+    /**
+     * Returns the trigger statement counting a split which has just been stored.
+     * <p>The transaction is counted only if this is its first split in the account</p>
+     * @param row Either "NEW" or "OLD"
+     */
+    private static String addSplitToStats(String row) {
+        return "UPDATE " + DatabaseSchema.AccountStatsEntry.TABLE_NAME + " SET "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_SPLIT_COUNT + " = "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_SPLIT_COUNT + " + 1, "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_TRANSACTION_COUNT + " = "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_TRANSACTION_COUNT + " + ("
+                + "(SELECT COUNT(*) FROM " + DatabaseSchema.SplitEntry.TABLE_NAME
+                + " WHERE " + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID + " = " + row + "." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID
+                + " AND " + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + " = " + row + "." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID
+                + ") = 1)"
+                + " WHERE " + DatabaseSchema.AccountStatsEntry.COLUMN_ACCOUNT_UID + " = " + row + "." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + "; ";
+    }
+
+    /**
+     * Returns the trigger statement uncounting a split which is no longer stored.
+     * <p>The transaction is uncounted only if it has no other split left in the account</p>
+     * @param row Either "NEW" or "OLD"
+     */
+    private static String removeSplitFromStats(String row) {
+        return "UPDATE " + DatabaseSchema.AccountStatsEntry.TABLE_NAME + " SET "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_SPLIT_COUNT + " = "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_SPLIT_COUNT + " - 1, "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_TRANSACTION_COUNT + " = "
+                + DatabaseSchema.AccountStatsEntry.COLUMN_TRANSACTION_COUNT + " - ("
+                + "NOT EXISTS (SELECT 1 FROM " + DatabaseSchema.SplitEntry.TABLE_NAME
+                + " WHERE " + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID + " = " + row + "." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID
+                + " AND " + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + " = " + row + "." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID
+                + "))"
+                + " WHERE " + DatabaseSchema.AccountStatsEntry.COLUMN_ACCOUNT_UID + " = " + row + "." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + "; ";
+    }
+
+    /**
+     * Creates the split rollups table and the triggers which keep it up to date.
+     * <p>Each row holds the signed sum of the split quantities of an account on one day, so that
+     * balances over a period can be computed from a few rows instead of every split in the period.
+     * The triggers follow the same rules as those of the account statistics: replaced rows are
+     * handled in BEFORE INSERT triggers. Splits which are deleted together with their transaction
+     * are removed from the rollups by the transaction triggers, since the transaction row is already
+     * gone when the cascading delete reaches the splits.</p>
+     * <p>The table is left empty, it should be populated using {@link #SPLIT_ROLLUP_QUERY}</p>
+     * @param db Database
+     */
+    static void createSplitRollupTable(SQLiteDatabase db) {
+        db.execSQL(SPLIT_ROLLUP_TABLE_CREATE);
+        createSplitRollupTriggers(db);
+    }
+
+    /**
+     * Creates the triggers which maintain the split rollups table
+     * @param db Database
+     * @see #dropSplitRollupTriggers(SQLiteDatabase)
+     */
+    public static void createSplitRollupTriggers(SQLiteDatabase db) {
+        final String splits         = DatabaseSchema.SplitEntry.TABLE_NAME;
+        final String splitUID       = DatabaseSchema.SplitEntry.COLUMN_UID;
+        final String transactions   = DatabaseSchema.TransactionEntry.TABLE_NAME;
+        final String transactionUID = DatabaseSchema.TransactionEntry.COLUMN_UID;
+        final String timestamp      = DatabaseSchema.TransactionEntry.COLUMN_TIMESTAMP;
+        final String template       = DatabaseSchema.TransactionEntry.COLUMN_TEMPLATE;
+        final String replacedSplit  = "(SELECT %s FROM " + splits + " WHERE " + splitUID + " = NEW." + splitUID + ")";
+
+        db.execSQL("CREATE TRIGGER " + SPLIT_ROLLUP_TRIGGERS[0] + " AFTER INSERT ON " + splits
+                + " BEGIN "
+                + addSplitToRollups("NEW." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID,
+                        "NEW." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID,
+                        "NEW." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM, signedQuantity("NEW"))
+                + " END");
+        db.execSQL("CREATE TRIGGER " + SPLIT_ROLLUP_TRIGGERS[1] + " BEFORE INSERT ON " + splits
+                + " WHEN EXISTS (SELECT 1 FROM " + splits + " WHERE " + splitUID + " = NEW." + splitUID + ")"
+                + " BEGIN "
+                + removeSplitFromRollups(
+                        String.format(replacedSplit, DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID),
+                        String.format(replacedSplit, DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID),
+                        String.format(replacedSplit, DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM),
+                        String.format(replacedSplit, signedQuantity(splits)))
+                + " END");
+        db.execSQL("CREATE TRIGGER " + SPLIT_ROLLUP_TRIGGERS[2] + " AFTER DELETE ON " + splits
+                + " BEGIN "
+                + removeSplitFromRollups("OLD." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID,
+                        "OLD." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID,
+                        "OLD." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM, signedQuantity("OLD"))
+                + " END");
+        db.execSQL("CREATE TRIGGER " + SPLIT_ROLLUP_TRIGGERS[3] + " AFTER UPDATE OF "
+                + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + ", " + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID + ", "
+                + DatabaseSchema.SplitEntry.COLUMN_TYPE + ", " + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_NUM + ", "
+                + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM + " ON " + splits
+                + " BEGIN "
+                + removeSplitFromRollups("OLD." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID,
+                        "OLD." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID,
+                        "OLD." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM, signedQuantity("OLD"))
+                + addSplitToRollups("NEW." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID,
+                        "NEW." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID,
+                        "NEW." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM, signedQuantity("NEW"))
+                + " END");
+
+        db.execSQL("CREATE TRIGGER " + SPLIT_ROLLUP_TRIGGERS[4] + " BEFORE INSERT ON " + transactions
+                + " WHEN EXISTS (SELECT 1 FROM " + transactions + " WHERE " + transactionUID + " = NEW." + transactionUID
+                + " AND " + template + " = 0)"
+                + " BEGIN "
+                + updateTransactionRollups("NEW." + transactionUID, "(SELECT " + timestamp + " FROM " + transactions
+                        + " WHERE " + transactionUID + " = NEW." + transactionUID + ")", "-")
+                + " END");
+        db.execSQL("CREATE TRIGGER " + SPLIT_ROLLUP_TRIGGERS[5] + " BEFORE DELETE ON " + transactions
+                + " WHEN OLD." + template + " = 0"
+                + " BEGIN "
+                + updateTransactionRollups("OLD." + transactionUID, "OLD." + timestamp, "-")
+                + " END");
+        db.execSQL("CREATE TRIGGER " + SPLIT_ROLLUP_TRIGGERS[6] + " AFTER UPDATE OF " + timestamp + ", " + template
+                + " ON " + transactions
+                + " WHEN OLD." + timestamp + " IS NOT NEW." + timestamp + " OR OLD." + template + " IS NOT NEW." + template
+                + " BEGIN "
+                + updateTransactionRollups("OLD." + transactionUID, "CASE WHEN OLD." + template + " = 0 THEN OLD." + timestamp + " END", "-")
+                + updateTransactionRollups("NEW." + transactionUID, "CASE WHEN NEW." + template + " = 0 THEN NEW." + timestamp + " END", "+")
+                + " END");
+    }
+
+    /**
+     * Drops the triggers which maintain the split rollups table.
+     * <p>This speeds up bulk inserts, after which the triggers should be recreated with
+     * {@link #createSplitRollupTriggers(SQLiteDatabase)} and the table rebuilt.</p>
+     * @param db Database
+     */
+    public static void dropSplitRollupTriggers(SQLiteDatabase db) {
+        for (String trigger : SPLIT_ROLLUP_TRIGGERS) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + trigger);
+        }
+    }
+
+    /**
+     * Creates the change log table and the triggers which fill it.
+     * <p>Every insert, update and delete of an account, transaction or split appends a row to the log.
+     * Since replaced rows do not fire delete triggers, the insert triggers run before the insert and
+     * log an update if a row with the same GUID exists. Updates which only touch the export flag or the
+     * modification time are not logged, so that marking transactions as exported does not show up as a change.</p>
+     * @param db Database
+     */
+    static void createChangeLogTable(SQLiteDatabase db) {
+        db.execSQL(CHANGE_LOG_TABLE_CREATE);
+        createChangeLogTriggers(db);
+    }
+
+    /**
+     * Creates the tables of the transaction autofill index and their indexes.
+     * <p>The tables are left empty and without state row, so that the {@link AutofillIndex}
+     * builds them from the transactions on first use</p>
+     * @param db Database
+     */
+    static void createAutofillTables(SQLiteDatabase db) {
+        db.execSQL(AUTOFILL_ENTRIES_TABLE_CREATE);
+        db.execSQL(AUTOFILL_SOURCES_TABLE_CREATE);
+        db.execSQL("CREATE TABLE " + DatabaseSchema.AutofillStateEntry.TABLE_NAME + " ("
+                + DatabaseSchema.AutofillStateEntry.COLUMN_CHANGE_SEQUENCE + " integer not null)");
+        db.execSQL("CREATE INDEX " + DatabaseSchema.AutofillEntry.INDEX_KEY + " ON "
+                + DatabaseSchema.AutofillEntry.TABLE_NAME + "(" + DatabaseSchema.AutofillEntry.COLUMN_KEY + ")");
+        db.execSQL("CREATE INDEX " + DatabaseSchema.AutofillSourceEntry.INDEX_ENTRY_ID + " ON "
+                + DatabaseSchema.AutofillSourceEntry.TABLE_NAME + "(" + DatabaseSchema.AutofillSourceEntry.COLUMN_ENTRY_ID + ")");
+    }
+
+    /**
+     * Creates the triggers which fill the change log table
+     * @param db Database
+     * @see #dropChangeLogTriggers(SQLiteDatabase)
+     */
+    public static void createChangeLogTriggers(SQLiteDatabase db) {
+        final String accounts       = DatabaseSchema.AccountEntry.TABLE_NAME;
+        final String transactions   = DatabaseSchema.TransactionEntry.TABLE_NAME;
+        final String splits         = DatabaseSchema.SplitEntry.TABLE_NAME;
+        final String accountUID     = DatabaseSchema.AccountEntry.COLUMN_UID;
+        final String transactionUID = DatabaseSchema.TransactionEntry.COLUMN_UID;
+        final String splitUID       = DatabaseSchema.SplitEntry.COLUMN_UID;
+        final String splitTransactionUID = DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID;
+        final String splitAccountUID     = DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID;
+
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[0] + " BEFORE INSERT ON " + accounts
+                + " BEGIN " + logChange(accounts, "NEW." + accountUID, insertOrUpdate(accounts, accountUID), "NULL", "NEW." + accountUID) + " END");
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[1] + " AFTER UPDATE OF "
+                + TextUtils.join(", ", new String[]{accountUID,
+                        DatabaseSchema.AccountEntry.COLUMN_NAME, DatabaseSchema.AccountEntry.COLUMN_CURRENCY,
+                        DatabaseSchema.AccountEntry.COLUMN_COMMODITY_UID, DatabaseSchema.AccountEntry.COLUMN_DESCRIPTION,
+                        DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID, DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER,
+                        DatabaseSchema.AccountEntry.COLUMN_COLOR_CODE, DatabaseSchema.AccountEntry.COLUMN_FAVORITE,
+                        DatabaseSchema.AccountEntry.COLUMN_FULL_NAME, DatabaseSchema.AccountEntry.COLUMN_TYPE,
+                        DatabaseSchema.AccountEntry.COLUMN_HIDDEN, DatabaseSchema.AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID})
+                + " ON " + accounts
+                + " BEGIN " + logChange(accounts, "NEW." + accountUID, "'" + DatabaseSchema.ChangeLogEntry.OPERATION_UPDATE + "'", "NULL", "NEW." + accountUID) + " END");
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[2] + " AFTER DELETE ON " + accounts
+                + " BEGIN " + logChange(accounts, "OLD." + accountUID, "'" + DatabaseSchema.ChangeLogEntry.OPERATION_DELETE + "'", "NULL", "OLD." + accountUID) + " END");
+
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[3] + " BEFORE INSERT ON " + transactions
+                + " BEGIN " + logChange(transactions, "NEW." + transactionUID, insertOrUpdate(transactions, transactionUID), "NEW." + transactionUID, "NULL") + " END");
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[4] + " AFTER UPDATE OF "
+                + TextUtils.join(", ", new String[]{transactionUID,
+                        DatabaseSchema.TransactionEntry.COLUMN_DESCRIPTION, DatabaseSchema.TransactionEntry.COLUMN_NOTES,
+                        DatabaseSchema.TransactionEntry.COLUMN_CURRENCY, DatabaseSchema.TransactionEntry.COLUMN_COMMODITY_UID,
+                        DatabaseSchema.TransactionEntry.COLUMN_TIMESTAMP, DatabaseSchema.TransactionEntry.COLUMN_TEMPLATE,
+                        DatabaseSchema.TransactionEntry.COLUMN_SCHEDX_ACTION_UID})
+                + " ON " + transactions
+                + " BEGIN " + logChange(transactions, "NEW." + transactionUID, "'" + DatabaseSchema.ChangeLogEntry.OPERATION_UPDATE + "'", "NEW." + transactionUID, "NULL") + " END");
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[5] + " AFTER DELETE ON " + transactions
+                + " BEGIN " + logChange(transactions, "OLD." + transactionUID, "'" + DatabaseSchema.ChangeLogEntry.OPERATION_DELETE + "'", "OLD." + transactionUID, "NULL") + " END");
+
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[6] + " BEFORE INSERT ON " + splits
+                + " BEGIN " + logChange(splits, "NEW." + splitUID, insertOrUpdate(splits, splitUID), "NEW." + splitTransactionUID, "NEW." + splitAccountUID) + " END");
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[7] + " AFTER UPDATE OF "
+                + TextUtils.join(", ", new String[]{splitUID,
+                        DatabaseSchema.SplitEntry.COLUMN_TYPE, DatabaseSchema.SplitEntry.COLUMN_VALUE_NUM,
+                        DatabaseSchema.SplitEntry.COLUMN_VALUE_DENOM, DatabaseSchema.SplitEntry.COLUMN_QUANTITY_NUM,
+                        DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM, DatabaseSchema.SplitEntry.COLUMN_MEMO,
+                        splitAccountUID, splitTransactionUID, DatabaseSchema.SplitEntry.COLUMN_RECONCILE_STATE,
+                        DatabaseSchema.SplitEntry.COLUMN_RECONCILE_DATE})
+                + " ON " + splits
+                + " BEGIN " + logChange(splits, "NEW." + splitUID, "'" + DatabaseSchema.ChangeLogEntry.OPERATION_UPDATE + "'", "NEW." + splitTransactionUID, "NEW." + splitAccountUID) + " END");
+        db.execSQL("CREATE TRIGGER " + CHANGE_LOG_TRIGGERS[8] + " AFTER DELETE ON " + splits
+                + " BEGIN " + logChange(splits, "OLD." + splitUID, "'" + DatabaseSchema.ChangeLogEntry.OPERATION_DELETE + "'", "OLD." + splitTransactionUID, "OLD." + splitAccountUID) + " END");
+    }
+
+    /**
+     * Drops the triggers which fill the change log table.
+     * <p>Used for bulk inserts into a new book, whose records are all considered unchanged afterwards.</p>
+     * @param db Database
+     */
+    public static void dropChangeLogTriggers(SQLiteDatabase db) {
+        for (String trigger : CHANGE_LOG_TRIGGERS) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + trigger);
+        }
+    }
+
+    /**
+     * Returns the trigger statement appending a row to the change log
+     * @param tableName Name of the changed table
+     * @param recordUID SQL expression for the GUID of the changed record
+     * @param operation SQL expression for the operation
+     * @param transactionUID SQL expression for the GUID of the affected transaction
+     * @param accountUID SQL expression for the GUID of the affected account
+     */
+    private static String logChange(String tableName, String recordUID, String operation,
+                                    String transactionUID, String accountUID) {
+        return "INSERT INTO " + DatabaseSchema.ChangeLogEntry.TABLE_NAME + " ("
+                + DatabaseSchema.ChangeLogEntry.COLUMN_TABLE_NAME + ", " + DatabaseSchema.ChangeLogEntry.COLUMN_RECORD_UID + ", "
+                + DatabaseSchema.ChangeLogEntry.COLUMN_OPERATION + ", " + DatabaseSchema.ChangeLogEntry.COLUMN_TRANSACTION_UID + ", "
+                + DatabaseSchema.ChangeLogEntry.COLUMN_ACCOUNT_UID + ") VALUES ('" + tableName + "', " + recordUID + ", "
+                + operation + ", " + transactionUID + ", " + accountUID + "); ";
+    }
+
+    /**
+     * Returns an SQL expression for the operation of a row about to be inserted: an update if it replaces a row
+     * @param tableName Name of the table
+     * @param uidColumn Name of the GUID column
+     */
+    private static String insertOrUpdate(String tableName, String uidColumn) {
+        return "CASE WHEN EXISTS (SELECT 1 FROM " + tableName + " WHERE " + uidColumn + " = NEW." + uidColumn + ")"
+                + " THEN '" + DatabaseSchema.ChangeLogEntry.OPERATION_UPDATE + "'"
+                + " ELSE '" + DatabaseSchema.ChangeLogEntry.OPERATION_INSERT + "' END";
+    }
+
+    /**
+     * Returns an SQL expression for the rollup day of a timestamp, rounding down also for negative timestamps
+     * @param timestampExpression SQL expression for a timestamp in milliseconds
+     */
+    private static String dayOf(String timestampExpression) {
+        return "((" + timestampExpression + ") / " + DatabaseSchema.SplitRollupEntry.MILLIS_PER_DAY
+                + " - ((" + timestampExpression + ") < 0 AND (" + timestampExpression + ") % "
+                + DatabaseSchema.SplitRollupEntry.MILLIS_PER_DAY + " != 0))";
+    }
+
+    /**
+     * Returns an SQL expression for the split quantity numerator, negated for credits
+     * @param row Table name, alias, "NEW" or "OLD"
+     */
+    private static String signedQuantity(String row) {
+        return "CASE WHEN " + row + "." + DatabaseSchema.SplitEntry.COLUMN_TYPE + " = 'DEBIT' THEN "
+                + row + "." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_NUM + " ELSE -"
+                + row + "." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_NUM + " END";
+    }
+
+    /**
+     * Returns an SQL expression for the rollup day of a transaction, which is NULL for templates
+     * @param transactionUIDExpression SQL expression for the GUID of the transaction
+     */
+    private static String transactionDay(String transactionUIDExpression) {
+        return dayOf("SELECT " + DatabaseSchema.TransactionEntry.COLUMN_TIMESTAMP
+                + " FROM " + DatabaseSchema.TransactionEntry.TABLE_NAME
+                + " WHERE " + DatabaseSchema.TransactionEntry.COLUMN_UID + " = " + transactionUIDExpression
+                + " AND " + DatabaseSchema.TransactionEntry.COLUMN_TEMPLATE + " = 0");
+    }
+
+    /**
+     * Returns the SQL condition matching the rollup row of a split
+     */
+    private static String rollupKey(String accountUIDExpression, String dayExpression, String denomExpression) {
+        return DatabaseSchema.SplitRollupEntry.COLUMN_ACCOUNT_UID + " = " + accountUIDExpression
+                + " AND " + DatabaseSchema.SplitRollupEntry.COLUMN_DAY + " = " + dayExpression
+                + " AND " + DatabaseSchema.SplitRollupEntry.COLUMN_QUANTITY_DENOM + " = " + denomExpression;
+    }
+
+    /**
+     * Returns the trigger statements adding a split to its rollup row, creating the row if needed.
+     * Nothing is added if the transaction of the split does not exist or is a template.
+     */
+    private static String addSplitToRollups(String accountUID, String transactionUID, String denom, String amount) {
+        final String rollups = DatabaseSchema.SplitRollupEntry.TABLE_NAME;
+        final String day = transactionDay(transactionUID);
+        return "INSERT INTO " + rollups + " (" + DatabaseSchema.SplitRollupEntry.COLUMN_ACCOUNT_UID + ", "
+                + DatabaseSchema.SplitRollupEntry.COLUMN_DAY + ", " + DatabaseSchema.SplitRollupEntry.COLUMN_QUANTITY_DENOM + ")"
+                + " SELECT " + accountUID + ", " + day + ", " + denom
+                + " WHERE " + day + " IS NOT NULL"
+                + " AND NOT EXISTS (SELECT 1 FROM " + rollups + " WHERE " + rollupKey(accountUID, day, denom) + "); "
+                + "UPDATE " + rollups + " SET "
+                + DatabaseSchema.SplitRollupEntry.COLUMN_AMOUNT_NUM + " = " + DatabaseSchema.SplitRollupEntry.COLUMN_AMOUNT_NUM + " + (" + amount + "), "
+                + DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT + " = " + DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT + " + 1"
+                + " WHERE " + rollupKey(accountUID, day, denom) + "; ";
+    }
+
+    /**
+     * Returns the trigger statements removing a split from its rollup row, deleting the row once it is empty
+     */
+    private static String removeSplitFromRollups(String accountUID, String transactionUID, String denom, String amount) {
+        final String rollups = DatabaseSchema.SplitRollupEntry.TABLE_NAME;
+        final String day = transactionDay(transactionUID);
+        return "UPDATE " + rollups + " SET "
+                + DatabaseSchema.SplitRollupEntry.COLUMN_AMOUNT_NUM + " = " + DatabaseSchema.SplitRollupEntry.COLUMN_AMOUNT_NUM + " - (" + amount + "), "
+                + DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT + " = " + DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT + " - 1"
+                + " WHERE " + rollupKey(accountUID, day, denom) + "; "
+                + "DELETE FROM " + rollups + " WHERE " + rollupKey(accountUID, day, denom)
+                + " AND " + DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT + " = 0; ";
+    }
+
+    /**
+     * Returns the trigger statements adding or removing all splits of a transaction to or from the rollups
+     * @param transactionUID SQL expression for the GUID of the transaction
+     * @param timestamp SQL expression for the transaction timestamp. Nothing is changed if it is NULL
+     * @param operator Either "+" or "-"
+     */
+    private static String updateTransactionRollups(String transactionUID, String timestamp, String operator) {
+        final String rollups = DatabaseSchema.SplitRollupEntry.TABLE_NAME;
+        final String day = dayOf(timestamp);
+        final String transactionSplits = " FROM " + DatabaseSchema.SplitEntry.TABLE_NAME + " s"
+                + " WHERE s." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID + " = " + transactionUID;
+        final String rollupSplits = transactionSplits
+                + " AND s." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + " = " + rollups + "." + DatabaseSchema.SplitRollupEntry.COLUMN_ACCOUNT_UID
+                + " AND s." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM + " = " + rollups + "." + DatabaseSchema.SplitRollupEntry.COLUMN_QUANTITY_DENOM;
+
+        StringBuilder sql = new StringBuilder();
+        if ("+".equals(operator)) {
+            sql.append("INSERT INTO ").append(rollups).append(" (").append(DatabaseSchema.SplitRollupEntry.COLUMN_ACCOUNT_UID)
+                    .append(", ").append(DatabaseSchema.SplitRollupEntry.COLUMN_DAY)
+                    .append(", ").append(DatabaseSchema.SplitRollupEntry.COLUMN_QUANTITY_DENOM).append(")")
+                    .append(" SELECT DISTINCT s.").append(DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID)
+                    .append(", ").append(day).append(", s.").append(DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM)
+                    .append(transactionSplits).append(" AND ").append(day).append(" IS NOT NULL")
+                    .append(" AND NOT EXISTS (SELECT 1 FROM ").append(rollups).append(" r WHERE r.")
+                    .append(DatabaseSchema.SplitRollupEntry.COLUMN_ACCOUNT_UID).append(" = s.").append(DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID)
+                    .append(" AND r.").append(DatabaseSchema.SplitRollupEntry.COLUMN_DAY).append(" = ").append(day)
+                    .append(" AND r.").append(DatabaseSchema.SplitRollupEntry.COLUMN_QUANTITY_DENOM).append(" = s.").append(DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM)
+                    .append("); ");
+        }
+        sql.append("UPDATE ").append(rollups).append(" SET ")
+                .append(DatabaseSchema.SplitRollupEntry.COLUMN_AMOUNT_NUM).append(" = ").append(DatabaseSchema.SplitRollupEntry.COLUMN_AMOUNT_NUM)
+                .append(" ").append(operator).append(" (SELECT SUM(").append(signedQuantity("s")).append(")").append(rollupSplits).append("), ")
+                .append(DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT).append(" = ").append(DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT)
+                .append(" ").append(operator).append(" (SELECT COUNT(*)").append(rollupSplits).append(")")
+                .append(" WHERE ").append(DatabaseSchema.SplitRollupEntry.COLUMN_DAY).append(" = ").append(day)
+                .append(" AND EXISTS (SELECT 1").append(rollupSplits).append("); ");
+        if ("-".equals(operator)) {
+            sql.append("DELETE FROM ").append(rollups).append(" WHERE ").append(DatabaseSchema.SplitRollupEntry.COLUMN_DAY)
+                    .append(" = ").append(day).append(" AND ").append(DatabaseSchema.SplitRollupEntry.COLUMN_SPLIT_COUNT).append(" = 0; ");
+        }
+        return sql.toString();
+    }
+
 	@Override
 	public void onCreate(SQLiteDatabase db) {
 		createDatabaseTables(db);
@@ -290,6 +874,115 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 	}
 
 
+    /**
+     * Creates the views joining transactions, splits and accounts which are used by the queries of the adapters.
+     * <p>The views used to be created as temporary views by every database adapter.
+     * They are part of the schema since database version 19.</p>
+     * @param db Database
+     */
+    static void createViews(SQLiteDatabase db) {
+        // create a view, combining accounts, transactions and splits, as this is often used
+        // in the queries
+
+        //todo: would it be useful to add the split reconciled_state and reconciled_date to this view?
+        db.execSQL("CREATE VIEW IF NOT EXISTS trans_split_acct AS SELECT "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.CommonColumns.COLUMN_MODIFIED_AT + " AS "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.CommonColumns.COLUMN_MODIFIED_AT + " , "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.TransactionEntry.COLUMN_UID + " AS "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_UID + " , "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.TransactionEntry.COLUMN_DESCRIPTION + " AS "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_DESCRIPTION + " , "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.TransactionEntry.COLUMN_NOTES + " AS "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_NOTES + " , "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.TransactionEntry.COLUMN_CURRENCY + " AS "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_CURRENCY + " , "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.TransactionEntry.COLUMN_TIMESTAMP + " AS "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_TIMESTAMP + " , "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.TransactionEntry.COLUMN_EXPORTED + " AS "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_EXPORTED + " , "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.TransactionEntry.COLUMN_TEMPLATE + " AS "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_TEMPLATE + " , "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_UID + " AS "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "_" + DatabaseSchema.SplitEntry.COLUMN_UID + " , "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_TYPE + " AS "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "_" + DatabaseSchema.SplitEntry.COLUMN_TYPE + " , "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_VALUE_NUM + " AS "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "_" + DatabaseSchema.SplitEntry.COLUMN_VALUE_NUM + " , "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_VALUE_DENOM + " AS "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "_" + DatabaseSchema.SplitEntry.COLUMN_VALUE_DENOM + " , "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_NUM + " AS "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "_" + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_NUM + " , "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM + " AS "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "_" + DatabaseSchema.SplitEntry.COLUMN_QUANTITY_DENOM + " , "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_MEMO + " AS "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "_" + DatabaseSchema.SplitEntry.COLUMN_MEMO + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_UID + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_UID + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_NAME + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_NAME + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_CURRENCY + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_CURRENCY + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_COLOR_CODE + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_COLOR_CODE + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_FAVORITE + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_FAVORITE + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_FULL_NAME + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_FULL_NAME + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_TYPE + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_TYPE + " , "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + " AS "
+                        + DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID
+                        + " FROM " + DatabaseSchema.TransactionEntry.TABLE_NAME + " , " + DatabaseSchema.SplitEntry.TABLE_NAME + " ON "
+                        + DatabaseSchema.TransactionEntry.TABLE_NAME + "." + DatabaseSchema.TransactionEntry.COLUMN_UID + "=" + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_TRANSACTION_UID
+                        + " , " + DatabaseSchema.AccountEntry.TABLE_NAME + " ON "
+                        + DatabaseSchema.SplitEntry.TABLE_NAME + "." + DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + "=" + DatabaseSchema.AccountEntry.TABLE_NAME + "." + DatabaseSchema.AccountEntry.COLUMN_UID
+        );
+
+        // SELECT transactions_uid AS trans_acct_t_uid ,
+        //      SUBSTR (
+        //          MIN (
+        //              ( CASE WHEN IFNULL ( splits_memo , '' ) == '' THEN 'a' ELSE 'b' END ) || accounts_uid
+        //          ) ,
+        //          2
+        //      ) AS trans_acct_a_uid ,
+        //   TOTAL ( CASE WHEN splits_type = 'DEBIT' THEN splits_value_num
+        //                ELSE - splits_value_num END ) * 1.0 / splits_value_denom AS trans_acct_balance ,
+        //   COUNT ( DISTINCT accounts_currency_code ) AS trans_currency_count ,
+        //   COUNT (*) AS trans_split_count
+        //   FROM trans_split_acct GROUP BY transactions_uid
+        //
+        // This view would pick one Account_UID for each
+        // Transaction, which can be used to order all transactions. If possible, account_uid of a split whose
+        // memo is null is select.
+        //
+        // Transaction balance is also picked out by this view
+        // (the multiplication by 1.0 is to cause sqlite to handle the value as REAL and not to round off)
+        //
+        // a split without split memo is chosen if possible, in the following manner:
+        //   if the splits memo is null or empty string, attach an 'a' in front of the split account uid,
+        //   if not, attach a 'b' to the split account uid
+        //   pick the minimal value of the modified account uid (one of the ones begins with 'a', if exists)
+        //   use substr to get account uid
+
+        db.execSQL("CREATE VIEW IF NOT EXISTS trans_extra_info AS SELECT " + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_UID +
+                " AS trans_acct_t_uid , SUBSTR ( MIN ( ( CASE WHEN IFNULL ( " + DatabaseSchema.SplitEntry.TABLE_NAME + "_" +
+                DatabaseSchema.SplitEntry.COLUMN_MEMO + " , '' ) == '' THEN 'a' ELSE 'b' END ) || " +
+                DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_UID +
+                " ) , 2 ) AS trans_acct_a_uid , TOTAL ( CASE WHEN " + DatabaseSchema.SplitEntry.TABLE_NAME + "_" +
+                DatabaseSchema.SplitEntry.COLUMN_TYPE + " = 'DEBIT' THEN "+ DatabaseSchema.SplitEntry.TABLE_NAME + "_" +
+                DatabaseSchema.SplitEntry.COLUMN_VALUE_NUM + " ELSE - " + DatabaseSchema.SplitEntry.TABLE_NAME + "_" +
+                DatabaseSchema.SplitEntry.COLUMN_VALUE_NUM + " END ) * 1.0 / " + DatabaseSchema.SplitEntry.TABLE_NAME + "_" +
+                DatabaseSchema.SplitEntry.COLUMN_VALUE_DENOM + " AS trans_acct_balance , COUNT ( DISTINCT " +
+                DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_CURRENCY +
+                " ) AS trans_currency_count , COUNT (*) AS trans_split_count FROM trans_split_acct " +
+                " GROUP BY " + DatabaseSchema.TransactionEntry.TABLE_NAME + "_" + DatabaseSchema.TransactionEntry.COLUMN_UID
+        );
+    }
+
     /**
      * Creates the tables in the database and import default commodities into the database
      * @param db Database instance
@@ -344,6 +1037,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(createRecurrenceUidIndex);
         db.execSQL(createBudgetAmountUidIndex);
 
+        createAccountStatsTable(db);
+        createSplitRollupTable(db);
+        createChangeLogTable(db);
+        createAutofillTables(db);
+        createViews(db);
+
         try {
             MigrationHelper.importCommodities(db);
         } catch (SAXException | ParserConfigurationException | IOException e) {
@@ -39,7 +39,7 @@ public class DatabaseSchema {
      * Version number of database containing accounts and transactions info.
      * With any change to the database schema, this number must increase
      */
-    public static final int DATABASE_VERSION = 15;
+    public static final int DATABASE_VERSION = 20;
 
     /**
      * Name of the database
@@ -118,6 +118,7 @@ public class DatabaseSchema {
         public static final String COLUMN_SCHEDX_ACTION_UID     = "scheduled_action_uid";
 
         public static final String INDEX_UID                    = "transaction_uid_index";
+        public static final String INDEX_TEMPLATE               = "transaction_template_index";
     }
 
     /**
@@ -147,6 +148,142 @@ public class DatabaseSchema {
         public static final String COLUMN_RECONCILE_DATE        = "reconcile_date";
 
         public static final String INDEX_UID                    = "split_uid_index";
+        public static final String INDEX_TRANSACTION_ACCOUNT    = "split_transaction_account_index";
+    }
+
+    /**
+     * Column schema for the account statistics table.
+     * <p>The table holds one row per account with counters which are kept up to date by triggers
+     * on the accounts and splits tables. Template transactions are included in the counts.</p>
+     */
+    public static abstract class AccountStatsEntry {
+        public static final String TABLE_NAME                   = "account_stats";
+
+        public static final String COLUMN_ACCOUNT_UID           = "account_uid";
+        /**
+         * Number of distinct transactions with at least one split in the account
+         */
+        public static final String COLUMN_TRANSACTION_COUNT     = "transaction_count";
+        public static final String COLUMN_SPLIT_COUNT           = "split_count";
+        /**
+         * Number of direct sub-accounts of the account
+         */
+        public static final String COLUMN_CHILD_COUNT           = "child_count";
+    }
+
+    /**
+     * Column schema for the split rollups table.
+     * <p>The table holds the signed sum of the split quantities of each account per day, kept up to date
+     * by triggers on the splits and transactions tables. Debits are positive, credits negative.
+     * Splits of template transactions are not included.</p>
+     */
+    public static abstract class SplitRollupEntry {
+        public static final String TABLE_NAME                   = "split_rollups";
+
+        public static final String COLUMN_ACCOUNT_UID           = "account_uid";
+        /**
+         * Day of the transaction timestamp, counted in whole days since the epoch (UTC)
+         */
+        public static final String COLUMN_DAY                   = "day";
+        public static final String COLUMN_QUANTITY_DENOM        = "quantity_denom";
+        public static final String COLUMN_AMOUNT_NUM            = "amount_num";
+        public static final String COLUMN_SPLIT_COUNT           = "split_count";
+
+        /**
+         * Length of the period covered by one rollup row
+         */
+        public static final long MILLIS_PER_DAY                 = 24 * 60 * 60 * 1000L;
+    }
+
+    /**
+     * Column schema for the change log table.
+     * <p>The table is append-only and filled by triggers on the accounts, transactions and splits tables.
+     * The row ID is the sequence number of the change, which only ever increases, so that consumers
+     * such as incremental exports can fetch the changes since the last sequence they processed.
+     * Rows replaced by a save are logged as updates, rows deleted by cascading deletes are logged too.</p>
+     */
+    public static abstract class ChangeLogEntry {
+        public static final String TABLE_NAME                   = "change_log";
+
+        /**
+         * Sequence number of the change
+         */
+        public static final String COLUMN_SEQUENCE              = "_id";
+        public static final String COLUMN_TABLE_NAME            = "table_name";
+        public static final String COLUMN_RECORD_UID            = "record_uid";
+        /**
+         * One of {@link #OPERATION_INSERT}, {@link #OPERATION_UPDATE} or {@link #OPERATION_DELETE}
+         */
+        public static final String COLUMN_OPERATION             = "operation";
+        /**
+         * GUID of the changed transaction, or of the transaction of the changed split.
+         * <code>null</code> for accounts
+         */
+        public static final String COLUMN_TRANSACTION_UID       = "transaction_uid";
+        /**
+         * GUID of the changed account, or of the account of the changed split.
+         * <code>null</code> for transactions
+         */
+        public static final String COLUMN_ACCOUNT_UID           = "account_uid";
+
+        public static final String OPERATION_INSERT             = "I";
+        public static final String OPERATION_UPDATE             = "U";
+        public static final String OPERATION_DELETE             = "D";
+    }
+
+    /**
+     * Column schema for the autofill entries table.
+     * <p>Each row is one way a transaction description has been booked: the normalized description,
+     * the currency and the encoded split template (accounts, amounts and memos) of the transactions
+     * which used it, with the number of those transactions and the time of the latest one.
+     * The table is derived from the transactions and maintained from the change log,
+     * see {@link AutofillIndex}.</p>
+     */
+    public static abstract class AutofillEntry {
+        public static final String TABLE_NAME                   = "autofill_entries";
+
+        public static final String COLUMN_ID                    = "_id";
+        /**
+         * Normalized description, see {@link AutofillIndex#normalize(String)}
+         */
+        public static final String COLUMN_KEY                   = "key";
+        /**
+         * Description and note of the latest transaction of the entry
+         */
+        public static final String COLUMN_DESCRIPTION           = "description";
+        public static final String COLUMN_NOTES                 = "notes";
+        public static final String COLUMN_CURRENCY              = "currency_code";
+        public static final String COLUMN_SPLITS                = "splits";
+        public static final String COLUMN_USE_COUNT             = "use_count";
+        public static final String COLUMN_LAST_USED             = "last_used";
+
+        public static final String INDEX_KEY                    = "autofill_key_index";
+    }
+
+    /**
+     * Column schema for the autofill sources table.
+     * <p>Records the autofill entry each transaction was counted in, so that the transaction
+     * can be taken out of the entry again when it is changed or deleted</p>
+     */
+    public static abstract class AutofillSourceEntry {
+        public static final String TABLE_NAME                   = "autofill_sources";
+
+        public static final String COLUMN_TRANSACTION_UID       = "transaction_uid";
+        public static final String COLUMN_ENTRY_ID              = "entry_id";
+        public static final String COLUMN_TIMESTAMP             = "timestamp";
+
+        public static final String INDEX_ENTRY_ID               = "autofill_source_entry_index";
+    }
+
+    /**
+     * Column schema for the autofill state table.
+     * <p>The table holds at most one row, with the sequence number of the last change log entry
+     * applied to the autofill tables. Without a row, the tables are rebuilt on next use.</p>
+     */
+    public static abstract class AutofillStateEntry {
+        public static final String TABLE_NAME                   = "autofill_state";
+
+        public static final String COLUMN_CHANGE_SEQUENCE       = "change_sequence";
     }
 
     public static abstract class ScheduledActionEntry implements CommonColumns {
@@ -24,6 +24,7 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.os.Environment;
 import android.text.TextUtils;
 import android.util.Log;
@@ -50,8 +51,10 @@ import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
 import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -221,9 +224,73 @@ public class MigrationHelper {
     };
 
     /**
-     * Imports commodities into the database from XML resource file
+     * Name of the asset holding the precompiled ISO 4217 commodities.
+     * It is generated from {@code res/raw/iso_4217_currencies.xml} by the build
+     */
+    static final String COMMODITY_SEED_ASSET = "iso_4217_currencies.seed";
+
+    /**
+     * Version of the record layout in the {@link #COMMODITY_SEED_ASSET}
+     */
+    static final int COMMODITY_SEED_VERSION = 1;
+
+    /**
+     * Imports commodities into the database.
+     * <p>The commodities are read from the precompiled seed asset and inserted in one transaction
+     * using a single prepared statement. If the seed is not available, the XML resource file is parsed instead</p>
      */
     static void importCommodities(SQLiteDatabase db) throws SAXException, ParserConfigurationException, IOException {
+        InputStream seedInputStream;
+        try {
+            seedInputStream = GnuCashApplication.getAppContext().getAssets().open(COMMODITY_SEED_ASSET);
+        } catch (FileNotFoundException e) {
+            Log.w(LOG_TAG, "Commodity seed not found, parsing currencies XML instead");
+            importCommoditiesFromXml(db);
+            return;
+        }
+
+        DataInputStream seed = new DataInputStream(new BufferedInputStream(seedInputStream));
+        SQLiteStatement insertStatement = db.compileStatement("INSERT INTO " + DatabaseSchema.CommodityEntry.TABLE_NAME + " ( "
+                + DatabaseSchema.CommodityEntry.COLUMN_MNEMONIC         + " , "
+                + DatabaseSchema.CommodityEntry.COLUMN_FULLNAME         + " , "
+                + DatabaseSchema.CommodityEntry.COLUMN_NAMESPACE        + " , "
+                + DatabaseSchema.CommodityEntry.COLUMN_CUSIP            + " , "
+                + DatabaseSchema.CommodityEntry.COLUMN_LOCAL_SYMBOL     + " , "
+                + DatabaseSchema.CommodityEntry.COLUMN_SMALLEST_FRACTION+ " , "
+                + DatabaseSchema.CommodityEntry.COLUMN_QUOTE_FLAG       + " , "
+                + DatabaseSchema.CommodityEntry.COLUMN_UID
+                + " ) VALUES ( ? , ? , ? , ? , ? , ? , 0 , ? )");
+        db.beginTransaction();
+        try {
+            int version = seed.readInt();
+            if (version != COMMODITY_SEED_VERSION)
+                throw new IOException("Unsupported commodity seed version " + version);
+
+            int count = seed.readInt();
+            for (int i = 0; i < count; i++) {
+                insertStatement.clearBindings();
+                insertStatement.bindString(1, seed.readUTF());
+                insertStatement.bindString(2, seed.readUTF());
+                insertStatement.bindString(3, seed.readUTF());
+                insertStatement.bindString(4, seed.readUTF());
+                insertStatement.bindString(5, seed.readUTF());
+                insertStatement.bindLong(6, seed.readInt());
+                insertStatement.bindString(7, BaseModel.generateUID());
+                insertStatement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+            Log.d(LOG_TAG, "Imported " + count + " commodities from seed");
+        } finally {
+            db.endTransaction();
+            insertStatement.close();
+            seed.close();
+        }
+    }
+
+    /**
+     * Imports commodities into the database from XML resource file
+     */
+    static void importCommoditiesFromXml(SQLiteDatabase db) throws SAXException, ParserConfigurationException, IOException {
         SAXParserFactory spf = SAXParserFactory.newInstance();
         SAXParser sp = spf.newSAXParser();
         XMLReader xr = sp.getXMLReader();
@@ -1616,4 +1683,120 @@ public class MigrationHelper {
         rescheduleServiceAlarm();
         return dbVersion;
     }
+
+    /**
+     * Upgrades the database to version 16.
+     * <p>This migration adds the account statistics table, which holds the number of transactions,
+     * splits and sub-accounts of each account, and populates it from the existing records.</p>
+     * @param db SQLite database to be upgraded
+     * @return New database version, 16 if migration succeeds, 15 otherwise
+     */
+    static int upgradeDbToVersion16(SQLiteDatabase db) {
+        Log.i(DatabaseHelper.LOG_TAG, "Upgrading database to version 16");
+        int dbVersion = 15;
+
+        db.beginTransaction();
+        try {
+            DatabaseHelper.createAccountStatsTable(db);
+            db.execSQL("INSERT INTO " + DatabaseSchema.AccountStatsEntry.TABLE_NAME
+                    + " " + DatabaseHelper.ACCOUNT_STATS_QUERY);
+            db.setTransactionSuccessful();
+            dbVersion = 16;
+        } finally {
+            db.endTransaction();
+        }
+        return dbVersion;
+    }
+
+    /**
+     * Upgrades the database to version 17.
+     * <p>This migration adds the split rollups table, which holds the daily sums of the splits
+     * of each account, and populates it from the existing splits.</p>
+     * @param db SQLite database to be upgraded
+     * @return New database version, 17 if migration succeeds, 16 otherwise
+     */
+    static int upgradeDbToVersion17(SQLiteDatabase db) {
+        Log.i(DatabaseHelper.LOG_TAG, "Upgrading database to version 17");
+        int dbVersion = 16;
+
+        db.beginTransaction();
+        try {
+            DatabaseHelper.createSplitRollupTable(db);
+            db.execSQL("INSERT INTO " + DatabaseSchema.SplitRollupEntry.TABLE_NAME
+                    + " " + DatabaseHelper.SPLIT_ROLLUP_QUERY);
+            db.setTransactionSuccessful();
+            dbVersion = 17;
+        } finally {
+            db.endTransaction();
+        }
+        return dbVersion;
+    }
+
+    /**
+     * Upgrades the database to version 18.
+     * <p>This migration adds the change log table, which records the inserts, updates and deletes of
+     * accounts, transactions and splits for incremental exports. Existing records are not logged,
+     * the next export of each book still uses the time of its last export.</p>
+     * @param db SQLite database to be upgraded
+     * @return New database version, 18 if migration succeeds, 17 otherwise
+     */
+    static int upgradeDbToVersion18(SQLiteDatabase db) {
+        Log.i(DatabaseHelper.LOG_TAG, "Upgrading database to version 18");
+        int dbVersion = 17;
+
+        db.beginTransaction();
+        try {
+            DatabaseHelper.createChangeLogTable(db);
+            db.setTransactionSuccessful();
+            dbVersion = 18;
+        } finally {
+            db.endTransaction();
+        }
+        return dbVersion;
+    }
+
+    /**
+     * Upgrades the database to version 19.
+     * <p>This migration adds the views joining transactions, splits and accounts to the schema,
+     * instead of creating them as temporary views whenever a database adapter is constructed.</p>
+     * @param db SQLite database to be upgraded
+     * @return New database version, 19 if migration succeeds, 18 otherwise
+     */
+    static int upgradeDbToVersion19(SQLiteDatabase db) {
+        Log.i(DatabaseHelper.LOG_TAG, "Upgrading database to version 19");
+        int dbVersion = 18;
+
+        db.beginTransaction();
+        try {
+            DatabaseHelper.createViews(db);
+            db.setTransactionSuccessful();
+            dbVersion = 19;
+        } finally {
+            db.endTransaction();
+        }
+        return dbVersion;
+    }
+
+    /**
+     * Upgrades the database to version 20.
+     * <p>This migration adds the tables of the transaction autofill index. They are not populated here,
+     * the {@link AutofillIndex} builds them from the existing transactions the first time suggestions
+     * are requested, which keeps the upgrade of large books short.</p>
+     * @param db SQLite database to be upgraded
+     * @return New database version, 20 if migration succeeds, 19 otherwise
+     */
+    static int upgradeDbToVersion20(SQLiteDatabase db) {
+        Log.i(DatabaseHelper.LOG_TAG, "Upgrading database to version 20");
+        int dbVersion = 19;
+
+        db.beginTransaction();
+        try {
+            DatabaseHelper.createAutofillTables(db);
+            db.setTransactionSuccessful();
+            dbVersion = 20;
+        } finally {
+            db.endTransaction();
+        }
+        return dbVersion;
+    }
 }
@@ -20,7 +20,9 @@ package org.gnucash.android.model.db.adapter;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteStatement;
 import android.graphics.Color;
 import androidx.annotation.NonNull;
@@ -30,7 +32,13 @@ import android.util.Log;
 
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.AccountDirectory;
+import org.gnucash.android.model.db.AccountPickerModel;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseHelper;
 import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.row.AccountRow;
+import org.gnucash.android.model.db.row.AccountRowReader;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.AccountType;
 import org.gnucash.android.model.data.Commodity;
@@ -43,11 +51,14 @@ import org.gnucash.android.util.TimestampHelper;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import static org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
+import static org.gnucash.android.model.db.DatabaseSchema.AccountStatsEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
 
@@ -59,6 +70,19 @@ import static org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
  * @author Oleksandr Tyshkovets <olexandr.tyshkovets@gmail.com>
  */
 public class AccountsDbAdapter extends DatabaseAdapter<Account> {
+
+    /**
+     * Listener for the progress of long running operations on the accounts
+     */
+    public interface ProgressListener {
+        /**
+         * Called after each step of the operation, on the thread running the operation
+         * @param step Number of steps completed so far
+         * @param stepCount Total number of steps of the operation
+         */
+        void onProgress(int step, int stepCount);
+    }
+
     /**
      * Separator used for account name hierarchies between parent and child accounts
      */
@@ -81,6 +105,11 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      */
     private final CommoditiesDbAdapter mCommoditiesDbAdapter;
 
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private AccountRowReader mRowReader;
+
     /**
      * Overloaded constructor. Creates an adapter for an already open database
      * @param db SQliteDatabase instance
@@ -102,7 +131,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
                 AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID
         });
         mTransactionsAdapter = transactionsDbAdapter;
-        mCommoditiesDbAdapter = new CommoditiesDbAdapter(db);
+        mCommoditiesDbAdapter = mSession.getCommoditiesDbAdapter();
     }
 
     /**
@@ -129,8 +158,8 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
                 AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID
         });
 
-        mTransactionsAdapter = new TransactionsDbAdapter(db, new SplitsDbAdapter(db));
-        mCommoditiesDbAdapter = new CommoditiesDbAdapter(db);
+        mTransactionsAdapter = mSession.getTransactionsDbAdapter();
+        mCommoditiesDbAdapter = mSession.getCommoditiesDbAdapter();
     }
 
     /**
@@ -197,6 +226,16 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         return nRow;
     }
 
+    @Override
+    protected void describeRecords(@NonNull DatabaseChange.Builder change, @NonNull Collection<String> recordUIDs) {
+        change.addAccountUIDs(recordUIDs);
+    }
+
+    @Override
+    protected void describeModel(@NonNull DatabaseChange.Builder change, @NonNull Account account) {
+        change.addAccountUID(account.getUID());
+    }
+
     @Override
     protected @NonNull SQLiteStatement setBindings(@NonNull SQLiteStatement stmt, @NonNull final Account account) {
         stmt.clearBindings();
@@ -238,6 +277,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
     public int markAsExported(String accountUID){
         ContentValues contentValues = new ContentValues();
         contentValues.put(TransactionEntry.COLUMN_EXPORTED, 1);
+        postChange(new DatabaseChange.Builder(TransactionEntry.TABLE_NAME).addAccountUID(accountUID).build());
         return mDb.update(
                 TransactionEntry.TABLE_NAME,
                 contentValues,
@@ -270,7 +310,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         } else {
             contentValues.put(columnKey, newValue);
         }
-        return mDb.update(AccountEntry.TABLE_NAME, contentValues, null, null);
+        int updated = mDb.update(AccountEntry.TABLE_NAME, contentValues, null, null);
+        notifyTableChanged(AccountEntry.TABLE_NAME);
+        return updated;
     }
 
     /**
@@ -287,62 +329,85 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
     /**
      * This method goes through all the children of {@code accountUID} and updates the parent account
      * to {@code newParentAccountUID}. The fully qualified account names for all descendant accounts will also be updated.
+     * <p>The accounts are updated with one statement for the full names and one for the parent,
+     * regardless of the size of the sub-tree. Transactions and splits are not touched.</p>
      * @param accountUID GUID of the account
      * @param newParentAccountUID GUID of the new parent account
      */
     public void reassignDescendantAccounts(@NonNull String accountUID, @NonNull String newParentAccountUID) {
-        List<String> descendantAccountUIDs = getDescendantAccountUIDs(accountUID, null, null);
-        if (descendantAccountUIDs.size() > 0) {
-            List<Account> descendantAccounts = getSimpleAccountList(
-                    AccountEntry.COLUMN_UID + " IN ('" + TextUtils.join("','", descendantAccountUIDs) + "')",
-                    null,
-                    null
-            );
-            HashMap<String, Account> mapAccounts = new HashMap<>();
-            for (Account account : descendantAccounts)
-                mapAccounts.put(account.getUID(), account);
-            String parentAccountFullName;
-            if (getAccountType(newParentAccountUID) == AccountType.ROOT) {
-                parentAccountFullName = "";
-            } else {
-                parentAccountFullName = getAccountFullName(newParentAccountUID);
-            }
+        String newPrefix;
+        if (getAccountType(newParentAccountUID) == AccountType.ROOT) {
+            newPrefix = "";
+        } else {
+            newPrefix = getAccountFullName(newParentAccountUID) + ACCOUNT_NAME_SEPARATOR;
+        }
+        String oldPrefix = getAccountFullName(accountUID) + ACCOUNT_NAME_SEPARATOR;
+
+        mDb.beginTransaction();
+        try {
+            // the full names must be updated first, the sub-tree is found through the parent links
+            replaceDescendantFullNamePrefix(accountUID, oldPrefix, newPrefix);
+
             ContentValues contentValues = new ContentValues();
-            for (String acctUID : descendantAccountUIDs) {
-                Account acct = mapAccounts.get(acctUID);
-                if (accountUID.equals(acct.getParentUID())) {
-                    // direct descendant
-                    acct.setParentUID(newParentAccountUID);
-                    if (parentAccountFullName == null || parentAccountFullName.isEmpty()) {
-                        acct.setFullName(acct.getName());
-                    } else {
-                        acct.setFullName(parentAccountFullName + ACCOUNT_NAME_SEPARATOR + acct.getName());
-                    }
-                    // update DB
-                    contentValues.clear();
-                    contentValues.put(AccountEntry.COLUMN_PARENT_ACCOUNT_UID, newParentAccountUID);
-                    contentValues.put(AccountEntry.COLUMN_FULL_NAME, acct.getFullName());
-                    mDb.update(
-                            AccountEntry.TABLE_NAME, contentValues,
-                            AccountEntry.COLUMN_UID + " = ?",
-                            new String[]{acct.getUID()}
-                    );
-                } else {
-                    // indirect descendant
-                    acct.setFullName(
-                            mapAccounts.get(acct.getParentUID()).getFullName() +
-                                    ACCOUNT_NAME_SEPARATOR + acct.getName()
-                    );
-                    // update DB
-                    contentValues.clear();
-                    contentValues.put(AccountEntry.COLUMN_FULL_NAME, acct.getFullName());
-                    mDb.update(
-                            AccountEntry.TABLE_NAME, contentValues,
-                            AccountEntry.COLUMN_UID + " = ?",
-                            new String[]{acct.getUID()}
-                    );
-                }
-            }
+            contentValues.put(AccountEntry.COLUMN_PARENT_ACCOUNT_UID, newParentAccountUID);
+            mDb.update(AccountEntry.TABLE_NAME, contentValues,
+                    AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = ?", new String[]{accountUID});
+            mDb.setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+        notifyTableChanged(AccountEntry.TABLE_NAME);
+    }
+
+    /**
+     * Updates the full names of all the descendants of {@code accountUID} after the account
+     * has been renamed or moved to another parent.
+     * <p>All the descendants are updated in a single statement by replacing the
+     * {@code oldFullName} prefix of their full names. The account itself, transactions and
+     * splits are not touched.</p>
+     * @param accountUID GUID of the account which was renamed or moved
+     * @param oldFullName Full name of the account before the change
+     * @param newFullName Full name of the account after the change
+     * @return Number of descendant accounts updated
+     */
+    public int updateDescendantFullNames(@NonNull String accountUID, @NonNull String oldFullName,
+                                         @NonNull String newFullName) {
+        int updated = replaceDescendantFullNamePrefix(accountUID,
+                oldFullName + ACCOUNT_NAME_SEPARATOR, newFullName + ACCOUNT_NAME_SEPARATOR);
+        if (updated > 0)
+            notifyTableChanged(AccountEntry.TABLE_NAME);
+        return updated;
+    }
+
+    /**
+     * Replaces {@code oldPrefix} with {@code newPrefix} in the full names of all descendants of {@code accountUID}
+     * @param accountUID GUID of the account at the top of the sub-tree. It is not updated itself
+     * @param oldPrefix Current prefix of the full names of the descendants
+     * @param newPrefix Replacement for the prefix
+     * @return Number of accounts updated
+     */
+    private int replaceDescendantFullNamePrefix(@NonNull String accountUID, @NonNull String oldPrefix,
+                                                @NonNull String newPrefix) {
+        SQLiteStatement statement = mDb.compileStatement(
+                "UPDATE " + AccountEntry.TABLE_NAME + " SET " + AccountEntry.COLUMN_FULL_NAME + " = ? || substr("
+                        + AccountEntry.COLUMN_FULL_NAME + ", ?) WHERE " + AccountEntry.COLUMN_UID + " IN ("
+                        + " WITH RECURSIVE subtree(uid) AS ("
+                        + " SELECT " + AccountEntry.COLUMN_UID + " FROM " + AccountEntry.TABLE_NAME
+                        + " WHERE " + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = ?"
+                        + " UNION ALL SELECT " + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID
+                        + " FROM " + AccountEntry.TABLE_NAME + " JOIN subtree ON "
+                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = subtree.uid)"
+                        + " SELECT uid FROM subtree)");
+        try {
+            statement.bindString(1, newPrefix);
+            // SQLite counts characters as code points, unlike String.length()
+            statement.bindLong(2, oldPrefix.codePointCount(0, oldPrefix.length()) + 1);
+            statement.bindString(3, accountUID);
+            int updated = statement.executeUpdateDelete();
+            Log.d(LOG_TAG, updated + " descendant account names updated for " + accountUID);
+            return updated;
+        } finally {
+            statement.close();
         }
     }
 
@@ -361,6 +426,22 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @see #reassignDescendantAccounts(String, String)
      */
     public boolean recursiveDeleteAccount(long accountId){
+        return recursiveDeleteAccount(accountId, null);
+    }
+
+    /**
+     * Deletes an account and its transactions, and all its sub-accounts and their transactions.
+     * <p>The GUIDs of the accounts in the sub-tree and of their transactions are first staged in
+     * temporary tables. Then the splits, transactions, scheduled actions, budget amounts and
+     * accounts are each deleted with a single statement, all in one database transaction.
+     * This can take a while for large sub-trees, so it should not be called on the main thread.</p>
+     * @param accountId Database record ID of account
+     * @param progressListener Listener notified after each step of the deletion, or {@code null}
+     * @return <code>true</code> if the account and subaccounts were all successfully deleted, <code>false</code> if
+     * even one was not deleted
+     * @see #recursiveDeleteAccount(long)
+     */
+    public boolean recursiveDeleteAccount(long accountId, @Nullable ProgressListener progressListener){
         String accountUID = getUID(accountId);
         if (getAccountType(accountUID) == AccountType.ROOT) {
             // refuse to delete ROOT
@@ -369,39 +450,83 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
 
         Log.d(LOG_TAG, "Delete account with rowId with its transactions and sub-accounts: " + accountId);
 
-        List<String> descendantAccountUIDs = getDescendantAccountUIDs(accountUID, null, null);
+        final String accountsTable = "delete_account_uids";
+        final String transactionsTable = "delete_transaction_uids";
+        final String selectAccounts = "(SELECT uid FROM " + accountsTable + ")";
+        final String selectTransactions = "(SELECT uid FROM " + transactionsTable + ")";
+        final int stepCount = 7;
+        int step = 0;
         mDb.beginTransaction();
         try {
-            descendantAccountUIDs.add(accountUID); //add account to descendants list just for convenience
-            for (String descendantAccountUID : descendantAccountUIDs) {
-                mTransactionsAdapter.deleteTransactionsForAccount(descendantAccountUID);
-            }
-
-            String accountUIDList = "'" + TextUtils.join("','", descendantAccountUIDs) + "'";
-
-            // delete accounts
-            long deletedCount = mDb.delete(
-                    AccountEntry.TABLE_NAME,
-                    AccountEntry.COLUMN_UID + " IN (" + accountUIDList + ")",
-                    null
-            );
+            mDb.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + accountsTable + " (uid varchar(255) PRIMARY KEY)");
+            mDb.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + transactionsTable + " (uid varchar(255) PRIMARY KEY)");
+            mDb.execSQL("DELETE FROM " + accountsTable);
+            mDb.execSQL("DELETE FROM " + transactionsTable);
+
+            mDb.execSQL("INSERT INTO " + accountsTable + " (uid)"
+                    + " WITH RECURSIVE subtree(uid) AS (SELECT ?"
+                    + " UNION ALL SELECT " + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID
+                    + " FROM " + AccountEntry.TABLE_NAME + " JOIN subtree ON "
+                    + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = subtree.uid)"
+                    + " SELECT uid FROM subtree", new Object[]{accountUID});
+            mDb.execSQL("INSERT INTO " + transactionsTable + " (uid)"
+                    + " SELECT DISTINCT " + SplitEntry.COLUMN_TRANSACTION_UID + " FROM " + SplitEntry.TABLE_NAME
+                    + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID + " IN " + selectAccounts);
+            notifyProgress(progressListener, ++step, stepCount);
+
+            //the splits of the other accounts go too, so that no imbalance is caused
+            int splitCount = mDb.delete(SplitEntry.TABLE_NAME,
+                    SplitEntry.COLUMN_TRANSACTION_UID + " IN " + selectTransactions, null);
+            notifyProgress(progressListener, ++step, stepCount);
+
+            int transactionCount = mDb.delete(TransactionEntry.TABLE_NAME,
+                    TransactionEntry.COLUMN_UID + " IN " + selectTransactions, null);
+            notifyProgress(progressListener, ++step, stepCount);
+
+            //template transactions of the accounts are gone, and so are their schedules
+            mDb.delete(DatabaseSchema.ScheduledActionEntry.TABLE_NAME,
+                    DatabaseSchema.ScheduledActionEntry.COLUMN_ACTION_UID + " IN " + selectTransactions, null);
+            notifyProgress(progressListener, ++step, stepCount);
+
+            mDb.delete(DatabaseSchema.BudgetAmountEntry.TABLE_NAME,
+                    DatabaseSchema.BudgetAmountEntry.COLUMN_ACCOUNT_UID + " IN " + selectAccounts, null);
+            notifyProgress(progressListener, ++step, stepCount);
+
+            int accountCount = mDb.delete(AccountEntry.TABLE_NAME,
+                    AccountEntry.COLUMN_UID + " IN " + selectAccounts, null);
+            notifyProgress(progressListener, ++step, stepCount);
 
             //if we delete some accounts, reset the default transfer account to NULL
             //there is also a database trigger from db version > 12
-            if (deletedCount > 0){
+            if (accountCount > 0){
                 ContentValues contentValues = new ContentValues();
                 contentValues.putNull(AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID);
                 mDb.update(mTableName, contentValues,
-                        AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + " IN (" + accountUIDList + ")",
+                        AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + " IN " + selectAccounts,
                         null);
             }
 
+            mDb.execSQL("DROP TABLE " + accountsTable);
+            mDb.execSQL("DROP TABLE " + transactionsTable);
             mDb.setTransactionSuccessful();
-            return true;
+            Log.i(LOG_TAG, "Deleted " + accountCount + " accounts, " + transactionCount
+                    + " transactions and " + splitCount + " splits");
         }
         finally {
-            mDb.endTransaction();
+            endTransaction();
         }
+        notifyTableChanged(SplitEntry.TABLE_NAME);
+        notifyTableChanged(TransactionEntry.TABLE_NAME);
+        notifyTableChanged(DatabaseSchema.ScheduledActionEntry.TABLE_NAME);
+        notifyTableChanged(DatabaseSchema.BudgetAmountEntry.TABLE_NAME);
+        notifyTableChanged(AccountEntry.TABLE_NAME);
+        notifyProgress(progressListener, ++step, stepCount);
+        return true;
+    }
+
+    private static void notifyProgress(@Nullable ProgressListener listener, int step, int stepCount){
+        if (listener != null)
+            listener.onProgress(step, stepCount);
     }
 
 	/**
@@ -428,23 +553,23 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return {@link Account} object constructed from database record
      */
     private Account buildSimpleAccountInstance(Cursor c) {
-        Account account = new Account(c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_NAME)));
-        populateBaseModelAttributes(c, account);
+        AccountRow row = mRowReader = AccountRowReader.of(c, mRowReader);
+        Account account = new Account(row.getName());
+        populateBaseModelAttributes(row, account);
 
-        String description = c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_DESCRIPTION));
+        String description = row.getDescription();
         account.setDescription(description == null ? "" : description);
-        account.setParentUID(c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_PARENT_ACCOUNT_UID)));
-        account.setAccountType(AccountType.valueOf(c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_TYPE))));
-        String currencyCode = c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_CURRENCY));
-        account.setCommodity(mCommoditiesDbAdapter.getCommodity(currencyCode));
-        account.setPlaceHolderFlag(c.getInt(c.getColumnIndexOrThrow(AccountEntry.COLUMN_PLACEHOLDER)) == 1);
-        account.setDefaultTransferAccountUID(c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID)));
-        String color = c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_COLOR_CODE));
+        account.setParentUID(row.getParentUID());
+        account.setAccountType(AccountType.valueOf(row.getType()));
+        account.setCommodity(mCommoditiesDbAdapter.getCommodity(row.getCurrencyCode()));
+        account.setPlaceHolderFlag(row.isPlaceholder());
+        account.setDefaultTransferAccountUID(row.getDefaultTransferAccountUID());
+        String color = row.getColorCode();
         if (color != null)
             account.setColor(color);
-        account.setFavorite(c.getInt(c.getColumnIndexOrThrow(AccountEntry.COLUMN_FAVORITE)) == 1);
-        account.setFullName(c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_FULL_NAME)));
-        account.setHidden(c.getInt(c.getColumnIndexOrThrow(AccountEntry.COLUMN_HIDDEN)) == 1);
+        account.setFavorite(row.isFavorite());
+        account.setFullName(row.getFullName());
+        account.setHidden(row.isHidden());
         return account;
     }
 
@@ -455,22 +580,36 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
 	 * @return DB record UID of the parent account, null if the account has no parent
 	 */
     public String getParentAccountUID(@NonNull String uid){
-		Cursor cursor = mDb.query(AccountEntry.TABLE_NAME,
-                new String[]{AccountEntry.COLUMN_PARENT_ACCOUNT_UID},
-                AccountEntry.COLUMN_UID + " = ?",
-                new String[]{uid},
-                null, null, null, null);
+        return mSession.getAccountDirectory().getParentUID(uid);
+	}
+
+    /**
+     * Returns the GUIDs of some accounts together with the GUIDs of all their ancestors.
+     * <p>The balances of these accounts change when the accounts themselves change</p>
+     * @param accountUIDs GUIDs of the accounts
+     * @return Set of account GUIDs, including {@code accountUIDs} if they exist
+     */
+    public Set<String> getAccountAndAncestorUIDs(@NonNull Collection<String> accountUIDs) {
+        Set<String> result = new HashSet<>();
+        if (accountUIDs.isEmpty())
+            return result;
+        Cursor cursor = mDb.rawQuery("WITH RECURSIVE ancestors(uid) AS ("
+                + " SELECT " + AccountEntry.COLUMN_UID + " FROM " + AccountEntry.TABLE_NAME
+                + " WHERE " + AccountEntry.COLUMN_UID + " IN ('" + TextUtils.join("' , '", accountUIDs) + "')"
+                + " UNION SELECT " + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID
+                + " FROM " + AccountEntry.TABLE_NAME + " JOIN ancestors ON "
+                + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID + " = ancestors.uid"
+                + " WHERE " + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " IS NOT NULL)"
+                + " SELECT uid FROM ancestors", null);
         try {
-            if (cursor.moveToFirst()) {
-                Log.d(LOG_TAG, "Found parent account UID, returning value");
-                return cursor.getString(cursor.getColumnIndexOrThrow(AccountEntry.COLUMN_PARENT_ACCOUNT_UID));
-            } else {
-                return null;
+            while (cursor.moveToNext()) {
+                result.add(cursor.getString(0));
             }
         } finally {
             cursor.close();
         }
-	}
+        return result;
+    }
 
     /**
      * Returns the color code for the account in format #rrggbb
@@ -478,29 +617,23 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return String color code of account or null if none
      */
     public String getAccountColorCode(long accountId){
-        Cursor c = mDb.query(AccountEntry.TABLE_NAME,
-                new String[]{AccountEntry._ID, AccountEntry.COLUMN_COLOR_CODE},
-                AccountEntry._ID + "=" + accountId,
-                null, null, null, null);
-        try {
-            if (c.moveToFirst()) {
-                return c.getString(c.getColumnIndexOrThrow(AccountEntry.COLUMN_COLOR_CODE));
-            }
-            else {
-                return null;
-            }
-        } finally {
-            c.close();
-        }
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        int index = accounts.indexOf(accountId);
+        return index < 0 ? null : accounts.getColorCode(index);
     }
 
     /**
-     * Overloaded method. Resolves the account unique ID from the row ID and makes a call to {@link #getAccountType(String)}
+     * Overloaded method. Returns the {@link AccountType} of the account with database row ID {@code accountId}
      * @param accountId Database row ID of the account
      * @return {@link AccountType} of the account
+     * @throws IllegalArgumentException if the account does not exist
      */
     public AccountType getAccountType(long accountId){
-        return getAccountType(getUID(accountId));
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        int index = accounts.indexOf(accountId);
+        if (index < 0)
+            throw new IllegalArgumentException(mTableName + " Record ID " + accountId + " does not exist in the db");
+        return accounts.getType(index);
     }
 
     /**
@@ -573,6 +706,30 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         return accountsList;
 	}
 
+    /**
+     * Returns a list of accounts with splits in transactions changed after a sequence number of the change log
+     * @param sequence Sequence number of the last processed change
+     * @return List of {@link Account}s with changed transactions
+     * @see TransactionsDbAdapter#getChangedSinceSelection(String, long)
+     */
+    public List<Account> getExportableAccounts(long sequence){
+        LinkedList<Account> accountsList = new LinkedList<>();
+        Cursor cursor = mDb.query(AccountEntry.TABLE_NAME, null,
+                AccountEntry.COLUMN_UID + " IN (SELECT " + SplitEntry.COLUMN_ACCOUNT_UID
+                        + " FROM " + SplitEntry.TABLE_NAME + " WHERE "
+                        + TransactionsDbAdapter.getChangedSinceSelection(SplitEntry.COLUMN_TRANSACTION_UID, sequence) + ")",
+                null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                accountsList.add(buildModelInstance(cursor));
+            }
+        }
+        finally {
+            cursor.close();
+        }
+        return accountsList;
+    }
+
     /**
      * Retrieves the unique ID of the imbalance account for a particular currency (creates the imbalance account
      * on demand if necessary)
@@ -746,6 +903,16 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
                 AccountEntry.COLUMN_FULL_NAME + " ASC");
     }
 
+    /**
+     * Returns the accounts sorted for the account pickers.
+     * <p>The model is cached until the accounts change, so pickers should use it
+     * instead of querying the accounts each time they are opened</p>
+     * @return Shared account picker model
+     */
+    public AccountPickerModel getAccountPickerModel() {
+        return mSession.getAccountPickerModel();
+    }
+
     /**
      * Returns a Cursor set of accounts which fulfill <code>where</code>
      * <p>This method returns the favorite accounts first, sorted by name, and then the other accounts,
@@ -876,6 +1043,9 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return The descendant accounts list.
      */
     public List<String> getDescendantAccountUIDs(String accountUID, String where, String[] whereArgs) {
+        if (where == null)
+            return mSession.getAccountDirectory().getDescendantUIDs(accountUID);
+
         // accountsList will hold accountUID with all descendant accounts.
         // accountsListLevel will hold descendant accounts of the same level
         ArrayList<String> accountsList = new ArrayList<>();
@@ -987,7 +1157,7 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
             cursor.close();
         }
         // No ROOT exits, create a new one
-        Account rootAccount = new Account("ROOT Account", new CommoditiesDbAdapter(mDb).getCommodity("USD"));
+        Account rootAccount = new Account("ROOT Account", mCommoditiesDbAdapter.getCommodity("USD"));
         rootAccount.setAccountType(AccountType.ROOT);
         rootAccount.setFullName(ROOT_ACCOUNT_FULL_NAME);
         rootAccount.setHidden(true);
@@ -1003,24 +1173,89 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         contentValues.put(AccountEntry.COLUMN_COMMODITY_UID, getCommodityUID(defaultCurrencyCode));
         Log.i(LOG_TAG, "Creating ROOT account");
         mDb.insert(AccountEntry.TABLE_NAME, null, contentValues);
+        postChange(new DatabaseChange.Builder(AccountEntry.TABLE_NAME)
+                .addRecordUID(rootAccount.getUID()).addAccountUID(rootAccount.getUID()).build());
         return rootAccount.getUID();
     }
 
     /**
      * Returns the number of accounts for which the account with ID <code>accoundId</code> is a first level parent
+     * <p>The count is read from the account statistics, so it does not require scanning the accounts</p>
      * @param accountUID String Unique ID (GUID) of the account
      * @return Number of sub accounts
      */
     public int getSubAccountCount(String accountUID){
-        //TODO: at some point when API level 11 and above only is supported, use DatabaseUtils.queryNumEntries
+        return (int) getAccountStat(accountUID, AccountStatsEntry.COLUMN_CHILD_COUNT);
+    }
 
-        String queryCount = "SELECT COUNT(*) FROM " + AccountEntry.TABLE_NAME + " WHERE "
-                + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " = ?";
-        Cursor cursor = mDb.rawQuery(queryCount, new String[]{accountUID});
-        cursor.moveToFirst();
-        int count = cursor.getInt(0);
-        cursor.close();
-        return count;
+    /**
+     * Returns the number of splits in the account, including the splits of template transactions
+     * @param accountUID GUID of the account
+     * @return Number of splits in the account
+     */
+    public long getSplitCount(String accountUID){
+        return getAccountStat(accountUID, AccountStatsEntry.COLUMN_SPLIT_COUNT);
+    }
+
+    /**
+     * Returns one of the counters of the account statistics table
+     * @param accountUID GUID of the account
+     * @param column Column of {@link AccountStatsEntry} to read
+     * @return Value of the counter, or 0 if the account does not exist
+     */
+    long getAccountStat(String accountUID, String column){
+        SQLiteStatement statement = mDb.compileStatement("SELECT " + column
+                + " FROM " + AccountStatsEntry.TABLE_NAME
+                + " WHERE " + AccountStatsEntry.COLUMN_ACCOUNT_UID + " = ?");
+        try {
+            statement.bindString(1, accountUID);
+            return statement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return 0;
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Checks the account statistics against the accounts and splits tables and rebuilds them
+     * if they are not consistent.
+     * <p>The statistics are maintained by database triggers, so this should only be needed
+     * after the database has been modified with the triggers disabled.</p>
+     * @return Number of accounts whose statistics were wrong or missing
+     * @see #rebuildAccountStats()
+     */
+    public int verifyAccountStats(){
+        String query = "SELECT COUNT(*) FROM (" + DatabaseHelper.ACCOUNT_STATS_QUERY + ") expected"
+                + " LEFT JOIN " + AccountStatsEntry.TABLE_NAME + " stats"
+                + " ON stats." + AccountStatsEntry.COLUMN_ACCOUNT_UID + " = expected." + AccountStatsEntry.COLUMN_ACCOUNT_UID
+                + " WHERE stats." + AccountStatsEntry.COLUMN_ACCOUNT_UID + " IS NULL"
+                + " OR stats." + AccountStatsEntry.COLUMN_TRANSACTION_COUNT + " != expected." + AccountStatsEntry.COLUMN_TRANSACTION_COUNT
+                + " OR stats." + AccountStatsEntry.COLUMN_SPLIT_COUNT + " != expected." + AccountStatsEntry.COLUMN_SPLIT_COUNT
+                + " OR stats." + AccountStatsEntry.COLUMN_CHILD_COUNT + " != expected." + AccountStatsEntry.COLUMN_CHILD_COUNT;
+        int inconsistentCount = (int) DatabaseUtils.longForQuery(mDb, query, null);
+        long orphanCount = DatabaseUtils.longForQuery(mDb, "SELECT COUNT(*) FROM " + AccountStatsEntry.TABLE_NAME
+                + " WHERE " + AccountStatsEntry.COLUMN_ACCOUNT_UID + " NOT IN "
+                + "(SELECT " + AccountEntry.COLUMN_UID + " FROM " + AccountEntry.TABLE_NAME + ")", null);
+        if (inconsistentCount > 0 || orphanCount > 0) {
+            Log.w(LOG_TAG, "Account statistics inconsistent for " + inconsistentCount + " accounts. Rebuilding");
+            rebuildAccountStats();
+        }
+        return inconsistentCount;
+    }
+
+    /**
+     * Recomputes the account statistics of all accounts from the accounts and splits tables
+     */
+    public void rebuildAccountStats(){
+        mDb.beginTransaction();
+        try {
+            mDb.delete(AccountStatsEntry.TABLE_NAME, null, null);
+            mDb.execSQL("INSERT INTO " + AccountStatsEntry.TABLE_NAME + " " + DatabaseHelper.ACCOUNT_STATS_QUERY);
+            mDb.setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -1040,7 +1275,8 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @see #getFullyQualifiedAccountName(String)
      */
     public String getAccountName(String accountUID){
-        return getAttribute(accountUID, AccountEntry.COLUMN_NAME);
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        return accounts.getName(accounts.indexOf(accountUID));
     }
 
     /**
@@ -1075,16 +1311,8 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return Fully qualified (with parent hierarchy) account name
      */
     public String getFullyQualifiedAccountName(String accountUID){
-        String accountName = getAccountName(accountUID);
-        String parentAccountUID = getParentAccountUID(accountUID);
-
-        if (parentAccountUID == null || parentAccountUID.equalsIgnoreCase(getOrCreateGnuCashRootAccountUID())){
-            return accountName;
-        }
-
-        String parentAccountName = getFullyQualifiedAccountName(parentAccountUID);
-
-        return parentAccountName + ACCOUNT_NAME_SEPARATOR + accountName;
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        return accounts.getQualifiedName(accounts.indexOf(accountUID));
     }
 
     /**
@@ -1093,18 +1321,8 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return full name registered in DB
      */
     public String getAccountFullName(String accountUID) {
-        Cursor cursor = mDb.query(AccountEntry.TABLE_NAME, new String[]{AccountEntry.COLUMN_FULL_NAME},
-                AccountEntry.COLUMN_UID + " = ?", new String[]{accountUID},
-                null, null, null);
-        try {
-            if (cursor.moveToFirst()) {
-                return cursor.getString(cursor.getColumnIndexOrThrow(AccountEntry.COLUMN_FULL_NAME));
-            }
-        }
-        finally {
-            cursor.close();
-        }
-        throw new IllegalArgumentException("account UID: " + accountUID + " does not exist");
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        return accounts.getFullName(accounts.indexOf(accountUID));
     }
 
 
@@ -1114,8 +1332,8 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return <code>true</code> if the account is a placeholder account, <code>false</code> otherwise
      */
     public boolean isPlaceholderAccount(String accountUID) {
-        String isPlaceholder = getAttribute(accountUID, AccountEntry.COLUMN_PLACEHOLDER);
-        return Integer.parseInt(isPlaceholder) == 1;
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        return accounts.isPlaceholder(accounts.indexOf(accountUID));
     }
 
     /**
@@ -1124,8 +1342,8 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return <code>true</code> if the account is hidden, <code>false</code> otherwise
      */
     public boolean isHiddenAccount(String accountUID){
-        String isHidden = getAttribute(accountUID, AccountEntry.COLUMN_HIDDEN);
-        return Integer.parseInt(isHidden) == 1;
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        return accounts.isHidden(accounts.indexOf(accountUID));
     }
 
     /**
@@ -1134,8 +1352,8 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return <code>true</code> if the account is a favorite account, <code>false</code> otherwise
      */
     public boolean isFavoriteAccount(String accountUID){
-        String isFavorite = getAttribute(accountUID, AccountEntry.COLUMN_FAVORITE);
-        return Integer.parseInt(isFavorite) == 1;
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        return accounts.isFavorite(accounts.indexOf(accountUID));
     }
 
     /**
@@ -1215,18 +1433,18 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
      * @return Android resource ID representing the color which can be directly set to a view
      */
     public static int getActiveAccountColorResource(@NonNull String accountUID) {
-        AccountsDbAdapter accountsDbAdapter = getInstance();
+        AccountDirectory accounts = getInstance().mSession.getAccountDirectory();
 
         String colorCode = null;
         int iColor = -1;
-        String parentAccountUID = accountUID;
-        while (parentAccountUID != null ) {
-            colorCode = accountsDbAdapter.getAccountColorCode(accountsDbAdapter.getID(parentAccountUID));
+        int index = accounts.indexOf(accountUID);
+        while (index >= 0) {
+            colorCode = accounts.getColorCode(index);
             if (colorCode != null) {
                 iColor = Color.parseColor(colorCode);
                 break;
             }
-            parentAccountUID = accountsDbAdapter.getParentAccountUID(parentAccountUID);
+            index = accounts.getParent(index);
         }
 
         if (colorCode == null) {
@@ -1276,7 +1494,14 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         mDb.delete(DatabaseSchema.BudgetEntry.TABLE_NAME, null, null);
         mDb.delete(DatabaseSchema.RecurrenceEntry.TABLE_NAME, null, null);
 
-        return mDb.delete(AccountEntry.TABLE_NAME, null, null);
+        int deleted = mDb.delete(AccountEntry.TABLE_NAME, null, null);
+        for (String tableName : new String[]{DatabaseSchema.PriceEntry.TABLE_NAME, SplitEntry.TABLE_NAME,
+                TransactionEntry.TABLE_NAME, DatabaseSchema.ScheduledActionEntry.TABLE_NAME,
+                DatabaseSchema.BudgetAmountEntry.TABLE_NAME, DatabaseSchema.BudgetEntry.TABLE_NAME,
+                DatabaseSchema.RecurrenceEntry.TABLE_NAME, AccountEntry.TABLE_NAME}) {
+            notifyTableChanged(tableName);
+        }
+        return deleted;
     }
 
     @Override
@@ -1292,6 +1517,19 @@ public class AccountsDbAdapter extends DatabaseAdapter<Account> {
         return result;
     }
 
+    @Override
+    public int deleteRecords(@NonNull Collection<String> uids) {
+        int deleted = super.deleteRecords(uids);
+        if (deleted > 0){
+            ContentValues contentValues = new ContentValues();
+            contentValues.putNull(AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID);
+            mDb.update(mTableName, contentValues,
+                    AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + " IN ('" + TextUtils.join("' , '", uids) + "')",
+                    null);
+        }
+        return deleted;
+    }
+
     public int getTransactionMaxSplitNum(@NonNull String accountUID) {
         Cursor cursor = mDb.query("trans_extra_info",
                 new String[]{"MAX(trans_split_count)"},
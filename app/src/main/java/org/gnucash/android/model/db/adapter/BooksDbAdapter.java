@@ -29,6 +29,8 @@ import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.db.DatabaseHelper;
 import org.gnucash.android.model.db.DatabaseSchema.BookEntry;
+import org.gnucash.android.model.db.row.BookRow;
+import org.gnucash.android.model.db.row.BookRowReader;
 import org.gnucash.android.model.data.Book;
 import org.gnucash.android.ui.settings.PreferenceActivity;
 import org.gnucash.android.util.TimestampHelper;
@@ -41,6 +43,11 @@ import java.util.List;
  */
 public class BooksDbAdapter extends DatabaseAdapter<Book> {
 
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private BookRowReader mRowReader;
+
     /**
      * Opens the database adapter with an existing database
      * @param db        SQLiteDatabase object
@@ -67,21 +74,17 @@ public class BooksDbAdapter extends DatabaseAdapter<Book> {
 
     @Override
     public Book buildModelInstance(@NonNull Cursor cursor) {
-        String rootAccountGUID = cursor.getString(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_ROOT_GUID));
-        String rootTemplateGUID =  cursor.getString(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_TEMPLATE_GUID));
-        String uriString = cursor.getString(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_SOURCE_URI));
-        String displayName = cursor.getString(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_DISPLAY_NAME));
-        int active = cursor.getInt(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_ACTIVE));
-        String lastSync = cursor.getString(cursor.getColumnIndexOrThrow(BookEntry.COLUMN_LAST_SYNC));
-
-        Book book = new Book(rootAccountGUID);
-        book.setDisplayName(displayName);
-        book.setRootTemplateUID(rootTemplateGUID);
+        BookRow row = mRowReader = BookRowReader.of(cursor, mRowReader);
+        String uriString = row.getSourceUri();
+
+        Book book = new Book(row.getRootAccountUID());
+        book.setDisplayName(row.getDisplayName());
+        book.setRootTemplateUID(row.getRootTemplateUID());
         book.setSourceUri(uriString == null ? null : Uri.parse(uriString));
-        book.setActive(active > 0);
-        book.setLastSync(TimestampHelper.getTimestampFromUtcString(lastSync));
+        book.setActive(row.isActive());
+        book.setLastSync(TimestampHelper.getTimestampFromUtcString(row.getLastSync()));
 
-        populateBaseModelAttributes(cursor, book);
+        populateBaseModelAttributes(row, book);
         return book;
     }
 
@@ -23,6 +23,8 @@ import androidx.annotation.NonNull;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.data.BudgetAmount;
 import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.db.row.BudgetAmountRow;
+import org.gnucash.android.model.db.row.BudgetAmountRowReader;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,6 +36,10 @@ import static org.gnucash.android.model.db.DatabaseSchema.BudgetAmountEntry;
  */
 public class BudgetAmountsDbAdapter extends DatabaseAdapter<BudgetAmount> {
 
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private BudgetAmountRowReader mRowReader;
 
     /**
      * Opens the database adapter with an existing database
@@ -56,16 +62,13 @@ public class BudgetAmountsDbAdapter extends DatabaseAdapter<BudgetAmount> {
 
     @Override
     public BudgetAmount buildModelInstance(@NonNull Cursor cursor) {
-        String budgetUID = cursor.getString(cursor.getColumnIndexOrThrow(BudgetAmountEntry.COLUMN_BUDGET_UID));
-        String accountUID = cursor.getString(cursor.getColumnIndexOrThrow(BudgetAmountEntry.COLUMN_ACCOUNT_UID));
-        long amountNum  = cursor.getLong(cursor.getColumnIndexOrThrow(BudgetAmountEntry.COLUMN_AMOUNT_NUM));
-        long amountDenom = cursor.getLong(cursor.getColumnIndexOrThrow(BudgetAmountEntry.COLUMN_AMOUNT_DENOM));
-        long periodNum  = cursor.getLong(cursor.getColumnIndexOrThrow(BudgetAmountEntry.COLUMN_PERIOD_NUM));
+        BudgetAmountRow row = mRowReader = BudgetAmountRowReader.of(cursor, mRowReader);
+        String accountUID = row.getAccountUID();
 
-        BudgetAmount budgetAmount = new BudgetAmount(budgetUID, accountUID);
-        budgetAmount.setAmount(new Money(amountNum, amountDenom, getAccountCurrencyCode(accountUID)));
-        budgetAmount.setPeriodNum(periodNum);
-        populateBaseModelAttributes(cursor, budgetAmount);
+        BudgetAmount budgetAmount = new BudgetAmount(row.getBudgetUID(), accountUID);
+        budgetAmount.setAmount(new Money(row.getAmountNum(), row.getAmountDenom(), getAccountCurrencyCode(accountUID)));
+        budgetAmount.setPeriodNum(row.getPeriodNum());
+        populateBaseModelAttributes(row, budgetAmount);
 
         return budgetAmount;
     }
@@ -106,8 +109,10 @@ public class BudgetAmountsDbAdapter extends DatabaseAdapter<BudgetAmount> {
      * @return Number of records deleted
      */
     public int deleteBudgetAmountsForBudget(String budgetUID){
-        return mDb.delete(mTableName, BudgetAmountEntry.COLUMN_BUDGET_UID + "=?",
+        int deleted = mDb.delete(mTableName, BudgetAmountEntry.COLUMN_BUDGET_UID + "=?",
                 new String[]{budgetUID});
+        notifyTableChanged(mTableName);
+        return deleted;
     }
 
     /**
@@ -29,6 +29,8 @@ import org.gnucash.android.model.data.Budget;
 import org.gnucash.android.model.data.BudgetAmount;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.model.data.Recurrence;
+import org.gnucash.android.model.db.row.BudgetRow;
+import org.gnucash.android.model.db.row.BudgetRowReader;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +44,11 @@ public class BudgetsDbAdapter extends DatabaseAdapter<Budget>{
     private RecurrenceDbAdapter mRecurrenceDbAdapter;
     private BudgetAmountsDbAdapter mBudgetAmountsDbAdapter;
 
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private BudgetRowReader mRowReader;
+
     /**
      * Opens the database adapter with an existing database
      *
@@ -107,17 +114,13 @@ public class BudgetsDbAdapter extends DatabaseAdapter<Budget>{
 
     @Override
     public Budget buildModelInstance(@NonNull Cursor cursor) {
-        String name = cursor.getString(cursor.getColumnIndexOrThrow(BudgetEntry.COLUMN_NAME));
-        String description = cursor.getString(cursor.getColumnIndexOrThrow(BudgetEntry.COLUMN_DESCRIPTION));
-        String recurrenceUID = cursor.getString(cursor.getColumnIndexOrThrow(BudgetEntry.COLUMN_RECURRENCE_UID));
-        long numPeriods = cursor.getLong(cursor.getColumnIndexOrThrow(BudgetEntry.COLUMN_NUM_PERIODS));
-
+        BudgetRow row = mRowReader = BudgetRowReader.of(cursor, mRowReader);
 
-        Budget budget = new Budget(name);
-        budget.setDescription(description);
-        budget.setRecurrence(mRecurrenceDbAdapter.getRecord(recurrenceUID));
-        budget.setNumberOfPeriods(numPeriods);
-        populateBaseModelAttributes(cursor, budget);
+        Budget budget = new Budget(row.getName());
+        budget.setDescription(row.getDescription());
+        budget.setRecurrence(mRecurrenceDbAdapter.getRecord(row.getRecurrenceUID()));
+        budget.setNumberOfPeriods(row.getNumPeriods());
+        populateBaseModelAttributes(row, budget);
         budget.setBudgetAmounts(mBudgetAmountsDbAdapter.getBudgetAmountsForBudget(budget.getUID()));
 
         return budget;
@@ -186,6 +189,6 @@ public class BudgetsDbAdapter extends DatabaseAdapter<Budget>{
             accountUIDs.add(budgetAmount.getAccountUID());
         }
 
-        return new AccountsDbAdapter(mDb).getAccountsBalance(accountUIDs, periodStart, periodEnd);
+        return mSession.getAccountsDbAdapter().getAccountsBalance(accountUIDs, periodStart, periodEnd);
     }
 }
@@ -9,6 +9,8 @@ import android.util.Log;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.data.Commodity;
+import org.gnucash.android.model.db.row.CommodityRow;
+import org.gnucash.android.model.db.row.CommodityRowReader;
 
 import static org.gnucash.android.model.db.DatabaseSchema.CommodityEntry;
 
@@ -16,6 +18,11 @@ import static org.gnucash.android.model.db.DatabaseSchema.CommodityEntry;
  * Database adapter for {@link Commodity}
  */
 public class CommoditiesDbAdapter extends DatabaseAdapter<Commodity> {
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private CommodityRowReader mRowReader;
+
     /**
      * Opens the database adapter with an existing database
      *
@@ -66,21 +73,14 @@ public class CommoditiesDbAdapter extends DatabaseAdapter<Commodity> {
 
     @Override
     public Commodity buildModelInstance(@NonNull final Cursor cursor) {
-        String fullname = cursor.getString(cursor.getColumnIndexOrThrow(CommodityEntry.COLUMN_FULLNAME));
-        String mnemonic = cursor.getString(cursor.getColumnIndexOrThrow(CommodityEntry.COLUMN_MNEMONIC));
-        String namespace = cursor.getString(cursor.getColumnIndexOrThrow(CommodityEntry.COLUMN_NAMESPACE));
-        String cusip = cursor.getString(cursor.getColumnIndexOrThrow(CommodityEntry.COLUMN_CUSIP));
-        String localSymbol = cursor.getString(cursor.getColumnIndexOrThrow(CommodityEntry.COLUMN_LOCAL_SYMBOL));
-
-        int fraction = cursor.getInt(cursor.getColumnIndexOrThrow(CommodityEntry.COLUMN_SMALLEST_FRACTION));
-        int quoteFlag = cursor.getInt(cursor.getColumnIndexOrThrow(CommodityEntry.COLUMN_QUOTE_FLAG));
-
-        Commodity commodity = new Commodity(fullname, mnemonic, fraction);
-        commodity.setNamespace(Commodity.Namespace.valueOf(namespace));
-        commodity.setCusip(cusip);
-        commodity.setQuoteFlag(quoteFlag);
-        commodity.setLocalSymbol(localSymbol);
-        populateBaseModelAttributes(cursor, commodity);
+        CommodityRow row = mRowReader = CommodityRowReader.of(cursor, mRowReader);
+
+        Commodity commodity = new Commodity(row.getFullname(), row.getMnemonic(), row.getSmallestFraction());
+        commodity.setNamespace(Commodity.Namespace.valueOf(row.getNamespace()));
+        commodity.setCusip(row.getCusip());
+        commodity.setQuoteFlag(row.getQuoteFlag());
+        commodity.setLocalSymbol(row.getLocalSymbol());
+        populateBaseModelAttributes(row, commodity);
 
         return commodity;
     }
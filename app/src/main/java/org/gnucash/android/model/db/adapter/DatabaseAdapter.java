@@ -24,17 +24,27 @@ import androidx.annotation.NonNull;
 import android.text.TextUtils;
 import android.util.Log;
 
+import org.gnucash.android.model.db.AccountDirectory;
+import org.gnucash.android.model.db.BookSession;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseChangeBus;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
+import org.gnucash.android.model.db.DatabaseSchema.ChangeLogEntry;
 import org.gnucash.android.model.db.DatabaseSchema.CommonColumns;
-import org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
 import org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
 import org.gnucash.android.model.data.AccountType;
 import org.gnucash.android.model.data.BaseModel;
+import org.gnucash.android.model.db.row.CommonRow;
 import org.gnucash.android.util.TimestampHelper;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Adapter to be used for creating and opening the database for read/write operations.
@@ -56,6 +66,11 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
 
     protected final String mTableName;
 
+    /**
+     * Session of the database, holding the other adapters of the same database
+     */
+    protected final BookSession mSession;
+
     protected final String[] mColumns;
 
     protected volatile SQLiteStatement mReplaceStatement;
@@ -79,120 +94,10 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
         if (!db.isOpen() || db.isReadOnly())
             throw new IllegalArgumentException("Database not open or is read-only. Require writeable database");
 
-        if (mDb.getVersion() >= 9) {
-            createTempView();
-        }
+        mSession = BookSession.of(db);
         LOG_TAG = getClass().getSimpleName();
     }
 
-    private void createTempView() {
-        //the multiplication by 1.0 is to cause sqlite to handle the value as REAL and not to round off
-
-        // Create some temporary views. Temporary views only exists in one DB session, and will not
-        // be saved in the DB
-        //
-        // TODO: Useful views should be add to the DB
-        //
-        // create a temporary view, combining accounts, transactions and splits, as this is often used
-        // in the queries
-
-        //todo: would it be useful to add the split reconciled_state and reconciled_date to this view?
-        mDb.execSQL("CREATE TEMP VIEW IF NOT EXISTS trans_split_acct AS SELECT "
-                        + TransactionEntry.TABLE_NAME + "." + CommonColumns.COLUMN_MODIFIED_AT + " AS "
-                        + TransactionEntry.TABLE_NAME + "_" + CommonColumns.COLUMN_MODIFIED_AT + " , "
-                        + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + " AS "
-                        + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID + " , "
-                        + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_DESCRIPTION + " AS "
-                        + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_DESCRIPTION + " , "
-                        + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_NOTES + " AS "
-                        + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_NOTES + " , "
-                        + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_CURRENCY + " AS "
-                        + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_CURRENCY + " , "
-                        + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TIMESTAMP + " AS "
-                        + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TIMESTAMP + " , "
-                        + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_EXPORTED + " AS "
-                        + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_EXPORTED + " , "
-                        + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TEMPLATE + " AS "
-                        + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TEMPLATE + " , "
-                        + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_UID + " AS "
-                        + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_UID + " , "
-                        + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TYPE + " AS "
-                        + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_TYPE + " , "
-                        + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_VALUE_NUM + " AS "
-                        + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_VALUE_NUM + " , "
-                        + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_VALUE_DENOM + " AS "
-                        + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_VALUE_DENOM + " , "
-                        + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_QUANTITY_NUM + " AS "
-                        + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_NUM + " , "
-                        + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_QUANTITY_DENOM + " AS "
-                        + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_DENOM + " , "
-                        + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_MEMO + " AS "
-                        + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_MEMO + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_UID + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_NAME + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_NAME + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_CURRENCY + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_CURRENCY + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_PARENT_ACCOUNT_UID + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_PLACEHOLDER + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_PLACEHOLDER + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_COLOR_CODE + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_COLOR_CODE + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_FAVORITE + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_FAVORITE + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_FULL_NAME + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_FULL_NAME + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_TYPE + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_TYPE + " , "
-                        + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID + " AS "
-                        + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID
-                        + " FROM " + TransactionEntry.TABLE_NAME + " , " + SplitEntry.TABLE_NAME + " ON "
-                        + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + "=" + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID
-                        + " , " + AccountEntry.TABLE_NAME + " ON "
-                        + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_ACCOUNT_UID + "=" + AccountEntry.TABLE_NAME + "." + AccountEntry.COLUMN_UID
-        );
-
-        // SELECT transactions_uid AS trans_acct_t_uid ,
-        //      SUBSTR (
-        //          MIN (
-        //              ( CASE WHEN IFNULL ( splits_memo , '' ) == '' THEN 'a' ELSE 'b' END ) || accounts_uid
-        //          ) ,
-        //          2
-        //      ) AS trans_acct_a_uid ,
-        //   TOTAL ( CASE WHEN splits_type = 'DEBIT' THEN splits_value_num
-        //                ELSE - splits_value_num END ) * 1.0 / splits_value_denom AS trans_acct_balance ,
-        //   COUNT ( DISTINCT accounts_currency_code ) AS trans_currency_count ,
-        //   COUNT (*) AS trans_split_count
-        //   FROM trans_split_acct GROUP BY transactions_uid
-        //
-        // This temporary view would pick one Account_UID for each
-        // Transaction, which can be used to order all transactions. If possible, account_uid of a split whose
-        // memo is null is select.
-        //
-        // Transaction balance is also picked out by this view
-        //
-        // a split without split memo is chosen if possible, in the following manner:
-        //   if the splits memo is null or empty string, attach an 'a' in front of the split account uid,
-        //   if not, attach a 'b' to the split account uid
-        //   pick the minimal value of the modified account uid (one of the ones begins with 'a', if exists)
-        //   use substr to get account uid
-
-        mDb.execSQL("CREATE TEMP VIEW IF NOT EXISTS trans_extra_info AS SELECT " + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID +
-                " AS trans_acct_t_uid , SUBSTR ( MIN ( ( CASE WHEN IFNULL ( " + SplitEntry.TABLE_NAME + "_" +
-                SplitEntry.COLUMN_MEMO + " , '' ) == '' THEN 'a' ELSE 'b' END ) || " +
-                AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_UID +
-                " ) , 2 ) AS trans_acct_a_uid , TOTAL ( CASE WHEN " + SplitEntry.TABLE_NAME + "_" +
-                SplitEntry.COLUMN_TYPE + " = 'DEBIT' THEN "+ SplitEntry.TABLE_NAME + "_" +
-                SplitEntry.COLUMN_VALUE_NUM + " ELSE - " + SplitEntry.TABLE_NAME + "_" +
-                SplitEntry.COLUMN_VALUE_NUM + " END ) * 1.0 / " + SplitEntry.TABLE_NAME + "_" +
-                SplitEntry.COLUMN_VALUE_DENOM + " AS trans_acct_balance , COUNT ( DISTINCT " +
-                AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_CURRENCY +
-                " ) AS trans_currency_count , COUNT (*) AS trans_split_count FROM trans_split_acct " +
-                " GROUP BY " + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID
-        );
-    }
 
     /**
      * Checks if the database is open
@@ -220,6 +125,7 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
      */
     public void addRecord(@NonNull final Model model, UpdateMethod updateMethod){
         Log.d(LOG_TAG, String.format("Adding %s record to database: ", model.getClass().getSimpleName()));
+        DatabaseChange.Builder change = new DatabaseChange.Builder(mTableName).addRecordUID(model.getUID());
         switch(updateMethod){
             case insert:
                 synchronized(getInsertStatement()) {
@@ -237,6 +143,8 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
                 }
                 break;
         }
+        describeModel(change, model);
+        postChange(change.build());
     }
 
     /**
@@ -301,15 +209,18 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
             mDb.setTransactionSuccessful();
         }
         finally {
-            mDb.endTransaction();
+            endTransaction();
         }
 
+        notifyTableChanged(mTableName);
         return nRow;
     }
 
     /**
      * Builds an instance of the model from the database record entry
-     * <p>When implementing this method, remember to call {@link #populateBaseModelAttributes(Cursor, BaseModel)}</p>
+     * <p>When implementing this method, read the cursor through the generated reader of the table's
+     * {@link org.gnucash.android.model.db.row.RowReader row interface}, kept from one row to the next,
+     * and remember to call {@link #populateBaseModelAttributes(CommonRow, BaseModel)}</p>
      * @param cursor Cursor pointing to the record
      * @return New instance of the model from database record
      */
@@ -454,17 +365,13 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
 
     /**
      * Initializes the model with values from the database record common to all models (i.e. in the BaseModel)
-     * @param cursor Cursor pointing to database record
+     * @param row Row reader pointing to database record
      * @param model Model instance to be initialized
      */
-    protected void populateBaseModelAttributes(Cursor cursor, BaseModel model){
-        String uid = cursor.getString(cursor.getColumnIndexOrThrow(CommonColumns.COLUMN_UID));
-        String created = cursor.getString(cursor.getColumnIndexOrThrow(CommonColumns.COLUMN_CREATED_AT));
-        String modified= cursor.getString(cursor.getColumnIndexOrThrow(CommonColumns.COLUMN_MODIFIED_AT));
-
-        model.setUID(uid);
-        model.setCreatedTimestamp(TimestampHelper.getTimestampFromUtcString(created));
-        model.setModifiedTimestamp(TimestampHelper.getTimestampFromUtcString(modified));
+    protected void populateBaseModelAttributes(CommonRow row, BaseModel model){
+        model.setUID(row.getUID());
+        model.setCreatedTimestamp(TimestampHelper.getTimestampFromUtcString(row.getCreatedAt()));
+        model.setModifiedTimestamp(TimestampHelper.getTimestampFromUtcString(row.getModifiedAt()));
     }
 
 	/**
@@ -513,7 +420,11 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
 	 */
 	public boolean deleteRecord(long rowId){
         Log.d(LOG_TAG, "Deleting record with id " + rowId + " from " + mTableName);
-		return mDb.delete(mTableName, DatabaseSchema.CommonColumns._ID + "=" + rowId, null) > 0;
+        DatabaseChange change = describeRecord(rowId);
+		boolean deleted = mDb.delete(mTableName, DatabaseSchema.CommonColumns._ID + "=" + rowId, null) > 0;
+        if (deleted && change != null)
+            postChange(change);
+        return deleted;
 	}
 
     /**
@@ -521,7 +432,80 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
      * @return Number of deleted records
      */
     public int deleteAllRecords(){
-        return mDb.delete(mTableName, null, null);
+        int deleted = mDb.delete(mTableName, null, null);
+        notifyTableChanged(mTableName);
+        return deleted;
+    }
+
+    /**
+     * Adds the accounts and transactions related to existing records of this adapter to a change.
+     * <p>Called before records are deleted, and after they are updated with content values, so that
+     * subscribers of the {@link DatabaseChangeBus} also learn about the previous state.
+     * Records saved from a model are only described by {@link #describeModel(DatabaseChange.Builder, BaseModel)},
+     * to keep the query out of every save.
+     * The default implementation adds nothing, adapters of records which affect accounts or
+     * transactions read them from the database.</p>
+     * @param change Change being described
+     * @param recordUIDs GUIDs of the changed records
+     */
+    protected void describeRecords(@NonNull DatabaseChange.Builder change, @NonNull Collection<String> recordUIDs) {
+        //nothing related by default
+    }
+
+    /**
+     * Adds the accounts and transactions referenced by a saved model to a change.
+     * <p>The default implementation adds nothing</p>
+     * @param change Change being described
+     * @param model Model which was saved
+     */
+    protected void describeModel(@NonNull DatabaseChange.Builder change, @NonNull Model model) {
+        //nothing related by default
+    }
+
+    /**
+     * Describes the change to the record with database ID {@code rowId}
+     * @return Change to the record, or {@code null} if it does not exist
+     */
+    private DatabaseChange describeRecord(long rowId) {
+        Cursor cursor = mDb.query(mTableName, new String[]{CommonColumns.COLUMN_UID},
+                CommonColumns._ID + " = " + rowId, null, null, null, null);
+        try {
+            if (!cursor.moveToFirst())
+                return null;
+            return describeRecord(cursor.getString(0));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Describes the change to the record with GUID {@code uid}
+     */
+    private DatabaseChange describeRecord(@NonNull String uid) {
+        DatabaseChange.Builder change = new DatabaseChange.Builder(mTableName).addRecordUID(uid);
+        describeRecords(change, Collections.singletonList(uid));
+        return change.build();
+    }
+
+    /**
+     * Publishes a change to unknown rows of {@code tableName} on the {@link DatabaseChangeBus}.
+     * <p>Should be called after writes to the database which bypass the record methods of the adapters</p>
+     * @param tableName Name of the changed table
+     */
+    protected void notifyTableChanged(@NonNull String tableName) {
+        postChange(DatabaseChange.forTable(tableName));
+    }
+
+    /**
+     * Publishes a change written through this adapter on the {@link DatabaseChangeBus}.
+     * <p>The session of the database is told first, so that snapshots like the
+     * {@link AccountDirectory} are not used anymore once subscribers learn about the change.
+     * Changes written inside a database transaction are published when it ends</p>
+     * @param change Change to the database of this adapter
+     */
+    protected void postChange(@NonNull DatabaseChange change) {
+        mSession.onDatabaseChange(change);
+        mSession.publishChange(change);
     }
 
     /**
@@ -582,19 +566,8 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
      *      does not exist in DB
      */
     public String getAccountCurrencyCode(@NonNull String accountUID) {
-        Cursor cursor = mDb.query(DatabaseSchema.AccountEntry.TABLE_NAME,
-                new String[] {DatabaseSchema.AccountEntry.COLUMN_CURRENCY},
-                DatabaseSchema.AccountEntry.COLUMN_UID + "= ?",
-                new String[]{accountUID}, null, null, null);
-        try {
-            if (cursor.moveToFirst()) {
-                return cursor.getString(0);
-            } else {
-                throw new IllegalArgumentException("Account " + accountUID + " does not exist");
-            }
-        } finally {
-            cursor.close();
-        }
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        return accounts.getCurrencyCode(accounts.indexOf(accountUID));
     }
 
 
@@ -604,21 +577,10 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
      * @return GUID of commodity
      */
     public String getCommodityUID(String currencyCode){
-        String where = DatabaseSchema.CommodityEntry.COLUMN_MNEMONIC + "= ?";
-        String[] whereArgs = new String[]{currencyCode};
-
-        Cursor cursor = mDb.query(DatabaseSchema.CommodityEntry.TABLE_NAME,
-                new String[]{DatabaseSchema.CommodityEntry.COLUMN_UID},
-                where, whereArgs, null, null, null);
-        try {
-            if (cursor.moveToNext()) {
-                return cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.CommodityEntry.COLUMN_UID));
-            } else {
-                throw new IllegalArgumentException("Currency code not found in commodities");
-            }
-        } finally {
-            cursor.close();
-        }
+        String commodityUID = mSession.getAccountDirectory().getCommodityUIDForCurrency(currencyCode);
+        if (commodityUID == null)
+            throw new IllegalArgumentException("Currency code not found in commodities");
+        return commodityUID;
     }
 
     /**
@@ -628,21 +590,8 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
      * @throws java.lang.IllegalArgumentException if accountUID does not exist in DB,
      */
     public AccountType getAccountType(@NonNull String accountUID){
-        String type = "";
-        Cursor c = mDb.query(DatabaseSchema.AccountEntry.TABLE_NAME,
-                new String[]{DatabaseSchema.AccountEntry.COLUMN_TYPE},
-                DatabaseSchema.AccountEntry.COLUMN_UID + "=?",
-                new String[]{accountUID}, null, null, null);
-        try {
-            if (c.moveToFirst()) {
-                type = c.getString(c.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_TYPE));
-            } else {
-                throw new IllegalArgumentException("account " + accountUID + " does not exist in DB");
-            }
-        } finally {
-            c.close();
-        }
-        return AccountType.valueOf(type);
+        AccountDirectory accounts = mSession.getAccountDirectory();
+        return accounts.getType(accounts.indexOf(accountUID));
     }
 
     /**
@@ -659,8 +608,10 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
         } else {
             contentValues.put(columnKey, newValue);
         }
-        return mDb.update(tableName, contentValues,
+        int updated = mDb.update(tableName, contentValues,
                 DatabaseSchema.CommonColumns._ID + "=" + recordId, null);
+        notifyTableChanged(tableName);
+        return updated;
     }
 
     /**
@@ -671,7 +622,13 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
      * @return Number of records affected
      */
     public int updateRecord(@NonNull String uid, @NonNull String columnKey, String newValue) {
-        return updateRecords(CommonColumns.COLUMN_UID + "= ?", new String[]{uid}, columnKey, newValue);
+        ContentValues contentValues = new ContentValues();
+        if (newValue == null) {
+            contentValues.putNull(columnKey);
+        } else {
+            contentValues.put(columnKey, newValue);
+        }
+        return updateRecord(uid, contentValues);
     }
 
     /**
@@ -681,7 +638,10 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
      * @return Number of records updated
      */
     public int updateRecord(@NonNull String uid, @NonNull ContentValues contentValues){
-        return mDb.update(mTableName, contentValues, CommonColumns.COLUMN_UID + "=?", new String[]{uid});
+        int updated = mDb.update(mTableName, contentValues, CommonColumns.COLUMN_UID + "=?", new String[]{uid});
+        if (updated > 0)
+            postChange(describeRecord(uid));
+        return updated;
     }
 
     /**
@@ -699,7 +659,9 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
         } else {
             contentValues.put(columnKey, newValue);
         }
-        return mDb.update(mTableName, contentValues, where, whereArgs);
+        int updated = mDb.update(mTableName, contentValues, where, whereArgs);
+        notifyTableChanged(mTableName);
+        return updated;
     }
 
     /**
@@ -713,6 +675,24 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
         return deleteRecord(getID(uid));
     }
 
+    /**
+     * Deletes several records with a single statement, and publishes a single change for all of them
+     * @param uids GUIDs of the records
+     * @return Number of deleted records
+     */
+    public int deleteRecords(@NonNull Collection<String> uids){
+        if (uids.isEmpty())
+            return 0;
+        Log.d(LOG_TAG, "Deleting " + uids.size() + " records from " + mTableName);
+        DatabaseChange.Builder change = new DatabaseChange.Builder(mTableName).addRecordUIDs(uids);
+        describeRecords(change, uids);
+        int deleted = mDb.delete(mTableName,
+                CommonColumns.COLUMN_UID + " IN ('" + TextUtils.join("' , '", uids) + "')", null);
+        if (deleted > 0)
+            postChange(change.build());
+        return deleted;
+    }
+
     /**
      * Returns an attribute from a specific column in the database for a specific record.
      * <p>The attribute is returned as a string which can then be converted to another type if
@@ -766,6 +746,100 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
         return statement.simpleQueryForLong();
     }
 
+    /**
+     * Returns the sequence number of the last change of accounts, transactions or splits.
+     * <p>Consumers of the change log store this number once they have processed the changes,
+     * and fetch only the changes with a higher sequence number the next time</p>
+     * @return Last sequence number of the change log, 0 if nothing has been logged
+     * @see org.gnucash.android.model.db.DatabaseSchema.ChangeLogEntry
+     */
+    public long getLastChangeSequence() {
+        SQLiteStatement statement = mDb.compileStatement("SELECT IFNULL(MAX("
+                + ChangeLogEntry.COLUMN_SEQUENCE + "), 0) FROM " + ChangeLogEntry.TABLE_NAME);
+        try {
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Deletes the change log rows with a sequence number below {@code sequence}.
+     * <p>The last row is always kept, so that {@link #getLastChangeSequence()} does not go back</p>
+     * @param sequence Lowest sequence number which is still needed by a consumer of the change log
+     * @return Number of deleted rows
+     */
+    public int deleteChangesBefore(long sequence) {
+        return mDb.delete(ChangeLogEntry.TABLE_NAME, ChangeLogEntry.COLUMN_SEQUENCE + " < ?",
+                new String[]{String.valueOf(Math.min(sequence, getLastChangeSequence()))});
+    }
+
+    /**
+     * Fetches the changes logged for the table of this adapter after a sequence number.
+     * <p>Unlike the records themselves, the changes include deleted records. They are ordered by sequence number,
+     * so the last row of a record holds its latest operation</p>
+     * @param sequence Sequence number of the last processed change
+     * @return Cursor over the change log rows
+     */
+    public Cursor fetchChangesSince(long sequence) {
+        return mDb.query(ChangeLogEntry.TABLE_NAME, null,
+                ChangeLogEntry.COLUMN_SEQUENCE + " > ? AND " + ChangeLogEntry.COLUMN_TABLE_NAME + " = ?",
+                new String[]{String.valueOf(sequence), mTableName},
+                null, null, ChangeLogEntry.COLUMN_SEQUENCE + " ASC");
+    }
+
+    /**
+     * Returns the GUIDs of the records of this adapter's table which were inserted, updated or deleted
+     * after a sequence number of the change log
+     * @param sequence Sequence number of the last processed change
+     * @return Set of record GUIDs, including those of deleted records
+     */
+    public Set<String> getChangedRecordUIDs(long sequence) {
+        Set<String> recordUIDs = new HashSet<>();
+        Cursor cursor = mDb.query(true, ChangeLogEntry.TABLE_NAME, new String[]{ChangeLogEntry.COLUMN_RECORD_UID},
+                ChangeLogEntry.COLUMN_SEQUENCE + " > ? AND " + ChangeLogEntry.COLUMN_TABLE_NAME + " = ?",
+                new String[]{String.valueOf(sequence), mTableName}, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                recordUIDs.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return recordUIDs;
+    }
+
+    /**
+     * Appends entries to the change log for records of this adapter's table, without modifying the records.
+     * <p>Used to carry changes which were not consumed yet past a new sequence number,
+     * e.g. local changes which are still missing from a synchronized file</p>
+     * @param operations Map of record GUIDs to the logged operation,
+     *                   one of the operation constants of {@link ChangeLogEntry}
+     */
+    public void logChanges(@NonNull Map<String, String> operations) {
+        if (operations.isEmpty())
+            return;
+        SQLiteStatement statement = mDb.compileStatement("INSERT INTO " + ChangeLogEntry.TABLE_NAME + " ("
+                + ChangeLogEntry.COLUMN_TABLE_NAME + ", " + ChangeLogEntry.COLUMN_RECORD_UID + ", "
+                + ChangeLogEntry.COLUMN_OPERATION + ", " + ChangeLogEntry.COLUMN_TRANSACTION_UID + ", "
+                + ChangeLogEntry.COLUMN_ACCOUNT_UID + ") VALUES (?, ?, ?, ?, ?)");
+        try {
+            for (Map.Entry<String, String> entry : operations.entrySet()) {
+                statement.clearBindings();
+                statement.bindString(1, mTableName);
+                statement.bindString(2, entry.getKey());
+                statement.bindString(3, entry.getValue());
+                if (mTableName.equals(TransactionEntry.TABLE_NAME))
+                    statement.bindString(4, entry.getKey());
+                if (mTableName.equals(AccountEntry.TABLE_NAME))
+                    statement.bindString(5, entry.getKey());
+                statement.executeInsert();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
     /**
      * Expose mDb.beginTransaction()
      */
@@ -796,8 +870,10 @@ public abstract class DatabaseAdapter<Model extends BaseModel> {
 
     /**
      * Expose mDb.endTransaction()
+     * <p>The changes written in the transaction are published once the outermost transaction has ended</p>
      */
     public void endTransaction() {
         mDb.endTransaction();
+        mSession.publishPendingChanges();
     }
 }
@@ -9,6 +9,8 @@ import android.util.Pair;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.data.Price;
 import org.gnucash.android.util.TimestampHelper;
+import org.gnucash.android.model.db.row.PriceRow;
+import org.gnucash.android.model.db.row.PriceRowReader;
 
 import static org.gnucash.android.model.db.DatabaseSchema.PriceEntry;
 
@@ -16,6 +18,11 @@ import static org.gnucash.android.model.db.DatabaseSchema.PriceEntry;
  * Database adapter for prices
  */
 public class PricesDbAdapter extends DatabaseAdapter<Price> {
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private PriceRowReader mRowReader;
+
     /**
      * Opens the database adapter with an existing database
      * @param db SQLiteDatabase object
@@ -57,22 +64,16 @@ public class PricesDbAdapter extends DatabaseAdapter<Price> {
 
     @Override
     public Price buildModelInstance(@NonNull final Cursor cursor) {
-        String commodityUID = cursor.getString(cursor.getColumnIndexOrThrow(PriceEntry.COLUMN_COMMODITY_UID));
-        String currencyUID  = cursor.getString(cursor.getColumnIndexOrThrow(PriceEntry.COLUMN_CURRENCY_UID));
-        String dateString   = cursor.getString(cursor.getColumnIndexOrThrow(PriceEntry.COLUMN_DATE));
-        String source       = cursor.getString(cursor.getColumnIndexOrThrow(PriceEntry.COLUMN_SOURCE));
-        String type         = cursor.getString(cursor.getColumnIndexOrThrow(PriceEntry.COLUMN_TYPE));
-        long valueNum     = cursor.getLong(cursor.getColumnIndexOrThrow(PriceEntry.COLUMN_VALUE_NUM));
-        long valueDenom   = cursor.getLong(cursor.getColumnIndexOrThrow(PriceEntry.COLUMN_VALUE_DENOM));
+        PriceRow row = mRowReader = PriceRowReader.of(cursor, mRowReader);
 
-        Price price = new Price(commodityUID, currencyUID);
-        price.setDate(TimestampHelper.getTimestampFromUtcString(dateString));
-        price.setSource(source);
-        price.setType(type);
-        price.setValueNum(valueNum);
-        price.setValueDenom(valueDenom);
+        Price price = new Price(row.getCommodityUID(), row.getCurrencyUID());
+        price.setDate(TimestampHelper.getTimestampFromUtcString(row.getDate()));
+        price.setSource(row.getSource());
+        price.setType(row.getType());
+        price.setValueNum(row.getValueNum());
+        price.setValueDenom(row.getValueDenom());
 
-        populateBaseModelAttributes(cursor, price);
+        populateBaseModelAttributes(row, price);
         return price;
     }
 
@@ -25,6 +25,8 @@ import androidx.annotation.Nullable;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.data.PeriodType;
 import org.gnucash.android.model.data.Recurrence;
+import org.gnucash.android.model.db.row.RecurrenceRow;
+import org.gnucash.android.model.db.row.RecurrenceRowReader;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -38,6 +40,11 @@ import static org.gnucash.android.model.db.DatabaseSchema.RecurrenceEntry;
  * Database adapter for {@link Recurrence} entries
  */
 public class RecurrenceDbAdapter extends DatabaseAdapter<Recurrence> {
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private RecurrenceRowReader mRowReader;
+
     /**
      * Opens the database adapter with an existing database
      *
@@ -59,22 +66,19 @@ public class RecurrenceDbAdapter extends DatabaseAdapter<Recurrence> {
 
     @Override
     public Recurrence buildModelInstance(@NonNull Cursor cursor) {
-        String type = cursor.getString(cursor.getColumnIndexOrThrow(RecurrenceEntry.COLUMN_PERIOD_TYPE));
-        long multiplier = cursor.getLong(cursor.getColumnIndexOrThrow(RecurrenceEntry.COLUMN_MULTIPLIER));
-        String periodStart = cursor.getString(cursor.getColumnIndexOrThrow(RecurrenceEntry.COLUMN_PERIOD_START));
-        String periodEnd = cursor.getString(cursor.getColumnIndexOrThrow(RecurrenceEntry.COLUMN_PERIOD_END));
-        String byDays = cursor.getString(cursor.getColumnIndexOrThrow(RecurrenceEntry.COLUMN_BYDAY));
+        RecurrenceRow row = mRowReader = RecurrenceRowReader.of(cursor, mRowReader);
+        String periodEnd = row.getPeriodEnd();
 
-        PeriodType periodType = PeriodType.valueOf(type);
+        PeriodType periodType = PeriodType.valueOf(row.getPeriodType());
 
         Recurrence recurrence = new Recurrence(periodType);
-        recurrence.setMultiplier((int) multiplier);
-        recurrence.setPeriodStart(Timestamp.valueOf(periodStart));
+        recurrence.setMultiplier((int) row.getMultiplier());
+        recurrence.setPeriodStart(Timestamp.valueOf(row.getPeriodStart()));
         if (periodEnd != null)
             recurrence.setPeriodEnd(Timestamp.valueOf(periodEnd));
-        recurrence.setByDays(stringToByDays(byDays));
+        recurrence.setByDays(stringToByDays(row.getByDays()));
 
-        populateBaseModelAttributes(cursor, recurrence);
+        populateBaseModelAttributes(row, recurrence);
 
         return recurrence;
     }
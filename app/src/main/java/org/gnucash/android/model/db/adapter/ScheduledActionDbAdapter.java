@@ -23,9 +23,12 @@ import androidx.annotation.NonNull;
 import android.util.Log;
 
 import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.DatabaseChange;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.data.Recurrence;
 import org.gnucash.android.model.data.ScheduledAction;
+import org.gnucash.android.model.db.row.ScheduledActionRow;
+import org.gnucash.android.model.db.row.ScheduledActionRowReader;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -104,12 +107,11 @@ public class ScheduledActionDbAdapter extends DatabaseAdapter<ScheduledAction> {
     public long updateRecurrenceAttributes(ScheduledAction scheduledAction){
         //since we are updating, first fetch the existing recurrence UID and set it to the object
         //so that it will be updated and not a new one created
-        RecurrenceDbAdapter recurrenceDbAdapter = new RecurrenceDbAdapter(mDb);
-        String recurrenceUID = recurrenceDbAdapter.getAttribute(scheduledAction.getUID(), ScheduledActionEntry.COLUMN_RECURRENCE_UID);
+        String recurrenceUID = mRecurrenceDbAdapter.getAttribute(scheduledAction.getUID(), ScheduledActionEntry.COLUMN_RECURRENCE_UID);
 
         Recurrence recurrence = scheduledAction.getRecurrence();
         recurrence.setUID(recurrenceUID);
-        recurrenceDbAdapter.addRecord(recurrence, UpdateMethod.update);
+        mRecurrenceDbAdapter.addRecord(recurrence, UpdateMethod.update);
 
         ContentValues contentValues = new ContentValues();
         extractBaseModelAttributes(contentValues, scheduledAction);
@@ -121,7 +123,10 @@ public class ScheduledActionDbAdapter extends DatabaseAdapter<ScheduledAction> {
         Log.d(LOG_TAG, "Updating scheduled event recurrence attributes");
         String where = ScheduledActionEntry.COLUMN_UID + "=?";
         String[] whereArgs = new String[]{scheduledAction.getUID()};
-        return mDb.update(ScheduledActionEntry.TABLE_NAME, contentValues, where, whereArgs);
+        int updated = mDb.update(ScheduledActionEntry.TABLE_NAME, contentValues, where, whereArgs);
+        postChange(new DatabaseChange.Builder(ScheduledActionEntry.TABLE_NAME)
+                .addRecordUID(scheduledAction.getUID()).build());
+        return updated;
     }
 
     @Override
@@ -150,6 +155,11 @@ public class ScheduledActionDbAdapter extends DatabaseAdapter<ScheduledAction> {
         stmt.bindString(17, schedxAction.getUID());
         return stmt;
     }
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private ScheduledActionRowReader mRowReader;
+
     /**
      * Builds a {@link ScheduledAction} instance from a row to cursor in the database.
      * The cursor should be already pointing to the right entry in the data set. It will not be modified in any way
@@ -158,39 +168,25 @@ public class ScheduledActionDbAdapter extends DatabaseAdapter<ScheduledAction> {
      */
     @Override
     public ScheduledAction buildModelInstance(@NonNull final Cursor cursor){
-        String actionUid = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_ACTION_UID));
-        long startTime  = cursor.getLong(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_START_TIME));
-        long endTime    = cursor.getLong(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_END_TIME));
-        long lastRun    = cursor.getLong(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_LAST_RUN));
-        String typeString = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_TYPE));
-        String tag      = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_TAG));
-        boolean enabled = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_ENABLED)) > 0;
-        int numOccurrences = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_TOTAL_FREQUENCY));
-        int execCount = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_EXECUTION_COUNT));
-        int autoCreate = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_AUTO_CREATE));
-        int autoNotify = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_AUTO_NOTIFY));
-        int advanceCreate = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_ADVANCE_CREATION));
-        int advanceNotify = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_ADVANCE_NOTIFY));
-        String recurrenceUID = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_RECURRENCE_UID));
-        String templateActUID = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_TEMPLATE_ACCT_UID));
-
-        ScheduledAction event = new ScheduledAction(ScheduledAction.ActionType.valueOf(typeString));
-        populateBaseModelAttributes(cursor, event);
-        event.setStartTime(startTime);
-        event.setEndTime(endTime);
-        event.setActionUID(actionUid);
-        event.setLastRun(lastRun);
-        event.setTag(tag);
-        event.setEnabled(enabled);
-        event.setTotalPlannedExecutionCount(numOccurrences);
-        event.setExecutionCount(execCount);
-        event.setAutoCreate(autoCreate == 1);
-        event.setAutoNotify(autoNotify == 1);
-        event.setAdvanceCreateDays(advanceCreate);
-        event.setAdvanceNotifyDays(advanceNotify);
+        ScheduledActionRow row = mRowReader = ScheduledActionRowReader.of(cursor, mRowReader);
+
+        ScheduledAction event = new ScheduledAction(ScheduledAction.ActionType.valueOf(row.getType()));
+        populateBaseModelAttributes(row, event);
+        event.setStartTime(row.getStartTime());
+        event.setEndTime(row.getEndTime());
+        event.setActionUID(row.getActionUID());
+        event.setLastRun(row.getLastRun());
+        event.setTag(row.getTag());
+        event.setEnabled(row.isEnabled());
+        event.setTotalPlannedExecutionCount(row.getTotalFrequency());
+        event.setExecutionCount(row.getExecutionCount());
+        event.setAutoCreate(row.isAutoCreate());
+        event.setAutoNotify(row.isAutoNotify());
+        event.setAdvanceCreateDays(row.getAdvanceCreateDays());
+        event.setAdvanceNotifyDays(row.getAdvanceNotifyDays());
         //TODO: optimize by doing overriding fetchRecord(String) and join the two tables
-        event.setRecurrence(mRecurrenceDbAdapter.getRecord(recurrenceUID));
-        event.setTemplateAccountUID(templateActUID);
+        event.setRecurrence(mRecurrenceDbAdapter.getRecord(row.getRecurrenceUID()));
+        event.setTemplateAccountUID(row.getTemplateAccountUID());
 
         return event;
     }
@@ -17,6 +17,7 @@
 
 package org.gnucash.android.model.db.adapter;
 
+import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
@@ -27,7 +28,11 @@ import android.util.Log;
 import android.util.Pair;
 
 import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseHelper;
 import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.row.SplitRow;
+import org.gnucash.android.model.db.row.SplitRowReader;
 import org.gnucash.android.model.data.Commodity;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.model.data.Split;
@@ -36,9 +41,18 @@ import org.gnucash.android.util.TimestampHelper;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import static org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
+import static org.gnucash.android.model.db.DatabaseSchema.SplitRollupEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
 
 /**
@@ -84,13 +98,77 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
         super.addRecord(split, updateMethod);
 
         long transactionId = getTransactionID(split.getTransactionUID());
+        ContentValues contentValues = new ContentValues();
         //when a split is updated, we want mark the transaction as not exported
-        updateRecord(TransactionEntry.TABLE_NAME, transactionId,
-                TransactionEntry.COLUMN_EXPORTED, String.valueOf(0));
-
+        contentValues.put(TransactionEntry.COLUMN_EXPORTED, 0);
         //modifying a split means modifying the accompanying transaction as well
-        updateRecord(TransactionEntry.TABLE_NAME, transactionId,
-                TransactionEntry.COLUMN_MODIFIED_AT, TimestampHelper.getUtcStringFromTimestamp(TimestampHelper.getTimestampFromNow()));
+        contentValues.put(TransactionEntry.COLUMN_MODIFIED_AT,
+                TimestampHelper.getUtcStringFromTimestamp(TimestampHelper.getTimestampFromNow()));
+        //the change to the transaction is part of the change posted for the split
+        mDb.update(TransactionEntry.TABLE_NAME, contentValues, TransactionEntry._ID + "=" + transactionId, null);
+    }
+
+    @Override
+    protected void describeRecords(@NonNull DatabaseChange.Builder change, @NonNull Collection<String> recordUIDs) {
+        Cursor cursor = mDb.query(SplitEntry.TABLE_NAME,
+                new String[]{SplitEntry.COLUMN_ACCOUNT_UID, SplitEntry.COLUMN_TRANSACTION_UID},
+                SplitEntry.COLUMN_UID + " IN ('" + TextUtils.join("' , '", recordUIDs) + "')",
+                null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                change.addAccountUID(cursor.getString(0));
+                change.addTransactionUID(cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    protected void describeModel(@NonNull DatabaseChange.Builder change, @NonNull Split split) {
+        change.addAccountUID(split.getAccountUID());
+        change.addTransactionUID(split.getTransactionUID());
+    }
+
+    /**
+     * Returns the GUIDs of the accounts of the splits of a transaction, by split GUID
+     * @param transactionUID GUID of the transaction
+     * @return Map of split GUIDs to account GUIDs, empty if the transaction has no splits in the database
+     */
+    public Map<String, String> getSplitAccountUIDs(@NonNull String transactionUID) {
+        Map<String, String> accountUIDs = new HashMap<>();
+        Cursor cursor = mDb.query(SplitEntry.TABLE_NAME,
+                new String[]{SplitEntry.COLUMN_UID, SplitEntry.COLUMN_ACCOUNT_UID},
+                SplitEntry.COLUMN_TRANSACTION_UID + " = ?", new String[]{transactionUID},
+                null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                accountUIDs.put(cursor.getString(0), cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return accountUIDs;
+    }
+
+    /**
+     * Returns the GUIDs of the accounts which the splits of some transactions belong to
+     * @param transactionUIDs GUIDs of the transactions
+     * @return Set of account GUIDs
+     */
+    public Set<String> getAccountUIDsOfTransactions(@NonNull Collection<String> transactionUIDs) {
+        Set<String> accountUIDs = new HashSet<>();
+        Cursor cursor = mDb.query(true, SplitEntry.TABLE_NAME, new String[]{SplitEntry.COLUMN_ACCOUNT_UID},
+                SplitEntry.COLUMN_TRANSACTION_UID + " IN ('" + TextUtils.join("' , '", transactionUIDs) + "')",
+                null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                accountUIDs.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return accountUIDs;
     }
 
     @Override
@@ -113,6 +191,11 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
 
         return stmt;
     }
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private SplitRowReader mRowReader;
+
     /**
      * Builds a split instance from the data pointed to by the cursor provided
      * <p>This method will not move the cursor in any way. So the cursor should already by pointing to the correct entry</p>
@@ -120,16 +203,17 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
      * @return {@link Split} instance
      */
     public Split buildModelInstance(@NonNull final Cursor cursor){
-        long valueNum       = cursor.getLong(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_VALUE_NUM));
-        long valueDenom     = cursor.getLong(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_VALUE_DENOM));
-        long quantityNum    = cursor.getLong(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_QUANTITY_NUM));
-        long quantityDenom  = cursor.getLong(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_QUANTITY_DENOM));
-        String typeName     = cursor.getString(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_TYPE));
-        String accountUID   = cursor.getString(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_ACCOUNT_UID));
-        String transxUID    = cursor.getString(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_TRANSACTION_UID));
-        String memo         = cursor.getString(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_MEMO));
-        String reconcileState = cursor.getString(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_RECONCILE_STATE));
-        String reconcileDate  = cursor.getString(cursor.getColumnIndexOrThrow(SplitEntry.COLUMN_RECONCILE_DATE));
+        SplitRow row = mRowReader = SplitRowReader.of(cursor, mRowReader);
+        long valueNum       = row.getValueNum();
+        long valueDenom     = row.getValueDenom();
+        long quantityNum    = row.getQuantityNum();
+        long quantityDenom  = row.getQuantityDenom();
+        String typeName     = row.getType();
+        String accountUID   = row.getAccountUID();
+        String transxUID    = row.getTransactionUID();
+        String memo         = row.getMemo();
+        String reconcileState = row.getReconcileState();
+        String reconcileDate  = row.getReconcileDate();
 
         String transactionCurrency = getAttribute(TransactionEntry.TABLE_NAME, transxUID, TransactionEntry.COLUMN_CURRENCY);
         Money value = new Money(valueNum, valueDenom, transactionCurrency);
@@ -138,7 +222,7 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
 
         Split split = new Split(value, accountUID);
         split.setQuantity(quantity);
-        populateBaseModelAttributes(cursor, split);
+        populateBaseModelAttributes(row, split);
         split.setTransactionUID(transxUID);
         split.setType(TransactionType.valueOf(typeName));
         split.setMemo(memo);
@@ -185,9 +269,126 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
             return new Money("0", currencyCode);
         }
 
-        Cursor cursor;
+        String accountSelection = " IN ( '" + TextUtils.join("' , '", accountUIDList) + "' )";
+        //sums of the split quantities, keyed by account currency and quantity denominator
+        Map<Pair<String, Long>, Long> quantitySums = new HashMap<>();
+
+        //whole days in the range are summed from the rollups, only the partial days at the edges from the splits
+        final long millisPerDay = SplitRollupEntry.MILLIS_PER_DAY;
+        long firstDay = startTimestamp == -1 ? Long.MIN_VALUE : Math.floorDiv(startTimestamp + millisPerDay - 1, millisPerDay);
+        long endDay = endTimestamp == -1 ? Long.MAX_VALUE : Math.floorDiv(endTimestamp + 1, millisPerDay);
+        if (firstDay < endDay) {
+            sumRollupQuantities(accountSelection, firstDay, endDay, quantitySums);
+            if (startTimestamp != -1 && firstDay * millisPerDay > startTimestamp)
+                sumSplitQuantities(accountSelection, startTimestamp, firstDay * millisPerDay - 1, quantitySums);
+            if (endTimestamp != -1 && endDay * millisPerDay <= endTimestamp)
+                sumSplitQuantities(accountSelection, endDay * millisPerDay, endTimestamp, quantitySums);
+        } else {
+            sumSplitQuantities(accountSelection, startTimestamp, endTimestamp, quantitySums);
+        }
+
+        return convertQuantitySums(quantitySums, currencyCode, hasDebitNormalBalance);
+    }
+
+    /**
+     * Adds up split quantity sums in different commodities, converting them to {@code currencyCode}.
+     * <p>Sums in commodities without a price to {@code currencyCode} are ignored</p>
+     * @param quantitySums Sums of quantity numerators keyed by currency code and quantity denominator
+     * @param currencyCode Currency of the result
+     * @param hasDebitNormalBalance Does the final balance has normal debit credit meaning
+     * @return Total of the quantity sums
+     */
+    public Money convertQuantitySums(Map<Pair<String, Long>, Long> quantitySums, String currencyCode,
+                                     boolean hasDebitNormalBalance) {
+        Money total = Money.createZeroInstance(currencyCode);
+        CommoditiesDbAdapter commoditiesDbAdapter = null;
+        PricesDbAdapter pricesDbAdapter = null;
+        Commodity commodity = null;
+        String currencyUID = null;
+        for (Map.Entry<Pair<String, Long>, Long> entry : quantitySums.entrySet()) {
+            long amount_num = entry.getValue();
+            long amount_denom = entry.getKey().second;
+            String commodityCode = entry.getKey().first;
+            //Log.d(getClass().getName(), commodity + " " + amount_num + "/" + amount_denom);
+            if (commodityCode.equals("XXX") || amount_num == 0) {
+                // ignore custom currency
+                continue;
+            }
+            if (!hasDebitNormalBalance) {
+                amount_num = -amount_num;
+            }
+            if (commodityCode.equals(currencyCode)) {
+                // currency matches
+                total = total.add(new Money(amount_num, amount_denom, currencyCode));
+                //Log.d(getClass().getName(), "currency " + commodity + " sub - total " + total);
+            } else {
+                // there is a second currency involved
+                if (commoditiesDbAdapter == null) {
+                    commoditiesDbAdapter = mSession.getCommoditiesDbAdapter();
+                    pricesDbAdapter = mSession.getPricesDbAdapter();
+                    commodity = commoditiesDbAdapter.getCommodity(currencyCode);
+                    currencyUID = commoditiesDbAdapter.getCommodityUID(currencyCode);
+                }
+                // get price
+                String commodityUID = commoditiesDbAdapter.getCommodityUID(commodityCode);
+                Pair<Long, Long> price = pricesDbAdapter.getPrice(commodityUID, currencyUID);
+                if (price.first <= 0 || price.second <= 0) {
+                    // no price exists, just ignore it
+                    continue;
+                }
+                BigDecimal amount = Money.getBigDecimal(amount_num, amount_denom);
+                BigDecimal amountConverted = amount.multiply(new BigDecimal(price.first))
+                        .divide(new BigDecimal(price.second), commodity.getSmallestFractionDigits(), BigDecimal.ROUND_HALF_EVEN);
+                total = total.add(new Money(amountConverted, commodity));
+                //Log.d(getClass().getName(), "currency " + commodity + " sub - total " + total);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Adds the split quantities of whole days, read from the split rollups table, to {@code quantitySums}
+     * @param accountSelection SQL condition for the account GUIDs, starting with the operator
+     * @param firstDay First day to include, or {@link Long#MIN_VALUE} to include all days before {@code endDay}
+     * @param endDay Day after the last day to include, or {@link Long#MAX_VALUE} to include all days from {@code firstDay}
+     * @param quantitySums Sums of quantity numerators keyed by currency code and quantity denominator
+     */
+    private void sumRollupQuantities(String accountSelection, long firstDay, long endDay,
+                                     Map<Pair<String, Long>, Long> quantitySums) {
+        List<String> selectionArgs = new ArrayList<>();
+        String selection = "r." + SplitRollupEntry.COLUMN_ACCOUNT_UID + accountSelection;
+        if (firstDay != Long.MIN_VALUE) {
+            selection += " AND r." + SplitRollupEntry.COLUMN_DAY + " >= ?";
+            selectionArgs.add(String.valueOf(firstDay));
+        }
+        if (endDay != Long.MAX_VALUE) {
+            selection += " AND r." + SplitRollupEntry.COLUMN_DAY + " < ?";
+            selectionArgs.add(String.valueOf(endDay));
+        }
+
+        Cursor cursor = mDb.rawQuery("SELECT SUM(r." + SplitRollupEntry.COLUMN_AMOUNT_NUM + "), "
+                + "r." + SplitRollupEntry.COLUMN_QUANTITY_DENOM + ", "
+                + "a." + AccountEntry.COLUMN_CURRENCY
+                + " FROM " + SplitRollupEntry.TABLE_NAME + " r"
+                + " INNER JOIN " + AccountEntry.TABLE_NAME + " a"
+                + " ON a." + AccountEntry.COLUMN_UID + " = r." + SplitRollupEntry.COLUMN_ACCOUNT_UID
+                + " WHERE " + selection
+                + " GROUP BY a." + AccountEntry.COLUMN_CURRENCY + ", r." + SplitRollupEntry.COLUMN_QUANTITY_DENOM,
+                selectionArgs.toArray(new String[selectionArgs.size()]));
+        addQuantitySums(cursor, quantitySums);
+    }
+
+    /**
+     * Adds the quantities of the individual splits in the time range to {@code quantitySums}
+     * @param accountSelection SQL condition for the account GUIDs, starting with the operator
+     * @param startTimestamp the start timestamp of the time range, or -1
+     * @param endTimestamp the end timestamp of the time range, or -1
+     * @param quantitySums Sums of quantity numerators keyed by currency code and quantity denominator
+     */
+    private void sumSplitQuantities(String accountSelection, long startTimestamp, long endTimestamp,
+                                    Map<Pair<String, Long>, Long> quantitySums) {
         String[] selectionArgs = null;
-        String selection = DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.CommonColumns.COLUMN_UID + " in ( '" + TextUtils.join("' , '", accountUIDList) + "' ) AND " +
+        String selection = AccountEntry.TABLE_NAME + "_" + DatabaseSchema.CommonColumns.COLUMN_UID + accountSelection + " AND " +
                 TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TEMPLATE + " = 0";
 
         if (startTimestamp != -1 && endTimestamp != -1) {
@@ -201,62 +402,171 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
             selectionArgs = new String[]{String.valueOf(startTimestamp)};
         }
 
-        cursor = mDb.query("trans_split_acct",
+        String denomColumn = SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_DENOM;
+        String currencyColumn = AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_CURRENCY;
+        Cursor cursor = mDb.query("trans_split_acct",
                 new String[]{"TOTAL ( CASE WHEN " + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_TYPE + " = 'DEBIT' THEN " +
                         SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_NUM + " ELSE - " +
                         SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_NUM + " END )",
-                        SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_DENOM,
-                        DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_CURRENCY},
-                selection, selectionArgs, DatabaseSchema.AccountEntry.TABLE_NAME + "_" + DatabaseSchema.AccountEntry.COLUMN_CURRENCY, null, null);
+                        denomColumn, currencyColumn},
+                selection, selectionArgs, currencyColumn + ", " + denomColumn, null, null);
+        addQuantitySums(cursor, quantitySums);
+    }
+
+    /**
+     * Sums the split quantities of the accounts in consecutive time ranges, for computing balances
+     * over many periods at once.
+     * <p>Like {@link #computeSplitBalance(List, String, boolean, long, long)}, whole days are summed from
+     * the split rollups, and only the days in which a range starts are read from the individual splits.
+     * Each row is assigned to its range with a binary search over the range boundaries.
+     * Template transactions are excluded.</p>
+     * @param accountUIDList GUIDs of the accounts
+     * @param boundaries Sorted, distinct timestamps. Range {@code i} starts at {@code boundaries[i]} and
+     *                   ends right before {@code boundaries[i + 1]}
+     * @return Quantity sums of each range, keyed by account GUID, and then by currency code and
+     * quantity denominator like in {@link #convertQuantitySums(Map, String, boolean)}
+     */
+    public List<Map<String, Map<Pair<String, Long>, Long>>> sumSplitQuantitiesByRange(
+            List<String> accountUIDList, long[] boundaries) {
+        int rangeCount = boundaries.length - 1;
+        List<Map<String, Map<Pair<String, Long>, Long>>> rangeSums = new ArrayList<>(Math.max(rangeCount, 0));
+        for (int i = 0; i < rangeCount; i++) {
+            rangeSums.add(new HashMap<String, Map<Pair<String, Long>, Long>>());
+        }
+        if (rangeCount <= 0 || accountUIDList.isEmpty())
+            return rangeSums;
+
+        String accountSelection = " IN ( '" + TextUtils.join("' , '", accountUIDList) + "' )";
+        final long millisPerDay = SplitRollupEntry.MILLIS_PER_DAY;
+        long startTimestamp = boundaries[0];
+        long endTimestamp = boundaries[rangeCount] - 1;
+
+        //days in which a range starts after midnight are split between ranges, and read from the splits
+        Set<Long> edgeDays = new HashSet<>();
+        StringBuilder edgeSelection = new StringBuilder();
+        for (long boundary : boundaries) {
+            long day = Math.floorDiv(boundary, millisPerDay);
+            if (Math.floorMod(boundary, millisPerDay) == 0 || !edgeDays.add(day))
+                continue;
+            long from = Math.max(day * millisPerDay, startTimestamp);
+            long to = Math.min((day + 1) * millisPerDay - 1, endTimestamp);
+            if (from > to)
+                continue;
+            edgeSelection.append(edgeSelection.length() == 0 ? "" : " OR ")
+                    .append(TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TIMESTAMP)
+                    .append(" BETWEEN ").append(from).append(" AND ").append(to);
+        }
 
+        Cursor cursor = mDb.rawQuery("SELECT r." + SplitRollupEntry.COLUMN_ACCOUNT_UID + ", "
+                + "r." + SplitRollupEntry.COLUMN_DAY + ", "
+                + "r." + SplitRollupEntry.COLUMN_AMOUNT_NUM + ", "
+                + "r." + SplitRollupEntry.COLUMN_QUANTITY_DENOM + ", "
+                + "a." + AccountEntry.COLUMN_CURRENCY
+                + " FROM " + SplitRollupEntry.TABLE_NAME + " r"
+                + " INNER JOIN " + AccountEntry.TABLE_NAME + " a"
+                + " ON a." + AccountEntry.COLUMN_UID + " = r." + SplitRollupEntry.COLUMN_ACCOUNT_UID
+                + " WHERE r." + SplitRollupEntry.COLUMN_ACCOUNT_UID + accountSelection
+                + " AND r." + SplitRollupEntry.COLUMN_DAY + " BETWEEN ? AND ?",
+                new String[]{String.valueOf(Math.floorDiv(startTimestamp, millisPerDay)),
+                        String.valueOf(Math.floorDiv(endTimestamp, millisPerDay))});
         try {
-            Money total = Money.createZeroInstance(currencyCode);
-            CommoditiesDbAdapter commoditiesDbAdapter = null;
-            PricesDbAdapter pricesDbAdapter = null;
-            Commodity commodity = null;
-            String currencyUID = null;
             while (cursor.moveToNext()) {
-                long amount_num = cursor.getLong(0);
-                long amount_denom = cursor.getLong(1);
-                String commodityCode = cursor.getString(2);
-                //Log.d(getClass().getName(), commodity + " " + amount_num + "/" + amount_denom);
-                if (commodityCode.equals("XXX") || amount_num == 0) {
-                    // ignore custom currency
+                long day = cursor.getLong(1);
+                if (edgeDays.contains(day))
                     continue;
-                }
-                if (!hasDebitNormalBalance) {
-                    amount_num = -amount_num;
-                }
-                if (commodityCode.equals(currencyCode)) {
-                    // currency matches
-                    total = total.add(new Money(amount_num, amount_denom, currencyCode));
-                    //Log.d(getClass().getName(), "currency " + commodity + " sub - total " + total);
-                } else {
-                    // there is a second currency involved
-                    if (commoditiesDbAdapter == null) {
-                        commoditiesDbAdapter = new CommoditiesDbAdapter(mDb);
-                        pricesDbAdapter = new PricesDbAdapter(mDb);
-                        commodity = commoditiesDbAdapter.getCommodity(currencyCode);
-                        currencyUID = commoditiesDbAdapter.getCommodityUID(currencyCode);
-                    }
-                    // get price
-                    String commodityUID = commoditiesDbAdapter.getCommodityUID(commodityCode);
-                    Pair<Long, Long> price = pricesDbAdapter.getPrice(commodityUID, currencyUID);
-                    if (price.first <= 0 || price.second <= 0) {
-                        // no price exists, just ignore it
-                        continue;
-                    }
-                    BigDecimal amount = Money.getBigDecimal(amount_num, amount_denom);
-                    BigDecimal amountConverted = amount.multiply(new BigDecimal(price.first))
-                            .divide(new BigDecimal(price.second), commodity.getSmallestFractionDigits(), BigDecimal.ROUND_HALF_EVEN);
-                    total = total.add(new Money(amountConverted, commodity));
-                    //Log.d(getClass().getName(), "currency " + commodity + " sub - total " + total);
-                }
+                addRangeQuantity(rangeSums, findRange(boundaries, day * millisPerDay), cursor);
             }
-            return total;
         } finally {
             cursor.close();
         }
+
+        if (edgeSelection.length() == 0)
+            return rangeSums;
+        String accountColumn = AccountEntry.TABLE_NAME + "_" + DatabaseSchema.CommonColumns.COLUMN_UID;
+        String timestampColumn = TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TIMESTAMP;
+        String denomColumn = SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_DENOM;
+        String currencyColumn = AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_CURRENCY;
+        cursor = mDb.query("trans_split_acct",
+                new String[]{accountColumn, timestampColumn,
+                        "TOTAL ( CASE WHEN " + SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_TYPE + " = 'DEBIT' THEN " +
+                        SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_NUM + " ELSE - " +
+                        SplitEntry.TABLE_NAME + "_" + SplitEntry.COLUMN_QUANTITY_NUM + " END )",
+                        denomColumn, currencyColumn},
+                accountColumn + accountSelection + " AND "
+                        + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_TEMPLATE + " = 0 AND ("
+                        + edgeSelection + ")", null,
+                accountColumn + ", " + timestampColumn + ", " + currencyColumn + ", " + denomColumn, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                addRangeQuantity(rangeSums, findRange(boundaries, cursor.getLong(1)), cursor);
+            }
+        } finally {
+            cursor.close();
+        }
+        return rangeSums;
+    }
+
+    /**
+     * Returns the index of the range containing {@code timestamp}, as defined in
+     * {@link #sumSplitQuantitiesByRange(List, long[])}, or -1 if it is outside of all ranges
+     */
+    private static int findRange(long[] boundaries, long timestamp) {
+        int index = Arrays.binarySearch(boundaries, timestamp);
+        if (index < 0)
+            index = -index - 2;
+        return index < boundaries.length - 1 ? index : -1;
+    }
+
+    /**
+     * Adds a quantity sum to a range.
+     * <p>The cursor columns are the account GUID, the day or timestamp, the quantity numerator sum,
+     * the quantity denominator and the account currency code</p>
+     */
+    private static void addRangeQuantity(List<Map<String, Map<Pair<String, Long>, Long>>> rangeSums,
+                                         int range, Cursor cursor) {
+        if (range < 0)
+            return;
+        String accountUID = cursor.getString(0);
+        Map<Pair<String, Long>, Long> quantitySums = rangeSums.get(range).get(accountUID);
+        if (quantitySums == null) {
+            quantitySums = new HashMap<>();
+            rangeSums.get(range).put(accountUID, quantitySums);
+        }
+        Pair<String, Long> key = new Pair<>(cursor.getString(4), cursor.getLong(3));
+        Long sum = quantitySums.get(key);
+        quantitySums.put(key, (sum == null ? 0 : sum) + cursor.getLong(2));
+    }
+
+    /**
+     * Adds the sums of a quantity query to {@code quantitySums} and closes the cursor.
+     * <p>The cursor columns are the quantity numerator sum, the quantity denominator and the currency code</p>
+     */
+    private static void addQuantitySums(Cursor cursor, Map<Pair<String, Long>, Long> quantitySums) {
+        try {
+            while (cursor.moveToNext()) {
+                Pair<String, Long> key = new Pair<>(cursor.getString(2), cursor.getLong(1));
+                Long sum = quantitySums.get(key);
+                quantitySums.put(key, (sum == null ? 0 : sum) + cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Recomputes the split rollups from the splits and transactions tables.
+     * <p>The rollups are maintained by database triggers, so this is only needed after the
+     * triggers have been disabled, e.g. during an import</p>
+     */
+    public void rebuildSplitRollups() {
+        mDb.beginTransaction();
+        try {
+            mDb.delete(SplitRollupEntry.TABLE_NAME, null, null);
+            mDb.execSQL("INSERT INTO " + SplitRollupEntry.TABLE_NAME + " " + DatabaseHelper.SPLIT_ROLLUP_QUERY);
+            mDb.setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
     }
 
     /**
@@ -406,14 +716,26 @@ public class SplitsDbAdapter extends DatabaseAdapter<Split> {
 
         if (!result) //we didn't delete for whatever reason, invalid rowId etc
             return false;
+        postChange(new DatabaseChange.Builder(SplitEntry.TABLE_NAME)
+                .addRecordUID(split.getUID())
+                .addAccountUID(split.getAccountUID())
+                .addTransactionUID(transactionUID)
+                .build());
 
         //if we just deleted the last split, then remove the transaction from db
         Cursor cursor = fetchSplitsForTransaction(transactionUID);
         try {
             if (cursor.getCount() > 0) {
                 long transactionID = getTransactionID(transactionUID);
+                Set<String> accountUIDs = getAccountUIDsOfTransactions(Collections.singletonList(transactionUID));
                 result = mDb.delete(TransactionEntry.TABLE_NAME,
                         TransactionEntry._ID + "=" + transactionID, null) > 0;
+                if (result)
+                    postChange(new DatabaseChange.Builder(TransactionEntry.TABLE_NAME)
+                            .addRecordUID(transactionUID)
+                            .addTransactionUID(transactionUID)
+                            .addAccountUIDs(accountUIDs)
+                            .build());
             }
         } finally {
             cursor.close();
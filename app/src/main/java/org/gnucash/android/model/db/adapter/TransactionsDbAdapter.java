@@ -33,13 +33,25 @@ import org.gnucash.android.model.data.AccountType;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.model.data.Split;
 import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.db.AutofillIndex;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.row.TransactionRow;
+import org.gnucash.android.model.db.row.TransactionRowReader;
 import org.gnucash.android.util.TimestampHelper;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
+import static org.gnucash.android.model.db.DatabaseSchema.AccountStatsEntry;
+import static org.gnucash.android.model.db.DatabaseSchema.ChangeLogEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.ScheduledActionEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
@@ -57,6 +69,11 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
 
     private final CommoditiesDbAdapter mCommoditiesDbAdapter;
 
+    /**
+     * Reader of the last cursor passed to {@link #buildModelInstance(Cursor)}
+     */
+    private TransactionRowReader mRowReader;
+
     /**
      * Overloaded constructor. Creates adapter for already open db
      * @param db SQlite db instance
@@ -74,7 +91,7 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
                 TransactionEntry.COLUMN_TEMPLATE
         });
         mSplitsDbAdapter = splitsDbAdapter;
-        mCommoditiesDbAdapter = new CommoditiesDbAdapter(db);
+        mCommoditiesDbAdapter = mSession.getCommoditiesDbAdapter();
     }
 
     /**
@@ -102,40 +119,113 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         try {
             Split imbalanceSplit = transaction.createAutoBalanceSplit();
             if (imbalanceSplit != null){
-                String imbalanceAccountUID = new AccountsDbAdapter(mDb, this)
+                String imbalanceAccountUID = mSession.getAccountsDbAdapter()
                         .getOrCreateImbalanceAccountUID(transaction.getCommodity());
                 imbalanceSplit.setAccountUID(imbalanceAccountUID);
             }
-            super.addRecord(transaction, updateMethod);
-
-            Log.d(LOG_TAG, "Adding splits for transaction");
-            ArrayList<String> splitUIDs = new ArrayList<>(transaction.getSplits().size());
-            for (Split split : transaction.getSplits()) {
-                Log.d(LOG_TAG, "Replace transaction split in db");
-                if (imbalanceSplit == split) {
-                    mSplitsDbAdapter.addRecord(split, UpdateMethod.insert);
-                } else {
-                    mSplitsDbAdapter.addRecord(split, updateMethod);
-                }
-                splitUIDs.add(split.getUID());
-            }
-            Log.d(LOG_TAG, transaction.getSplits().size() + " splits added");
-
-            long deleted = mDb.delete(SplitEntry.TABLE_NAME,
-                    SplitEntry.COLUMN_TRANSACTION_UID + " = ? AND "
-                            + SplitEntry.COLUMN_UID + " NOT IN ('" + TextUtils.join("' , '", splitUIDs) + "')",
-                    new String[]{transaction.getUID()});
-            Log.d(LOG_TAG, deleted + " splits deleted");
+            saveTransactionWithSplits(transaction, imbalanceSplit, updateMethod);
 
             mDb.setTransactionSuccessful();
         } catch (SQLException sqlEx) {
             Log.e(LOG_TAG, sqlEx.getMessage());
 //            Crashlytics.logException(sqlEx);
         } finally {
-            mDb.endTransaction();
+            endTransaction();
         }
 	}
 
+    /**
+     * Adds several transactions to the database within a single database transaction.
+     * <p>Unlike {@link #bulkAddRecords(List, UpdateMethod)}, each transaction is auto-balanced
+     * like in {@link #addRecord(Transaction, UpdateMethod)}. The imbalance account for each
+     * currency is looked up (or created) only once for the whole batch.</p>
+     * <p>If an exception occurs, none of the transactions will be saved.</p>
+     * @param transactionList {@link Transaction}s to be saved to the database
+     * @param updateMethod Method to use for saving the transactions
+     * @return Number of transactions saved
+     */
+    public int addRecords(@NonNull List<Transaction> transactionList, UpdateMethod updateMethod){
+        Log.d(LOG_TAG, "Adding " + transactionList.size() + " transactions to the db via " + updateMethod.name());
+        Map<String, String> imbalanceAccountUIDs = new HashMap<>();
+        AccountsDbAdapter accountsDbAdapter = null;
+        mDb.beginTransaction();
+        try {
+            for (Transaction transaction : transactionList) {
+                Split imbalanceSplit = transaction.createAutoBalanceSplit();
+                if (imbalanceSplit != null){
+                    String currencyCode = transaction.getCurrencyCode();
+                    String imbalanceAccountUID = imbalanceAccountUIDs.get(currencyCode);
+                    if (imbalanceAccountUID == null) {
+                        if (accountsDbAdapter == null)
+                            accountsDbAdapter = mSession.getAccountsDbAdapter();
+                        imbalanceAccountUID = accountsDbAdapter.getOrCreateImbalanceAccountUID(transaction.getCommodity());
+                        imbalanceAccountUIDs.put(currencyCode, imbalanceAccountUID);
+                    }
+                    imbalanceSplit.setAccountUID(imbalanceAccountUID);
+                }
+                saveTransactionWithSplits(transaction, imbalanceSplit, updateMethod);
+            }
+            mDb.setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+        return transactionList.size();
+    }
+
+    /**
+     * Saves the transaction and its splits, and deletes any splits of the transaction in the
+     * database which are no longer part of it.
+     * <p>Must be called from within a database transaction</p>
+     * @param transaction Transaction to be saved
+     * @param imbalanceSplit Auto-balance split of the transaction, or {@code null} if it is balanced
+     * @param updateMethod Method to use for saving the transaction
+     */
+    private void saveTransactionWithSplits(@NonNull Transaction transaction, @Nullable Split imbalanceSplit,
+                                           UpdateMethod updateMethod){
+        //the splits saved before, to delete the ones removed and publish the accounts they leave
+        Map<String, String> previousSplitAccountUIDs = mSplitsDbAdapter.getSplitAccountUIDs(transaction.getUID());
+        super.addRecord(transaction, updateMethod);
+
+        Log.d(LOG_TAG, "Adding splits for transaction");
+        ArrayList<String> splitUIDs = new ArrayList<>(transaction.getSplits().size());
+        for (Split split : transaction.getSplits()) {
+            Log.d(LOG_TAG, "Replace transaction split in db");
+            if (imbalanceSplit == split) {
+                mSplitsDbAdapter.addRecord(split, UpdateMethod.insert);
+            } else {
+                mSplitsDbAdapter.addRecord(split, updateMethod);
+            }
+            splitUIDs.add(split.getUID());
+        }
+        Log.d(LOG_TAG, transaction.getSplits().size() + " splits added");
+        if (previousSplitAccountUIDs.isEmpty())
+            return;
+
+        List<String> removedSplitUIDs = new ArrayList<>();
+        for (String splitUID : previousSplitAccountUIDs.keySet()) {
+            if (!splitUIDs.contains(splitUID))
+                removedSplitUIDs.add(splitUID);
+        }
+        if (!removedSplitUIDs.isEmpty()) {
+            long deleted = mDb.delete(SplitEntry.TABLE_NAME,
+                    SplitEntry.COLUMN_UID + " IN ('" + TextUtils.join("' , '", removedSplitUIDs) + "')", null);
+            Log.d(LOG_TAG, deleted + " splits deleted");
+        }
+
+        //accounts of removed splits and of splits moved to another account
+        Set<String> previousAccountUIDs = new HashSet<>(previousSplitAccountUIDs.values());
+        for (Split split : transaction.getSplits()) {
+            previousAccountUIDs.remove(split.getAccountUID());
+        }
+        if (!previousAccountUIDs.isEmpty()) {
+            postChange(new DatabaseChange.Builder(SplitEntry.TABLE_NAME)
+                    .addRecordUIDs(removedSplitUIDs)
+                    .addAccountUIDs(previousAccountUIDs)
+                    .addTransactionUID(transaction.getUID())
+                    .build());
+        }
+    }
+
     /**
      * Adds an several transactions to the database.
      * If a transaction already exists in the database with the same unique ID,
@@ -173,6 +263,20 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         return rowInserted;
     }
 
+    @Override
+    protected void describeRecords(@NonNull DatabaseChange.Builder change, @NonNull Collection<String> recordUIDs) {
+        change.addTransactionUIDs(recordUIDs);
+        change.addAccountUIDs(mSplitsDbAdapter.getAccountUIDsOfTransactions(recordUIDs));
+    }
+
+    @Override
+    protected void describeModel(@NonNull DatabaseChange.Builder change, @NonNull Transaction transaction) {
+        change.addTransactionUID(transaction.getUID());
+        for (Split split : transaction.getSplits()) {
+            change.addAccountUID(split.getAccountUID());
+        }
+    }
+
     @Override
     protected @NonNull SQLiteStatement setBindings(@NonNull SQLiteStatement stmt, @NonNull Transaction transaction) {
         stmt.clearBindings();
@@ -250,6 +354,8 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
                 + " (SELECT " + SplitEntry.COLUMN_TRANSACTION_UID + " FROM " + SplitEntry.TABLE_NAME + " WHERE "
                 + SplitEntry.COLUMN_ACCOUNT_UID + " = ?)";
         mDb.execSQL(rawDeleteQuery, new String[]{accountUID});
+        notifyTableChanged(TransactionEntry.TABLE_NAME);
+        notifyTableChanged(SplitEntry.TABLE_NAME);
     }
 
     /**
@@ -257,13 +363,16 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
      * @return Number of records deleted
      */
     public int deleteTransactionsWithNoSplits(){
-        return mDb.delete(
+        int deleted = mDb.delete(
                 TransactionEntry.TABLE_NAME,
                 "NOT EXISTS ( SELECT * FROM " + SplitEntry.TABLE_NAME +
                         " WHERE " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID +
                         " = " + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID + " ) ",
                 null
         );
+        if (deleted > 0)
+            notifyTableChanged(TransactionEntry.TABLE_NAME);
+        return deleted;
     }
 
     /**
@@ -342,6 +451,72 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
                 null, null, null, TransactionEntry.COLUMN_TIMESTAMP + " ASC", null);
     }
 
+    /**
+     * Returns a selection matching the transactions which were created or changed, or whose splits were changed,
+     * after a sequence number of the change log.
+     * <p>The changes are looked up by sequence number, so the cost depends on the number of changes only</p>
+     * @param transactionUIDColumn Column holding the transaction GUID in the queried table or view
+     * @param sequence Sequence number of the last processed change
+     * @return SQL selection
+     */
+    public static String getChangedSinceSelection(String transactionUIDColumn, long sequence) {
+        return transactionUIDColumn + " IN (SELECT " + ChangeLogEntry.COLUMN_TRANSACTION_UID
+                + " FROM " + ChangeLogEntry.TABLE_NAME + " WHERE " + ChangeLogEntry.COLUMN_SEQUENCE + " > " + sequence + ")";
+    }
+
+    /**
+     * Fetch all transactions changed after a sequence number of the change log
+     * @param sequence Sequence number of the last processed change
+     * @return Cursor to the results
+     * @see #getLastChangeSequence()
+     */
+    public Cursor fetchTransactionsChangedSince(long sequence) {
+        return mDb.query(TransactionEntry.TABLE_NAME, null,
+                getChangedSinceSelection(TransactionEntry.COLUMN_UID, sequence),
+                null, null, null, TransactionEntry.COLUMN_TIMESTAMP + " ASC");
+    }
+
+    /**
+     * Returns the GUIDs of the transactions which were inserted, updated or deleted, or whose splits were changed,
+     * after a sequence number of the change log
+     * @param sequence Sequence number of the last processed change
+     * @return Set of transaction GUIDs, including those of deleted transactions
+     */
+    @Override
+    public Set<String> getChangedRecordUIDs(long sequence) {
+        Set<String> transactionUIDs = new HashSet<>();
+        Cursor cursor = mDb.query(true, ChangeLogEntry.TABLE_NAME, new String[]{ChangeLogEntry.COLUMN_TRANSACTION_UID},
+                ChangeLogEntry.COLUMN_SEQUENCE + " > ? AND " + ChangeLogEntry.COLUMN_TRANSACTION_UID + " IS NOT NULL",
+                new String[]{String.valueOf(sequence)}, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                transactionUIDs.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return transactionUIDs;
+    }
+
+    /**
+     * Returns the GUIDs of the existing transactions changed after a sequence number of the change log
+     * @param sequence Sequence number of the last processed change
+     * @return Set of transaction GUIDs
+     */
+    public Set<String> getTransactionUIDsChangedSince(long sequence) {
+        Set<String> transactionUIDs = new HashSet<>();
+        Cursor cursor = mDb.query(TransactionEntry.TABLE_NAME, new String[]{TransactionEntry.COLUMN_UID},
+                getChangedSinceSelection(TransactionEntry.COLUMN_UID, sequence), null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                transactionUIDs.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return transactionUIDs;
+    }
+
     public Cursor fetchTransactionsWithSplitsWithTransactionAccount(String [] columns, String where, String[] whereArgs, String orderBy) {
         // table is :
         // trans_split_acct , trans_extra_info ON trans_extra_info.trans_acct_t_uid = transactions_uid ,
@@ -410,19 +585,17 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
 	 */
     @Override
     public Transaction buildModelInstance(@NonNull final Cursor c){
-		String name   = c.getString(c.getColumnIndexOrThrow(TransactionEntry.COLUMN_DESCRIPTION));
-		Transaction transaction = new Transaction(name);
-        populateBaseModelAttributes(c, transaction);
-
-		transaction.setTime(c.getLong(c.getColumnIndexOrThrow(TransactionEntry.COLUMN_TIMESTAMP)));
-		transaction.setNote(c.getString(c.getColumnIndexOrThrow(TransactionEntry.COLUMN_NOTES)));
-		transaction.setExported(c.getInt(c.getColumnIndexOrThrow(TransactionEntry.COLUMN_EXPORTED)) == 1);
-		transaction.setTemplate(c.getInt(c.getColumnIndexOrThrow(TransactionEntry.COLUMN_TEMPLATE)) == 1);
-        String currencyCode = c.getString(c.getColumnIndexOrThrow(TransactionEntry.COLUMN_CURRENCY));
-        transaction.setCommodity(mCommoditiesDbAdapter.getCommodity(currencyCode));
-        transaction.setScheduledActionUID(c.getString(c.getColumnIndexOrThrow(TransactionEntry.COLUMN_SCHEDX_ACTION_UID)));
-        long transactionID = c.getLong(c.getColumnIndexOrThrow(TransactionEntry._ID));
-        transaction.setSplits(mSplitsDbAdapter.getSplitsForTransaction(transactionID));
+        TransactionRow row = mRowReader = TransactionRowReader.of(c, mRowReader);
+		Transaction transaction = new Transaction(row.getDescription());
+        populateBaseModelAttributes(row, transaction);
+
+		transaction.setTime(row.getTimestamp());
+		transaction.setNote(row.getNotes());
+		transaction.setExported(row.isExported());
+		transaction.setTemplate(row.isTemplate());
+        transaction.setCommodity(mCommoditiesDbAdapter.getCommodity(row.getCurrencyCode()));
+        transaction.setScheduledActionUID(row.getScheduledActionUID());
+        transaction.setSplits(mSplitsDbAdapter.getSplitsForTransaction(row.getId()));
 
 		return transaction;
 	}
@@ -460,21 +633,118 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         return splits.size();
 	}
 
+    /**
+     * Moves the splits of several transactions from one account to another.
+     * <p>The IDs of the transactions are collected in a temporary table and all the splits are
+     * reassigned with a single UPDATE statement, so the whole move is one database transaction
+     * no matter how many transactions are selected.</p>
+     * <p>Selected transactions without a split in the source account are left untouched.
+     * The moved transactions are flagged as not exported, like when editing their splits.</p>
+     * @param transactionIds Database record IDs of the transactions to move
+     * @param srcAccountUID GUID of the account from which the transactions are to be moved
+     * @param dstAccountUID GUID of the account to which the transactions will be assigned
+     * @return Number of transactions which had splits moved
+     */
+    public int moveTransactions(Collection<Long> transactionIds, String srcAccountUID, String dstAccountUID) {
+        if (transactionIds.isEmpty())
+            return 0;
+        Log.i(LOG_TAG, "Moving splits of " + transactionIds.size() + " transactions from "
+                + srcAccountUID + " to account " + dstAccountUID);
+
+        final String idsTable = "move_transaction_ids";
+        final String uidsTable = "move_transaction_uids";
+        int splitCount = 0;
+        List<String> movedTransactionUIDs = new ArrayList<>();
+        mDb.beginTransaction();
+        try {
+            mDb.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + idsTable + " (id INTEGER PRIMARY KEY)");
+            mDb.execSQL("DELETE FROM " + idsTable);
+            SQLiteStatement insertStatement = mDb.compileStatement(
+                    "INSERT OR IGNORE INTO " + idsTable + " (id) VALUES (?)");
+            for (long transactionId : transactionIds) {
+                insertStatement.bindLong(1, transactionId);
+                insertStatement.executeInsert();
+            }
+            insertStatement.close();
+
+            //only the selected transactions with a split in the source account are moved
+            mDb.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + uidsTable + " (uid TEXT PRIMARY KEY)");
+            mDb.execSQL("DELETE FROM " + uidsTable);
+            mDb.execSQL("INSERT INTO " + uidsTable + " (uid)"
+                    + " SELECT DISTINCT " + SplitEntry.COLUMN_TRANSACTION_UID
+                    + " FROM " + SplitEntry.TABLE_NAME
+                    + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID + " = ?"
+                    + " AND " + SplitEntry.COLUMN_TRANSACTION_UID + " IN (SELECT " + TransactionEntry.COLUMN_UID
+                    + " FROM " + TransactionEntry.TABLE_NAME
+                    + " WHERE " + TransactionEntry._ID + " IN (SELECT id FROM " + idsTable + "))",
+                    new Object[]{srcAccountUID});
+            Cursor cursor = mDb.rawQuery("SELECT uid FROM " + uidsTable, null);
+            try {
+                while (cursor.moveToNext()) {
+                    movedTransactionUIDs.add(cursor.getString(0));
+                }
+            } finally {
+                cursor.close();
+            }
+
+            if (!movedTransactionUIDs.isEmpty()) {
+                SQLiteStatement moveStatement = mDb.compileStatement(
+                        "UPDATE " + SplitEntry.TABLE_NAME
+                        + " SET " + SplitEntry.COLUMN_ACCOUNT_UID + " = ?"
+                        + " WHERE " + SplitEntry.COLUMN_ACCOUNT_UID + " = ?"
+                        + " AND " + SplitEntry.COLUMN_TRANSACTION_UID + " IN (SELECT uid FROM " + uidsTable + ")");
+                moveStatement.bindString(1, dstAccountUID);
+                moveStatement.bindString(2, srcAccountUID);
+                splitCount = moveStatement.executeUpdateDelete();
+                moveStatement.close();
+
+                mDb.execSQL("UPDATE " + TransactionEntry.TABLE_NAME
+                        + " SET " + TransactionEntry.COLUMN_EXPORTED + " = 0"
+                        + " WHERE " + TransactionEntry.COLUMN_UID + " IN (SELECT uid FROM " + uidsTable + ")");
+            }
+            mDb.execSQL("DROP TABLE " + idsTable);
+            mDb.execSQL("DROP TABLE " + uidsTable);
+            mDb.setTransactionSuccessful();
+        } finally {
+            endTransaction();
+        }
+        Log.d(LOG_TAG, splitCount + " splits of " + movedTransactionUIDs.size()
+                + " transactions moved to account " + dstAccountUID);
+        if (!movedTransactionUIDs.isEmpty()) {
+            postChange(new DatabaseChange.Builder(SplitEntry.TABLE_NAME)
+                    .addTransactionUIDs(movedTransactionUIDs)
+                    .addAccountUID(srcAccountUID)
+                    .addAccountUID(dstAccountUID)
+                    .build());
+        }
+        return movedTransactionUIDs.size();
+    }
+
     /**
      * Returns the number of transactions belonging to an account
+     * <p>The count is read from the account statistics, and only the few template transactions
+     * are subtracted, so this does not require scanning the transactions of the account</p>
      * @param accountUID GUID of the account
      * @return Number of transactions with splits in the account
      */
     public int getTransactionsCount(String accountUID){
-        Cursor cursor = fetchAllTransactionsForAccount(accountUID);
-        int count = 0;
-        if (cursor == null)
-            return count;
-        else {
-            count = cursor.getCount();
-            cursor.close();
+        String sql = "SELECT IFNULL((SELECT " + AccountStatsEntry.COLUMN_TRANSACTION_COUNT
+                + " FROM " + AccountStatsEntry.TABLE_NAME
+                + " WHERE " + AccountStatsEntry.COLUMN_ACCOUNT_UID + " = ?), 0)"
+                + " - (SELECT COUNT(*) FROM " + TransactionEntry.TABLE_NAME
+                + " WHERE " + TransactionEntry.COLUMN_TEMPLATE + " = 1"
+                + " AND EXISTS (SELECT 1 FROM " + SplitEntry.TABLE_NAME
+                + " WHERE " + SplitEntry.COLUMN_TRANSACTION_UID + " = "
+                + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID
+                + " AND " + SplitEntry.COLUMN_ACCOUNT_UID + " = ?))";
+        SQLiteStatement statement = mDb.compileStatement(sql);
+        try {
+            statement.bindString(1, accountUID);
+            statement.bindString(2, accountUID);
+            return (int) statement.simpleQueryForLong();
+        } finally {
+            statement.close();
         }
-        return count;
     }
 
     /**
@@ -488,6 +758,42 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
         return statement.simpleQueryForLong();
     }
 
+    /**
+     * Returns timestamps which divide the transactions, without the templates, into time ranges
+     * of about the same number of transactions.
+     * <p>Transactions with the same timestamp always fall in the same range, so there can be
+     * fewer ranges than requested</p>
+     * @param rangeCount Number of ranges to divide the transactions into
+     * @return Ascending timestamps at which the second and following ranges start
+     */
+    public long[] getTransactionTimeBoundaries(int rangeCount){
+        if (rangeCount <= 1)
+            return new long[0];
+        String countSql = "SELECT COUNT(*) FROM " + TransactionEntry.TABLE_NAME
+                + " WHERE " + TransactionEntry.COLUMN_TEMPLATE + "=0";
+        long transactionCount = mDb.compileStatement(countSql).simpleQueryForLong();
+        String sql = "SELECT " + TransactionEntry.COLUMN_TIMESTAMP + " FROM " + TransactionEntry.TABLE_NAME
+                + " WHERE " + TransactionEntry.COLUMN_TEMPLATE + "=0"
+                + " ORDER BY " + TransactionEntry.COLUMN_TIMESTAMP + " ASC LIMIT 1 OFFSET ?";
+        SQLiteStatement statement = mDb.compileStatement(sql);
+        long[] boundaries = new long[rangeCount - 1];
+        int count = 0;
+        try {
+            for (int range = 1; range < rangeCount; range++) {
+                long offset = transactionCount * range / rangeCount;
+                if (offset == 0)
+                    continue;
+                statement.bindLong(1, offset);
+                long timestamp = statement.simpleQueryForLong();
+                if (count == 0 || timestamp > boundaries[count - 1])
+                    boundaries[count++] = timestamp;
+            }
+        } finally {
+            statement.close();
+        }
+        return Arrays.copyOf(boundaries, count);
+    }
+
     /**
      * Returns a list of all scheduled transactions in the database
      * @return List of all scheduled transactions
@@ -520,30 +826,24 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
     }
 
     /**
-     * Returns a cursor to transactions whose name (UI: description) start with the <code>prefix</code>
+     * Returns a cursor to the suggestions for a transaction description starting with <code>prefix</code>
      * <p>This method is used for autocomplete suggestions when creating new transactions. <br/>
-     * The suggestions are either transactions which have at least one split with {@code accountUID} or templates.</p>
+     * The suggestions come from the {@link AutofillIndex} and have at least one split with {@code accountUID}.
+     * Each row holds the ID of an {@link AutofillIndex.Entry}, see {@link AutofillIndex#SUGGESTION_COLUMNS}</p>
      * @param prefix Starting characters of the transaction name
      * @param accountUID GUID of account within which to search for transactions
-     * @return Cursor to the data set containing all matching transactions
+     * @return Cursor to the suggested autofill entries, best first
      */
     public Cursor fetchTransactionSuggestions(String prefix, String accountUID){
-        SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
-        queryBuilder.setTables(TransactionEntry.TABLE_NAME
-                + " INNER JOIN " + SplitEntry.TABLE_NAME + " ON "
-                + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + " = "
-                + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_TRANSACTION_UID);
-        queryBuilder.setDistinct(true);
-        String[] projectionIn = new String[]{TransactionEntry.TABLE_NAME + ".*"};
-        String selection = "(" + SplitEntry.TABLE_NAME + "." + SplitEntry.COLUMN_ACCOUNT_UID + " = ?"
-                + " OR " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TEMPLATE + "=1 )"
-                + " AND " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_DESCRIPTION + " LIKE '" + prefix + "%'";
-        String[] selectionArgs = new String[]{accountUID};
-        String sortOrder = TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TIMESTAMP + " DESC";
-        String groupBy = TransactionEntry.COLUMN_DESCRIPTION;
-        String limit = Integer.toString(5);
+        return getAutofillIndex().fetchSuggestions(prefix, accountUID);
+    }
 
-        return queryBuilder.query(mDb, projectionIn, selection, selectionArgs, groupBy, null, sortOrder, limit);
+    /**
+     * Returns the autofill index of the transactions of this book
+     * @return Shared autofill index
+     */
+    public AutofillIndex getAutofillIndex() {
+        return mSession.getAutofillIndex();
     }
 
     /**
@@ -554,7 +854,9 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
      * @return Number of records affected
      */
     public int updateTransaction(ContentValues contentValues, String whereClause, String[] whereArgs){
-        return mDb.update(TransactionEntry.TABLE_NAME, contentValues, whereClause, whereArgs);
+        int updated = mDb.update(TransactionEntry.TABLE_NAME, contentValues, whereClause, whereArgs);
+        notifyTableChanged(TransactionEntry.TABLE_NAME);
+        return updated;
     }
 
     /**
@@ -588,7 +890,10 @@ public class TransactionsDbAdapter extends DatabaseAdapter<Transaction> {
      */
     public int deleteAllNonTemplateTransactions(){
         String where = TransactionEntry.COLUMN_TEMPLATE + "=0";
-        return mDb.delete(mTableName, where, null);
+        int deleted = mDb.delete(mTableName, where, null);
+        notifyTableChanged(TransactionEntry.TABLE_NAME);
+        notifyTableChanged(SplitEntry.TABLE_NAME);
+        return deleted;
     }
 
     /**
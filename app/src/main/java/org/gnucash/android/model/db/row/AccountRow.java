@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
+
+/**
+ * Row of the accounts table
+ */
+@RowReader
+public interface AccountRow extends CommonRow {
+    @Column(AccountEntry.COLUMN_NAME)
+    String getName();
+
+    @Column(AccountEntry.COLUMN_DESCRIPTION)
+    String getDescription();
+
+    @Column(AccountEntry.COLUMN_PARENT_ACCOUNT_UID)
+    String getParentUID();
+
+    @Column(AccountEntry.COLUMN_TYPE)
+    String getType();
+
+    @Column(AccountEntry.COLUMN_CURRENCY)
+    String getCurrencyCode();
+
+    @Column(AccountEntry.COLUMN_PLACEHOLDER)
+    boolean isPlaceholder();
+
+    @Column(AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID)
+    String getDefaultTransferAccountUID();
+
+    @Column(AccountEntry.COLUMN_COLOR_CODE)
+    String getColorCode();
+
+    @Column(AccountEntry.COLUMN_FAVORITE)
+    boolean isFavorite();
+
+    @Column(AccountEntry.COLUMN_FULL_NAME)
+    String getFullName();
+
+    @Column(AccountEntry.COLUMN_HIDDEN)
+    boolean isHidden();
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.BookEntry;
+
+/**
+ * Row of the books table
+ */
+@RowReader
+public interface BookRow extends CommonRow {
+    @Column(BookEntry.COLUMN_ROOT_GUID)
+    String getRootAccountUID();
+
+    @Column(BookEntry.COLUMN_TEMPLATE_GUID)
+    String getRootTemplateUID();
+
+    @Column(BookEntry.COLUMN_SOURCE_URI)
+    String getSourceUri();
+
+    @Column(BookEntry.COLUMN_DISPLAY_NAME)
+    String getDisplayName();
+
+    @Column(BookEntry.COLUMN_ACTIVE)
+    boolean isActive();
+
+    @Column(BookEntry.COLUMN_LAST_SYNC)
+    String getLastSync();
+}
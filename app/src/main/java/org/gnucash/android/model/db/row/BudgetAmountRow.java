@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.BudgetAmountEntry;
+
+/**
+ * Row of the budget amounts table
+ */
+@RowReader
+public interface BudgetAmountRow extends CommonRow {
+    @Column(BudgetAmountEntry.COLUMN_BUDGET_UID)
+    String getBudgetUID();
+
+    @Column(BudgetAmountEntry.COLUMN_ACCOUNT_UID)
+    String getAccountUID();
+
+    @Column(BudgetAmountEntry.COLUMN_AMOUNT_NUM)
+    long getAmountNum();
+
+    @Column(BudgetAmountEntry.COLUMN_AMOUNT_DENOM)
+    long getAmountDenom();
+
+    @Column(BudgetAmountEntry.COLUMN_PERIOD_NUM)
+    long getPeriodNum();
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.BudgetEntry;
+
+/**
+ * Row of the budgets table
+ */
+@RowReader
+public interface BudgetRow extends CommonRow {
+    @Column(BudgetEntry.COLUMN_NAME)
+    String getName();
+
+    @Column(BudgetEntry.COLUMN_DESCRIPTION)
+    String getDescription();
+
+    @Column(BudgetEntry.COLUMN_RECURRENCE_UID)
+    String getRecurrenceUID();
+
+    @Column(BudgetEntry.COLUMN_NUM_PERIODS)
+    long getNumPeriods();
+}
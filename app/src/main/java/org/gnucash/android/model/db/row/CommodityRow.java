@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.CommodityEntry;
+
+/**
+ * Row of the commodities table
+ */
+@RowReader
+public interface CommodityRow extends CommonRow {
+    @Column(CommodityEntry.COLUMN_FULLNAME)
+    String getFullname();
+
+    @Column(CommodityEntry.COLUMN_MNEMONIC)
+    String getMnemonic();
+
+    @Column(CommodityEntry.COLUMN_NAMESPACE)
+    String getNamespace();
+
+    @Column(CommodityEntry.COLUMN_CUSIP)
+    String getCusip();
+
+    @Column(CommodityEntry.COLUMN_LOCAL_SYMBOL)
+    String getLocalSymbol();
+
+    @Column(CommodityEntry.COLUMN_SMALLEST_FRACTION)
+    int getSmallestFraction();
+
+    @Column(CommodityEntry.COLUMN_QUOTE_FLAG)
+    int getQuoteFlag();
+}
@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.CommonColumns;
+
+/**
+ * Columns common to all the records, which are held in the {@link org.gnucash.android.model.data.BaseModel}
+ */
+public interface CommonRow {
+    @Column(CommonColumns.COLUMN_UID)
+    String getUID();
+
+    @Column(CommonColumns.COLUMN_CREATED_AT)
+    String getCreatedAt();
+
+    @Column(CommonColumns.COLUMN_MODIFIED_AT)
+    String getModifiedAt();
+}
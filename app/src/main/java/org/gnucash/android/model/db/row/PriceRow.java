@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.PriceEntry;
+
+/**
+ * Row of the prices table
+ */
+@RowReader
+public interface PriceRow extends CommonRow {
+    @Column(PriceEntry.COLUMN_COMMODITY_UID)
+    String getCommodityUID();
+
+    @Column(PriceEntry.COLUMN_CURRENCY_UID)
+    String getCurrencyUID();
+
+    @Column(PriceEntry.COLUMN_DATE)
+    String getDate();
+
+    @Column(PriceEntry.COLUMN_SOURCE)
+    String getSource();
+
+    @Column(PriceEntry.COLUMN_TYPE)
+    String getType();
+
+    @Column(PriceEntry.COLUMN_VALUE_NUM)
+    long getValueNum();
+
+    @Column(PriceEntry.COLUMN_VALUE_DENOM)
+    long getValueDenom();
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.RecurrenceEntry;
+
+/**
+ * Row of the recurrences table
+ */
+@RowReader
+public interface RecurrenceRow extends CommonRow {
+    @Column(RecurrenceEntry.COLUMN_PERIOD_TYPE)
+    String getPeriodType();
+
+    @Column(RecurrenceEntry.COLUMN_MULTIPLIER)
+    long getMultiplier();
+
+    @Column(RecurrenceEntry.COLUMN_PERIOD_START)
+    String getPeriodStart();
+
+    @Column(RecurrenceEntry.COLUMN_PERIOD_END)
+    String getPeriodEnd();
+
+    @Column(RecurrenceEntry.COLUMN_BYDAY)
+    String getByDays();
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface describing the columns of a cursor row.
+ * <p>For an interface {@code FooRow}, the annotation processor generates a {@code FooRowReader}
+ * implementing it. The reader resolves the index of each {@link Column} once, when it is created
+ * for a cursor, and each accessor then reads the current row of that cursor.</p>
+ * <p>Readers are meant to be created once per cursor and kept while iterating over it:
+ * {@code FooRowReader.of(cursor, previousReader)} only creates a new reader for a different cursor.</p>
+ * <p>Accessors may return {@code String}, {@code long}, {@code int}, {@code double},
+ * {@code boolean} (non-zero integer), {@code byte[]} or the boxed {@code Long}, {@code Integer}
+ * and {@code Double}, which are {@code null} for NULL values.
+ * Accessors inherited from other row interfaces are included.</p>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface RowReader {
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.ScheduledActionEntry;
+
+/**
+ * Row of the scheduled actions table
+ */
+@RowReader
+public interface ScheduledActionRow extends CommonRow {
+    @Column(ScheduledActionEntry.COLUMN_ACTION_UID)
+    String getActionUID();
+
+    @Column(ScheduledActionEntry.COLUMN_START_TIME)
+    long getStartTime();
+
+    @Column(ScheduledActionEntry.COLUMN_END_TIME)
+    long getEndTime();
+
+    @Column(ScheduledActionEntry.COLUMN_LAST_RUN)
+    long getLastRun();
+
+    @Column(ScheduledActionEntry.COLUMN_TYPE)
+    String getType();
+
+    @Column(ScheduledActionEntry.COLUMN_TAG)
+    String getTag();
+
+    @Column(ScheduledActionEntry.COLUMN_ENABLED)
+    boolean isEnabled();
+
+    @Column(ScheduledActionEntry.COLUMN_TOTAL_FREQUENCY)
+    int getTotalFrequency();
+
+    @Column(ScheduledActionEntry.COLUMN_EXECUTION_COUNT)
+    int getExecutionCount();
+
+    @Column(ScheduledActionEntry.COLUMN_AUTO_CREATE)
+    boolean isAutoCreate();
+
+    @Column(ScheduledActionEntry.COLUMN_AUTO_NOTIFY)
+    boolean isAutoNotify();
+
+    @Column(ScheduledActionEntry.COLUMN_ADVANCE_CREATION)
+    int getAdvanceCreateDays();
+
+    @Column(ScheduledActionEntry.COLUMN_ADVANCE_NOTIFY)
+    int getAdvanceNotifyDays();
+
+    @Column(ScheduledActionEntry.COLUMN_RECURRENCE_UID)
+    String getRecurrenceUID();
+
+    @Column(ScheduledActionEntry.COLUMN_TEMPLATE_ACCT_UID)
+    String getTemplateAccountUID();
+}
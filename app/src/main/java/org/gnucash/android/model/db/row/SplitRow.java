@@ -0,0 +1,52 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
+
+/**
+ * Row of the splits table
+ */
+@RowReader
+public interface SplitRow extends CommonRow {
+    @Column(SplitEntry.COLUMN_VALUE_NUM)
+    long getValueNum();
+
+    @Column(SplitEntry.COLUMN_VALUE_DENOM)
+    long getValueDenom();
+
+    @Column(SplitEntry.COLUMN_QUANTITY_NUM)
+    long getQuantityNum();
+
+    @Column(SplitEntry.COLUMN_QUANTITY_DENOM)
+    long getQuantityDenom();
+
+    @Column(SplitEntry.COLUMN_TYPE)
+    String getType();
+
+    @Column(SplitEntry.COLUMN_ACCOUNT_UID)
+    String getAccountUID();
+
+    @Column(SplitEntry.COLUMN_TRANSACTION_UID)
+    String getTransactionUID();
+
+    @Column(SplitEntry.COLUMN_MEMO)
+    String getMemo();
+
+    @Column(SplitEntry.COLUMN_RECONCILE_STATE)
+    String getReconcileState();
+
+    @Column(SplitEntry.COLUMN_RECONCILE_DATE)
+    String getReconcileDate();
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.db.row;
+
+import org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
+
+/**
+ * Row of the transactions table
+ */
+@RowReader
+public interface TransactionRow extends CommonRow {
+    @Column(TransactionEntry._ID)
+    long getId();
+
+    @Column(TransactionEntry.COLUMN_DESCRIPTION)
+    String getDescription();
+
+    @Column(TransactionEntry.COLUMN_NOTES)
+    String getNotes();
+
+    @Column(TransactionEntry.COLUMN_TIMESTAMP)
+    long getTimestamp();
+
+    @SuppressWarnings("deprecation")
+    @Column(TransactionEntry.COLUMN_EXPORTED)
+    boolean isExported();
+
+    @Column(TransactionEntry.COLUMN_TEMPLATE)
+    boolean isTemplate();
+
+    @Column(TransactionEntry.COLUMN_CURRENCY)
+    String getCurrencyCode();
+
+    @Column(TransactionEntry.COLUMN_SCHEDX_ACTION_UID)
+    String getScheduledActionUID();
+}
@@ -19,17 +19,23 @@ package org.gnucash.android.model.export;
 import android.app.Activity;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.util.Log;
 
 import androidx.preference.PreferenceManager;
 
+import com.dropbox.core.DbxException;
 import com.dropbox.core.DbxRequestConfig;
 import com.dropbox.core.android.Auth;
 import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.UploadUploader;
 
 import org.gnucash.android.BuildConfig;
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
 
+import java.io.IOException;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -41,6 +47,8 @@ import dagger.hilt.android.qualifiers.ApplicationContext;
 @Singleton
 public class DropboxHelper {
 
+    private static final String LOG_TAG = "DropboxHelper";
+
     /**
      * DropBox API v2 client for making requests to DropBox
      */
@@ -92,6 +100,22 @@ public class DropboxHelper {
         return sDbxClient;
     }
 
+    /**
+     * Returns a sink which uploads the exported files to the app folder on DropBox.
+     * <p>The files are streamed to DropBox while they are exported</p>
+     * @return Export sink for DropBox
+     */
+    public ExportSink getExportSink(){
+        final DbxClientV2 dbxClient = getClient();
+        return (fileName, mimeType) -> {
+            try {
+                return new UploadOutputStream(dbxClient.files().uploadBuilder("/" + fileName).start());
+            } catch (DbxException e) {
+                throw new IOException("Error starting the upload of " + fileName + " to DropBox", e);
+            }
+        };
+    }
+
     /**
      * Checks if the app holds an access token for dropbox
      * @return {@code true} if token exists, {@code false} otherwise
@@ -100,4 +124,44 @@ public class DropboxHelper {
         String accessToken = sharedPrefs.getString(mContext.getString(R.string.key_dropbox_access_token), null);
         return accessToken != null;
     }
+
+    /**
+     * Stream of a file being uploaded to DropBox, which completes the upload when it is committed and closed,
+     * and aborts it otherwise
+     */
+    private static class UploadOutputStream extends ExportSink.ExportStream {
+        private final UploadUploader mUploader;
+
+        UploadOutputStream(UploadUploader uploader) {
+            super(uploader.getOutputStream());
+            mUploader = uploader;
+        }
+
+        /**
+         * Only flushes the upload stream, which is closed by the uploader when it finishes or aborts
+         */
+        @Override
+        protected void closeOutput() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        protected void publish() throws IOException {
+            try {
+                FileMetadata metadata = mUploader.finish();
+                Log.i(LOG_TAG, "Successfully uploaded file " + metadata.getName() + " to DropBox");
+            } catch (DbxException e) {
+                throw new IOException("Error uploading file to DropBox", e);
+            } finally {
+                mUploader.close();
+            }
+        }
+
+        @Override
+        protected void discard() {
+            Log.w(LOG_TAG, "Aborting the upload to DropBox");
+            mUploader.abort();
+            mUploader.close();
+        }
+    }
 }
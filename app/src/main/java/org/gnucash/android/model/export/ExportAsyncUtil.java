@@ -26,13 +26,12 @@ import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.preference.PreferenceManager;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.FileProvider;
 
 import android.util.Log;
 import android.widget.Toast;
 
-import com.dropbox.core.v2.DbxClientV2;
-import com.dropbox.core.v2.files.FileMetadata;
 import com.owncloud.android.lib.common.OwnCloudClient;
 import com.owncloud.android.lib.common.OwnCloudClientFactory;
 import com.owncloud.android.lib.common.OwnCloudCredentialsFactory;
@@ -45,9 +44,8 @@ import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.di.GnuCashEntryPoint;
 import org.gnucash.android.model.Repository;
-import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.BookSession;
 import org.gnucash.android.model.db.adapter.DatabaseAdapter;
-import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.export.csv.CsvAccountExporter;
 import org.gnucash.android.model.export.csv.CsvTransactionsExporter;
@@ -57,9 +55,7 @@ import org.gnucash.android.model.export.xml.GncXmlExporter;
 import org.gnucash.android.model.data.Transaction;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -124,8 +120,10 @@ public class ExportAsyncUtil {
                 mExportParams = params;
                 mExporter = getExporter();
 
+                ExportSink sink;
                 try {
-                    mExportedFiles = mExporter.generateExport();
+                    sink = getExportSink();
+                    mExportedFiles = sink != null ? mExporter.generateExport(sink) : mExporter.generateExport();
                 } catch (final Exception e) {
                     emitter.onError(e);
                     return;
@@ -136,11 +134,13 @@ public class ExportAsyncUtil {
                     return;
                 }
 
-                try {
-                    moveToTarget();
-                } catch (Exporter.ExporterException e) {
-                    emitter.onError(e);
-                    return;
+                if (sink == null) {
+                    try {
+                        moveToTarget();
+                    } catch (Exporter.ExporterException e) {
+                        emitter.onError(e);
+                        return;
+                    }
                 }
 
                 if(params.shouldDeleteTransactionsAfterExport()) {
@@ -155,25 +155,71 @@ public class ExportAsyncUtil {
     /**
      * Returns an exporter corresponding to the user settings.
      * @return Object of one of {@link QifExporter}, {@link OfxExporter} or {@link GncXmlExporter}, {@Link CsvAccountExporter} or {@Link CsvTransactionsExporter}
+     * or {@link MultiFormatExporter} if several formats were selected
      */
     private Exporter getExporter() {
-        switch (mExportParams.getExportFormat()) {
+        if (mExportParams.isMultiFormat())
+            return new MultiFormatExporter(mExportParams, mDb);
+
+        return createExporter(mExportParams, mDb);
+    }
+
+    /**
+     * Creates an exporter for the single format in {@code params}
+     * @param params Export parameters
+     * @param db Database to export
+     * @return Exporter for the export format
+     */
+    static Exporter createExporter(ExportParams params, SQLiteDatabase db) {
+        switch (params.getExportFormat()) {
             case QIF:
-                return new QifExporter(mExportParams, mDb);
+                return new QifExporter(params, db);
             case OFX:
-                return new OfxExporter(mExportParams, mDb);
+                return new OfxExporter(params, db);
             case CSVA:
-                return new CsvAccountExporter(mExportParams, mDb);
+                return new CsvAccountExporter(params, db);
             case CSVT:
-                return new CsvTransactionsExporter(mExportParams, mDb);
+                return new CsvTransactionsExporter(params, db);
             case XML:
             default:
-                return new GncXmlExporter(mExportParams, mDb);
+                GncXmlExporter exporter = new GncXmlExporter(params, db);
+                exporter.setParallel(true);
+                return exporter;
+        }
+    }
+
+    /**
+     * Returns a sink which streams the export to the target specified by the user
+     * @return Export sink, or {@code null} if the target needs the exported files,
+     * which are then moved with {@link #moveToTarget()}
+     * @throws Exporter.ExporterException if the target is not set up
+     */
+    @Nullable
+    private ExportSink getExportSink() throws Exporter.ExporterException {
+        switch (mExportParams.getExportTarget()) {
+            case DROPBOX:
+                Log.i(TAG, "Uploading exported files to DropBox");
+                return mDropboxHelper.getExportSink();
+
+            case SD_CARD:
+                Log.i(TAG, "Writing exported files to external storage");
+                return ExportSink.toDirectory(new File(Exporter.getExportFolderPath(mExporter.mBookUID)));
+
+            case URI:
+                // Now we always get just one file exported (multi-currency QIFs and multiple formats are zipped)
+                String exportLocation = mExportParams.getExportLocation();
+                if (exportLocation == null)
+                    throw new Exporter.ExporterException(mExportParams, "No URI found for export destination");
+                return ExportSink.toUri(mContext.getContentResolver(), Uri.parse(exportLocation));
+
+            default:
+                return null;
         }
     }
 
     /**
-     * Moves the generated export files to the target specified by the user
+     * Moves the generated export files to the target specified by the user,
+     * for the targets which do not have an {@link ExportSink}
      * @throws Exporter.ExporterException if the move fails
      */
     private void moveToTarget() throws Exporter.ExporterException {
@@ -182,10 +228,6 @@ public class ExportAsyncUtil {
                 shareFiles(mExportedFiles);
                 break;
 
-            case DROPBOX:
-                moveExportToDropbox();
-                break;
-
             case GOOGLE_DRIVE:
 //                moveExportToGoogleDrive();
                 break;
@@ -194,46 +236,15 @@ public class ExportAsyncUtil {
                 moveExportToOwnCloud();
                 break;
 
-            case SD_CARD:
-                moveExportToSDCard();
-                break;
-
-            case URI:
-                moveExportToUri();
-                break;
-
             default:
                 throw new Exporter.ExporterException(mExportParams, "Invalid target");
         }
     }
 
-    /**
-     * Move the exported files to a specified URI.
-     * This URI could be a Storage Access Framework file
-     * @throws Exporter.ExporterException if something failed while moving the exported file
-     */
-    private void moveExportToUri() throws Exporter.ExporterException {
-        Uri exportUri = Uri.parse(mExportParams.getExportLocation());
-        if (exportUri == null){
-            Log.w(TAG, "No URI found for export destination");
-            return;
-        }
-
-        if (mExportedFiles.size() > 0){
-            try {
-                OutputStream outputStream = mContext.getContentResolver().openOutputStream(exportUri);
-                // Now we always get just one file exported (multi-currency QIFs are zipped)
-                org.gnucash.android.util.FileUtils.moveFile(mExportedFiles.get(0), outputStream);
-            } catch (IOException ex) {
-                throw new Exporter.ExporterException(mExportParams, "Error when moving file to URI");
-            }
-        }
-    }
-
     /**
      * Move the exported files to a GnuCash folder on Google Drive
      * @throws Exporter.ExporterException if something failed while moving the exported file
-     * @deprecated Explicit Google Drive integration is deprecated, use Storage Access Framework. See {@link #moveExportToUri()}
+     * @deprecated Explicit Google Drive integration is deprecated, use Storage Access Framework. See {@link ExportSink#toUri(android.content.ContentResolver, Uri, File)}
      */
 //    @Deprecated
 //    private void moveExportToGoogleDrive() throws Exporter.ExporterException {
@@ -284,33 +295,6 @@ public class ExportAsyncUtil {
 //        }
 //    }
 
-    /**
-     * Move the exported files (in the cache directory) to Dropbox
-     */
-    private void moveExportToDropbox() {
-        Log.i(TAG, "Uploading exported files to DropBox");
-
-        DbxClientV2 dbxClient = mDropboxHelper.getClient();
-
-        for (String exportedFilePath : mExportedFiles) {
-            File exportedFile = new File(exportedFilePath);
-            try {
-                FileInputStream inputStream = new FileInputStream(exportedFile);
-                FileMetadata metadata = dbxClient.files()
-                        .uploadBuilder("/" + exportedFile.getName())
-                        .uploadAndFinish(inputStream);
-                Log.i(TAG, "Successfully uploaded file " + metadata.getName() + " to DropBox");
-                inputStream.close();
-                exportedFile.delete(); //delete file to prevent cache accumulation
-            } catch (IOException e) {
-//                Crashlytics.logException(e);
-                Log.e(TAG, e.getMessage());
-            } catch (com.dropbox.core.DbxException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
     private void moveExportToOwnCloud() throws Exporter.ExporterException {
         Log.i(TAG, "Copying exported file to ownCloud");
 
@@ -361,31 +345,6 @@ public class ExportAsyncUtil {
         return timeStampLong.toString();
     }
 
-    /**
-     * Moves the exported files from the internal storage where they are generated to
-     * external storage, which is accessible to the user.
-     * @return The list of files moved to the SD card.
-     * @deprecated Use the Storage Access Framework to save to SD card. See {@link #moveExportToUri()}
-     */
-    @Deprecated
-    private List<String> moveExportToSDCard() throws Exporter.ExporterException {
-        Log.i(TAG, "Moving exported file to external storage");
-        new File(Exporter.getExportFolderPath(mExporter.mBookUID));
-        List<String> dstFiles = new ArrayList<>();
-
-        for (String src: mExportedFiles) {
-            String dst = Exporter.getExportFolderPath(mExporter.mBookUID) + stripPathPart(src);
-            try {
-                org.gnucash.android.util.FileUtils.moveFile(src, dst);
-                dstFiles.add(dst);
-            } catch (IOException e) {
-                throw new Exporter.ExporterException(mExportParams, e);
-            }
-        }
-
-        return dstFiles;
-    }
-
     // "/some/path/filename.ext" -> "filename.ext"
     private String stripPathPart(String fullPathName) {
         return (new File(fullPathName)).getName();
@@ -401,9 +360,10 @@ public class ExportAsyncUtil {
         List<Transaction> openingBalances = new ArrayList<>();
         boolean preserveOpeningBalances = GnuCashApplication.shouldSaveOpeningBalances(false);
 
-        TransactionsDbAdapter transactionsDbAdapter = new TransactionsDbAdapter(mDb, new SplitsDbAdapter(mDb));
+        BookSession session = BookSession.of(mDb);
+        TransactionsDbAdapter transactionsDbAdapter = session.getTransactionsDbAdapter();
         if (preserveOpeningBalances) {
-            openingBalances = new AccountsDbAdapter(mDb, transactionsDbAdapter).getAllOpeningBalanceTransactions();
+            openingBalances = session.getAccountsDbAdapter().getAllOpeningBalanceTransactions();
         }
         transactionsDbAdapter.deleteAllNonTemplateTransactions();
 
@@ -426,7 +386,7 @@ public class ExportAsyncUtil {
         shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
 
         shareIntent.putExtra(Intent.EXTRA_SUBJECT, mContext.getString(R.string.title_export_email,
-                mExportParams.getExportFormat().name()));
+                mExportParams.getExportFormatsDisplayName()));
 
         String defaultEmail = PreferenceManager.getDefaultSharedPreferences(mContext)
                 .getString(mContext.getString(R.string.key_default_export_email), null);
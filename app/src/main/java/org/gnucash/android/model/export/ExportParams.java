@@ -19,9 +19,14 @@ package org.gnucash.android.model.export;
 import android.net.Uri;
 
 import org.gnucash.android.ui.export.ExportFormFragment;
+import org.gnucash.android.util.PreferencesHelper;
 import org.gnucash.android.util.TimestampHelper;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.zip.Deflater;
 
 /**
  * Encapsulation of the parameters used for exporting transactions.
@@ -33,6 +38,12 @@ import java.sql.Timestamp;
  * @author Ngewi Fet <ngewif@gmail.com>
  */
 public class ExportParams {
+    /**
+     * Compression level of exports which are not gzipped
+     * @see #setCompressionLevel(int)
+     */
+    public static final int UNCOMPRESSED = -2;
+
     /**
      * Options for the destination of the exported transctions file.
      * It could be stored on the {@link #SD_CARD} or exported through another program via {@link #SHARING}
@@ -60,11 +71,23 @@ public class ExportParams {
      */
     private ExportFormat mExportFormat      = ExportFormat.QIF;
 
+    /**
+     * Formats to export in addition to {@link #mExportFormat}.
+     * All formats are generated in one export run by the {@link MultiFormatExporter}
+     */
+    private final EnumSet<ExportFormat> mAdditionalExportFormats = EnumSet.noneOf(ExportFormat.class);
+
     /**
      * All transactions created after this date will be exported
      */
     private Timestamp mExportStartTime = TimestampHelper.getTimestampFromEpochZero();
 
+    /**
+     * All transactions changed after this sequence number of the change log will be exported.
+     * When set, this takes precedence over {@link #mExportStartTime}
+     */
+    private long mExportSinceSequence = PreferencesHelper.NO_EXPORT_SEQUENCE;
+
     /**
      * Flag to determine if all transactions should be deleted after exporting is complete
      * By default no transactions are deleted
@@ -87,6 +110,11 @@ public class ExportParams {
      */
     private char mCsvSeparator = ',';
 
+    /**
+     * Gzip compression level of the exported file, or {@link #UNCOMPRESSED}
+     */
+    private int mCompressionLevel = UNCOMPRESSED;
+
     /**
      * Creates a new set of paramters and specifies the export format
      * @param format Format to use when exporting the transactions
@@ -109,6 +137,76 @@ public class ExportParams {
      */
     public void setExportFormat(ExportFormat exportFormat) {
         this.mExportFormat = exportFormat;
+        mAdditionalExportFormats.remove(exportFormat);
+    }
+
+    /**
+     * Adds a format to be exported together with the main export format
+     * @param exportFormat {@link ExportFormat} to add
+     */
+    public void addExportFormat(ExportFormat exportFormat) {
+        if (exportFormat != mExportFormat)
+            mAdditionalExportFormats.add(exportFormat);
+    }
+
+    /**
+     * Returns all the formats to be exported, starting with the main export format
+     * @return List of export formats
+     */
+    public List<ExportFormat> getExportFormats() {
+        List<ExportFormat> formats = new ArrayList<>(mAdditionalExportFormats.size() + 1);
+        formats.add(mExportFormat);
+        formats.addAll(mAdditionalExportFormats);
+        return formats;
+    }
+
+    /**
+     * Returns whether several formats are exported at once
+     * @return <code>true</code> if more than one format is exported, <code>false</code> otherwise
+     */
+    public boolean isMultiFormat() {
+        return !mAdditionalExportFormats.isEmpty();
+    }
+
+    /**
+     * Creates a copy of these parameters for exporting only in {@code exportFormat}.
+     * <p>The transactions are not deleted after the export of the copy,
+     * this is done once for the whole export run</p>
+     * @param exportFormat Format of the copy
+     * @return New export parameters with a single export format
+     */
+    public ExportParams copyForFormat(ExportFormat exportFormat) {
+        ExportParams params = new ExportParams(exportFormat);
+        params.setExportStartTime(mExportStartTime);
+        params.setExportSinceSequence(mExportSinceSequence);
+        params.setExportTarget(mExportTarget);
+        params.setExportLocation(mExportLocation);
+        params.setCsvSeparator(mCsvSeparator);
+        params.setCompressionLevel(mCompressionLevel);
+        return params;
+    }
+
+    /**
+     * Returns the names of the export formats, starting with the main export format
+     * @param separator Separator between the format names
+     * @return Names of the export formats
+     */
+    private String joinFormatNames(String separator) {
+        StringBuilder names = new StringBuilder();
+        for (ExportFormat format : getExportFormats()) {
+            if (names.length() > 0)
+                names.append(separator);
+            names.append(format.name());
+        }
+        return names.toString();
+    }
+
+    /**
+     * Returns the names of the export formats for displaying to the user, e.g. "QIF, XML"
+     * @return Comma-separated names of the export formats
+     */
+    public String getExportFormatsDisplayName() {
+        return joinFormatNames(", ");
     }
 
     /**
@@ -128,6 +226,31 @@ public class ExportParams {
         this.mExportStartTime = exportStartTime;
     }
 
+    /**
+     * Returns the sequence number of the change log after which changed transactions are exported
+     * @return Sequence number, or {@link PreferencesHelper#NO_EXPORT_SEQUENCE} to export by {@link #getExportStartTime()}
+     */
+    public long getExportSinceSequence() {
+        return mExportSinceSequence;
+    }
+
+    /**
+     * Set the sequence number of the change log after which changed transactions will be exported.
+     * <p>The sequence number is not saved with {@link #toCsv()}, it is set anew for each export</p>
+     * @param sequence Sequence number, or {@link PreferencesHelper#NO_EXPORT_SEQUENCE} to export by start time
+     */
+    public void setExportSinceSequence(long sequence) {
+        this.mExportSinceSequence = sequence;
+    }
+
+    /**
+     * Returns whether the transactions to export are selected by sequence number of the change log
+     * @return <code>true</code> if a sequence number is set, <code>false</code> to export by start time
+     */
+    public boolean isExportSinceSequence() {
+        return mExportSinceSequence != PreferencesHelper.NO_EXPORT_SEQUENCE;
+    }
+
     /**
      * Returns flag whether transactions should be deleted after export
      * @return <code>true</code> if all transactions will be deleted, <code>false</code> otherwise
@@ -194,25 +317,53 @@ public class ExportParams {
         mCsvSeparator = separator;
     }
 
+    /**
+     * Returns the gzip compression level of the exported file
+     * @return Compression level, or {@link #UNCOMPRESSED}
+     */
+    public int getCompressionLevel() {
+        return mCompressionLevel;
+    }
+
+    /**
+     * Set the gzip compression level of the exported file.
+     * <p>Only GnuCash XML exports are compressed, the other formats ignore this level</p>
+     * @param compressionLevel Level from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION},
+     *                         {@link Deflater#DEFAULT_COMPRESSION}, or {@link #UNCOMPRESSED}
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        mCompressionLevel = compressionLevel;
+    }
+
+    /**
+     * Returns whether the exported file is gzipped
+     * @return <code>true</code> if a compression level is set, <code>false</code> otherwise
+     */
+    public boolean isCompressed() {
+        return mCompressionLevel != UNCOMPRESSED;
+    }
+
     @Override
     public String toString() {
         return "Export all transactions created since " + TimestampHelper.getUtcStringFromTimestamp(mExportStartTime) + " UTC"
-                + " as "+ mExportFormat.name() + " to " + mExportTarget.name() + (mExportLocation != null ? " (" + mExportLocation +")" : "");
+                + " as "+ joinFormatNames("+") + " to " + mExportTarget.name() + (mExportLocation != null ? " (" + mExportLocation +")" : "");
     }
 
     /**
      * Returns the export parameters formatted as CSV.
-     * <p>The CSV format is: exportformat;exportTarget;shouldExportAllTransactions;shouldDeleteAllTransactions</p>
+     * <p>The CSV format is: exportformat;exportTarget;shouldExportAllTransactions;shouldDeleteAllTransactions;exportLocation;compressionLevel</p>
+     * <p>When several formats are exported, they are separated by "+" in the first field e.g. "QIF+XML"</p>
      * @return String containing CSV format of ExportParams
      */
     public String toCsv(){
         String separator = ";";
 
-        return mExportFormat.name() + separator
+        return joinFormatNames("+") + separator
                 + mExportTarget.name() + separator
                 + TimestampHelper.getUtcStringFromTimestamp(mExportStartTime) + separator
                 + Boolean.toString(mDeleteTransactionsAfterExport) + separator
-                + (mExportLocation != null ? mExportLocation : "");
+                + (mExportLocation != null ? mExportLocation : "") + separator
+                + mCompressionLevel;
     }
 
     /**
@@ -222,13 +373,21 @@ public class ExportParams {
      */
     public static ExportParams parseCsv(String csvParams){
         String[] tokens = csvParams.split(";");
-        ExportParams params = new ExportParams(ExportFormat.valueOf(tokens[0]));
+        String[] formats = tokens[0].split("\\+");
+        ExportParams params = new ExportParams(ExportFormat.valueOf(formats[0]));
+        for (int i = 1; i < formats.length; i++) {
+            params.addExportFormat(ExportFormat.valueOf(formats[i]));
+        }
         params.setExportTarget(ExportTarget.valueOf(tokens[1]));
         params.setExportStartTime(TimestampHelper.getTimestampFromUtcString(tokens[2]));
         params.setDeleteTransactionsAfterExport(Boolean.parseBoolean(tokens[3]));
-        if (tokens.length == 5){
+        if (tokens.length >= 5 && !tokens[4].isEmpty()){
             params.setExportLocation(tokens[4]);
         }
+        // the compression level was added later, older scheduled backups do not have it
+        if (tokens.length >= 6){
+            params.setCompressionLevel(Integer.parseInt(tokens[5]));
+        }
         return params;
     }
 }
@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.export;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.util.Log;
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Target to which the exporters write the exported files.
+ * <p>Exporters which produce a single file write it straight into the stream of the sink, so the
+ * export is not first written to the cache directory and then copied to its target.
+ * See {@link Exporter#generateExport(ExportSink)}</p>
+ * <p>A file only appears at the target if its stream was committed before being closed,
+ * so a failed export does not leave a truncated file behind</p>
+ */
+public interface ExportSink {
+
+    /**
+     * Opens a stream for writing an exported file to the target.
+     * <p>The caller calls {@link ExportStream#commit()} once everything has been written, and then
+     * closes the stream. A stream closed without commit discards the file</p>
+     * @param fileName Name of the exported file, including the extension of the export format
+     * @param mimeType MIME type of the exported file
+     * @return Stream to write the file to, which the caller closes
+     * @throws IOException if the file could not be created at the target
+     */
+    @NonNull
+    ExportStream openStream(@NonNull String fileName, @NonNull String mimeType) throws IOException;
+
+    /**
+     * Returns a sink which writes the exported files into a directory.
+     * <p>Each file is written under a temporary name and renamed when it is complete</p>
+     * @param directory Directory receiving the files
+     * @return Export sink
+     */
+    static ExportSink toDirectory(@NonNull final File directory) {
+        return (fileName, mimeType) -> {
+            final File file = new File(directory, fileName);
+            final File partFile = new File(directory, fileName + ".part");
+            return new ExportStream(new FileOutputStream(partFile)) {
+                @Override
+                protected void publish() throws IOException {
+                    if (!partFile.renameTo(file))
+                        throw new IOException("Could not rename " + partFile + " to " + file);
+                }
+
+                @Override
+                protected void discard() {
+                    partFile.delete();
+                }
+            };
+        };
+    }
+
+    /**
+     * Returns a sink which writes the export to a content URI, such as a Storage Access Framework document.
+     * <p>The URI receives a single file, so the file name is ignored. The export is streamed straight
+     * into the document. If the export fails, the document is deleted, or emptied if the provider
+     * does not support deleting it, so that no truncated export is left behind</p>
+     * @param contentResolver Content resolver of the application
+     * @param uri URI of the document to write
+     * @return Export sink
+     */
+    static ExportSink toUri(@NonNull final ContentResolver contentResolver, @NonNull final Uri uri) {
+        return (fileName, mimeType) -> {
+            OutputStream outputStream = contentResolver.openOutputStream(uri, "wt");
+            if (outputStream == null)
+                throw new FileNotFoundException("Could not open " + uri + " for writing");
+            return new ExportStream(outputStream) {
+                @Override
+                protected void publish() {
+                    //already written to the document
+                }
+
+                @Override
+                protected void discard() {
+                    try {
+                        if (DocumentsContract.deleteDocument(contentResolver, uri))
+                            return;
+                    } catch (Exception e) {
+                        Log.w("ExportSink", "Could not delete " + uri + ", emptying it instead", e);
+                    }
+                    try (OutputStream truncated = contentResolver.openOutputStream(uri, "wt")) {
+                        //opening in "wt" mode truncates the document
+                    } catch (IOException | RuntimeException e) {
+                        Log.e("ExportSink", "Could not empty " + uri + " after a failed export", e);
+                    }
+                }
+            };
+        };
+    }
+
+    /**
+     * Stream of an exported file, which is only published at the target when it is committed.
+     * <p>If writing to the stream fails, it is not published even if committed afterwards, e.g. by
+     * a wrapping stream which writes its buffered data when it is closed</p>
+     */
+    abstract class ExportStream extends FilterOutputStream {
+        private boolean mCommitted;
+        private boolean mFailed;
+        private boolean mClosed;
+
+        protected ExportStream(@NonNull OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                mFailed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) throws IOException {
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                mFailed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                mFailed = true;
+                throw e;
+            }
+        }
+
+        /**
+         * Marks the file as complete, so that it is published when the stream is closed.
+         * <p>Call this after everything has been written and the streams wrapping this one have been flushed</p>
+         */
+        public void commit() {
+            mCommitted = true;
+        }
+
+        /**
+         * Closes the stream, and publishes the file at the target if it was committed,
+         * or discards it otherwise
+         * @throws IOException if the file could not be completed or published
+         */
+        @Override
+        public void close() throws IOException {
+            if (mClosed)
+                return;
+            mClosed = true;
+            try {
+                closeOutput();
+            } catch (IOException e) {
+                discard();
+                throw e;
+            }
+            if (mCommitted && !mFailed)
+                publish();
+            else
+                discard();
+        }
+
+        /**
+         * Writes out and closes the underlying stream, before the file is published or discarded
+         * @throws IOException if the underlying stream could not be written
+         */
+        protected void closeOutput() throws IOException {
+            out.close();
+        }
+
+        /**
+         * Makes the completely written file available at the target
+         * @throws IOException if the file could not be published
+         */
+        protected abstract void publish() throws IOException;
+
+        /**
+         * Removes the partially written file, leaving the target as it was before the export
+         */
+        protected abstract void discard();
+    }
+}
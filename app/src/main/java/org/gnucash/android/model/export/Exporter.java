@@ -25,21 +25,25 @@ import android.util.Log;
 
 import org.gnucash.android.BuildConfig;
 import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.BookSession;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BooksDbAdapter;
-import org.gnucash.android.model.db.adapter.BudgetAmountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BudgetsDbAdapter;
 import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
 import org.gnucash.android.model.db.adapter.PricesDbAdapter;
-import org.gnucash.android.model.db.adapter.RecurrenceDbAdapter;
 import org.gnucash.android.model.db.adapter.ScheduledActionDbAdapter;
 import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.util.FileUtils;
+import org.gnucash.android.util.PreferencesHelper;
+import org.gnucash.android.util.TimestampHelper;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -98,6 +102,7 @@ public abstract class Exporter {
 	protected final BudgetsDbAdapter mBudgetsDbAdapter;
     protected final Context mContext;
     private String mExportCacheFilePath;
+    private String mExportFileName;
 
     /**
      * Database being currently exported
@@ -109,6 +114,11 @@ public abstract class Exporter {
      */
     protected String mBookUID;
 
+    /**
+     * Sequence number of the change log when the export started
+     */
+    protected final long mChangeSequence;
+
     public Exporter(ExportParams params, SQLiteDatabase db) {
         this.mExportParams = params;
         mContext = GnuCashApplication.getAppContext();
@@ -123,17 +133,18 @@ public abstract class Exporter {
             mDb = GnuCashApplication.getActiveDb();
         } else {
             mDb = db;
-            mSplitsDbAdapter        = new SplitsDbAdapter(db);
-            mTransactionsDbAdapter  = new TransactionsDbAdapter(db, mSplitsDbAdapter);
-            mAccountsDbAdapter      = new AccountsDbAdapter(db, mTransactionsDbAdapter);
-            mPricesDbAdapter        = new PricesDbAdapter(db);
-            mCommoditiesDbAdapter   = new CommoditiesDbAdapter(db);
-            RecurrenceDbAdapter recurrenceDbAdapter = new RecurrenceDbAdapter(db);
-            mBudgetsDbAdapter       = new BudgetsDbAdapter(db, new BudgetAmountsDbAdapter(db), recurrenceDbAdapter);
-            mScheduledActionDbAdapter = new ScheduledActionDbAdapter(db, recurrenceDbAdapter);
+            BookSession session = BookSession.of(db);
+            mSplitsDbAdapter        = session.getSplitsDbAdapter();
+            mTransactionsDbAdapter  = session.getTransactionsDbAdapter();
+            mAccountsDbAdapter      = session.getAccountsDbAdapter();
+            mPricesDbAdapter        = session.getPricesDbAdapter();
+            mCommoditiesDbAdapter   = session.getCommoditiesDbAdapter();
+            mBudgetsDbAdapter       = session.getBudgetsDbAdapter();
+            mScheduledActionDbAdapter = session.getScheduledActionDbAdapter();
         }
 
         mBookUID = new File(mDb.getPath()).getName(); //this depends on the database file always having the name of the book GUID
+        mChangeSequence = mTransactionsDbAdapter.getLastChangeSequence();
         mExportCacheFilePath = null;
         mCacheDir = new File(mContext.getCacheDir(), params.getExportFormat().name());
         mCacheDir.mkdir();
@@ -191,6 +202,54 @@ public abstract class Exporter {
      */
     public abstract List<String> generateExport() throws ExporterException;
 
+    /**
+     * Generates the export output and writes it to {@code sink}.
+     * <p>This implementation generates the files in the cache directory with {@link #generateExport()},
+     * then copies them to the sink and deletes them. Exporters which produce a single file override it
+     * to write straight into the sink</p>
+     * @param sink Target of the export
+     * @return Names of the exported files, empty if there was nothing to export
+     * @throws ExporterException if an error occurs during export
+     */
+    public List<String> generateExport(@NonNull ExportSink sink) throws ExporterException {
+        List<String> exportedFiles = generateExport();
+        List<String> fileNames = new ArrayList<>(exportedFiles.size());
+        for (String exportedFile : exportedFiles) {
+            File file = new File(exportedFile);
+            try (ExportSink.ExportStream outputStream = sink.openStream(file.getName(), getExportMimeType())) {
+                FileUtils.copyFile(file, outputStream);
+                outputStream.commit();
+            } catch (IOException e) {
+                throw new ExporterException(mExportParams, e);
+            }
+            file.delete();
+            fileNames.add(file.getName());
+        }
+        return fileNames;
+    }
+
+    /**
+     * Creates a writer for this format, to which transactions read by another exporter are passed.
+     * <p>Formats which export the whole book rather than the changed transactions return {@code null},
+     * they are generated with {@link #generateExport()} instead</p>
+     * @return Transaction writer, or {@code null} if the format is not exported per transaction
+     * @throws IOException if the output of the writer cannot be opened
+     * @see MultiFormatExporter
+     */
+    protected TransactionExportWriter createTransactionWriter() throws IOException {
+        return null;
+    }
+
+    /**
+     * Records that the book has been exported up to the start of this export.
+     * <p>Saves the time of the export and the sequence number of the change log,
+     * after which the next incremental export starts</p>
+     */
+    protected void acknowledgeExport() {
+        PreferencesHelper.setLastExportTime(TimestampHelper.getTimestampFromNow(), mBookUID);
+        PreferencesHelper.setLastExportSequence(mChangeSequence, mBookUID);
+    }
+
     /**
      * Recursively delete all files in a directory
      * @param directory File descriptor for directory
@@ -217,13 +276,25 @@ public abstract class Exporter {
             String cachePath = mCacheDir.getAbsolutePath();
             if (!cachePath.endsWith("/"))
                 cachePath += "/";
-            String bookName = BooksDbAdapter.getInstance().getAttribute(mBookUID, DatabaseSchema.BookEntry.COLUMN_DISPLAY_NAME);
-            mExportCacheFilePath = cachePath + buildExportFilename(mExportParams.getExportFormat(), bookName);
+            mExportCacheFilePath = cachePath + getExportFileName();
         }
 
         return mExportCacheFilePath;
     }
 
+    /**
+     * Returns the name of the file of this export, see {@link #buildExportFilename(ExportFormat, String)}.
+     * <p>The name is built once, so it is the same for the cache file and the export target</p>
+     * @return File name with the extension of the export format
+     */
+    protected String getExportFileName() {
+        if (mExportFileName == null) {
+            String bookName = BooksDbAdapter.getInstance().getAttribute(mBookUID, DatabaseSchema.BookEntry.COLUMN_DISPLAY_NAME);
+            mExportFileName = buildExportFilename(mExportParams.getExportFormat(), bookName);
+        }
+        return mExportFileName;
+    }
+
     /**
      * Returns that path to the export folder for the book with GUID {@code bookUID}.
      * This is the folder where exports like QIF and OFX will be saved for access by external programs
@@ -0,0 +1,294 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gnucash.android.model.export;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.util.FileUtils;
+import org.gnucash.android.util.TimestampHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exports the book in several formats in one export run.
+ * <p>An exporter is created for each of the {@link ExportParams#getExportFormats()}. The changed
+ * transactions are read once and passed in batches to the {@link TransactionExportWriter} of every
+ * format which exports transactions. Each format runs on its own thread, so the formats are written
+ * concurrently while the transactions are read. Formats which export the whole book, like XML,
+ * are generated with their own exporter, also on their own thread.</p>
+ * <p>The transactions are marked as exported and the export is recorded only once all the formats
+ * have been written. If any of them fails, the files of the others are discarded.</p>
+ * <p>When exporting to a single {@link ExportParams.ExportTarget#URI}, the files are zipped
+ * into one archive.</p>
+ */
+public class MultiFormatExporter extends Exporter {
+
+    /**
+     * Number of transactions passed to the writers at once
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * Maximum number of batches waiting for a writer. Bounds the memory held when
+     * a format is written more slowly than the transactions are read
+     */
+    private static final int MAX_QUEUED_BATCHES = 8;
+
+    /**
+     * Marks the end of the transactions in the queue of a writer. Batches are never empty otherwise
+     */
+    private static final List<Transaction> END_OF_TRANSACTIONS = Collections.emptyList();
+
+    private final List<Exporter> mExporters = new ArrayList<>();
+
+    private boolean mZipped = false;
+
+    /**
+     * Creates an exporter for all the formats in {@code params}
+     * @param params Export parameters
+     * @param db Database to export
+     */
+    public MultiFormatExporter(ExportParams params, SQLiteDatabase db) {
+        super(params, db);
+        LOG_TAG = "MultiFormatExporter";
+        for (ExportFormat format : params.getExportFormats()) {
+            mExporters.add(ExportAsyncUtil.createExporter(params.copyForFormat(format), db));
+        }
+    }
+
+    @Override
+    public List<String> generateExport() throws ExporterException {
+        int formatCount = mExporters.size();
+        List<TransactionExportWriter> writers = new ArrayList<>(formatCount);
+        //the files of each format, in the order of the formats, so the main format comes first
+        List<List<String>> formatFiles = new ArrayList<>(formatCount);
+        ExecutorService executor = Executors.newFixedThreadPool(formatCount);
+        try {
+            for (Exporter exporter : mExporters) {
+                writers.add(exporter.createTransactionWriter());
+            }
+            List<BlockingQueue<List<Transaction>>> queues = new ArrayList<>(formatCount);
+            List<Future<List<String>>> results = new ArrayList<>(formatCount);
+            for (int i = 0; i < formatCount; i++) {
+                final TransactionExportWriter writer = writers.get(i);
+                if (writer == null) {
+                    final Exporter exporter = mExporters.get(i);
+                    queues.add(null);
+                    results.add(executor.submit(() -> exporter.generateExport()));
+                } else {
+                    final BlockingQueue<List<Transaction>> queue = new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES);
+                    queues.add(queue);
+                    results.add(executor.submit(() -> writeQueuedTransactions(writer, queue)));
+                }
+            }
+
+            RuntimeException readFailure = null;
+            try {
+                readTransactions(queues);
+            } catch (RuntimeException e) {
+                readFailure = e;
+            }
+            for (BlockingQueue<List<Transaction>> queue : queues) {
+                if (queue != null)
+                    queue.put(END_OF_TRANSACTIONS);
+            }
+            //wait for all the formats, so that none is still writing when the files are discarded
+            Throwable formatFailure = null;
+            for (Future<List<String>> result : results) {
+                try {
+                    formatFiles.add(result.get());
+                } catch (ExecutionException e) {
+                    formatFiles.add(Collections.<String>emptyList());
+                    if (formatFailure == null)
+                        formatFailure = e.getCause();
+                }
+            }
+            if (readFailure != null)
+                throw readFailure;
+            if (formatFailure instanceof IOException)
+                throw (IOException) formatFailure;
+            if (formatFailure instanceof RuntimeException)
+                throw (RuntimeException) formatFailure;
+            if (formatFailure != null)
+                throw new ExporterException(mExportParams, formatFailure);
+        } catch (IOException | RuntimeException | InterruptedException e) {
+            executor.shutdownNow();
+            for (TransactionExportWriter writer : writers) {
+                if (writer != null)
+                    writer.abort();
+            }
+            for (List<String> files : formatFiles) {
+                for (String file : files) {
+                    new File(file).delete();
+                }
+            }
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            if (e instanceof ExporterException)
+                throw (ExporterException) e;
+            throw new ExporterException(mExportParams, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<String> exportedFiles = new ArrayList<>();
+        for (List<String> files : formatFiles) {
+            exportedFiles.addAll(files);
+        }
+        markExported();
+
+        Log.d(LOG_TAG, "Exported " + mExporters.size() + " formats to " + exportedFiles.size() + " files");
+        if (exportedFiles.size() > 1 && mExportParams.getExportTarget() == ExportParams.ExportTarget.URI) {
+            return zipExportedFiles(exportedFiles);
+        }
+        return exportedFiles;
+    }
+
+    /**
+     * Reads the changed transactions once and queues them in batches for all the writers
+     * @param queues Queues of the writers, {@code null} for the formats which export the whole book
+     * @throws InterruptedException if interrupted while waiting for a writer
+     */
+    private void readTransactions(List<BlockingQueue<List<Transaction>>> queues) throws InterruptedException {
+        if (!hasQueue(queues))
+            return;
+
+        Cursor cursor = mExportParams.isExportSinceSequence()
+                ? mTransactionsDbAdapter.fetchTransactionsChangedSince(mExportParams.getExportSinceSequence())
+                : mTransactionsDbAdapter.fetchTransactionsModifiedSince(mExportParams.getExportStartTime());
+        try {
+            List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+            while (cursor.moveToNext()) {
+                batch.add(mTransactionsDbAdapter.buildModelInstance(cursor));
+                if (batch.size() == BATCH_SIZE) {
+                    queueBatch(queues, batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty())
+                queueBatch(queues, batch);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Queues a batch for all the writers. The writers only read the transactions, so they share the batch
+     */
+    private static void queueBatch(List<BlockingQueue<List<Transaction>>> queues, List<Transaction> batch)
+            throws InterruptedException {
+        for (BlockingQueue<List<Transaction>> queue : queues) {
+            if (queue != null)
+                queue.put(batch);
+        }
+    }
+
+    private static boolean hasQueue(List<BlockingQueue<List<Transaction>>> queues) {
+        for (BlockingQueue<List<Transaction>> queue : queues) {
+            if (queue != null)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Passes the transactions queued for a format to its writer, then finishes the format.
+     * <p>After a failure, the remaining batches are still taken from the queue, so that reading
+     * the transactions is never blocked by a full queue</p>
+     * @param writer Writer of the format
+     * @param queue Queue of the transactions for {@code writer}
+     * @return Paths of the files written by the format
+     * @throws IOException if the writer fails
+     * @throws InterruptedException if interrupted while waiting for transactions
+     */
+    private static List<String> writeQueuedTransactions(TransactionExportWriter writer,
+                                                        BlockingQueue<List<Transaction>> queue)
+            throws IOException, InterruptedException {
+        Exception failure = null;
+        List<Transaction> batch;
+        while (!(batch = queue.take()).isEmpty()) {
+            if (failure != null)
+                continue;
+            try {
+                for (Transaction transaction : batch) {
+                    writer.write(transaction);
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+        }
+        if (failure instanceof IOException)
+            throw (IOException) failure;
+        if (failure != null)
+            throw (RuntimeException) failure;
+        return writer.finish();
+    }
+
+    /**
+     * Marks the exported transactions and records the export, once for all the formats
+     */
+    private void markExported() {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(TransactionEntry.COLUMN_EXPORTED, 1);
+        if (mExportParams.isExportSinceSequence()) {
+            mTransactionsDbAdapter.updateTransaction(contentValues,
+                    TransactionsDbAdapter.getChangedSinceSelection(TransactionEntry.COLUMN_UID,
+                            mExportParams.getExportSinceSequence()), null);
+        } else {
+            mTransactionsDbAdapter.updateTransaction(contentValues,
+                    TransactionEntry.COLUMN_MODIFIED_AT + " >= ?",
+                    new String[]{TimestampHelper.getUtcStringFromTimestamp(mExportParams.getExportStartTime())});
+        }
+        acknowledgeExport();
+    }
+
+    /**
+     * Zips the exported files into a single archive, since URI targets can only receive one file
+     * @param exportedFiles Paths of the files to zip
+     * @return List containing only the path of the zip file
+     */
+    private List<String> zipExportedFiles(List<String> exportedFiles) throws ExporterException {
+        String cacheFilePath = getExportCacheFilePath();
+        String zipFileName = cacheFilePath.substring(0, cacheFilePath.lastIndexOf('.')) + ".zip";
+        try {
+            FileUtils.zipFiles(exportedFiles, zipFileName);
+        } catch (IOException e) {
+            throw new ExporterException(mExportParams, e);
+        }
+        mZipped = true;
+        return Collections.singletonList(zipFileName);
+    }
+
+    @Override
+    public String getExportMimeType() {
+        return mZipped ? "application/zip" : super.getExportMimeType();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gnucash.android.model.export;
+
+import org.gnucash.android.model.data.Transaction;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the transactions of one export format, while the transactions are read by someone else.
+ * <p>The {@link MultiFormatExporter} reads the exported transactions once and passes each of them
+ * to the writers of all the selected formats. Writers do not mark the transactions as exported,
+ * nor record the export; the caller does that once all the writers have finished</p>
+ * <p>{@link #write(Transaction)} and {@link #finish()} are called on a thread of the writer's own,
+ * one call after the other. The transactions passed in are shared with the other writers and
+ * must not be modified</p>
+ *
+ * @see Exporter#createTransactionWriter()
+ */
+public interface TransactionExportWriter {
+
+    /**
+     * Adds a transaction to the export
+     * @param transaction Transaction with its splits
+     * @throws IOException if the output cannot be written to
+     */
+    void write(Transaction transaction) throws IOException;
+
+    /**
+     * Completes the export after the last transaction
+     * @return Paths of the exported files in the cache directory, empty if there was nothing to export
+     * @throws IOException if the output cannot be written to
+     */
+    List<String> finish() throws IOException;
+
+    /**
+     * Discards the export after a failure, deleting any file written so far
+     */
+    void abort();
+}
@@ -17,15 +17,19 @@
 package org.gnucash.android.model.export.csv;
 
 import android.database.sqlite.SQLiteDatabase;
+import androidx.annotation.NonNull;
 
 import org.gnucash.android.R;
 import org.gnucash.android.model.export.ExportParams;
+import org.gnucash.android.model.export.ExportSink;
 import org.gnucash.android.model.export.Exporter;
 import org.gnucash.android.model.data.Account;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -72,6 +76,27 @@ public class CsvAccountExporter extends Exporter {
         return Arrays.asList(outputFile);
     }
 
+    /**
+     * Writes the CSV export straight into the sink, without a file in the cache directory
+     * @param sink Target of the export
+     * @return List containing the name of the exported file
+     * @throws ExporterException if an error occurs during export
+     */
+    @Override
+    public List<String> generateExport(@NonNull ExportSink sink) throws ExporterException {
+        String fileName = getExportFileName();
+        try (ExportSink.ExportStream exportStream = sink.openStream(fileName, getExportMimeType());
+             CsvWriter writer = new CsvWriter(new OutputStreamWriter(exportStream), mCsvSeparator + "")) {
+            generateExport(writer);
+            writer.flush();
+            exportStream.commit();
+        } catch (IOException ex){
+            throw new ExporterException(mExportParams, ex);
+        }
+
+        return Collections.singletonList(fileName);
+    }
+
     /**
      * Writes out all the accounts in the system as CSV to the provided writer
      * @param csvWriter Destination for the CSV export
@@ -23,19 +23,22 @@ import android.util.Log;
 
 import org.gnucash.android.R;
 import org.gnucash.android.model.export.ExportParams;
+import org.gnucash.android.model.export.ExportSink;
 import org.gnucash.android.model.export.Exporter;
+import org.gnucash.android.model.export.TransactionExportWriter;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.Split;
 import org.gnucash.android.model.data.Transaction;
 import org.gnucash.android.model.data.TransactionType;
-import org.gnucash.android.util.PreferencesHelper;
-import org.gnucash.android.util.TimestampHelper;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -90,6 +93,27 @@ public class CsvTransactionsExporter extends Exporter {
         return Arrays.asList(outputFile);
     }
 
+    /**
+     * Writes the CSV export straight into the sink, without a file in the cache directory
+     * @param sink Target of the export
+     * @return List containing the name of the exported file
+     * @throws ExporterException if an error occurs during export
+     */
+    @Override
+    public List<String> generateExport(@NonNull ExportSink sink) throws ExporterException {
+        String fileName = getExportFileName();
+        try (ExportSink.ExportStream exportStream = sink.openStream(fileName, getExportMimeType());
+             CsvWriter writer = new CsvWriter(new OutputStreamWriter(exportStream), "" + mCsvSeparator)) {
+            generateExport(writer);
+            writer.flush();
+            exportStream.commit();
+        } catch (IOException ex){
+            throw new ExporterException(mExportParams, ex);
+        }
+
+        return Collections.singletonList(fileName);
+    }
+
     /**
      * Write splits to CSV format
      * @param splits Splits to be written
@@ -133,37 +157,98 @@ public class CsvTransactionsExporter extends Exporter {
         }
     }
 
+    /**
+     * Writes the header line with the names of the columns
+     * @param csvWriter Output of the export
+     */
+    private void writeHeader(CsvWriter csvWriter) throws IOException {
+        List<String> names = Arrays.asList(mContext.getResources().getStringArray(R.array.csv_transaction_headers));
+        for(int i = 0; i < names.size(); i++) {
+            csvWriter.writeToken(names.get(i));
+        }
+        csvWriter.newLine();
+    }
+
+    /**
+     * Writes a transaction and its splits
+     * @param csvWriter Output of the export
+     * @param transaction Transaction to write
+     */
+    private void writeTransaction(CsvWriter csvWriter, Transaction transaction) throws IOException {
+        Date date = new Date(transaction.getTimeMillis());
+        csvWriter.writeToken(dateFormat.format(date));
+        csvWriter.writeToken(transaction.getUID());
+        csvWriter.writeToken(null);  //Transaction number
+
+        csvWriter.writeToken(transaction.getDescription());
+        csvWriter.writeToken(transaction.getNote());
+
+        csvWriter.writeToken("CURRENCY::" + transaction.getCurrencyCode());
+        csvWriter.writeToken(null); // Void Reason
+        csvWriter.writeToken(null); // Action
+        writeSplitsToCsv(transaction.getSplits(), csvWriter);
+    }
+
     private void generateExport(final CsvWriter csvWriter) throws ExporterException {
         try {
-            List<String> names = Arrays.asList(mContext.getResources().getStringArray(R.array.csv_transaction_headers));
-            for(int i = 0; i < names.size(); i++) {
-                csvWriter.writeToken(names.get(i));
-            }
-            csvWriter.newLine();
-
+            writeHeader(csvWriter);
 
-            Cursor cursor = mTransactionsDbAdapter.fetchTransactionsModifiedSince(mExportParams.getExportStartTime());
+            Cursor cursor = mExportParams.isExportSinceSequence()
+                    ? mTransactionsDbAdapter.fetchTransactionsChangedSince(mExportParams.getExportSinceSequence())
+                    : mTransactionsDbAdapter.fetchTransactionsModifiedSince(mExportParams.getExportStartTime());
             Log.d(LOG_TAG, String.format("Exporting %d transactions to CSV", cursor.getCount()));
-            while (cursor.moveToNext()){
-                Transaction transaction = mTransactionsDbAdapter.buildModelInstance(cursor);
-                Date date = new Date(transaction.getTimeMillis());
-                csvWriter.writeToken(dateFormat.format(date));
-                csvWriter.writeToken(transaction.getUID());
-                csvWriter.writeToken(null);  //Transaction number
-
-                csvWriter.writeToken(transaction.getDescription());
-                csvWriter.writeToken(transaction.getNote());
-
-                csvWriter.writeToken("CURRENCY::" + transaction.getCurrencyCode());
-                csvWriter.writeToken(null); // Void Reason
-                csvWriter.writeToken(null); // Action
-                writeSplitsToCsv(transaction.getSplits(), csvWriter);
+            try {
+                while (cursor.moveToNext()) {
+                    writeTransaction(csvWriter, mTransactionsDbAdapter.buildModelInstance(cursor));
+                }
+            } finally {
+                cursor.close();
             }
 
-            PreferencesHelper.setLastExportTime(TimestampHelper.getTimestampFromNow());
+            acknowledgeExport();
         } catch (IOException e) {
 //            Crashlytics.logException(e);
             throw new ExporterException(mExportParams, e);
         }
     }
+
+    /**
+     * Creates a writer which writes the transactions to the CSV file in the cache directory as they come
+     * @return Writer for CSV transactions
+     * @throws IOException if the file cannot be created
+     */
+    @Override
+    protected TransactionExportWriter createTransactionWriter() throws IOException {
+        final String outputFile = getExportCacheFilePath();
+        final CsvWriter csvWriter = new CsvWriter(new FileWriter(outputFile), "" + mCsvSeparator);
+        try {
+            writeHeader(csvWriter);
+        } catch (IOException e) {
+            csvWriter.close();
+            throw e;
+        }
+
+        return new TransactionExportWriter() {
+            @Override
+            public void write(Transaction transaction) throws IOException {
+                writeTransaction(csvWriter, transaction);
+            }
+
+            @Override
+            public List<String> finish() throws IOException {
+                csvWriter.close();
+                return Collections.singletonList(outputFile);
+            }
+
+            @Override
+            public void abort() {
+                try {
+                    csvWriter.close();
+                } catch (IOException e) {
+                    Log.w(LOG_TAG, "Error closing aborted CSV export: " + e.getMessage());
+                }
+                new File(outputFile).delete();
+            }
+        };
+    }
 }
@@ -23,13 +23,12 @@ import android.util.Log;
 
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
-import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.export.ExportParams;
 import org.gnucash.android.model.export.Exporter;
+import org.gnucash.android.model.export.TransactionExportWriter;
 import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.Split;
 import org.gnucash.android.model.data.Transaction;
-import org.gnucash.android.util.PreferencesHelper;
-import org.gnucash.android.util.TimestampHelper;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -43,7 +42,11 @@ import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -89,8 +92,10 @@ public class OfxExporter extends Exporter {
 	 * Converts all expenses into OFX XML format and adds them to the XML document
 	 * @param doc DOM document of the OFX expenses.
 	 * @param parent Parent node for all expenses in report
+	 * @param changedTransactionUIDs GUIDs of the transactions to export, or {@code null} to export by start time
+	 * @return GUIDs of the accounts whose transactions were added to the document
 	 */
-	private void generateOfx(Document doc, Element parent){
+	private List<String> generateOfx(Document doc, Element parent, Set<String> changedTransactionUIDs){
 		Element transactionUid = doc.createElement(OfxHelper.TAG_TRANSACTION_UID);
 		//unsolicited because the data exported is not as a result of a request
 		transactionUid.appendChild(doc.createTextNode(OfxHelper.UNSOLICITED_TRANSACTION_ID));
@@ -103,7 +108,7 @@ public class OfxExporter extends Exporter {
 		
 		parent.appendChild(bankmsgs);		
 		
-		AccountsDbAdapter accountsDbAdapter = mAccountsDbAdapter;
+		List<String> exportedAccountUIDs = new ArrayList<>();
 		for (Account account : mAccountsList) {		
 			if (account.getTransactionCount() == 0)
 				continue; 
@@ -114,20 +119,23 @@ public class OfxExporter extends Exporter {
 
 
 			//add account details (transactions) to the XML document			
-			account.toOfx(doc, statementTransactionResponse, mExportParams.getExportStartTime());
-			
-			//mark as exported
-			accountsDbAdapter.markAsExported(account.getUID());
+			if (changedTransactionUIDs != null)
+				account.toOfx(doc, statementTransactionResponse, changedTransactionUIDs);
+			else
+				account.toOfx(doc, statementTransactionResponse, mExportParams.getExportStartTime());
 			
+			exportedAccountUIDs.add(account.getUID());
 		}
+		return exportedAccountUIDs;
 	}
 
     /**
-     * Generate OFX export file from the transactions in the database
-     * @return String containing OFX export
-     * @throws ExporterException
+     * Generates the OFX export of the accounts in {@link #mAccountsList} and writes it to the cache file
+     * @param changedTransactionUIDs GUIDs of the transactions to export, or {@code null} to export by start time
+     * @return GUIDs of the exported accounts
+     * @throws ExporterException if the export cannot be generated or written
      */
-    private String generateOfxExport() throws ExporterException {
+    private List<String> writeOfxExport(Set<String> changedTransactionUIDs) throws ExporterException {
         DocumentBuilderFactory docFactory = DocumentBuilderFactory
                 .newInstance();
         DocumentBuilder docBuilder;
@@ -144,37 +152,28 @@ public class OfxExporter extends Exporter {
         document.appendChild(pi);
         document.appendChild(root);
 
-        generateOfx(document, root);
+        List<String> exportedAccountUIDs = generateOfx(document, root, changedTransactionUIDs);
 
         boolean useXmlHeader = PreferenceManager.getDefaultSharedPreferences(mContext)
                 .getBoolean(mContext.getString(R.string.key_xml_ofx_header), false);
 
-        PreferencesHelper.setLastExportTime(TimestampHelper.getTimestampFromNow());
-
         StringWriter stringWriter = new StringWriter();
+        String ofx;
         //if we want SGML OFX headers, write first to string and then prepend header
         if (useXmlHeader){
             write(document, stringWriter, false);
-            return stringWriter.toString();
+            ofx = stringWriter.toString();
         } else {
             Node ofxNode = document.getElementsByTagName("OFX").item(0);
             write(ofxNode, stringWriter, true);
-            return OfxHelper.OFX_SGML_HEADER + '\n' + stringWriter.toString();
+            ofx = OfxHelper.OFX_SGML_HEADER + '\n' + stringWriter.toString();
         }
-    }
-
-    @Override
-    public List<String> generateExport() throws ExporterException {
-        mAccountsList = mAccountsDbAdapter.getExportableAccounts(mExportParams.getExportStartTime());
-        if (mAccountsList.isEmpty())
-            return new ArrayList<>(); // Nothing to export, so no files generated
 
         BufferedWriter writer = null;
-
         try {
             File file = new File(getExportCacheFilePath());
             writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
-            writer.write(generateOfxExport());
+            writer.write(ofx);
         } catch (IOException e) {
             throw new ExporterException(mExportParams, e);
         } finally {
@@ -186,6 +185,25 @@ public class OfxExporter extends Exporter {
                 }
             }
         }
+        return exportedAccountUIDs;
+    }
+
+    @Override
+    public List<String> generateExport() throws ExporterException {
+        mAccountsList = mExportParams.isExportSinceSequence()
+                ? mAccountsDbAdapter.getExportableAccounts(mExportParams.getExportSinceSequence())
+                : mAccountsDbAdapter.getExportableAccounts(mExportParams.getExportStartTime());
+        if (mAccountsList.isEmpty())
+            return new ArrayList<>(); // Nothing to export, so no files generated
+
+        Set<String> changedTransactionUIDs = mExportParams.isExportSinceSequence()
+                ? mTransactionsDbAdapter.getTransactionUIDsChangedSince(mExportParams.getExportSinceSequence())
+                : null;
+        List<String> exportedAccountUIDs = writeOfxExport(changedTransactionUIDs);
+        for (String accountUID : exportedAccountUIDs) {
+            mAccountsDbAdapter.markAsExported(accountUID);
+        }
+        acknowledgeExport();
 
         List<String> exportedFiles = new ArrayList<>();
         exportedFiles.add(getExportCacheFilePath());
@@ -193,6 +211,45 @@ public class OfxExporter extends Exporter {
         return exportedFiles;
     }
 
+    /**
+     * Creates a writer which collects the transactions and the accounts of their splits,
+     * and writes the OFX export of these accounts when finished
+     * @return Writer for OFX
+     */
+    @Override
+    protected TransactionExportWriter createTransactionWriter() {
+        return new TransactionExportWriter() {
+            private final Set<String> mTransactionUIDs = new HashSet<>();
+            private final Set<String> mAccountUIDs = new LinkedHashSet<>();
+
+            @Override
+            public void write(Transaction transaction) {
+                mTransactionUIDs.add(transaction.getUID());
+                for (Split split : transaction.getSplits()) {
+                    mAccountUIDs.add(split.getAccountUID());
+                }
+            }
+
+            @Override
+            public List<String> finish() {
+                if (mAccountUIDs.isEmpty())
+                    return Collections.emptyList();
+
+                mAccountsList = new ArrayList<>(mAccountUIDs.size());
+                for (String accountUID : mAccountUIDs) {
+                    mAccountsList.add(mAccountsDbAdapter.getRecord(accountUID));
+                }
+                writeOfxExport(mTransactionUIDs);
+                return Collections.singletonList(getExportCacheFilePath());
+            }
+
+            @Override
+            public void abort() {
+                new File(getExportCacheFilePath()).delete();
+            }
+        };
+    }
+
     /**
      * Writes out the document held in <code>node</code> to <code>outputWriter</code>
      * @param node {@link Node} containing the OFX document structure. Usually the parent node
@@ -19,30 +19,41 @@ package org.gnucash.android.model.export.qif;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import androidx.annotation.NonNull;
+import android.util.Log;
 
+import org.gnucash.android.model.db.AccountDirectory;
+import org.gnucash.android.model.db.BookSession;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.export.ExportParams;
 import org.gnucash.android.model.export.Exporter;
+import org.gnucash.android.model.export.TransactionExportWriter;
 import org.gnucash.android.model.data.Commodity;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.data.TransactionType;
 import org.gnucash.android.util.FileUtils;
-import org.gnucash.android.util.PreferencesHelper;
 import org.gnucash.android.util.TimestampHelper;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
@@ -56,6 +67,8 @@ import static org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
  */
 public class QifExporter extends Exporter {
 
+    private static final String NEW_LINE = "\n";
+
     /**
      * Initialize the exporter
      * @param params Export options
@@ -77,7 +90,6 @@ public class QifExporter extends Exporter {
 
     @Override
     public List<String> generateExport() throws ExporterException {
-        final String newLine = "\n";
         TransactionsDbAdapter transactionsDbAdapter = mTransactionsDbAdapter;
         try {
             String lastExportTimeStamp = TimestampHelper.getUtcStringFromTimestamp(mExportParams.getExportStartTime());
@@ -105,29 +117,37 @@ public class QifExporter extends Exporter {
                             "( " + AccountEntry.TABLE_NAME + "_" + AccountEntry.COLUMN_UID + " != account1." + AccountEntry.COLUMN_UID + " OR " +
                             // or if the transaction has only one split (the whole transaction would be lost if it is not selected)
                             "trans_split_count == 1 )" +
-                            (
-                                    " AND " + TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_MODIFIED_AT + " > \"" + lastExportTimeStamp + "\""
-                            ),
+                            " AND " + (mExportParams.isExportSinceSequence()
+                                    ? TransactionsDbAdapter.getChangedSinceSelection(
+                                            TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_UID, mExportParams.getExportSinceSequence())
+                                    : TransactionEntry.TABLE_NAME + "_" + TransactionEntry.COLUMN_MODIFIED_AT + " > \"" + lastExportTimeStamp + "\""),
                     null,
                     // trans_time ASC : put transactions in time order
                     // trans_uid ASC  : put splits from the same transaction together
                    "acct1_currency ASC, trans_time ASC, trans_uid ASC"
                     );
 
-            File file = new File(getExportCacheFilePath());
-            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
-
+            // The rows are sorted by currency, and each currency goes to its own file. The first currency
+            // is held in memory, since it is only known whether there are other currencies once it ends.
+            // If there are, the zip is opened and each currency is written once, into its own entry.
+            // Otherwise the first currency is written to a plain QIF file
+            QifSplitRow row = new QifSplitRowReader(cursor);
+            String exportedFilePath = null;
+            String firstCurrencyCode = null;
+            ByteArrayOutputStream firstCurrencyOutput = null;
+            ZipOutputStream zipOutputStream = null;
+            Writer writer = null;
             try {
                 String currentCurrencyCode = "";
                 String currentAccountUID = "";
                 String currentTransactionUID = "";
                 while (cursor.moveToNext()) {
-                    String currencyCode = cursor.getString(cursor.getColumnIndexOrThrow("acct1_currency"));
-                    String accountUID = cursor.getString(cursor.getColumnIndexOrThrow("acct1_uid"));
-                    String transactionUID = cursor.getString(cursor.getColumnIndexOrThrow("trans_uid"));
+                    String currencyCode = row.getAccountCurrencyCode();
+                    String accountUID = row.getAccountUID();
+                    String transactionUID = row.getTransactionUID();
                     if (!transactionUID.equals(currentTransactionUID)) {
                         if (!currentTransactionUID.equals("")) {
-                            writer.append(QifHelper.ENTRY_TERMINATOR).append(newLine);
+                            writer.append(QifHelper.ENTRY_TERMINATOR).append(NEW_LINE);
                             // end last transaction
                         }
                         if (!accountUID.equals(currentAccountUID)) {
@@ -137,178 +157,347 @@ public class QifExporter extends Exporter {
                             //}
                             if (!currencyCode.equals(currentCurrencyCode)) {
                                 currentCurrencyCode = currencyCode;
-                                writer.append(QifHelper.INTERNAL_CURRENCY_PREFIX)
-                                        .append(currencyCode)
-                                        .append(newLine);
+                                if (writer == null) {
+                                    firstCurrencyCode = currencyCode;
+                                    firstCurrencyOutput = new ByteArrayOutputStream();
+                                    writer = new BufferedWriter(new OutputStreamWriter(firstCurrencyOutput, "UTF-8"));
+                                } else {
+                                    writer.flush();
+                                    if (zipOutputStream == null) {
+                                        exportedFilePath = getExportCacheFilePath() + ".zip";
+                                        zipOutputStream = new ZipOutputStream(
+                                                new BufferedOutputStream(new FileOutputStream(exportedFilePath)));
+                                        String firstEntryName = new File(getCurrencyFilePath(firstCurrencyCode)).getName();
+                                        zipOutputStream.putNextEntry(new ZipEntry(firstEntryName));
+                                        firstCurrencyOutput.writeTo(zipOutputStream);
+                                        firstCurrencyOutput = null;
+                                        writer = new BufferedWriter(new OutputStreamWriter(zipOutputStream, "UTF-8"));
+                                    }
+                                    zipOutputStream.closeEntry();
+                                    String entryName = new File(getCurrencyFilePath(currencyCode)).getName();
+                                    zipOutputStream.putNextEntry(new ZipEntry(entryName));
+                                }
                             }
                             // start new account
                             currentAccountUID = accountUID;
-                            writer.append(QifHelper.ACCOUNT_HEADER).append(newLine);
-                            writer.append(QifHelper.ACCOUNT_NAME_PREFIX)
-                                    .append(cursor.getString(cursor.getColumnIndexOrThrow("acct1_full_name")))
-                                    .append(newLine);
-                            writer.append(QifHelper.ENTRY_TERMINATOR).append(newLine);
-                            writer.append(QifHelper.getQifHeader(cursor.getString(cursor.getColumnIndexOrThrow("acct1_type"))))
-                                    .append(newLine);
+                            appendAccountHeader(writer, row.getAccountFullName(), row.getAccountType());
                         }
                         // start new transaction
                         currentTransactionUID = transactionUID;
-                        writer.append(QifHelper.DATE_PREFIX)
-                                .append(QifHelper.formatDate(cursor.getLong(cursor.getColumnIndexOrThrow("trans_time"))))
-                                .append(newLine);
-                        // Payee / description
-                        writer.append(QifHelper.PAYEE_PREFIX)
-                                .append(cursor.getString(cursor.getColumnIndexOrThrow("trans_desc")))
-                                .append(newLine);
-                        // Notes, memo
-                        writer.append(QifHelper.MEMO_PREFIX)
-                                .append(cursor.getString(cursor.getColumnIndexOrThrow("trans_notes")))
-                                .append(newLine);
-                        // deal with imbalance first
-                        double imbalance = cursor.getDouble(cursor.getColumnIndexOrThrow("trans_acct_balance"));
-                        BigDecimal decimalImbalance = BigDecimal.valueOf(imbalance).setScale(2, BigDecimal.ROUND_HALF_UP);
-                        if (decimalImbalance.compareTo(BigDecimal.ZERO) != 0) {
-                            writer.append(QifHelper.SPLIT_CATEGORY_PREFIX)
-                                    .append(AccountsDbAdapter.getImbalanceAccountName(
-                                            Commodity.getInstance(cursor.getString(cursor.getColumnIndexOrThrow("acct1_currency")))
-                                    ))
-                                    .append(newLine);
-                            writer.append(QifHelper.SPLIT_AMOUNT_PREFIX)
-                                    .append(decimalImbalance.toPlainString())
-                                    .append(newLine);
-                        }
+                        appendTransactionHeader(writer, row.getTransactionTime(), row.getTransactionDescription(),
+                                row.getTransactionNotes(), BigDecimal.valueOf(row.getTransactionAccountBalance()),
+                                row.getAccountCurrencyCode());
                     }
-                    if (cursor.getInt(cursor.getColumnIndexOrThrow("trans_split_count")) == 1) {
+                    if (row.getTransactionSplitCount() == 1) {
                         // No other splits should be recorded if this is the only split.
                         continue;
                     }
                     // all splits
                     // amount associated with the header account will not be exported.
                     // It can be auto balanced when importing to GnuCash
-                    writer.append(QifHelper.SPLIT_CATEGORY_PREFIX)
-                            .append(cursor.getString(cursor.getColumnIndexOrThrow("acct2_full_name")))
-                            .append(newLine);
-                    String splitMemo = cursor.getString(cursor.getColumnIndexOrThrow("split_memo"));
-                    if (splitMemo != null && splitMemo.length() > 0) {
-                        writer.append(QifHelper.SPLIT_MEMO_PREFIX)
-                                .append(splitMemo)
-                                .append(newLine);
-                    }
-                    String splitType = cursor.getString(cursor.getColumnIndexOrThrow("split_type"));
-                    Double quantity_num = cursor.getDouble(cursor.getColumnIndexOrThrow("split_quantity_num"));
-                    int quantity_denom = cursor.getInt(cursor.getColumnIndexOrThrow("split_quantity_denom"));
-                    int precision = 0;
-                    switch (quantity_denom) {
-                        case 0: // will sometimes happen for zero values
-                            break;
-                        case 1:
-                            precision = 0;
-                            break;
-                        case 10:
-                            precision = 1;
-                            break;
-                        case 100:
-                            precision = 2;
-                            break;
-                        case 1000:
-                            precision = 3;
-                            break;
-                        case 10000:
-                            precision = 4;
-                            break;
-                        case 100000:
-                            precision = 5;
-                            break;
-                        case 1000000:
-                            precision = 6;
-                            break;
-                        default:
-                            throw new ExporterException(mExportParams, "split quantity has illegal denominator: "+ quantity_denom);
-                    }
-                    Double quantity = 0.0;
-                    if (quantity_denom != 0) {
-                        quantity = quantity_num / quantity_denom;
-                    }
-                    final Locale noLocale = null;
-                    writer.append(QifHelper.SPLIT_AMOUNT_PREFIX)
-                            .append(splitType.equals("DEBIT") ? "-" : "")
-                            .append(String.format(noLocale, "%." + precision + "f", quantity))
-                            .append(newLine);
+                    appendSplit(writer, row.getSplitAccountFullName(), row.getSplitMemo(), row.getSplitType(),
+                            row.getSplitQuantityNum(), row.getSplitQuantityDenom());
                 }
                 if (!currentTransactionUID.equals("")) {
                     // end last transaction
-                    writer.append(QifHelper.ENTRY_TERMINATOR).append(newLine);
+                    writer.append(QifHelper.ENTRY_TERMINATOR).append(NEW_LINE);
+                }
+                if (writer != null) {
+                    writer.flush();
+                    if (zipOutputStream != null) {
+                        zipOutputStream.closeEntry();
+                    } else {
+                        exportedFilePath = getCurrencyFilePath(firstCurrencyCode);
+                        OutputStream fileOutputStream = new FileOutputStream(exportedFilePath);
+                        try {
+                            firstCurrencyOutput.writeTo(fileOutputStream);
+                        } finally {
+                            fileOutputStream.close();
+                        }
+                    }
                 }
-                writer.flush();
             } finally {
                 cursor.close();
-                writer.close();
+                if (writer != null)
+                    writer.close();
             }
 
-            ContentValues contentValues = new ContentValues();
-            contentValues.put(TransactionEntry.COLUMN_EXPORTED, 1);
-            transactionsDbAdapter.updateTransaction(contentValues, null, null);
-
-            /// export successful
-            PreferencesHelper.setLastExportTime(TimestampHelper.getTimestampFromNow());
-
-            List<String> exportedFiles = splitQIF(file);
-            if (exportedFiles.isEmpty())
-                return Collections.emptyList();
-            else if (exportedFiles.size() > 1)
-                return zipQifs(exportedFiles);
-            else
-                return exportedFiles;
+            markExported(transactionsDbAdapter);
+            if (exportedFilePath == null)
+                return Collections.emptyList(); // no transactions to export
+            return Collections.singletonList(exportedFilePath);
         } catch (IOException e) {
             throw new ExporterException(mExportParams, e);
         }
     }
 
-    @NonNull
-    private List<String> zipQifs(List<String> exportedFiles) throws IOException {
-        String zipFileName = getExportCacheFilePath() + ".zip";
-        FileUtils.zipFiles(exportedFiles, zipFileName);
-        return Collections.singletonList(zipFileName);
+    /**
+     * Marks all transactions as exported and records the time and change log sequence of the export
+     * @param transactionsDbAdapter Transactions database adapter
+     */
+    private void markExported(TransactionsDbAdapter transactionsDbAdapter) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(TransactionEntry.COLUMN_EXPORTED, 1);
+        transactionsDbAdapter.updateTransaction(contentValues, null, null);
+
+        /// export successful
+        acknowledgeExport();
     }
 
     /**
-     * Splits a Qif file into several ones for each currency.
-     *
-     * @param file File object of the Qif file to split.
-     * @return a list of paths of the newly created Qif files.
-     * @throws IOException if something went wrong while splitting the file.
+     * Writes the header which starts the transactions of an account
+     * @param writer Output of the export
+     * @param accountFullName Full name of the account
+     * @param accountType Name of the {@link org.gnucash.android.model.data.AccountType} of the account
+     * @throws IOException if the output cannot be written to
      */
-    private List<String> splitQIF(File file) throws IOException {
-        // split only at the last dot
-        String[] pathParts = file.getPath().split("(?=\\.[^\\.]+$)");
-        ArrayList<String> splitFiles = new ArrayList<>();
-        String line;
-        BufferedReader in = new BufferedReader(new FileReader(file));
-        BufferedWriter out = null;
-        try {
-            while ((line = in.readLine()) != null) {
-                if (line.startsWith(QifHelper.INTERNAL_CURRENCY_PREFIX)) {
-                    String currencyCode = line.substring(1);
-                    if (out != null) {
-                        out.close();
-                    }
-                    String newFileName = pathParts[0] + "_" + currencyCode + pathParts[1];
-                    splitFiles.add(newFileName);
-                    out = new BufferedWriter(new FileWriter(newFileName));
-                } else {
-                    if (out == null) {
-                        throw new IllegalArgumentException(file.getPath() + " format is not correct");
-                    }
-                    out.append(line).append('\n');
+    private void appendAccountHeader(Appendable writer, String accountFullName, String accountType) throws IOException {
+        writer.append(QifHelper.ACCOUNT_HEADER).append(NEW_LINE);
+        writer.append(QifHelper.ACCOUNT_NAME_PREFIX)
+                .append(accountFullName)
+                .append(NEW_LINE);
+        writer.append(QifHelper.ENTRY_TERMINATOR).append(NEW_LINE);
+        writer.append(QifHelper.getQifHeader(accountType))
+                .append(NEW_LINE);
+    }
+
+    /**
+     * Writes the date, payee and memo of a transaction, followed by its imbalance if there is one
+     * @param writer Output of the export
+     * @param time Time of the transaction
+     * @param description Description of the transaction, used as the payee
+     * @param notes Notes of the transaction, used as the memo
+     * @param imbalance Balance of all the splits of the transaction
+     * @param currencyCode Currency of the account the transaction is written under
+     * @throws IOException if the output cannot be written to
+     */
+    private void appendTransactionHeader(Appendable writer, long time, String description, String notes,
+                                         BigDecimal imbalance, String currencyCode) throws IOException {
+        writer.append(QifHelper.DATE_PREFIX)
+                .append(QifHelper.formatDate(time))
+                .append(NEW_LINE);
+        // Payee / description
+        writer.append(QifHelper.PAYEE_PREFIX)
+                .append(description)
+                .append(NEW_LINE);
+        // Notes, memo
+        writer.append(QifHelper.MEMO_PREFIX)
+                .append(notes)
+                .append(NEW_LINE);
+        // deal with imbalance first
+        BigDecimal decimalImbalance = imbalance.setScale(2, BigDecimal.ROUND_HALF_UP);
+        if (decimalImbalance.compareTo(BigDecimal.ZERO) != 0) {
+            writer.append(QifHelper.SPLIT_CATEGORY_PREFIX)
+                    .append(AccountsDbAdapter.getImbalanceAccountName(Commodity.getInstance(currencyCode)))
+                    .append(NEW_LINE);
+            writer.append(QifHelper.SPLIT_AMOUNT_PREFIX)
+                    .append(decimalImbalance.toPlainString())
+                    .append(NEW_LINE);
+        }
+    }
+
+    /**
+     * Writes a split of the transaction which goes to another account than the one it is written under
+     * @param writer Output of the export
+     * @param accountFullName Full name of the account of the split
+     * @param splitMemo Memo of the split
+     * @param splitType Name of the {@link org.gnucash.android.model.data.TransactionType} of the split
+     * @param quantityNum Numerator of the split quantity
+     * @param quantityDenom Denominator of the split quantity
+     * @throws IOException if the output cannot be written to
+     */
+    private void appendSplit(Appendable writer, String accountFullName, String splitMemo, String splitType,
+                             double quantityNum, long quantityDenom) throws IOException {
+        writer.append(QifHelper.SPLIT_CATEGORY_PREFIX)
+                .append(accountFullName)
+                .append(NEW_LINE);
+        if (splitMemo != null && splitMemo.length() > 0) {
+            writer.append(QifHelper.SPLIT_MEMO_PREFIX)
+                    .append(splitMemo)
+                    .append(NEW_LINE);
+        }
+        int precision = 0;
+        switch ((int) quantityDenom) {
+            case 0: // will sometimes happen for zero values
+                break;
+            case 1:
+                precision = 0;
+                break;
+            case 10:
+                precision = 1;
+                break;
+            case 100:
+                precision = 2;
+                break;
+            case 1000:
+                precision = 3;
+                break;
+            case 10000:
+                precision = 4;
+                break;
+            case 100000:
+                precision = 5;
+                break;
+            case 1000000:
+                precision = 6;
+                break;
+            default:
+                throw new ExporterException(mExportParams, "split quantity has illegal denominator: "+ quantityDenom);
+        }
+        double quantity = 0.0;
+        if (quantityDenom != 0) {
+            quantity = quantityNum / quantityDenom;
+        }
+        final Locale noLocale = null;
+        writer.append(QifHelper.SPLIT_AMOUNT_PREFIX)
+                .append(splitType.equals("DEBIT") ? "-" : "")
+                .append(String.format(noLocale, "%." + precision + "f", quantity))
+                .append(NEW_LINE);
+    }
+
+    /**
+     * Creates a writer which writes each transaction under the account chosen like the
+     * {@code trans_extra_info} view does, into the file of the currency of that account.
+     * <p>The transactions are written as they come, in the order they are read. When several
+     * currencies were written, their files are zipped together when finished</p>
+     * @return Writer for QIF
+     */
+    @Override
+    protected TransactionExportWriter createTransactionWriter() {
+        return new QifTransactionWriter();
+    }
+
+    /**
+     * QIF file holding the transactions of the accounts in one currency
+     */
+    private static class QifCurrencyFile {
+        final String filePath;
+        final Writer writer;
+        /**
+         * GUID of the account under which the last transaction was written
+         */
+        String accountUID = "";
+
+        QifCurrencyFile(String filePath) throws IOException {
+            this.filePath = filePath;
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath), "UTF-8"));
+        }
+    }
+
+    /**
+     * Writes the QIF export of the transactions read by another exporter
+     */
+    private class QifTransactionWriter implements TransactionExportWriter {
+        private final AccountDirectory mAccounts = BookSession.of(mDb).getAccountDirectory();
+        /**
+         * Files of the currencies written so far, sorted by currency code
+         */
+        private final Map<String, QifCurrencyFile> mCurrencyFiles = new TreeMap<>();
+        private String mExportedFilePath;
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            List<Split> splits = transaction.getSplits();
+            if (transaction.isTemplate() || splits.isEmpty())
+                return;
+
+            // prefer the account of a split without memo, like the trans_extra_info view
+            String accountKey = null;
+            BigDecimal imbalance = BigDecimal.ZERO;
+            for (Split split : splits) {
+                String memo = split.getMemo();
+                String key = (memo == null || memo.isEmpty() ? "a" : "b") + split.getAccountUID();
+                if (accountKey == null || key.compareTo(accountKey) < 0)
+                    accountKey = key;
+                BigDecimal value = split.getValue().asBigDecimal();
+                imbalance = split.getType() == TransactionType.DEBIT ? imbalance.add(value) : imbalance.subtract(value);
+            }
+            String accountUID = accountKey.substring(1);
+            int accountIndex = mAccounts.indexOf(accountUID);
+            if (accountIndex < 0)
+                return;
+
+            // the split of the header account is not recorded, unless it is the only one
+            StringBuilder text = new StringBuilder();
+            if (splits.size() > 1) {
+                for (Split split : splits) {
+                    if (split.getAccountUID().equals(accountUID))
+                        continue;
+                    int splitAccountIndex = mAccounts.indexOf(split.getAccountUID());
+                    Money quantity = split.getQuantity();
+                    appendSplit(text, splitAccountIndex < 0 ? "" : mAccounts.getFullName(splitAccountIndex),
+                            split.getMemo(), split.getType().name(), quantity.getNumerator(), quantity.getDenominator());
+                }
+                if (text.length() == 0)
+                    return; // all splits are in the header account, so there is nothing to record
+            }
+
+            String currencyCode = mAccounts.getCurrencyCode(accountIndex);
+            QifCurrencyFile currencyFile = mCurrencyFiles.get(currencyCode);
+            if (currencyFile == null) {
+                currencyFile = new QifCurrencyFile(getCurrencyFilePath(currencyCode));
+                mCurrencyFiles.put(currencyCode, currencyFile);
+            }
+            Writer writer = currencyFile.writer;
+            if (!accountUID.equals(currencyFile.accountUID)) {
+                currencyFile.accountUID = accountUID;
+                appendAccountHeader(writer, mAccounts.getFullName(accountIndex),
+                        mAccounts.getType(accountIndex).name());
+            }
+            appendTransactionHeader(writer, transaction.getTimeMillis(), transaction.getDescription(),
+                    transaction.getNote(), imbalance, currencyCode);
+            writer.append(text);
+            writer.append(QifHelper.ENTRY_TERMINATOR).append(NEW_LINE);
+        }
+
+        @Override
+        public List<String> finish() throws IOException {
+            if (mCurrencyFiles.isEmpty())
+                return Collections.emptyList();
+
+            List<String> currencyFilePaths = new ArrayList<>(mCurrencyFiles.size());
+            for (QifCurrencyFile currencyFile : mCurrencyFiles.values()) {
+                currencyFile.writer.close();
+                currencyFilePaths.add(currencyFile.filePath);
+            }
+            if (currencyFilePaths.size() == 1) {
+                mExportedFilePath = currencyFilePaths.get(0);
+            } else {
+                mExportedFilePath = getExportCacheFilePath() + ".zip";
+                FileUtils.zipFiles(currencyFilePaths, mExportedFilePath);
+                for (String currencyFilePath : currencyFilePaths) {
+                    new File(currencyFilePath).delete();
                 }
             }
-        } finally {
-            in.close();
-            if (out != null) {
-                out.close();
+            return Collections.singletonList(mExportedFilePath);
+        }
+
+        @Override
+        public void abort() {
+            for (QifCurrencyFile currencyFile : mCurrencyFiles.values()) {
+                try {
+                    currencyFile.writer.close();
+                } catch (IOException e) {
+                    Log.w(LOG_TAG, "Error closing aborted QIF export: " + e.getMessage());
+                }
+                new File(currencyFile.filePath).delete();
             }
+            mCurrencyFiles.clear();
+            if (mExportedFilePath != null)
+                new File(mExportedFilePath).delete();
         }
-        return splitFiles;
+    }
+
+    /**
+     * Returns the path of the QIF file for the transactions in {@code currencyCode}
+     * <p>The currency code is appended to the name of the export file, e.g. export_EUR.qif</p>
+     * @param currencyCode Currency code of the accounts in the file
+     * @return Absolute path of the file
+     */
+    private String getCurrencyFilePath(String currencyCode) {
+        // split only at the last dot
+        String[] pathParts = getExportCacheFilePath().split("(?=\\.[^\\.]+$)");
+        return pathParts[0] + "_" + currencyCode + pathParts[1];
     }
 
     /**
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.export.qif;
+
+import org.gnucash.android.model.db.row.Column;
+import org.gnucash.android.model.db.row.RowReader;
+
+/**
+ * Row of the splits with their transaction and account selected by {@link QifExporter}
+ */
+@RowReader
+interface QifSplitRow {
+    @Column("trans_uid")
+    String getTransactionUID();
+
+    @Column("trans_time")
+    long getTransactionTime();
+
+    @Column("trans_desc")
+    String getTransactionDescription();
+
+    @Column("trans_notes")
+    String getTransactionNotes();
+
+    @Column("trans_acct_balance")
+    double getTransactionAccountBalance();
+
+    @Column("trans_split_count")
+    int getTransactionSplitCount();
+
+    @Column("split_quantity_num")
+    double getSplitQuantityNum();
+
+    @Column("split_quantity_denom")
+    int getSplitQuantityDenom();
+
+    @Column("split_type")
+    String getSplitType();
+
+    @Column("split_memo")
+    String getSplitMemo();
+
+    @Column("acct1_uid")
+    String getAccountUID();
+
+    @Column("acct1_full_name")
+    String getAccountFullName();
+
+    @Column("acct1_currency")
+    String getAccountCurrencyCode();
+
+    @Column("acct1_type")
+    String getAccountType();
+
+    @Column("acct2_full_name")
+    String getSplitAccountFullName();
+}
@@ -20,12 +20,21 @@ package org.gnucash.android.model.export.xml;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
+import androidx.annotation.NonNull;
 
+import org.gnucash.android.model.db.BookSession;
 import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.adapter.BudgetsDbAdapter;
 import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
-import org.gnucash.android.model.db.adapter.RecurrenceDbAdapter;
-import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.model.db.adapter.ScheduledActionDbAdapter;
+import org.gnucash.android.model.db.row.AccountRow;
+import org.gnucash.android.model.db.row.AccountRowReader;
+import org.gnucash.android.model.db.row.PriceRow;
+import org.gnucash.android.model.db.row.PriceRowReader;
+import org.gnucash.android.model.db.row.ScheduledActionRow;
+import org.gnucash.android.model.db.row.ScheduledActionRowReader;
 import org.gnucash.android.model.export.ExportParams;
+import org.gnucash.android.model.export.ExportSink;
 import org.gnucash.android.model.export.Exporter;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.AccountType;
@@ -38,22 +47,37 @@ import org.gnucash.android.model.data.PeriodType;
 import org.gnucash.android.model.data.Recurrence;
 import org.gnucash.android.model.data.ScheduledAction;
 import org.gnucash.android.model.data.TransactionType;
+import org.gnucash.android.util.ParallelGzipOutputStream;
 import org.gnucash.android.util.TimestampHelper;
+import org.xmlpull.v1.XmlPullParserException;
 import org.xmlpull.v1.XmlPullParserFactory;
 import org.xmlpull.v1.XmlSerializer;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.gnucash.android.model.db.DatabaseSchema.ScheduledActionEntry;
 import static org.gnucash.android.model.db.DatabaseSchema.SplitEntry;
@@ -61,18 +85,51 @@ import static org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
 
 /**
  * Creates a GnuCash XML representation of the accounts and transactions
+ * <p>In {@link #setParallel(boolean) parallel} mode, the sections of the book (prices, accounts,
+ * ranges of transactions, templates with scheduled actions and budgets) are serialized at the same
+ * time, each one from its own query-only database connection into a temporary file. The files are
+ * then copied into the output in the order of the sequential export, which produces the same bytes.</p>
  *
  * @author Ngewi Fet <ngewif@gmail.com>
  * @author Yongxin Wang <fefe.wyx@gmail.com>
  */
 public class GncXmlExporter extends Exporter {
 
+    /**
+     * Maximum number of sections serialized at the same time in parallel mode
+     */
+    private static final int MAX_SECTION_THREADS = 4;
+
+    /**
+     * Minimum number of transactions in each time range serialized in parallel
+     */
+    private static final int MIN_TRANSACTIONS_PER_RANGE = 2000;
+
+    /**
+     * Path of in-memory SQLite databases, which cannot be opened a second time
+     */
+    private static final String MEMORY_DB_PATH = ":memory:";
+
     /**
      * Root account for template accounts
      */
     private Account mRootTemplateAccount;
     private Map<String, Account> mTransactionToTemplateAccountMap = new TreeMap<>();
 
+    /**
+     * GUID of the exported book element, the same for every export of this exporter
+     */
+    private final String mBookElementUID = BaseModel.generateUID();
+
+    private boolean mParallel = false;
+
+    /**
+     * Part of the book serialized as a whole, from one database connection
+     */
+    private interface Section {
+        void export(XmlSerializer xmlSerializer, BookSession session) throws IOException;
+    }
+
     /**
      * Construct a new exporter with export parameters
      * @param params Parameters for the export
@@ -93,6 +150,16 @@ public class GncXmlExporter extends Exporter {
         LOG_TAG = "GncXmlExporter";
     }
 
+    /**
+     * Sets whether the sections of the book are serialized in parallel.
+     * <p>The output is the same in both modes. Parallel mode needs the database in a file,
+     * it falls back to the sequential export for in-memory databases</p>
+     * @param parallel {@code true} to serialize the sections in parallel
+     */
+    public void setParallel(boolean parallel) {
+        mParallel = parallel;
+    }
+
     private void exportSlots(XmlSerializer xmlSerializer,
                              List<String> slotKey,
                              List<String> slotType,
@@ -115,26 +182,28 @@ public class GncXmlExporter extends Exporter {
         }
     }
 
-    private void exportAccounts(XmlSerializer xmlSerializer) throws IOException {
+    private void exportAccounts(XmlSerializer xmlSerializer, BookSession session) throws IOException {
         // gnucash desktop requires that parent account appears before its descendants.
         // sort by full-name to fulfill the request
-        Cursor cursor = mAccountsDbAdapter.fetchAccounts(null, null, DatabaseSchema.AccountEntry.COLUMN_FULL_NAME + " ASC");
+        Cursor cursor = session.getAccountsDbAdapter().fetchAccounts(null, null, DatabaseSchema.AccountEntry.COLUMN_FULL_NAME + " ASC");
+        AccountRow row = new AccountRowReader(cursor);
+        Map<String, Commodity> commodities = new HashMap<>();
         while (cursor.moveToNext()) {
             // write account
             xmlSerializer.startTag(null, GncXmlHelper.TAG_ACCOUNT);
             xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_VERSION, GncXmlHelper.BOOK_VERSION);
             // account name
             xmlSerializer.startTag(null, GncXmlHelper.TAG_ACCT_NAME);
-            xmlSerializer.text(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_NAME)));
+            xmlSerializer.text(row.getName());
             xmlSerializer.endTag(null, GncXmlHelper.TAG_ACCT_NAME);
             // account guid
             xmlSerializer.startTag(null, GncXmlHelper.TAG_ACCT_ID);
             xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_TYPE, GncXmlHelper.ATTR_VALUE_GUID);
-            xmlSerializer.text(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_UID)));
+            xmlSerializer.text(row.getUID());
             xmlSerializer.endTag(null, GncXmlHelper.TAG_ACCT_ID);
             // account type
             xmlSerializer.startTag(null, GncXmlHelper.TAG_ACCT_TYPE);
-            String acct_type = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_TYPE));
+            String acct_type = row.getType();
             xmlSerializer.text(acct_type);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_ACCT_TYPE);
             // commodity
@@ -143,17 +212,21 @@ public class GncXmlExporter extends Exporter {
             xmlSerializer.text("ISO4217");
             xmlSerializer.endTag(null, GncXmlHelper.TAG_COMMODITY_SPACE);
             xmlSerializer.startTag(null, GncXmlHelper.TAG_COMMODITY_ID);
-            String acctCurrencyCode = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_CURRENCY));
+            String acctCurrencyCode = row.getCurrencyCode();
             xmlSerializer.text(acctCurrencyCode);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_COMMODITY_ID);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_ACCT_COMMODITY);
             // commodity scu
-            Commodity commodity = CommoditiesDbAdapter.getInstance().getCommodity(acctCurrencyCode);
+            Commodity commodity = commodities.get(acctCurrencyCode);
+            if (commodity == null) {
+                commodity = session.getCommoditiesDbAdapter().getCommodity(acctCurrencyCode);
+                commodities.put(acctCurrencyCode, commodity);
+            }
             xmlSerializer.startTag(null, GncXmlHelper.TAG_COMMODITY_SCU);
             xmlSerializer.text(Integer.toString(commodity.getSmallestFraction()));
             xmlSerializer.endTag(null, GncXmlHelper.TAG_COMMODITY_SCU);
             // account description
-            String description = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_DESCRIPTION));
+            String description = row.getDescription();
             if (description != null && !description.equals("")) {
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_ACCT_DESCRIPTION);
                 xmlSerializer.text(description);
@@ -165,16 +238,16 @@ public class GncXmlExporter extends Exporter {
             ArrayList<String> slotValue = new ArrayList<>();
             slotKey.add(GncXmlHelper.KEY_PLACEHOLDER);
             slotType.add(GncXmlHelper.ATTR_VALUE_STRING);
-            slotValue.add(Boolean.toString(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER)) != 0));
+            slotValue.add(Boolean.toString(row.isPlaceholder()));
 
-            String color = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_COLOR_CODE));
+            String color = row.getColorCode();
             if (color != null && color.length() > 0) {
                 slotKey.add(GncXmlHelper.KEY_COLOR);
                 slotType.add(GncXmlHelper.ATTR_VALUE_STRING);
                 slotValue.add(color);
             }
 
-            String defaultTransferAcctUID = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_DEFAULT_TRANSFER_ACCOUNT_UID));
+            String defaultTransferAcctUID = row.getDefaultTransferAccountUID();
             if (defaultTransferAcctUID != null && defaultTransferAcctUID.length() > 0) {
                 slotKey.add(GncXmlHelper.KEY_DEFAULT_TRANSFER_ACCOUNT);
                 slotType.add(GncXmlHelper.ATTR_VALUE_STRING);
@@ -183,21 +256,21 @@ public class GncXmlExporter extends Exporter {
 
             slotKey.add(GncXmlHelper.KEY_FAVORITE);
             slotType.add(GncXmlHelper.ATTR_VALUE_STRING);
-            slotValue.add(Boolean.toString(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_FAVORITE)) != 0));
+            slotValue.add(Boolean.toString(row.isFavorite()));
 
             xmlSerializer.startTag(null, GncXmlHelper.TAG_ACCT_SLOTS);
             exportSlots(xmlSerializer, slotKey, slotType, slotValue);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_ACCT_SLOTS);
 
             // parent uid
-            String parentUID = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID));
+            String parentUID = row.getParentUID();
             if (!acct_type.equals("ROOT") && parentUID != null && parentUID.length() > 0) {
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_PARENT_UID);
                 xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_TYPE, GncXmlHelper.ATTR_VALUE_GUID);
                 xmlSerializer.text(parentUID);
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_PARENT_UID);
             } else {
-                Log.d("export", "root account : " + cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_UID)));
+                Log.d("export", "root account : " + row.getUID());
             }
             xmlSerializer.endTag(null, GncXmlHelper.TAG_ACCOUNT);
         }
@@ -256,15 +329,28 @@ public class GncXmlExporter extends Exporter {
     /**
      * Serializes transactions from the database to XML
      * @param xmlSerializer XML serializer
+     * @param session Session of the database connection to read from
      * @param exportTemplates Flag whether to export templates or normal transactions
+     * @param startTime Timestamp of the first transactions to export, {@link Long#MIN_VALUE} for all
+     * @param endTime Timestamp after the last transactions to export, {@link Long#MAX_VALUE} for all
      * @throws IOException if the XML serializer cannot be written to
      */
-    private void exportTransactions(XmlSerializer xmlSerializer, boolean exportTemplates) throws IOException {
+    private void exportTransactions(XmlSerializer xmlSerializer, BookSession session, boolean exportTemplates,
+                                    long startTime, long endTime) throws IOException {
         String where = TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TEMPLATE + "=0";
         if (exportTemplates) {
             where = TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TEMPLATE + "=1";
         }
-        Cursor cursor = mTransactionsDbAdapter.fetchTransactionsWithSplits(
+        List<String> whereArgs = new ArrayList<>();
+        if (startTime != Long.MIN_VALUE) {
+            where += " AND " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TIMESTAMP + " >= ?";
+            whereArgs.add(Long.toString(startTime));
+        }
+        if (endTime != Long.MAX_VALUE) {
+            where += " AND " + TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TIMESTAMP + " < ?";
+            whereArgs.add(Long.toString(endTime));
+        }
+        Cursor cursor = session.getTransactionsDbAdapter().fetchTransactionsWithSplits(
                 new String[]{
                         TransactionEntry.TABLE_NAME+"."+ TransactionEntry.COLUMN_UID + " AS trans_uid",
                         TransactionEntry.TABLE_NAME+"."+ TransactionEntry.COLUMN_DESCRIPTION + " AS trans_desc",
@@ -281,24 +367,31 @@ public class GncXmlExporter extends Exporter {
                         SplitEntry.TABLE_NAME+"."+ SplitEntry.COLUMN_VALUE_DENOM + " AS split_value_denom",
                         SplitEntry.TABLE_NAME+"."+ SplitEntry.COLUMN_QUANTITY_NUM + " AS split_quantity_num",
                         SplitEntry.TABLE_NAME+"."+ SplitEntry.COLUMN_QUANTITY_DENOM + " AS split_quantity_denom",                        SplitEntry.TABLE_NAME+"."+ SplitEntry.COLUMN_ACCOUNT_UID + " AS split_acct_uid"},
-                        where, null,
+                        where, whereArgs.toArray(new String[0]),
                         TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_TIMESTAMP + " ASC , " +
                         TransactionEntry.TABLE_NAME + "." + TransactionEntry.COLUMN_UID + " ASC ");
+        GncXmlSplitRow row = new GncXmlSplitRowReader(cursor);
         String lastTrxUID = "";
         Commodity trnCommodity = null;
+        Map<String, Commodity> trnCommodities = new HashMap<>();
         String denomString = "100";
 
         if (exportTemplates) {
-            mRootTemplateAccount = new Account("Template Root");
-            mRootTemplateAccount.setAccountType(AccountType.ROOT);
-            mTransactionToTemplateAccountMap.put(" ", mRootTemplateAccount);
+            //the template accounts are created once, so that every export of this exporter has the same GUIDs
+            if (mRootTemplateAccount == null) {
+                mRootTemplateAccount = new Account("Template Root");
+                mRootTemplateAccount.setAccountType(AccountType.ROOT);
+                mTransactionToTemplateAccountMap.put(" ", mRootTemplateAccount);
+            }
 
             //FIXME: Retrieve the template account GUIDs from the scheduled action table and create accounts with that
             //this will allow use to maintain the template account GUID when we import from the desktop and also use the same for the splits
             while (cursor.moveToNext()) {
+                String trnUID = row.getTransactionUID();
+                if (mTransactionToTemplateAccountMap.containsKey(trnUID))
+                    continue;
                 Account account = new Account(BaseModel.generateUID());
                 account.setAccountType(AccountType.BANK);
-                String trnUID = cursor.getString(cursor.getColumnIndexOrThrow("trans_uid"));
                 mTransactionToTemplateAccountMap.put(trnUID, account);
             }
 
@@ -310,7 +403,7 @@ public class GncXmlExporter extends Exporter {
 
         //// FIXME: 12.10.2015 export split reconciled_state and reconciled_date to the export
         while (cursor.moveToNext()){
-            String curTrxUID = cursor.getString(cursor.getColumnIndexOrThrow("trans_uid"));
+            String curTrxUID = row.getTransactionUID();
             if (!lastTrxUID.equals(curTrxUID)) { // new transaction starts
                 if (!lastTrxUID.equals("")) { // there's an old transaction, close it
                     xmlSerializer.endTag(null, GncXmlHelper.TAG_TRN_SPLITS);
@@ -325,8 +418,14 @@ public class GncXmlExporter extends Exporter {
                 xmlSerializer.text(curTrxUID);
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_TRX_ID);
                 // currency
-                String currencyCode = cursor.getString(cursor.getColumnIndexOrThrow("trans_currency"));
-                trnCommodity = CommoditiesDbAdapter.getInstance().getCommodity(currencyCode);//Currency.getInstance(currencyCode);
+                String currencyCode = row.getTransactionCurrencyCode();
+                if (exportTemplates) { //the commodity is only needed for the amounts of the template splits
+                    trnCommodity = trnCommodities.get(currencyCode);
+                    if (trnCommodity == null) {
+                        trnCommodity = session.getCommoditiesDbAdapter().getCommodity(currencyCode);
+                        trnCommodities.put(currencyCode, trnCommodity);
+                    }
+                }
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_TRX_CURRENCY);
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_COMMODITY_SPACE);
                 xmlSerializer.text("ISO4217");
@@ -336,7 +435,7 @@ public class GncXmlExporter extends Exporter {
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_COMMODITY_ID);
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_TRX_CURRENCY);
                 // date posted, time which user put on the transaction
-                String strDate = GncXmlHelper.formatDate(cursor.getLong(cursor.getColumnIndexOrThrow("trans_time")));
+                String strDate = GncXmlHelper.formatDate(row.getTransactionTime());
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_DATE_POSTED);
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_TS_DATE);
                 xmlSerializer.text(strDate);
@@ -344,7 +443,7 @@ public class GncXmlExporter extends Exporter {
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_DATE_POSTED);
 
                 // date entered, time when the transaction was actually created
-                Timestamp timeEntered = TimestampHelper.getTimestampFromUtcString(cursor.getString(cursor.getColumnIndexOrThrow("trans_date_posted")));
+                Timestamp timeEntered = TimestampHelper.getTimestampFromUtcString(row.getTransactionDatePosted());
                 String dateEntered = GncXmlHelper.formatDate(timeEntered.getTime());
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_DATE_ENTERED);
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_TS_DATE);
@@ -354,7 +453,7 @@ public class GncXmlExporter extends Exporter {
 
                 // description
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_TRN_DESCRIPTION);
-                xmlSerializer.text(cursor.getString(cursor.getColumnIndexOrThrow("trans_desc")));
+                xmlSerializer.text(row.getTransactionDescription());
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_TRN_DESCRIPTION);
                 lastTrxUID = curTrxUID;
                 // slots
@@ -362,14 +461,14 @@ public class GncXmlExporter extends Exporter {
                 ArrayList<String> slotType = new ArrayList<>();
                 ArrayList<String> slotValue = new ArrayList<>();
 
-                String notes = cursor.getString(cursor.getColumnIndexOrThrow("trans_notes"));
+                String notes = row.getTransactionNotes();
                 if (notes != null && notes.length() > 0) {
                     slotKey.add(GncXmlHelper.KEY_NOTES);
                     slotType.add(GncXmlHelper.ATTR_VALUE_STRING);
                     slotValue.add(notes);
                 }
 
-                String scheduledActionUID = cursor.getString(cursor.getColumnIndexOrThrow("trans_from_sched_action"));
+                String scheduledActionUID = row.getScheduledActionUID();
                 if (scheduledActionUID != null && !scheduledActionUID.isEmpty()){
                     slotKey.add(GncXmlHelper.KEY_FROM_SCHED_ACTION);
                     slotType.add(GncXmlHelper.ATTR_VALUE_GUID);
@@ -386,10 +485,10 @@ public class GncXmlExporter extends Exporter {
             // split id
             xmlSerializer.startTag(null, GncXmlHelper.TAG_SPLIT_ID);
             xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_TYPE, GncXmlHelper.ATTR_VALUE_GUID);
-            xmlSerializer.text(cursor.getString(cursor.getColumnIndexOrThrow("split_uid")));
+            xmlSerializer.text(row.getSplitUID());
             xmlSerializer.endTag(null, GncXmlHelper.TAG_SPLIT_ID);
             // memo
-            String memo = cursor.getString(cursor.getColumnIndexOrThrow("split_memo"));
+            String memo = row.getSplitMemo();
             if (memo != null && memo.length() > 0){
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_SPLIT_MEMO);
                 xmlSerializer.text(memo);
@@ -401,9 +500,9 @@ public class GncXmlExporter extends Exporter {
             xmlSerializer.endTag(null, GncXmlHelper.TAG_RECONCILED_STATE);
             //todo: if split is reconciled, add reconciled date
             // value, in the transaction's currency
-            String trxType = cursor.getString(cursor.getColumnIndexOrThrow("split_type"));
-            int splitValueNum = cursor.getInt(cursor.getColumnIndexOrThrow("split_value_num"));
-            int splitValueDenom = cursor.getInt(cursor.getColumnIndexOrThrow("split_value_denom"));
+            String trxType = row.getSplitType();
+            int splitValueNum = row.getSplitValueNum();
+            int splitValueDenom = row.getSplitValueDenom();
             BigDecimal splitAmount = Money.getBigDecimal(splitValueNum, splitValueDenom);
             String strValue = "0/" + denomString;
             if (!exportTemplates) { //when doing normal transaction export
@@ -413,8 +512,8 @@ public class GncXmlExporter extends Exporter {
             xmlSerializer.text(strValue);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_SPLIT_VALUE);
             // quantity, in the split account's currency
-            String splitQuantityNum = cursor.getString(cursor.getColumnIndexOrThrow("split_quantity_num"));
-            String splitQuantityDenom = cursor.getString(cursor.getColumnIndexOrThrow("split_quantity_denom"));
+            String splitQuantityNum = row.getSplitQuantityNum();
+            String splitQuantityDenom = row.getSplitQuantityDenom();
             if (!exportTemplates) {
                 strValue = (trxType.equals("CREDIT") ? "-" : "") + splitQuantityNum + "/" + splitQuantityDenom;
             }
@@ -429,7 +528,7 @@ public class GncXmlExporter extends Exporter {
                 //get the UID of the template account
                  splitAccountUID = mTransactionToTemplateAccountMap.get(curTrxUID).getUID();
             } else {
-                splitAccountUID = cursor.getString(cursor.getColumnIndexOrThrow("split_acct_uid"));
+                splitAccountUID = row.getSplitAccountUID();
             }
             xmlSerializer.text(splitAccountUID);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_SPLIT_ACCOUNT);
@@ -449,7 +548,7 @@ public class GncXmlExporter extends Exporter {
                 List<String> slotValues = new ArrayList<>();
                 slotKeys.add(GncXmlHelper.KEY_SPLIT_ACCOUNT_SLOT);
                 slotTypes.add(GncXmlHelper.ATTR_VALUE_GUID);
-                slotValues.add(cursor.getString(cursor.getColumnIndexOrThrow("split_acct_uid")));
+                slotValues.add(row.getSplitAccountUID());
                 TransactionType type = TransactionType.valueOf(trxType);
                 if (type == TransactionType.CREDIT){
                     slotKeys.add(GncXmlHelper.KEY_CREDIT_FORMULA);
@@ -483,18 +582,38 @@ public class GncXmlExporter extends Exporter {
         cursor.close();
     }
 
+    /**
+     * Serializes the template transactions, if any, and then the {@link ScheduledAction}s which use them.
+     * <p>The scheduled actions refer to the template accounts created while exporting the templates,
+     * so both are always exported together</p>
+     * @param xmlSerializer XML serializer
+     * @param session Session of the database connection to read from
+     * @throws IOException if the XML serializer cannot be written to
+     */
+    private void exportTemplatesAndScheduledTransactions(XmlSerializer xmlSerializer, BookSession session) throws IOException {
+        if (session.getTransactionsDbAdapter().getTemplateTransactionsCount() > 0) {
+            xmlSerializer.startTag(null, GncXmlHelper.TAG_TEMPLATE_TRANSACTIONS);
+            exportTransactions(xmlSerializer, session, true, Long.MIN_VALUE, Long.MAX_VALUE);
+            xmlSerializer.endTag(null, GncXmlHelper.TAG_TEMPLATE_TRANSACTIONS);
+        }
+        exportScheduledTransactions(xmlSerializer, session);
+    }
+
     /**
      * Serializes {@link ScheduledAction}s from the database to XML
      * @param xmlSerializer XML serializer
+     * @param session Session of the database connection to read from
      * @throws IOException
      */
-    private void exportScheduledTransactions(XmlSerializer xmlSerializer) throws IOException{
+    private void exportScheduledTransactions(XmlSerializer xmlSerializer, BookSession session) throws IOException{
+        ScheduledActionDbAdapter scheduledActionDbAdapter = session.getScheduledActionDbAdapter();
         //for now we will export only scheduled transactions to XML
-        Cursor cursor = mScheduledActionDbAdapter.fetchAllRecords(
+        Cursor cursor = scheduledActionDbAdapter.fetchAllRecords(
                 ScheduledActionEntry.COLUMN_TYPE + "=?", new String[]{ScheduledAction.ActionType.TRANSACTION.name()}, null);
+        ScheduledActionRow row = new ScheduledActionRowReader(cursor);
 
         while (cursor.moveToNext()) {
-            ScheduledAction scheduledAction = mScheduledActionDbAdapter.buildModelInstance(cursor);
+            ScheduledAction scheduledAction = scheduledActionDbAdapter.buildModelInstance(cursor);
             String actionUID = scheduledAction.getActionUID();
             Account accountUID = mTransactionToTemplateAccountMap.get(actionUID);
 
@@ -513,7 +632,7 @@ public class GncXmlExporter extends Exporter {
 
             ScheduledAction.ActionType actionType = scheduledAction.getActionType();
             if (actionType == ScheduledAction.ActionType.TRANSACTION) {
-                String description = TransactionsDbAdapter.getInstance().getAttribute(actionUID, TransactionEntry.COLUMN_DESCRIPTION);
+                String description = session.getTransactionsDbAdapter().getAttribute(actionUID, TransactionEntry.COLUMN_DESCRIPTION);
                 xmlSerializer.text(description);
             } else {
                 xmlSerializer.text(actionType.name());
@@ -535,39 +654,39 @@ public class GncXmlExporter extends Exporter {
             xmlSerializer.text(Integer.toString(scheduledAction.getAdvanceNotifyDays()));
             xmlSerializer.endTag(null, GncXmlHelper.TAG_SX_ADVANCE_REMIND_DAYS);
             xmlSerializer.startTag(null, GncXmlHelper.TAG_SX_INSTANCE_COUNT);
-            String scheduledActionUID = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_UID));
-            long instanceCount = mScheduledActionDbAdapter.getActionInstanceCount(scheduledActionUID);
+            String scheduledActionUID = row.getUID();
+            long instanceCount = scheduledActionDbAdapter.getActionInstanceCount(scheduledActionUID);
             xmlSerializer.text(Long.toString(instanceCount));
             xmlSerializer.endTag(null, GncXmlHelper.TAG_SX_INSTANCE_COUNT);
 
             //start date
-            String createdTimestamp = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_CREATED_AT));
+            String createdTimestamp = row.getCreatedAt();
             long scheduleStartTime = TimestampHelper.getTimestampFromUtcString(createdTimestamp).getTime();
             serializeDate(xmlSerializer, GncXmlHelper.TAG_SX_START, scheduleStartTime);
 
-            long lastRunTime = cursor.getLong(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_LAST_RUN));
+            long lastRunTime = row.getLastRun();
             if (lastRunTime > 0){
                 serializeDate(xmlSerializer, GncXmlHelper.TAG_SX_LAST, lastRunTime);
             }
 
-            long endTime = cursor.getLong(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_END_TIME));
+            long endTime = row.getEndTime();
             if (endTime > 0) {
                 //end date
                 serializeDate(xmlSerializer, GncXmlHelper.TAG_SX_END, endTime);
             } else { //add number of occurrences
-                int totalFrequency = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_TOTAL_FREQUENCY));
+                int totalFrequency = row.getTotalFrequency();
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_SX_NUM_OCCUR);
                 xmlSerializer.text(Integer.toString(totalFrequency));
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_SX_NUM_OCCUR);
 
                 //remaining occurrences
-                int executionCount = cursor.getInt(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_EXECUTION_COUNT));
+                int executionCount = row.getExecutionCount();
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_SX_REM_OCCUR);
                 xmlSerializer.text(Integer.toString(totalFrequency - executionCount));
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_SX_REM_OCCUR);
             }
 
-            String tag = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_TAG));
+            String tag = row.getTag();
             if (tag != null && !tag.isEmpty()){
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_SX_TAG);
                 xmlSerializer.text(tag);
@@ -584,14 +703,15 @@ public class GncXmlExporter extends Exporter {
             xmlSerializer.startTag(null, GncXmlHelper.TAG_GNC_RECURRENCE);
             xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_VERSION, GncXmlHelper.RECURRENCE_VERSION);
 
-            String recurrenceUID = cursor.getString(cursor.getColumnIndexOrThrow(ScheduledActionEntry.COLUMN_RECURRENCE_UID));
-            Recurrence recurrence = RecurrenceDbAdapter.getInstance().getRecord(recurrenceUID);
+            String recurrenceUID = row.getRecurrenceUID();
+            Recurrence recurrence = session.getRecurrenceDbAdapter().getRecord(recurrenceUID);
             exportRecurrence(xmlSerializer, recurrence);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_GNC_RECURRENCE);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_SX_SCHEDULE);
 
             xmlSerializer.endTag(null, GncXmlHelper.TAG_SCHEDULED_ACTION);
         }
+        cursor.close();
     }
 
     /**
@@ -624,17 +744,19 @@ public class GncXmlExporter extends Exporter {
         }
     }
 
-    private void exportPrices(XmlSerializer xmlSerializer) throws IOException {
+    private void exportPrices(XmlSerializer xmlSerializer, BookSession session) throws IOException {
+        CommoditiesDbAdapter commoditiesDbAdapter = session.getCommoditiesDbAdapter();
         xmlSerializer.startTag(null, GncXmlHelper.TAG_PRICEDB);
         xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_VERSION, "1");
-        Cursor cursor = mPricesDbAdapter.fetchAllRecords();
+        Cursor cursor = session.getPricesDbAdapter().fetchAllRecords();
+        PriceRow row = new PriceRowReader(cursor);
         try {
             while(cursor.moveToNext()) {
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_PRICE);
                 // GUID
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_PRICE_ID);
                 xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_TYPE, GncXmlHelper.ATTR_VALUE_GUID);
-                xmlSerializer.text(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.CommonColumns.COLUMN_UID)));
+                xmlSerializer.text(row.getUID());
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_PRICE_ID);
                 // commodity
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_PRICE_COMMODITY);
@@ -642,7 +764,7 @@ public class GncXmlExporter extends Exporter {
                 xmlSerializer.text("ISO4217");
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_COMMODITY_SPACE);
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_COMMODITY_ID);
-                xmlSerializer.text(mCommoditiesDbAdapter.getCurrencyCode(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.PriceEntry.COLUMN_COMMODITY_UID))));
+                xmlSerializer.text(commoditiesDbAdapter.getCurrencyCode(row.getCommodityUID()));
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_COMMODITY_ID);
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_PRICE_COMMODITY);
                 // currency
@@ -651,11 +773,11 @@ public class GncXmlExporter extends Exporter {
                 xmlSerializer.text("ISO4217");
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_COMMODITY_SPACE);
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_COMMODITY_ID);
-                xmlSerializer.text(mCommoditiesDbAdapter.getCurrencyCode(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.PriceEntry.COLUMN_CURRENCY_UID))));
+                xmlSerializer.text(commoditiesDbAdapter.getCurrencyCode(row.getCurrencyUID()));
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_COMMODITY_ID);
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_PRICE_CURRENCY);
                 // time
-                String strDate = GncXmlHelper.formatDate(TimestampHelper.getTimestampFromUtcString(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.PriceEntry.COLUMN_DATE))).getTime());
+                String strDate = GncXmlHelper.formatDate(TimestampHelper.getTimestampFromUtcString(row.getDate()).getTime());
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_PRICE_TIME);
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_TS_DATE);
                 xmlSerializer.text(strDate);
@@ -663,10 +785,10 @@ public class GncXmlExporter extends Exporter {
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_PRICE_TIME);
                 // source
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_PRICE_SOURCE);
-                xmlSerializer.text(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.PriceEntry.COLUMN_SOURCE)));
+                xmlSerializer.text(row.getSource());
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_PRICE_SOURCE);
                 // type, optional
-                String type = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.PriceEntry.COLUMN_TYPE));
+                String type = row.getType();
                 if (type != null && !type.equals("")) {
                     xmlSerializer.startTag(null, GncXmlHelper.TAG_PRICE_TYPE);
                     xmlSerializer.text(type);
@@ -674,8 +796,7 @@ public class GncXmlExporter extends Exporter {
                 }
                 // value
                 xmlSerializer.startTag(null, GncXmlHelper.TAG_PRICE_VALUE);
-                xmlSerializer.text(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.PriceEntry.COLUMN_VALUE_NUM))
-                                + "/" + cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.PriceEntry.COLUMN_VALUE_DENOM)));
+                xmlSerializer.text(row.getValueNum() + "/" + row.getValueDenom());
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_PRICE_VALUE);
                 xmlSerializer.endTag(null, GncXmlHelper.TAG_PRICE);
             }
@@ -705,10 +826,11 @@ public class GncXmlExporter extends Exporter {
         serializeDate(xmlSerializer, GncXmlHelper.TAG_RX_START, recurrenceStartTime);
     }
 
-    private void exportBudgets(XmlSerializer xmlSerializer) throws IOException {
-        Cursor cursor = mBudgetsDbAdapter.fetchAllRecords();
+    private void exportBudgets(XmlSerializer xmlSerializer, BookSession session) throws IOException {
+        BudgetsDbAdapter budgetsDbAdapter = session.getBudgetsDbAdapter();
+        Cursor cursor = budgetsDbAdapter.fetchAllRecords();
         while(cursor.moveToNext()) {
-            Budget budget = mBudgetsDbAdapter.buildModelInstance(cursor);
+            Budget budget = budgetsDbAdapter.buildModelInstance(cursor);
             xmlSerializer.startTag(null,    GncXmlHelper.TAG_BUDGET);
             xmlSerializer.attribute(null,   GncXmlHelper.ATTR_KEY_VERSION, GncXmlHelper.BOOK_VERSION);
             xmlSerializer.startTag(null,    GncXmlHelper.TAG_BUDGET_ID);
@@ -766,25 +888,13 @@ public class GncXmlExporter extends Exporter {
 
     @Override
     public List<String> generateExport() throws ExporterException {
-        OutputStreamWriter writer = null;
         String outputFile = getExportCacheFilePath();
         try {
-            FileOutputStream fileOutputStream = new FileOutputStream(outputFile);
-            BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(fileOutputStream);
-            writer = new OutputStreamWriter(bufferedOutputStream);
-
-            generateExport(writer);
+            writeExport(new FileOutputStream(outputFile));
         } catch (IOException ex){
 //            Crashlytics.log("Error exporting XML");
 //            Crashlytics.logException(ex);
-        } finally {
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (IOException e) {
-                    throw new ExporterException(mExportParams, e);
-                }
-            }
+            throw new ExporterException(mExportParams, ex);
         }
 
         List<String> exportedFiles = new ArrayList<>();
@@ -793,6 +903,42 @@ public class GncXmlExporter extends Exporter {
         return exportedFiles;
     }
 
+    /**
+     * Writes the XML export straight into the sink, without a file in the cache directory
+     * @param sink Target of the export
+     * @return List containing the name of the exported file
+     * @throws ExporterException if an error occurs during export
+     */
+    @Override
+    public List<String> generateExport(@NonNull ExportSink sink) throws ExporterException {
+        String fileName = getExportFileName();
+        try {
+            writeExport(sink.openStream(fileName, getExportMimeType()));
+        } catch (IOException ex) {
+            throw new ExporterException(mExportParams, ex);
+        }
+        return Collections.singletonList(fileName);
+    }
+
+    /**
+     * Writes the XML export to a stream, gzipped if a compression level is set, and closes the stream.
+     * <p>An {@link ExportSink.ExportStream} is committed once the whole export has been written,
+     * so that it is discarded if the export fails</p>
+     * @param outputStream Destination of the export
+     * @throws IOException if the stream could not be written
+     */
+    private void writeExport(OutputStream outputStream) throws IOException {
+        OutputStream output = new BufferedOutputStream(outputStream);
+        if (mExportParams.isCompressed())
+            output = new ParallelGzipOutputStream(output, mExportParams.getCompressionLevel());
+        try (Writer writer = new OutputStreamWriter(output)) {
+            generateExport(writer);
+            writer.flush();
+            if (outputStream instanceof ExportSink.ExportStream)
+                ((ExportSink.ExportStream) outputStream).commit();
+        }
+    }
+
     /**
      * Generates an XML export of the database and writes it to the {@code writer} output stream
      * @param writer Output stream
@@ -802,13 +948,7 @@ public class GncXmlExporter extends Exporter {
         try {
             String[] namespaces = new String[]{"gnc", "act", "book", "cd", "cmdty", "price", "slot",
                     "split", "trn", "ts", "sx", "bgt", "recurrence"};
-            XmlSerializer xmlSerializer = XmlPullParserFactory.newInstance().newSerializer();
-            try {
-                xmlSerializer.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true);
-            } catch (IllegalStateException e) {
-                // Feature not supported. No problem
-            }
-            xmlSerializer.setOutput(writer);
+            XmlSerializer xmlSerializer = newSerializer(writer);
             xmlSerializer.startDocument("utf-8", true);
             // root tag
             xmlSerializer.startTag(null, GncXmlHelper.TAG_ROOT);
@@ -826,7 +966,7 @@ public class GncXmlExporter extends Exporter {
             // book_id
             xmlSerializer.startTag(null, GncXmlHelper.TAG_BOOK_ID);
             xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_TYPE, GncXmlHelper.ATTR_VALUE_GUID);
-            xmlSerializer.text(BaseModel.generateUID());
+            xmlSerializer.text(mBookElementUID);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_BOOK_ID);
             //commodity count
             List<Commodity> commodities = mAccountsDbAdapter.getCommoditiesInUse();
@@ -845,9 +985,10 @@ public class GncXmlExporter extends Exporter {
             xmlSerializer.text(mAccountsDbAdapter.getRecordsCount() + "");
             xmlSerializer.endTag(null, GncXmlHelper.TAG_COUNT_DATA);
             //transaction count
+            long transactionCount = mTransactionsDbAdapter.getRecordsCount();
             xmlSerializer.startTag(null, GncXmlHelper.TAG_COUNT_DATA);
             xmlSerializer.attribute(null, GncXmlHelper.ATTR_KEY_CD_TYPE, "transaction");
-            xmlSerializer.text(mTransactionsDbAdapter.getRecordsCount() + "");
+            xmlSerializer.text(transactionCount + "");
             xmlSerializer.endTag(null, GncXmlHelper.TAG_COUNT_DATA);
             //price count
             long priceCount = mPricesDbAdapter.getRecordsCount();
@@ -859,37 +1000,174 @@ public class GncXmlExporter extends Exporter {
             }
             // export the commodities used in the DB
             exportCommodities(xmlSerializer, commodities);
+
+            List<Section> sections = new ArrayList<>();
             // prices
             if (priceCount > 0) {
-                exportPrices(xmlSerializer);
+                sections.add(this::exportPrices);
             }
             // accounts.
-            exportAccounts(xmlSerializer);
-            // transactions.
-            exportTransactions(xmlSerializer, false);
-
-            //transaction templates
-            if (mTransactionsDbAdapter.getTemplateTransactionsCount() > 0) {
-                xmlSerializer.startTag(null, GncXmlHelper.TAG_TEMPLATE_TRANSACTIONS);
-                exportTransactions(xmlSerializer, true);
-                xmlSerializer.endTag(null, GncXmlHelper.TAG_TEMPLATE_TRANSACTIONS);
+            sections.add(this::exportAccounts);
+            // transactions, in time ranges when exporting in parallel
+            boolean parallel = mParallel && !MEMORY_DB_PATH.equals(mDb.getPath());
+            int rangeCount = parallel ? (int) Math.min(transactionCount / MIN_TRANSACTIONS_PER_RANGE, MAX_SECTION_THREADS) : 1;
+            long startTime = Long.MIN_VALUE;
+            for (long boundary : mTransactionsDbAdapter.getTransactionTimeBoundaries(rangeCount)) {
+                sections.add(transactionsSection(startTime, boundary));
+                startTime = boundary;
             }
-            //scheduled actions
-            exportScheduledTransactions(xmlSerializer);
-
+            sections.add(transactionsSection(startTime, Long.MAX_VALUE));
+            //transaction templates and scheduled actions
+            sections.add(this::exportTemplatesAndScheduledTransactions);
             //budgets
-            exportBudgets(xmlSerializer);
+            sections.add(this::exportBudgets);
+
+            if (parallel) {
+                exportSectionsInParallel(xmlSerializer, writer, sections);
+            } else {
+                BookSession session = BookSession.of(mDb);
+                for (Section section : sections) {
+                    section.export(xmlSerializer, session);
+                }
+            }
 
             xmlSerializer.endTag(null, GncXmlHelper.TAG_BOOK);
             xmlSerializer.endTag(null, GncXmlHelper.TAG_ROOT);
             xmlSerializer.endDocument();
             xmlSerializer.flush();
+        } catch (ExporterException e) {
+            throw e;
         } catch (Exception e) {
 //            Crashlytics.logException(e);
             throw new ExporterException(mExportParams, e);
         }
     }
 
+    private Section transactionsSection(final long startTime, final long endTime) {
+        return (xmlSerializer, session) -> exportTransactions(xmlSerializer, session, false, startTime, endTime);
+    }
+
+    /**
+     * Creates an XML serializer which writes to {@code writer}, with indentation if supported
+     */
+    private static XmlSerializer newSerializer(Writer writer) throws XmlPullParserException, IOException {
+        XmlSerializer xmlSerializer = XmlPullParserFactory.newInstance().newSerializer();
+        try {
+            xmlSerializer.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true);
+        } catch (IllegalStateException e) {
+            // Feature not supported. No problem
+        }
+        xmlSerializer.setOutput(writer);
+        return xmlSerializer;
+    }
+
+    /**
+     * Serializes the sections concurrently and copies them to {@code writer} in order
+     * @param xmlSerializer Serializer of the book, positioned where the sections start
+     * @param writer Output of {@code xmlSerializer}
+     * @param sections Sections of the book, in output order
+     */
+    private void exportSectionsInParallel(XmlSerializer xmlSerializer, Writer writer, List<Section> sections)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(sections.size(), MAX_SECTION_THREADS));
+        List<File> sectionFiles = new ArrayList<>(sections.size());
+        List<Future<Void>> results = new ArrayList<>(sections.size());
+        try {
+            for (final Section section : sections) {
+                final File sectionFile = File.createTempFile("gnc_section", ".xml", mContext.getCacheDir());
+                sectionFiles.add(sectionFile);
+                results.add(executor.submit(() -> {
+                    exportSection(section, sectionFile);
+                    return null;
+                }));
+            }
+            //everything serialized so far has to be written before the sections
+            xmlSerializer.flush();
+            char[] buffer = new char[8192];
+            for (int i = 0; i < sections.size(); i++) {
+                results.get(i).get();
+                File sectionFile = sectionFiles.get(i);
+                try (Reader reader = new InputStreamReader(new FileInputStream(sectionFile), StandardCharsets.UTF_8)) {
+                    int count;
+                    while ((count = reader.read(buffer)) != -1) {
+                        writer.write(buffer, 0, count);
+                    }
+                }
+                sectionFile.delete();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ExporterException)
+                throw (ExporterException) cause;
+            throw new ExporterException(mExportParams, cause);
+        } finally {
+            executor.shutdownNow();
+            for (File sectionFile : sectionFiles) {
+                sectionFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Serializes a section into a file, from a query-only connection to the database.
+     * <p>The serializer first opens the enclosing elements, which are not written to the file,
+     * so that the section is indented and escaped as in the sequential export</p>
+     * @param section Section to serialize
+     * @param sectionFile File to write the section to
+     */
+    private void exportSection(Section section, File sectionFile) throws Exception {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(mDb.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try (SectionWriter writer = new SectionWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(sectionFile), StandardCharsets.UTF_8)))) {
+            //the adapters need a writable database, so writes are refused by SQLite instead
+            db.execSQL("PRAGMA query_only = ON");
+            XmlSerializer xmlSerializer = newSerializer(writer);
+            xmlSerializer.startDocument("utf-8", true);
+            xmlSerializer.startTag(null, GncXmlHelper.TAG_ROOT);
+            xmlSerializer.startTag(null, GncXmlHelper.TAG_BOOK);
+            xmlSerializer.flush();
+            writer.setRecording(true);
+            section.export(xmlSerializer, BookSession.of(db));
+            xmlSerializer.flush();
+            writer.setRecording(false);
+        } finally {
+            BookSession.release(db);
+            db.close();
+        }
+    }
+
+    /**
+     * Writer which only passes on what is written while it is recording
+     */
+    private static class SectionWriter extends Writer {
+        private final Writer mWriter;
+        private boolean mRecording = false;
+
+        SectionWriter(Writer writer) {
+            mWriter = writer;
+        }
+
+        void setRecording(boolean recording) {
+            mRecording = recording;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (mRecording)
+                mWriter.write(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            mWriter.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mWriter.close();
+        }
+    }
+
     /**
      * Returns the MIME type for this exporter.
      * @return MIME type as string
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.export.xml;
+
+import org.gnucash.android.model.db.row.Column;
+import org.gnucash.android.model.db.row.RowReader;
+
+/**
+ * Row of the splits with their transaction selected by {@link GncXmlExporter}
+ */
+@RowReader
+interface GncXmlSplitRow {
+    @Column("trans_uid")
+    String getTransactionUID();
+
+    @Column("trans_desc")
+    String getTransactionDescription();
+
+    @Column("trans_notes")
+    String getTransactionNotes();
+
+    @Column("trans_time")
+    long getTransactionTime();
+
+    @Column("trans_currency")
+    String getTransactionCurrencyCode();
+
+    @Column("trans_date_posted")
+    String getTransactionDatePosted();
+
+    @Column("trans_from_sched_action")
+    String getScheduledActionUID();
+
+    @Column("split_uid")
+    String getSplitUID();
+
+    @Column("split_memo")
+    String getSplitMemo();
+
+    @Column("split_type")
+    String getSplitType();
+
+    @Column("split_value_num")
+    int getSplitValueNum();
+
+    @Column("split_value_denom")
+    int getSplitValueDenom();
+
+    @Column("split_quantity_num")
+    String getSplitQuantityNum();
+
+    @Column("split_quantity_denom")
+    String getSplitQuantityDenom();
+
+    @Column("split_acct_uid")
+    String getSplitAccountUID();
+}
@@ -22,17 +22,15 @@ import androidx.annotation.NonNull;
 import android.util.Log;
 
 import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.BookSession;
 import org.gnucash.android.model.db.DatabaseHelper;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BooksDbAdapter;
-import org.gnucash.android.model.db.adapter.BudgetAmountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BudgetsDbAdapter;
 import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
 import org.gnucash.android.model.db.adapter.DatabaseAdapter;
 import org.gnucash.android.model.db.adapter.PricesDbAdapter;
-import org.gnucash.android.model.db.adapter.RecurrenceDbAdapter;
 import org.gnucash.android.model.db.adapter.ScheduledActionDbAdapter;
-import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.export.xml.GncXmlHelper;
 import org.gnucash.android.model.data.Account;
@@ -282,28 +280,50 @@ public class GncXmlHandler extends DefaultHandler {
     private Book mBook;
     private SQLiteDatabase mainDb;
 
+    /**
+     * Flag which says to only parse the file, without creating a book for it
+     */
+    private final boolean mParseOnly;
+
     /**
      * Creates a handler for handling XML stream events when parsing the XML backup file
      */
     public GncXmlHandler() {
-        init();
+        mParseOnly = false;
+        init(null);
+    }
+
+    /**
+     * Creates a handler which only parses the XML file, e.g. to merge it into an existing book.
+     * <p>Nothing is saved to the database. Missed runs of scheduled transactions are not generated,
+     * since they would get new GUIDs on every parse.</p>
+     * @param db Database of the book into which the parsed records will be merged, used to look up commodities
+     */
+    public GncXmlHandler(@NonNull SQLiteDatabase db) {
+        mParseOnly = true;
+        init(db);
     }
 
     /**
      * Initialize the GnuCash XML handler
+     * @param db Database of an existing book, or {@code null} to create a new book
      */
-    private void init() {
+    private void init(SQLiteDatabase db) {
         mBook = new Book();
 
-        DatabaseHelper databaseHelper = new DatabaseHelper(GnuCashApplication.getAppContext(), mBook.getUID());
-        mainDb = databaseHelper.getWritableDatabase();
-        mTransactionsDbAdapter = new TransactionsDbAdapter(mainDb, new SplitsDbAdapter(mainDb));
-        mAccountsDbAdapter = new AccountsDbAdapter(mainDb, mTransactionsDbAdapter);
-        RecurrenceDbAdapter recurrenceDbAdapter = new RecurrenceDbAdapter(mainDb);
-        mScheduledActionsDbAdapter = new ScheduledActionDbAdapter(mainDb, recurrenceDbAdapter);
-        mCommoditiesDbAdapter = new CommoditiesDbAdapter(mainDb);
-        mPricesDbAdapter = new PricesDbAdapter(mainDb);
-        mBudgetsDbAdapter = new BudgetsDbAdapter(mainDb, new BudgetAmountsDbAdapter(mainDb), recurrenceDbAdapter);
+        if (db == null) {
+            DatabaseHelper databaseHelper = new DatabaseHelper(GnuCashApplication.getAppContext(), mBook.getUID());
+            mainDb = databaseHelper.getWritableDatabase();
+        } else {
+            mainDb = db;
+        }
+        BookSession session = BookSession.of(mainDb);
+        mTransactionsDbAdapter = session.getTransactionsDbAdapter();
+        mAccountsDbAdapter = session.getAccountsDbAdapter();
+        mScheduledActionsDbAdapter = session.getScheduledActionDbAdapter();
+        mCommoditiesDbAdapter = session.getCommoditiesDbAdapter();
+        mPricesDbAdapter = session.getPricesDbAdapter();
+        mBudgetsDbAdapter = session.getBudgetsDbAdapter();
 
 
         mContent = new StringBuilder();
@@ -582,7 +602,7 @@ public class GncXmlHandler extends DefaultHandler {
                         try {
                             BigDecimal bigDecimal = GncXmlHelper.parseSplitAmount(characterString);
                             //currency doesn't matter since we don't persist it in the budgets table
-                            mBudgetAmount.setAmount(new Money(bigDecimal, Commodity.DEFAULT_COMMODITY));
+                            mBudgetAmount.setAmount(new Money(bigDecimal, Commodity.getDefaultCommodity()));
                         } catch (ParseException e) {
                             mBudgetAmount.setAmount(Money.getZeroInstance()); //just put zero, in case it was a formula we couldnt parse
                             e.printStackTrace();
@@ -797,8 +817,10 @@ public class GncXmlHandler extends DefaultHandler {
                         setMinimalScheduledActionByDays();
                     }
                     mScheduledActionsList.add(mScheduledAction);
-                    int count = generateMissedScheduledTransactions(mScheduledAction);
-                    Log.i(LOG_TAG, String.format("Generated %d transactions from scheduled action", count));
+                    if (!mParseOnly) {
+                        int count = generateMissedScheduledTransactions(mScheduledAction);
+                        Log.i(LOG_TAG, String.format("Generated %d transactions from scheduled action", count));
+                    }
                 }
                 mIgnoreScheduledAction = false;
                 break;
@@ -957,6 +979,9 @@ public class GncXmlHandler extends DefaultHandler {
             account.setFullName(mapFullName.get(account.getUID()));
         }
 
+        if (mParseOnly)
+            return;
+
         String mostAppearedCurrency = "";
         int mostCurrencyAppearance = 0;
         for (Map.Entry<String, Integer> entry : mCurrencyCount.entrySet()) {
@@ -989,6 +1014,10 @@ public class GncXmlHandler extends DefaultHandler {
             // disable foreign key. The database structure should be ensured by the data inserted.
             // it will make insertion much faster.
             mAccountsDbAdapter.enableForeignKey(false);
+            // the split rollups are rebuilt in one pass once everything is inserted
+            DatabaseHelper.dropSplitRollupTriggers(mainDb);
+            // the imported records are not logged as changes, the import counts as exported
+            DatabaseHelper.dropChangeLogTriggers(mainDb);
             Log.d(getClass().getSimpleName(), "before clean up db");
             mAccountsDbAdapter.deleteAllRecords();
             Log.d(getClass().getSimpleName(), String.format("deb clean up done %d ns", System.nanoTime()-startTime));
@@ -1008,6 +1037,12 @@ public class GncXmlHandler extends DefaultHandler {
             long nPrices = mPricesDbAdapter.bulkAddRecords(mPriceList, DatabaseAdapter.UpdateMethod.insert);
             Log.d(getClass().getSimpleName(), String.format("%d prices inserted", nPrices));
 
+            DatabaseHelper.createSplitRollupTriggers(mainDb);
+            DatabaseHelper.createChangeLogTriggers(mainDb);
+            mTransactionsDbAdapter.getSplitDbAdapter().rebuildSplitRollups();
+            // the autofill index is rebuilt on next use, as the imported transactions were not logged
+            mTransactionsDbAdapter.getAutofillIndex().invalidate();
+
             //// TODO: 01.06.2016 Re-enable import of Budget stuff when the UI is complete
 //            long nBudgets = mBudgetsDbAdapter.bulkAddRecords(mBudgetList, DatabaseAdapter.UpdateMethod.insert);
 //            Log.d(getClass().getSimpleName(), String.format("%d budgets inserted", nBudgets));
@@ -1033,6 +1068,38 @@ public class GncXmlHandler extends DefaultHandler {
         return mBook.getUID();
     }
 
+    /**
+     * Returns the root account of the parsed book
+     * @return Root account, created if the file has none
+     */
+    public Account getRootAccount() {
+        return mRootAccount;
+    }
+
+    /**
+     * Returns the parsed accounts, including the root account but not the template accounts
+     * @return List of accounts
+     */
+    public List<Account> getAccounts() {
+        return mAccountList;
+    }
+
+    /**
+     * Returns the parsed transactions, excluding template transactions
+     * @return List of transactions with their splits
+     */
+    public List<Transaction> getTransactions() {
+        return mTransactionList;
+    }
+
+    /**
+     * Returns the parsed prices
+     * @return List of prices
+     */
+    public List<Price> getPrices() {
+        return mPriceList;
+    }
+
     /**
      * Returns the currency for an account which has been parsed (but not yet saved to the db)
      * <p>This is used when parsing splits to assign the right currencies to the splits</p>
@@ -1044,7 +1111,7 @@ public class GncXmlHandler extends DefaultHandler {
             return mAccountMap.get(accountUID).getCommodity();
         } catch (Exception e) {
 //            Crashlytics.logException(e);
-            return Commodity.DEFAULT_COMMODITY;
+            return Commodity.getDefaultCommodity();
         }
     }
 
@@ -16,9 +16,12 @@
  */
 package org.gnucash.android.model.importer;
 
+import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.model.sync.SyncEngine;
+import org.gnucash.android.model.sync.SyncSummary;
 import org.gnucash.android.util.PreferencesHelper;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -51,15 +54,7 @@ public class GncXmlImporter {
         SAXParser sp = spf.newSAXParser();
         XMLReader xr = sp.getXMLReader();
 
-        BufferedInputStream bos;
-        PushbackInputStream pb = new PushbackInputStream( gncXmlInputStream, 2 ); //we need a pushbackstream to look ahead
-        byte [] signature = new byte[2];
-        pb.read( signature ); //read the signature
-        pb.unread( signature ); //push back the signature to the stream
-        if( signature[ 0 ] == (byte) 0x1f && signature[ 1 ] == (byte) 0x8b ) //check if matches standard gzip magic number
-            bos = new BufferedInputStream(new GZIPInputStream(pb));
-        else
-            bos = new BufferedInputStream(pb);
+        BufferedInputStream bos = openGncXmlStream(gncXmlInputStream);
 
         //TODO: Set an error handler which can log errors
         Log.d(GncXmlImporter.class.getSimpleName(), "Start import");
@@ -75,7 +70,48 @@ public class GncXmlImporter {
                 TransactionsDbAdapter.getInstance().getTimestampOfLastModification(),
                 bookUID
         );
+        PreferencesHelper.setLastExportSequence(0, bookUID); //the change log of the imported book is empty
+        PreferencesHelper.setLastSyncSequence(0, bookUID);
 
         return bookUID;
     }
+
+    /**
+     * Merges a GnuCash XML file into an existing book, see {@link SyncEngine}.
+     * <p>The merge base is the sequence number stored by the previous sync or import of the book,
+     * and is updated after a successful sync.</p>
+     * @param gncXmlInputStream InputStream source of the GnuCash XML file
+     * @param db Database of the book into which the file should be merged
+     * @param bookUID GUID of the book
+     * @param resolution How to resolve records which were modified in both books
+     * @return Summary of the changes applied to the book
+     */
+    public static SyncSummary sync(InputStream gncXmlInputStream, SQLiteDatabase db, String bookUID,
+                                   SyncEngine.ConflictResolution resolution)
+            throws ParserConfigurationException, SAXException, IOException {
+        XMLReader xr = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        GncXmlHandler handler = new GncXmlHandler(db);
+        xr.setContentHandler(handler);
+        xr.parse(new InputSource(openGncXmlStream(gncXmlInputStream)));
+
+        SyncSummary summary = new SyncEngine(db).sync(handler.getRootAccount().getUID(), handler.getAccounts(),
+                handler.getTransactions(), handler.getPrices(),
+                PreferencesHelper.getLastSyncSequence(bookUID), resolution);
+        PreferencesHelper.setLastSyncSequence(summary.getSyncSequence(), bookUID);
+        return summary;
+    }
+
+    /**
+     * Wraps the input stream of a GnuCash XML file, decompressing it if it is gzipped
+     */
+    private static BufferedInputStream openGncXmlStream(InputStream gncXmlInputStream) throws IOException {
+        PushbackInputStream pb = new PushbackInputStream( gncXmlInputStream, 2 ); //we need a pushbackstream to look ahead
+        byte [] signature = new byte[2];
+        pb.read( signature ); //read the signature
+        pb.unread( signature ); //push back the signature to the stream
+        if( signature[ 0 ] == (byte) 0x1f && signature[ 1 ] == (byte) 0x8b ) //check if matches standard gzip magic number
+            return new BufferedInputStream(new GZIPInputStream(pb));
+        else
+            return new BufferedInputStream(pb);
+    }
 }
@@ -11,8 +11,11 @@ import android.util.Pair;
 import android.widget.Toast;
 
 import org.gnucash.android.R;
+import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.BooksDbAdapter;
+import org.gnucash.android.model.sync.SyncEngine;
+import org.gnucash.android.model.sync.SyncSummary;
 
 import java.io.InputStream;
 
@@ -75,4 +78,23 @@ public class ImportAsyncUtil {
             }
         });
     }
+
+    /**
+     * Merges a GnuCash XML file into the active book, see {@link GncXmlImporter#sync}.
+     * <p>Records modified in both books keep their local version</p>
+     * @param context Context for opening the file
+     * @param uri URI of the GnuCash XML file
+     * @return Single emitting the summary of the sync
+     */
+    public static Single<SyncSummary> syncDataSingle(Context context, Uri uri) {
+        return Single.fromCallable(() -> {
+            InputStream inputStream = context.getContentResolver().openInputStream(uri);
+            try {
+                return GncXmlImporter.sync(inputStream, GnuCashApplication.getActiveDb(),
+                        BooksDbAdapter.getInstance().getActiveBookUID(), SyncEngine.ConflictResolution.KEEP_LOCAL);
+            } finally {
+                inputStream.close();
+            }
+        });
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.sync;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A record which could not be merged automatically during a {@link SyncEngine#sync sync}.
+ * <p>The conflict has already been resolved when it is reported, {@link #isResolvedWithRemote()}
+ * tells which side was kept.</p>
+ */
+public class SyncConflict {
+
+    /**
+     * Reason why a record could not be merged
+     */
+    public enum Kind {
+        /**
+         * The record was modified both locally and in the remote book
+         */
+        MODIFIED_ON_BOTH_SIDES,
+        /**
+         * The account was removed from the remote book, but it still has splits or sub-accounts locally
+         */
+        ACCOUNT_IN_USE,
+        /**
+         * The remote transaction has splits in an account which was deleted locally
+         */
+        MISSING_ACCOUNT
+    }
+
+    private final String mTableName;
+    private final String mRecordUID;
+    private final String mLabel;
+    private final Kind mKind;
+    private final boolean mResolvedWithRemote;
+
+    SyncConflict(@NonNull String tableName, @NonNull String recordUID, String label,
+                 @NonNull Kind kind, boolean resolvedWithRemote) {
+        mTableName = tableName;
+        mRecordUID = recordUID;
+        mLabel = label;
+        mKind = kind;
+        mResolvedWithRemote = resolvedWithRemote;
+    }
+
+    /**
+     * Returns the name of the database table of the conflicting record
+     * @return Table name, see {@link org.gnucash.android.model.db.DatabaseSchema}
+     */
+    public String getTableName() {
+        return mTableName;
+    }
+
+    /**
+     * Returns the GUID of the conflicting record
+     * @return GUID of the record
+     */
+    public String getRecordUID() {
+        return mRecordUID;
+    }
+
+    /**
+     * Returns a human readable label of the record, e.g. the account full name or transaction description
+     * @return Label of the record
+     */
+    public String getLabel() {
+        return mLabel;
+    }
+
+    /**
+     * Returns the reason of the conflict
+     * @return Kind of conflict
+     */
+    public Kind getKind() {
+        return mKind;
+    }
+
+    /**
+     * Returns {@code true} if the remote version of the record was applied,
+     * {@code false} if the local version was kept
+     */
+    public boolean isResolvedWithRemote() {
+        return mResolvedWithRemote;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s in %s '%s' (%s)", mKind, mRecordUID, mTableName, mLabel,
+                mResolvedWithRemote ? "kept remote" : "kept local");
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.sync;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.Price;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.db.BookSession;
+import org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
+import org.gnucash.android.model.db.DatabaseSchema.ChangeLogEntry;
+import org.gnucash.android.model.db.DatabaseSchema.TransactionEntry;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.DatabaseAdapter;
+import org.gnucash.android.model.db.adapter.PricesDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.util.PreferencesHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Merges the accounts, transactions and prices of a remote book into a local book, matching records by GUID.
+ * <p>The change log of the local book is the merge base: the sequence number returned by the previous sync,
+ * see {@link SyncSummary#getSyncSequence()}, separates the local records which were modified since then
+ * from those which were not. For every record which differs between both books:
+ * <ul>
+ *     <li>if the record was not modified locally, the remote version is applied, including remote deletions</li>
+ *     <li>if the record was modified locally but not present remotely, it is kept as a local change</li>
+ *     <li>if the record was modified locally and differs remotely, it is a conflict,
+ *     resolved according to the {@link ConflictResolution}</li>
+ * </ul>
+ * Records deleted locally since the merge base are not restored from the remote book.
+ * The local changes which were kept are logged again after the new merge base, so they are not
+ * mistaken for remote deletions or changes by the next sync, until the local book is exported to the remote file.
+ * Prices are not tracked by the change log, so the remote prices are always applied, but never deleted.</p>
+ * <p>All changes are written in a single database transaction, in batches per table.
+ * Reconcile states are not part of the comparison, since they are not read from GnuCash XML files,
+ * and the local reconcile state of a split is kept when a remote transaction is applied.</p>
+ */
+public class SyncEngine {
+
+    private static final String LOG_TAG = "SyncEngine";
+
+    /**
+     * Which version of a record to keep when it was modified on both sides
+     */
+    public enum ConflictResolution {
+        KEEP_LOCAL, KEEP_REMOTE
+    }
+
+    private final SQLiteDatabase mDb;
+    private final AccountsDbAdapter mAccountsDbAdapter;
+    private final TransactionsDbAdapter mTransactionsDbAdapter;
+    private final PricesDbAdapter mPricesDbAdapter;
+
+    /**
+     * Creates a sync engine for a local book
+     * @param db Database of the local book
+     */
+    public SyncEngine(@NonNull SQLiteDatabase db) {
+        mDb = db;
+        BookSession session = BookSession.of(db);
+        mTransactionsDbAdapter = session.getTransactionsDbAdapter();
+        mAccountsDbAdapter = session.getAccountsDbAdapter();
+        mPricesDbAdapter = session.getPricesDbAdapter();
+    }
+
+    /**
+     * Merges a remote book into the local book
+     * @param remoteRootAccountUID GUID of the root account of the remote book
+     * @param remoteAccounts Accounts of the remote book, with their full names set
+     * @param remoteTransactions Transactions of the remote book. Template transactions are ignored
+     * @param remotePrices Prices of the remote book
+     * @param baseSequence Sequence number of the previous sync, or {@link PreferencesHelper#NO_SYNC_SEQUENCE}
+     *                     if the books were never synced. In that case every local record counts as modified
+     * @param resolution How to resolve records which were modified on both sides
+     * @return Summary of the changes applied to the local book
+     */
+    public SyncSummary sync(@NonNull String remoteRootAccountUID, @NonNull List<Account> remoteAccounts,
+                            @NonNull List<Transaction> remoteTransactions, @NonNull List<Price> remotePrices,
+                            long baseSequence, @NonNull ConflictResolution resolution) {
+        long start = System.nanoTime();
+        SyncSummary summary = new SyncSummary();
+        boolean hasBase = baseSequence != PreferencesHelper.NO_SYNC_SEQUENCE;
+        Set<String> changedAccountUIDs = hasBase ? mAccountsDbAdapter.getChangedRecordUIDs(baseSequence) : null;
+        Set<String> changedTransactionUIDs = hasBase ? mTransactionsDbAdapter.getChangedRecordUIDs(baseSequence) : null;
+
+        // local changes which are still missing from the remote book, see carrying them over below
+        Map<String, String> pendingAccountChanges = new HashMap<>();
+        Map<String, String> pendingTransactionChanges = new HashMap<>();
+
+        Map<String, Account> localAccounts = new HashMap<>();
+        Map<String, String> localAccountUIDsByFullName = new HashMap<>();
+        for (Account account : mAccountsDbAdapter.getSimpleAccountList()) {
+            localAccounts.put(account.getUID(), account);
+            localAccountUIDsByFullName.put(account.getFullName(), account.getUID());
+        }
+
+        // Accounts created while parsing, e.g. imbalance accounts, get a new GUID on every parse.
+        // They are matched to the local accounts by full name instead.
+        Set<String> remoteAccountUIDs = new HashSet<>();
+        for (Account remoteAccount : remoteAccounts) {
+            remoteAccountUIDs.add(remoteAccount.getUID());
+        }
+        Map<String, String> accountUIDMap = new HashMap<>();
+        accountUIDMap.put(remoteRootAccountUID, mAccountsDbAdapter.getOrCreateGnuCashRootAccountUID());
+        for (Account remoteAccount : remoteAccounts) {
+            String uid = remoteAccount.getUID();
+            if (remoteAccount.getAccountType() == AccountType.ROOT || localAccounts.containsKey(uid))
+                continue;
+            String localUID = localAccountUIDsByFullName.get(remoteAccount.getFullName());
+            if (localUID != null && !remoteAccountUIDs.contains(localUID)) {
+                accountUIDMap.put(uid, localUID);
+            }
+        }
+
+        List<Account> accountsToInsert = new ArrayList<>();
+        List<Account> accountsToUpdate = new ArrayList<>();
+        Set<String> matchedAccountUIDs = new HashSet<>();
+        Set<String> knownAccountUIDs = new HashSet<>(localAccounts.keySet());
+        for (Account remoteAccount : remoteAccounts) {
+            if (remoteAccount.getAccountType() == AccountType.ROOT)
+                continue;
+            remoteAccount.setUID(mapUID(accountUIDMap, remoteAccount.getUID()));
+            remoteAccount.setParentUID(mapUID(accountUIDMap, remoteAccount.getParentUID()));
+            remoteAccount.setDefaultTransferAccountUID(
+                    mapUID(accountUIDMap, remoteAccount.getDefaultTransferAccountUID()));
+            String uid = remoteAccount.getUID();
+            matchedAccountUIDs.add(uid);
+
+            Account localAccount = localAccounts.get(uid);
+            if (localAccount == null) {
+                if (hasBase && changedAccountUIDs.contains(uid)) { // deleted locally
+                    pendingAccountChanges.put(uid, ChangeLogEntry.OPERATION_DELETE);
+                    continue;
+                }
+                accountsToInsert.add(remoteAccount);
+                knownAccountUIDs.add(uid);
+                summary.mAccountsAdded++;
+            } else if (!isSameAccount(localAccount, remoteAccount)) {
+                if (isChanged(changedAccountUIDs, uid)
+                        && !resolveConflict(summary, pendingAccountChanges, AccountEntry.TABLE_NAME, uid, localAccount.getFullName(), resolution))
+                    continue;
+                accountsToUpdate.add(remoteAccount);
+                summary.mAccountsUpdated++;
+            }
+        }
+
+        Map<String, Transaction> localTransactions = getLocalTransactions();
+        List<Transaction> transactionsToSave = new ArrayList<>();
+        Set<String> remoteTransactionUIDs = new HashSet<>();
+        for (Transaction remoteTransaction : remoteTransactions) {
+            if (remoteTransaction.isTemplate())
+                continue;
+            for (Split split : remoteTransaction.getSplits()) {
+                split.setAccountUID(mapUID(accountUIDMap, split.getAccountUID()));
+            }
+            String uid = remoteTransaction.getUID();
+            remoteTransactionUIDs.add(uid);
+
+            Transaction localTransaction = localTransactions.get(uid);
+            if (localTransaction == null) {
+                if (hasBase && changedTransactionUIDs.contains(uid)) { // deleted locally
+                    pendingTransactionChanges.put(uid, ChangeLogEntry.OPERATION_DELETE);
+                    continue;
+                }
+                if (hasMissingAccount(summary, remoteTransaction, knownAccountUIDs))
+                    continue;
+                transactionsToSave.add(remoteTransaction);
+                summary.mTransactionsAdded++;
+            } else {
+                copyReconcileState(localTransaction, remoteTransaction);
+                if (isSameTransaction(localTransaction, remoteTransaction))
+                    continue;
+                if (isChanged(changedTransactionUIDs, uid)
+                        && !resolveConflict(summary, pendingTransactionChanges, TransactionEntry.TABLE_NAME, uid, localTransaction.getDescription(), resolution))
+                    continue;
+                if (hasMissingAccount(summary, remoteTransaction, knownAccountUIDs))
+                    continue;
+                transactionsToSave.add(remoteTransaction);
+                summary.mTransactionsUpdated++;
+            }
+        }
+
+        List<String> transactionsToDelete = new ArrayList<>();
+        for (Transaction localTransaction : localTransactions.values()) {
+            String uid = localTransaction.getUID();
+            if (remoteTransactionUIDs.contains(uid))
+                continue;
+            if (isChanged(changedTransactionUIDs, uid)) {
+                pendingTransactionChanges.put(uid, ChangeLogEntry.OPERATION_UPDATE);
+            } else {
+                transactionsToDelete.add(uid);
+            }
+        }
+
+        List<Account> accountsToDelete = new ArrayList<>();
+        for (Account localAccount : localAccounts.values()) {
+            if (localAccount.getAccountType() == AccountType.ROOT || matchedAccountUIDs.contains(localAccount.getUID()))
+                continue;
+            if (isChanged(changedAccountUIDs, localAccount.getUID())) {
+                pendingAccountChanges.put(localAccount.getUID(), ChangeLogEntry.OPERATION_UPDATE);
+            } else {
+                accountsToDelete.add(localAccount);
+            }
+        }
+        // sub-accounts are checked before their parents, which can only be deleted along with them
+        Collections.sort(accountsToDelete, (lhs, rhs) -> rhs.getFullName().compareTo(lhs.getFullName()));
+
+        Map<String, Price> localPrices = new HashMap<>();
+        for (Price price : mPricesDbAdapter.getAllRecords()) {
+            localPrices.put(price.getUID(), price);
+        }
+        List<Price> pricesToSave = new ArrayList<>();
+        for (Price remotePrice : remotePrices) {
+            Price localPrice = localPrices.get(remotePrice.getUID());
+            if (localPrice == null) {
+                pricesToSave.add(remotePrice);
+                summary.mPricesAdded++;
+            } else if (!isSamePrice(localPrice, remotePrice)) {
+                pricesToSave.add(remotePrice);
+                summary.mPricesUpdated++;
+            }
+        }
+
+        mDb.beginTransaction();
+        try {
+            mAccountsDbAdapter.bulkAddRecords(accountsToInsert, DatabaseAdapter.UpdateMethod.insert);
+            // accounts are never replaced, that would delete all their splits
+            mAccountsDbAdapter.bulkAddRecords(accountsToUpdate, DatabaseAdapter.UpdateMethod.update);
+            mTransactionsDbAdapter.bulkAddRecords(transactionsToSave, DatabaseAdapter.UpdateMethod.replace);
+            mPricesDbAdapter.bulkAddRecords(pricesToSave, DatabaseAdapter.UpdateMethod.replace);
+            summary.mTransactionsDeleted += mTransactionsDbAdapter.deleteRecords(transactionsToDelete);
+            // the accounts are deleted together, so the sub-accounts which will be deleted
+            // do not keep their parents from being deleted
+            Set<String> accountUIDsToDelete = new HashSet<>();
+            Map<String, Integer> deletedSubAccountCounts = new HashMap<>();
+            for (Account account : accountsToDelete) {
+                String uid = account.getUID();
+                Integer deletedSubAccountCount = deletedSubAccountCounts.get(uid);
+                int subAccountCount = mAccountsDbAdapter.getSubAccountCount(uid)
+                        - (deletedSubAccountCount == null ? 0 : deletedSubAccountCount);
+                if (mAccountsDbAdapter.getSplitCount(uid) > 0 || subAccountCount > 0) {
+                    summary.addConflict(new SyncConflict(AccountEntry.TABLE_NAME, uid, account.getFullName(),
+                            SyncConflict.Kind.ACCOUNT_IN_USE, false));
+                    pendingAccountChanges.put(uid, ChangeLogEntry.OPERATION_UPDATE);
+                    continue;
+                }
+                accountUIDsToDelete.add(uid);
+                String parentUID = account.getParentUID();
+                if (parentUID != null) {
+                    Integer count = deletedSubAccountCounts.get(parentUID);
+                    deletedSubAccountCounts.put(parentUID, count == null ? 1 : count + 1);
+                }
+            }
+            summary.mAccountsDeleted += mAccountsDbAdapter.deleteRecords(accountUIDsToDelete);
+            // The next sync starts from here, after the changes just applied. The local changes which
+            // were kept are logged again after this sequence number, so they still count as local changes.
+            summary.setSyncSequence(mAccountsDbAdapter.getLastChangeSequence());
+            mAccountsDbAdapter.logChanges(pendingAccountChanges);
+            mTransactionsDbAdapter.logChanges(pendingTransactionChanges);
+            mDb.setTransactionSuccessful();
+        } finally {
+            //also publishes the changes written in the transaction
+            mAccountsDbAdapter.endTransaction();
+        }
+
+        summary.mLocalChanges = pendingAccountChanges.size() + pendingTransactionChanges.size();
+        Log.i(LOG_TAG, String.format("Sync finished in %d ms: %s", (System.nanoTime() - start) / 1000000, summary));
+        return summary;
+    }
+
+    /**
+     * Returns all non-template transactions of the local book, with their splits, indexed by GUID
+     */
+    private Map<String, Transaction> getLocalTransactions() {
+        Map<String, Transaction> transactions = new HashMap<>();
+        Cursor cursor = mTransactionsDbAdapter.fetchAllRecords(TransactionEntry.COLUMN_TEMPLATE + "=0", null, null);
+        try {
+            while (cursor.moveToNext()) {
+                Transaction transaction = mTransactionsDbAdapter.buildModelInstance(cursor);
+                transactions.put(transaction.getUID(), transaction);
+            }
+        } finally {
+            cursor.close();
+        }
+        return transactions;
+    }
+
+    /**
+     * Checks if a local record was modified since the merge base
+     * @param changedUIDs GUIDs of the records modified since the merge base, or {@code null} if there is none
+     * @param uid GUID of the record
+     */
+    private static boolean isChanged(Set<String> changedUIDs, String uid) {
+        return changedUIDs == null || changedUIDs.contains(uid);
+    }
+
+    private static String mapUID(Map<String, String> uidMap, String uid) {
+        String mappedUID = uid == null ? null : uidMap.get(uid);
+        return mappedUID == null ? uid : mappedUID;
+    }
+
+    /**
+     * Records a conflict for a record modified on both sides.
+     * The local version is kept as a pending change if the conflict is resolved in its favour
+     * @return {@code true} if the remote version of the record should be applied
+     */
+    private static boolean resolveConflict(SyncSummary summary, Map<String, String> pendingChanges,
+                                           String tableName, String uid, String label, ConflictResolution resolution) {
+        boolean keepRemote = resolution == ConflictResolution.KEEP_REMOTE;
+        summary.addConflict(new SyncConflict(tableName, uid, label,
+                SyncConflict.Kind.MODIFIED_ON_BOTH_SIDES, keepRemote));
+        if (!keepRemote)
+            pendingChanges.put(uid, ChangeLogEntry.OPERATION_UPDATE);
+        return keepRemote;
+    }
+
+    /**
+     * Checks that all splits of a remote transaction belong to accounts of the local book after the sync.
+     * Transactions in accounts which were deleted locally are reported as conflicts and skipped
+     */
+    private static boolean hasMissingAccount(SyncSummary summary, Transaction transaction, Set<String> knownAccountUIDs) {
+        for (Split split : transaction.getSplits()) {
+            if (!knownAccountUIDs.contains(split.getAccountUID())) {
+                summary.addConflict(new SyncConflict(TransactionEntry.TABLE_NAME, transaction.getUID(),
+                        transaction.getDescription(), SyncConflict.Kind.MISSING_ACCOUNT, false));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void copyReconcileState(Transaction localTransaction, Transaction remoteTransaction) {
+        Map<String, Split> localSplits = new HashMap<>();
+        for (Split split : localTransaction.getSplits()) {
+            localSplits.put(split.getUID(), split);
+        }
+        for (Split split : remoteTransaction.getSplits()) {
+            Split localSplit = localSplits.get(split.getUID());
+            if (localSplit != null) {
+                split.setReconcileState(localSplit.getReconcileState());
+                split.setReconcileDate(localSplit.getReconcileDate());
+            }
+        }
+    }
+
+    private static boolean isSameAccount(Account local, Account remote) {
+        return Objects.equals(local.getName(), remote.getName())
+                && Objects.equals(local.getFullName(), remote.getFullName())
+                && Objects.equals(local.getParentUID(), remote.getParentUID())
+                && local.getAccountType() == remote.getAccountType()
+                && local.getCommodity().equals(remote.getCommodity())
+                && Objects.equals(emptyToNull(local.getDescription()), emptyToNull(remote.getDescription()))
+                && local.isPlaceholderAccount() == remote.isPlaceholderAccount()
+                && local.isHidden() == remote.isHidden()
+                && local.isFavorite() == remote.isFavorite()
+                && local.getColor() == remote.getColor()
+                && Objects.equals(local.getDefaultTransferAccountUID(), remote.getDefaultTransferAccountUID());
+    }
+
+    private static boolean isSameTransaction(Transaction local, Transaction remote) {
+        if (!Objects.equals(local.getDescription(), remote.getDescription())
+                || !Objects.equals(emptyToNull(local.getNote()), emptyToNull(remote.getNote()))
+                || local.getTimeMillis() != remote.getTimeMillis()
+                || !local.getCommodity().equals(remote.getCommodity())
+                || local.getSplits().size() != remote.getSplits().size())
+            return false;
+
+        Map<String, Split> localSplits = new HashMap<>();
+        for (Split split : local.getSplits()) {
+            localSplits.put(split.getUID(), split);
+        }
+        for (Split remoteSplit : remote.getSplits()) {
+            Split localSplit = localSplits.get(remoteSplit.getUID());
+            if (localSplit == null
+                    || !isSameAmount(localSplit.getValue(), remoteSplit.getValue())
+                    || !isSameAmount(localSplit.getQuantity(), remoteSplit.getQuantity())
+                    || !localSplit.getAccountUID().equals(remoteSplit.getAccountUID())
+                    || localSplit.getType() != remoteSplit.getType()
+                    || !Objects.equals(emptyToNull(localSplit.getMemo()), emptyToNull(remoteSplit.getMemo())))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isSamePrice(Price local, Price remote) {
+        return Objects.equals(local.getCommodityUID(), remote.getCommodityUID())
+                && Objects.equals(local.getCurrencyUID(), remote.getCurrencyUID())
+                && Objects.equals(local.getDate(), remote.getDate())
+                && Objects.equals(local.getSource(), remote.getSource())
+                && Objects.equals(local.getType(), remote.getType())
+                && local.getValueNum() * remote.getValueDenom() == remote.getValueNum() * local.getValueDenom();
+    }
+
+    /**
+     * Compares two amounts regardless of their scale, e.g. amounts read from the database
+     * and from XML files are not always stored with the same denominator
+     */
+    private static boolean isSameAmount(Money local, Money remote) {
+        return local.getCommodity().equals(remote.getCommodity())
+                && local.asBigDecimal().compareTo(remote.asBigDecimal()) == 0;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.model.sync;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of merging a remote book into the local book with the {@link SyncEngine}
+ */
+public class SyncSummary {
+
+    int mAccountsAdded;
+    int mAccountsUpdated;
+    int mAccountsDeleted;
+    int mTransactionsAdded;
+    int mTransactionsUpdated;
+    int mTransactionsDeleted;
+    int mPricesAdded;
+    int mPricesUpdated;
+    int mLocalChanges;
+
+    private final List<SyncConflict> mConflicts = new ArrayList<>();
+    private long mSyncSequence;
+
+    void addConflict(@NonNull SyncConflict conflict) {
+        mConflicts.add(conflict);
+    }
+
+    void setSyncSequence(long syncSequence) {
+        mSyncSequence = syncSequence;
+    }
+
+    public int getAccountsAdded() {
+        return mAccountsAdded;
+    }
+
+    public int getAccountsUpdated() {
+        return mAccountsUpdated;
+    }
+
+    public int getAccountsDeleted() {
+        return mAccountsDeleted;
+    }
+
+    public int getTransactionsAdded() {
+        return mTransactionsAdded;
+    }
+
+    public int getTransactionsUpdated() {
+        return mTransactionsUpdated;
+    }
+
+    public int getTransactionsDeleted() {
+        return mTransactionsDeleted;
+    }
+
+    public int getPricesAdded() {
+        return mPricesAdded;
+    }
+
+    public int getPricesUpdated() {
+        return mPricesUpdated;
+    }
+
+    /**
+     * Returns the number of local records which differ from the remote book and were kept as they are,
+     * including the conflicts resolved in favour of the local book.
+     * <p>These changes only reach the remote book once the local book is exported to it.</p>
+     * @return Number of local changes missing from the remote book
+     */
+    public int getLocalChanges() {
+        return mLocalChanges;
+    }
+
+    /**
+     * Returns the conflicts found during the sync, in the order in which they were resolved
+     * @return Unmodifiable list of conflicts
+     */
+    public List<SyncConflict> getConflicts() {
+        return Collections.unmodifiableList(mConflicts);
+    }
+
+    /**
+     * Returns the change log sequence number of the local book after the sync.
+     * <p>This is the merge base to pass to the next sync with the same remote book.</p>
+     * @return Change log sequence number
+     * @see org.gnucash.android.model.db.adapter.DatabaseAdapter#getLastChangeSequence()
+     */
+    public long getSyncSequence() {
+        return mSyncSequence;
+    }
+
+    /**
+     * Returns {@code true} if any record of the local book was modified by the sync
+     */
+    public boolean hasRemoteChanges() {
+        return mAccountsAdded + mAccountsUpdated + mAccountsDeleted
+                + mTransactionsAdded + mTransactionsUpdated + mTransactionsDeleted
+                + mPricesAdded + mPricesUpdated > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Accounts +%d ~%d -%d, transactions +%d ~%d -%d, prices +%d ~%d, "
+                        + "%d local changes, %d conflicts",
+                mAccountsAdded, mAccountsUpdated, mAccountsDeleted,
+                mTransactionsAdded, mTransactionsUpdated, mTransactionsDeleted,
+                mPricesAdded, mPricesUpdated, mLocalChanges, mConflicts.size());
+    }
+}
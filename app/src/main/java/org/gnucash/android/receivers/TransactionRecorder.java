@@ -19,9 +19,12 @@ package org.gnucash.android.receivers;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.database.SQLException;
 import android.os.Bundle;
 import android.util.Log;
 
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BooksDbAdapter;
 import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
 import org.gnucash.android.model.db.adapter.DatabaseAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
@@ -38,6 +41,13 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Broadcast receiver responsible for creating transactions received through {@link Intent}s
@@ -49,19 +59,129 @@ import java.math.MathContext;
  * @author Ngewi Fet <ngewif@gmail.com>
  * @see AccountCreator
  * @see Transaction#createIntent(Transaction)
+ * @see Transaction#createBulkIntent(List)
  */
 public class TransactionRecorder extends BroadcastReceiver {
 
 	@Override
 	public void onReceive(Context context, Intent intent) {
-		Log.i(this.getClass().getName(), "Received transaction recording intent");
 		Bundle args = intent.getExtras();
+		ArrayList<Bundle> transactionArgs = args.getParcelableArrayList(Transaction.EXTRA_TRANSACTIONS);
+		if (transactionArgs != null) {
+			recordTransactions(context, transactionArgs);
+			return;
+		}
+
+		Log.i(this.getClass().getName(), "Received transaction recording intent");
+		Transaction transaction = buildTransaction(args);
+		TransactionsDbAdapter.getInstance().addRecord(transaction, DatabaseAdapter.UpdateMethod.insert);
+		
+		updateWidgets(context, Collections.singletonList(transaction));
+	}
+
+	/**
+	 * Validates and saves a batch of transactions.
+	 * <p>All valid transactions are saved in one database transaction and the widgets are
+	 * updated once for the whole batch. Invalid transactions are logged and skipped.</p>
+	 * @param context Context in which the receiver is running
+	 * @param transactionArgs Arguments of each transaction in the batch
+	 */
+	private void recordTransactions(Context context, ArrayList<Bundle> transactionArgs) {
+		String logTag = this.getClass().getName();
+		Log.i(logTag, "Received intent for recording " + transactionArgs.size() + " transactions");
+
+		AccountsDbAdapter accountsDbAdapter = AccountsDbAdapter.getInstance();
+		Map<String, Boolean> knownAccounts = new HashMap<>();
+		List<Transaction> transactions = new ArrayList<>(transactionArgs.size());
+		for (Bundle args : transactionArgs) {
+			Transaction transaction;
+			try {
+				transaction = buildTransaction(args);
+			} catch (RuntimeException e) {
+				Log.w(logTag, "Skipping malformed transaction: " + e.getMessage());
+				continue;
+			}
+			if (isValid(transaction, accountsDbAdapter, knownAccounts)) {
+				transactions.add(transaction);
+			} else {
+				Log.w(logTag, "Skipping transaction without splits or with unknown accounts: "
+						+ transaction.getDescription());
+			}
+		}
+
+		if (transactions.isEmpty())
+			return;
+
+		try {
+			int count = TransactionsDbAdapter.getInstance().addRecords(transactions, DatabaseAdapter.UpdateMethod.insert);
+			Log.i(logTag, count + " transactions recorded");
+		} catch (SQLException e) {
+			Log.e(logTag, "Error recording transactions: " + e.getMessage());
+//			Crashlytics.logException(e);
+			return;
+		}
+
+		updateWidgets(context, transactions);
+	}
+
+	/**
+	 * Updates the widgets displaying the accounts of the splits of the saved transactions
+	 * @param context Context in which the receiver is running
+	 * @param transactions Transactions which were saved
+	 */
+	private static void updateWidgets(Context context, List<Transaction> transactions) {
+		Set<String> accountUIDs = new HashSet<>();
+		for (Transaction transaction : transactions) {
+			for (Split split : transaction.getSplits()) {
+				accountUIDs.add(split.getAccountUID());
+			}
+		}
+		String bookUID = BooksDbAdapter.getInstance().getActiveBookUID();
+		WidgetConfigurationActivity.updateWidgets(context, bookUID, accountUIDs);
+	}
+
+	/**
+	 * Checks that the transaction has splits and that all of them refer to existing accounts
+	 * @param transaction Transaction to validate
+	 * @param accountsDbAdapter Accounts database adapter
+	 * @param knownAccounts Cache of the account UIDs already looked up, mapped to whether they exist
+	 * @return {@code true} if the transaction can be saved, {@code false} otherwise
+	 */
+	private static boolean isValid(Transaction transaction, AccountsDbAdapter accountsDbAdapter,
+								   Map<String, Boolean> knownAccounts) {
+		if (transaction.getSplits().isEmpty())
+			return false;
+
+		for (Split split : transaction.getSplits()) {
+			String accountUID = split.getAccountUID();
+			Boolean exists = knownAccounts.get(accountUID);
+			if (exists == null) {
+				try {
+					accountsDbAdapter.getID(accountUID);
+					exists = true;
+				} catch (IllegalArgumentException e) {
+					exists = false;
+				}
+				knownAccounts.put(accountUID, exists);
+			}
+			if (!exists)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Builds a transaction from the intent arguments
+	 * @param args Arguments describing one transaction
+	 * @return Transaction with its splits
+	 */
+	private static Transaction buildTransaction(Bundle args) {
 		String name = args.getString(Intent.EXTRA_TITLE);
 		String note = args.getString(Intent.EXTRA_TEXT);
 
 		String currencyCode = args.getString(Account.EXTRA_CURRENCY_CODE);
 		if (currencyCode == null)
-			currencyCode = Money.DEFAULT_CURRENCY_CODE;
+			currencyCode = Money.getDefaultCurrencyCode();
 
         Transaction transaction = new Transaction(name);
         transaction.setTime(System.currentTimeMillis());
@@ -101,9 +221,7 @@ public class TransactionRecorder extends BroadcastReceiver {
             }
         }
 
-		TransactionsDbAdapter.getInstance().addRecord(transaction, DatabaseAdapter.UpdateMethod.insert);
-		
-		WidgetConfigurationActivity.updateAllWidgets(context);
+        return transaction;
 	}
 
 }
@@ -27,21 +27,22 @@ import androidx.core.app.JobIntentService;
 import android.util.Log;
 
 import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.BookSession;
 import org.gnucash.android.model.db.DatabaseHelper;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BooksDbAdapter;
 import org.gnucash.android.model.db.adapter.DatabaseAdapter;
-import org.gnucash.android.model.db.adapter.RecurrenceDbAdapter;
 import org.gnucash.android.model.db.adapter.ScheduledActionDbAdapter;
-import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.export.ExportAsyncUtil;
 import org.gnucash.android.model.export.ExportParams;
 import org.gnucash.android.model.data.Book;
 import org.gnucash.android.model.data.ScheduledAction;
 import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.util.PreferencesHelper;
 
+import java.io.File;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
@@ -79,17 +80,19 @@ public class ScheduledActionService extends JobIntentService {
         for (Book book : books) { //// TODO: 20.04.2017 Retrieve only the book UIDs with new method
             DatabaseHelper dbHelper = new DatabaseHelper(GnuCashApplication.getAppContext(), book.getUID());
             SQLiteDatabase db = dbHelper.getWritableDatabase();
-            RecurrenceDbAdapter recurrenceDbAdapter = new RecurrenceDbAdapter(db);
-            ScheduledActionDbAdapter scheduledActionDbAdapter = new ScheduledActionDbAdapter(db, recurrenceDbAdapter);
+            ScheduledActionDbAdapter scheduledActionDbAdapter = BookSession.of(db).getScheduledActionDbAdapter();
 
             List<ScheduledAction> scheduledActions = scheduledActionDbAdapter.getAllEnabledScheduledActions();
             Log.i(LOG_TAG, String.format("Processing %d total scheduled actions for Book: %s",
                     scheduledActions.size(), book.getDisplayName()));
             processScheduledActions(scheduledActions, db);
+            BookSession.of(db).compactChangeLog(book.getUID());
 
             //close all databases except the currently active database
-            if (!db.getPath().equals(GnuCashApplication.getActiveDb().getPath()))
+            if (!db.getPath().equals(GnuCashApplication.getActiveDb().getPath())) {
+                BookSession.release(db);
                 db.close();
+            }
         }
 
         Log.i(LOG_TAG, "Completed service @ " + java.text.DateFormat.getDateTimeInstance().format(new Date()));
@@ -170,9 +173,14 @@ public class ScheduledActionService extends JobIntentService {
         ExportParams params = ExportParams.parseCsv(scheduledAction.getTag());
         // HACK: the tag isn't updated with the new date, so set the correct by hand
         params.setExportStartTime(new Timestamp(scheduledAction.getLastRunTime()));
+        // each backup exports the changes since its own last run
+        String bookUID = new File(db.getPath()).getName();
+        params.setExportSinceSequence(PreferencesHelper.getScheduledExportSequence(bookUID, scheduledAction.getUID()));
+        long changeSequence = BookSession.of(db).getTransactionsDbAdapter().getLastChangeSequence();
         try {
             ExportAsyncUtil exportTask = new ExportAsyncUtil(GnuCashApplication.getAppContext(), db);
             Boolean result = exportTask.exportData(params).blockingGet();
+            PreferencesHelper.setScheduledExportSequence(changeSequence, bookUID, scheduledAction.getUID());
         } catch(RuntimeException e) {
             Log.i(LOG_TAG, "Backup/export did not occur. There might have been no"
                     + " new transactions to export or it might have crashed");
@@ -214,7 +222,7 @@ public class ScheduledActionService extends JobIntentService {
     private static int executeTransactions(ScheduledAction scheduledAction, SQLiteDatabase db) {
         int executionCount = 0;
         String actionUID = scheduledAction.getActionUID();
-        TransactionsDbAdapter transactionsDbAdapter = new TransactionsDbAdapter(db, new SplitsDbAdapter(db));
+        TransactionsDbAdapter transactionsDbAdapter = BookSession.of(db).getTransactionsDbAdapter();
         Transaction trxnTemplate;
         try {
             trxnTemplate = transactionsDbAdapter.getRecord(actionUID);
@@ -23,18 +23,15 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
-import android.database.Cursor;
 import android.graphics.Color;
 import android.os.Bundle;
 
 import androidx.appcompat.app.ActionBar;
-import androidx.cursoradapter.widget.SimpleCursorAdapter;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.core.content.ContextCompat;
 import androidx.appcompat.app.AppCompatActivity;
 import android.text.Editable;
-import android.text.TextUtils;
 import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -56,7 +53,7 @@ import android.widget.Spinner;
 import com.google.android.material.textfield.TextInputLayout;
 
 import org.gnucash.android.R;
-import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.AccountPickerModel;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
 import org.gnucash.android.model.db.adapter.DatabaseAdapter;
@@ -70,11 +67,11 @@ import org.gnucash.android.ui.colorpicker.ColorSquare;
 import org.gnucash.android.ui.common.UxArgument;
 import org.gnucash.android.ui.settings.PreferenceActivity;
 import org.gnucash.android.util.CommoditiesCursorAdapter;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -134,11 +131,6 @@ public class AccountFormFragment extends Fragment {
      */
     private String mAccountUID = null;
 
-    /**
-     * Cursor which will hold set of eligible parent accounts
-     */
-	private Cursor mParentAccountCursor;
-
     /**
      * List of all descendant Account UIDs, if we are modifying an account
      * null if creating a new account
@@ -146,10 +138,10 @@ public class AccountFormFragment extends Fragment {
     private List<String> mDescendantAccountUIDs;
 
     /**
-     * SimpleCursorAdapter for the parent account spinner
-     * @see QualifiedAccountNameCursorAdapter
+     * Adapter for the parent account spinner
+     * @see QualifiedAccountNameAdapter
      */
-	private SimpleCursorAdapter mParentAccountCursorAdapter;
+	private QualifiedAccountNameAdapter mParentAccountAdapter;
 
     /**
      * Spinner for parent account list
@@ -189,9 +181,9 @@ public class AccountFormFragment extends Fragment {
     private CheckBox mPlaceholderCheckBox;
 
     /**
-     * Cursor adapter which binds to the spinner for default transfer account
+     * Adapter which binds to the spinner for default transfer account
      */
-    private SimpleCursorAdapter mDefaultTransferAccountCursorAdapter;
+    private QualifiedAccountNameAdapter mDefaultTransferAccountAdapter;
 
     /**
      * Flag indicating if double entry transactions are enabled
@@ -429,7 +421,7 @@ public class AccountFormFragment extends Fragment {
      * Initialize views with defaults for new account
      */
     private void initializeViews(){
-        setSelectedCurrency(Money.DEFAULT_CURRENCY_CODE);
+        setSelectedCurrency(Money.getDefaultCurrencyCode());
         mColorSquare.setBackgroundColor(Color.LTGRAY);
         mParentAccountUID = getArguments().getString(UxArgument.PARENT_ACCOUNT_UID);
 
@@ -490,13 +482,11 @@ public class AccountFormFragment extends Fragment {
             return;
         }
 
-        for (int pos = 0; pos < mParentAccountCursorAdapter.getCount(); pos++) {
-            if (mParentAccountCursorAdapter.getItemId(pos) == parentAccountId){
-                mParentCheckBox.setChecked(true);
-                mParentAccountSpinner.setEnabled(true);
-                mParentAccountSpinner.setSelection(pos, true);
-                break;
-            }
+        int position = mParentAccountAdapter.getPosition(parentAccountId);
+        if (position >= 0) {
+            mParentCheckBox.setChecked(true);
+            mParentAccountSpinner.setEnabled(true);
+            mParentAccountSpinner.setSelection(position, true);
         }
     }
 
@@ -511,11 +501,9 @@ public class AccountFormFragment extends Fragment {
         } else
             return;
 
-        for (int pos = 0; pos < mDefaultTransferAccountCursorAdapter.getCount(); pos++) {
-            if (mDefaultTransferAccountCursorAdapter.getItemId(pos) == defaultTransferAccountId) {
-                mDefaultTransferAccountSpinner.setSelection(pos);
-                break;
-            }
+        int position = mDefaultTransferAccountAdapter.getPosition(defaultTransferAccountId);
+        if (position >= 0) {
+            mDefaultTransferAccountSpinner.setSelection(position);
         }
     }
 
@@ -579,21 +567,17 @@ public class AccountFormFragment extends Fragment {
      * Initializes the default transfer account spinner with eligible accounts
      */
     private void loadDefaultTransferAccountList(){
-        String condition = DatabaseSchema.AccountEntry.COLUMN_UID + " != '" + mAccountUID + "' " //when creating a new account mAccountUID is null, so don't use whereArgs
-                + " AND " + DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER + "=0"
-                + " AND " + DatabaseSchema.AccountEntry.COLUMN_HIDDEN + "=0"
-                + " AND " + DatabaseSchema.AccountEntry.COLUMN_TYPE + " != ?";
-
-        Cursor defaultTransferAccountCursor = mAccountsDbAdapter.fetchAccountsOrderedByFullName(condition,
-                new String[]{AccountType.ROOT.name()});
+        //when creating a new account mAccountUID is null, which excludes nothing
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel().select(
+                new AccountPickerModel.Filter().excluding(mAccountUID).withoutRoot()
+                        .withoutPlaceholders().visibleOnly(), false);
 
         if (mDefaultTransferAccountSpinner.getCount() <= 0) {
             setDefaultTransferAccountInputsVisible(false);
         }
 
-        mDefaultTransferAccountCursorAdapter = new QualifiedAccountNameCursorAdapter(getActivity(),
-                defaultTransferAccountCursor);
-        mDefaultTransferAccountSpinner.setAdapter(mDefaultTransferAccountCursorAdapter);
+        mDefaultTransferAccountAdapter = new QualifiedAccountNameAdapter(getActivity(), accounts);
+        mDefaultTransferAccountSpinner.setAdapter(mDefaultTransferAccountAdapter);
     }
 
     /**
@@ -602,28 +586,20 @@ public class AccountFormFragment extends Fragment {
      * @param accountType AccountType of account whose allowed parent list is to be loaded
      */
 	private void loadParentAccountList(AccountType accountType){
-        String condition = DatabaseSchema.SplitEntry.COLUMN_TYPE + " IN ("
-                + getAllowedParentAccountTypes(accountType) + ") AND " + DatabaseSchema.AccountEntry.COLUMN_HIDDEN + "!=1 ";
+        AccountPickerModel.Filter filter = new AccountPickerModel.Filter()
+                .withTypes(getAllowedParentAccountTypes(accountType)).visibleOnly();
 
         if (mAccount != null){  //if editing an account
             mDescendantAccountUIDs = mAccountsDbAdapter.getDescendantAccountUIDs(mAccount.getUID(), null, null);
-            String rootAccountUID = mAccountsDbAdapter.getOrCreateGnuCashRootAccountUID();
-            List<String> descendantAccountUIDs = new ArrayList<>(mDescendantAccountUIDs);
-            if (rootAccountUID != null)
-                descendantAccountUIDs.add(rootAccountUID);
             // limit cyclic account hierarchies.
-            condition += " AND (" + DatabaseSchema.AccountEntry.COLUMN_UID + " NOT IN ( '"
-                    + TextUtils.join("','", descendantAccountUIDs) + "','" + mAccountUID + "' ) )";
+            filter.excluding(mDescendantAccountUIDs)
+                    .excluding(mAccountsDbAdapter.getOrCreateGnuCashRootAccountUID(), mAccountUID);
         }
 
-        //if we are reloading the list, close the previous cursor first
-        if (mParentAccountCursor != null)
-            mParentAccountCursor.close();
-
-		mParentAccountCursor = mAccountsDbAdapter.fetchAccountsOrderedByFullName(condition, null);
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel().select(filter, false);
         final View view = getView();
         assert view != null;
-        if (mParentAccountCursor.getCount() <= 0){
+        if (accounts.size() <= 0){
             mParentCheckBox.setChecked(false); //disable before hiding, else we can still read it when saving
             view.findViewById(R.id.layout_parent_account).setVisibility(View.GONE);
             view.findViewById(R.id.label_parent_account).setVisibility(View.GONE);
@@ -632,26 +608,24 @@ public class AccountFormFragment extends Fragment {
             view.findViewById(R.id.label_parent_account).setVisibility(View.VISIBLE);
         }
 
-		mParentAccountCursorAdapter = new QualifiedAccountNameCursorAdapter(
-				getActivity(), mParentAccountCursor);
-		mParentAccountSpinner.setAdapter(mParentAccountCursorAdapter);
+		mParentAccountAdapter = new QualifiedAccountNameAdapter(getActivity(), accounts);
+		mParentAccountSpinner.setAdapter(mParentAccountAdapter);
 	}
 
     /**
-     * Returns a comma separated list of account types which can be parent accounts for the specified <code>type</code>.
-     * The strings in the list are the {@link AccountType#name()}s of the different types.
+     * Returns the account types which can be parent accounts for the specified <code>type</code>.
      * @param type {@link AccountType}
-     * @return String comma separated list of account types
+     * @return List of account types
      */
-    private String getAllowedParentAccountTypes(AccountType type) {
+    private List<AccountType> getAllowedParentAccountTypes(AccountType type) {
 
         switch (type) {
             case EQUITY:
-                return "'" + AccountType.EQUITY.name() + "'";
+                return Collections.singletonList(AccountType.EQUITY);
 
             case INCOME:
             case EXPENSE:
-                return "'" + AccountType.EXPENSE.name() + "', '" + AccountType.INCOME.name() + "'";
+                return Arrays.asList(AccountType.EXPENSE, AccountType.INCOME);
 
             case CASH:
             case BANK:
@@ -663,36 +637,23 @@ public class AccountFormFragment extends Fragment {
             case CURRENCY:
             case STOCK:
             case MUTUAL: {
-                List<String> accountTypeStrings = getAccountTypeStringList();
-                accountTypeStrings.remove(AccountType.EQUITY.name());
-                accountTypeStrings.remove(AccountType.EXPENSE.name());
-                accountTypeStrings.remove(AccountType.INCOME.name());
-                accountTypeStrings.remove(AccountType.ROOT.name());
-                return "'" + TextUtils.join("','", accountTypeStrings) + "'";
+                List<AccountType> accountTypes = new ArrayList<>(Arrays.asList(AccountType.values()));
+                accountTypes.remove(AccountType.EQUITY);
+                accountTypes.remove(AccountType.EXPENSE);
+                accountTypes.remove(AccountType.INCOME);
+                accountTypes.remove(AccountType.ROOT);
+                return accountTypes;
             }
 
             case TRADING:
-                return "'" + AccountType.TRADING.name() + "'";
+                return Collections.singletonList(AccountType.TRADING);
 
             case ROOT:
             default:
-                return Arrays.toString(AccountType.values()).replaceAll("\\[|]", "");
+                return Arrays.asList(AccountType.values());
         }
     }
 
-    /**
-     * Returns a list of all the available {@link AccountType}s as strings
-     * @return String list of all account types
-     */
-    private List<String> getAccountTypeStringList(){
-        String[] accountTypes = Arrays.toString(AccountType.values()).replaceAll("\\[|]", "").split(",");
-        List<String> accountTypesList = new ArrayList<>();
-        for (String accountType : accountTypes) {
-            accountTypesList.add(accountType.trim());
-        }
-
-        return accountTypesList;
-    }
     /**
      * Loads the list of account types into the account type selector spinner
      */
@@ -723,17 +684,6 @@ public class AccountFormFragment extends Fragment {
 		    getActivity().getSupportFragmentManager().popBackStack();
         }
 	}
-	
-	@Override
-	public void onDestroy() {
-		super.onDestroy();
-		if (mParentAccountCursor != null) {
-            mParentAccountCursor.close();
-        }
-        if (mDefaultTransferAccountCursorAdapter != null) {
-            mDefaultTransferAccountCursorAdapter.getCursor().close();
-        }
-	}
 
     /**
      * Reads the fields from the account form and saves as a new account
@@ -742,8 +692,6 @@ public class AccountFormFragment extends Fragment {
         Log.i("AccountFormFragment", "Saving account");
         if (mAccountsDbAdapter == null)
             mAccountsDbAdapter = AccountsDbAdapter.getInstance();
-        // accounts to update, in case we're updating full names of a sub account tree
-        ArrayList<Account> accountsToUpdate = new ArrayList<>();
         boolean nameChanged = false;
 		if (mAccount == null){
 			String name = getEnteredName();
@@ -794,6 +742,8 @@ public class AccountFormFragment extends Fragment {
         }
 
         long parentAccountId = mParentAccountUID == null ? -1 : mAccountsDbAdapter.getID(mParentAccountUID);
+        String oldAccountFullName = mAccount.getFullName();
+        boolean updateDescendantNames = false;
         // update full names
         if (nameChanged || mDescendantAccountUIDs == null || newParentAccountId != parentAccountId) {
             // current account name changed or new Account or parent account changed
@@ -806,38 +756,23 @@ public class AccountFormFragment extends Fragment {
                     AccountsDbAdapter.ACCOUNT_NAME_SEPARATOR + mAccount.getName();
             }
             mAccount.setFullName(newAccountFullName);
-            if (mDescendantAccountUIDs != null) {
-                // modifying existing account, e.t. name changed and/or parent changed
-                if ((nameChanged || parentAccountId != newParentAccountId) && mDescendantAccountUIDs.size() > 0) {
-                    // parent change, update all full names of descent accounts
-                    accountsToUpdate.addAll(mAccountsDbAdapter.getSimpleAccountList(
-                            DatabaseSchema.AccountEntry.COLUMN_UID + " IN ('" +
-                                    TextUtils.join("','", mDescendantAccountUIDs) + "')", null, null
-                    ));
-                }
-                HashMap<String, Account> mapAccount = new HashMap<>();
-                for (Account acct : accountsToUpdate) mapAccount.put(acct.getUID(), acct);
-                for (String uid: mDescendantAccountUIDs) {
-                    // mAccountsDbAdapter.getDescendantAccountUIDs() will ensure a parent-child order
-                    Account acct = mapAccount.get(uid);
-                    // mAccount cannot be root, so acct here cannot be top level account.
-                    if (mAccount.getUID().equals(acct.getParentUID())) {
-                        acct.setFullName(mAccount.getFullName() + AccountsDbAdapter.ACCOUNT_NAME_SEPARATOR + acct.getName());
-                    }
-                    else {
-                        acct.setFullName(
-                                mapAccount.get(acct.getParentUID()).getFullName() +
-                                        AccountsDbAdapter.ACCOUNT_NAME_SEPARATOR +
-                                        acct.getName()
-                        );
-                    }
-                }
-            }
+            // modifying existing account, e.g. name changed and/or parent changed
+            updateDescendantNames = mDescendantAccountUIDs != null && mDescendantAccountUIDs.size() > 0
+                    && oldAccountFullName != null && !oldAccountFullName.equals(newAccountFullName);
         }
-        accountsToUpdate.add(mAccount);
 
-        // bulk update, will not update transactions
-		mAccountsDbAdapter.bulkAddRecords(accountsToUpdate, DatabaseAdapter.UpdateMethod.update);
+        mAccountsDbAdapter.beginTransaction();
+        try {
+            // bulk update, will not update transactions
+            mAccountsDbAdapter.bulkAddRecords(Collections.singletonList(mAccount), DatabaseAdapter.UpdateMethod.update);
+            if (updateDescendantNames) {
+                // the descendants only need their full names updated, in one statement
+                mAccountsDbAdapter.updateDescendantFullNames(mAccount.getUID(), oldAccountFullName, mAccount.getFullName());
+            }
+            mAccountsDbAdapter.setTransactionSuccessful();
+        } finally {
+            mAccountsDbAdapter.endTransaction();
+        }
 
 		finishFragment();
 	}
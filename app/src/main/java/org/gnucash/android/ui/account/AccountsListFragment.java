@@ -53,11 +53,15 @@ import android.widget.TextView;
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.Repository;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseChangeBus;
 import org.gnucash.android.model.db.DatabaseCursorLoader;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.row.AccountRow;
+import org.gnucash.android.model.db.row.AccountRowReader;
 import org.gnucash.android.model.db.adapter.BudgetsDbAdapter;
-import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.data.Budget;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.ui.common.FormActivity;
@@ -67,11 +71,16 @@ import org.gnucash.android.ui.util.AccountBalanceTask;
 import org.gnucash.android.ui.util.CursorRecyclerAdapter;
 import org.gnucash.android.ui.util.widget.EmptyRecyclerView;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 
 import dagger.hilt.android.AndroidEntryPoint;
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 /**
  * Fragment for displaying the list of accounts in the database
@@ -141,6 +150,11 @@ public class AccountsListFragment extends Fragment implements
      */
     private SearchView mSearchView;
 
+    /**
+     * Subscription to the database changes which affect the list
+     */
+    private Disposable mChangesSubscription;
+
     public static AccountsListFragment newInstance(DisplayMode displayMode){
         AccountsListFragment fragment = new AccountsListFragment();
         fragment.mDisplayMode = displayMode;
@@ -207,6 +221,15 @@ public class AccountsListFragment extends Fragment implements
         mAccountRecyclerAdapter = new AccountRecyclerAdapter(null);
         mRecyclerView.setAdapter(mAccountRecyclerAdapter);
 
+        mAccountsDbAdapter = AccountsDbAdapter.getInstance();
+        mChangesSubscription = DatabaseChangeBus.batchedChanges(DatabaseChangeBus.DEFAULT_BATCH_MILLIS)
+                .observeOn(Schedulers.io())
+                .map(this::describeUpdate)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(this::applyUpdate,
+                        throwable -> Log.e(TAG, "Error observing database changes", throwable));
+        //the list is kept up to date by the database changes, not reloaded on every resume
+        getLoaderManager().initLoader(0, null, this);
     }
 
     @Override
@@ -215,12 +238,108 @@ public class AccountsListFragment extends Fragment implements
         mAccountsDbAdapter = AccountsDbAdapter.getInstance();
     }
 
-    @Override
-    public void onResume() {
-        super.onResume();
-        refresh();
+    /**
+     * Determines how the list is affected by a batch of database changes.
+     * <p>Called on a background thread, since finding the ancestors of the changed accounts
+     * requires a query</p>
+     * @param changes Batch of database changes
+     * @return Update to apply to the list
+     */
+    private ListUpdate describeUpdate(List<DatabaseChange> changes) {
+        ListUpdate update = new ListUpdate();
+        Set<String> accountUIDs = new HashSet<>();
+        for (DatabaseChange change : changes) {
+            String tableName = change.getTableName();
+            if (tableName.equals(DatabaseSchema.AccountEntry.TABLE_NAME)) {
+                update.reload = true;
+            } else if (mDisplayMode == DisplayMode.RECENT
+                    && (tableName.equals(DatabaseSchema.TransactionEntry.TABLE_NAME)
+                        || tableName.equals(DatabaseSchema.SplitEntry.TABLE_NAME))) {
+                //the recent accounts are ordered by their latest transactions
+                update.reload = true;
+            }
+            if (change.affectsAllBalances()
+                    || tableName.equals(DatabaseSchema.BudgetEntry.TABLE_NAME)
+                    || tableName.equals(DatabaseSchema.BudgetAmountEntry.TABLE_NAME)) {
+                update.rebindAll = true;
+            }
+            accountUIDs.addAll(change.getAccountUIDs());
+        }
+        if (!update.rebindAll && !accountUIDs.isEmpty()) {
+            //balances of the accounts shown include their sub-accounts
+            update.accountUIDs = AccountsDbAdapter.getInstance().getAccountAndAncestorUIDs(accountUIDs);
+        }
+        return update;
+    }
+
+    /**
+     * Reloads or rebinds the rows of the list affected by database changes.
+     * <p>When the list is reloaded, the rows are bound again after the new cursor is swapped in,
+     * so that they show the reloaded values</p>
+     * @param update Update determined from the changes
+     */
+    private void applyUpdate(ListUpdate update) {
+        if (!isAdded())
+            return;
+        if (update.reload) {
+            if (mPendingUpdate == null)
+                mPendingUpdate = new ListUpdate();
+            mPendingUpdate.merge(update);
+            refresh();
+        } else {
+            rebindRows(update);
+        }
+    }
+
+    /**
+     * Binds again the rows of the accounts in {@code update}
+     */
+    private void rebindRows(ListUpdate update) {
+        int itemCount = mAccountRecyclerAdapter.getItemCount();
+        if (update.rebindAll) {
+            mAccountRecyclerAdapter.notifyItemRangeChanged(0, itemCount);
+        } else if (!update.accountUIDs.isEmpty() && itemCount > 0) {
+            Cursor cursor = mAccountRecyclerAdapter.getCursor();
+            int uidColumn = cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_UID);
+            for (int position = 0; position < itemCount && cursor.moveToPosition(position); position++) {
+                if (update.accountUIDs.contains(cursor.getString(uidColumn)))
+                    mAccountRecyclerAdapter.notifyItemChanged(position);
+            }
+        }
+    }
+
+    /**
+     * Describes how the rows of the list are affected by a batch of database changes
+     */
+    private static class ListUpdate {
+        /**
+         * The rows have to be reloaded from the database
+         */
+        boolean reload;
+        /**
+         * All rows have to be bound again, e.g. because all balances may have changed
+         */
+        boolean rebindAll;
+        /**
+         * GUIDs of the accounts whose rows have to be bound again
+         */
+        Set<String> accountUIDs = new HashSet<>();
+
+        /**
+         * Adds the rows to be reloaded or bound again by another update to this one
+         */
+        void merge(ListUpdate update) {
+            reload |= update.reload;
+            rebindAll |= update.rebindAll;
+            accountUIDs.addAll(update.accountUIDs);
+        }
     }
 
+    /**
+     * Rows to be bound again once the cursor being reloaded is swapped in, or {@code null}
+     */
+    private ListUpdate mPendingUpdate;
+
     @Override
     public void onAttach(Activity activity) {
         super.onAttach(activity);
@@ -235,14 +354,6 @@ public class AccountsListFragment extends Fragment implements
         mAccountSelectedListener.accountSelected(accountUID);
     }
 
-    @Override
-    public void onActivityResult(int requestCode, int resultCode, Intent data) {
-        if (resultCode == Activity.RESULT_CANCELED)
-            return;
-
-        refresh();
-    }
-
     /**
      * Delete the account with record ID <code>rowId</code>
      * It shows the delete confirmation dialog if the account has transactions,
@@ -251,15 +362,14 @@ public class AccountsListFragment extends Fragment implements
      * @param rowId The record ID of the account
      */
     public void tryDeleteAccount(long rowId) {
-        Account acc = mAccountsDbAdapter.getRecord(rowId);
-        if (acc.getTransactionCount() > 0 || mAccountsDbAdapter.getSubAccountCount(acc.getUID()) > 0) {
+        String uid = mAccountsDbAdapter.getUID(rowId);
+        if (TransactionsDbAdapter.getInstance().getTransactionsCount(uid) > 0
+                || mAccountsDbAdapter.getSubAccountCount(uid) > 0) {
             showConfirmationDialog(rowId);
         } else {
             mRepository.backupActiveBook();
             // Avoid calling AccountsDbAdapter.deleteRecord(long). See #654
-            String uid = mAccountsDbAdapter.getUID(rowId);
             mAccountsDbAdapter.deleteRecord(uid);
-            refresh();
         }
     }
 
@@ -329,6 +439,8 @@ public class AccountsListFragment extends Fragment implements
     @Override
     public void onDestroy() {
         super.onDestroy();
+        if (mChangesSubscription != null)
+            mChangesSubscription.dispose();
         if (mAccountRecyclerAdapter != null)
             mAccountRecyclerAdapter.swapCursor(null);
     }
@@ -362,8 +474,11 @@ public class AccountsListFragment extends Fragment implements
     @Override
     public void onLoadFinished(Loader<Cursor> loaderCursor, Cursor cursor) {
         Log.d(TAG, "Accounts loader finished. Swapping in cursor");
-        mAccountRecyclerAdapter.swapCursor(cursor);
-        mAccountRecyclerAdapter.notifyDataSetChanged();
+        mAccountRecyclerAdapter.swapCursorAndDiff(cursor);
+        if (mPendingUpdate != null) {
+            rebindRows(mPendingUpdate);
+            mPendingUpdate = null;
+        }
     }
 
     @Override
@@ -477,6 +592,11 @@ public class AccountsListFragment extends Fragment implements
 
     class AccountRecyclerAdapter extends CursorRecyclerAdapter<AccountRecyclerAdapter.AccountViewHolder> {
 
+        /**
+         * Reader of the account columns, kept from one bound row to the next
+         */
+        private AccountRowReader mRowReader;
+
         public AccountRecyclerAdapter(Cursor cursor){
            super(cursor);
         }
@@ -491,11 +611,12 @@ public class AccountsListFragment extends Fragment implements
 
         @Override
         public void onBindViewHolderCursor(final AccountViewHolder holder, final Cursor cursor) {
-            final String accountUID = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_UID));
+            AccountRow row = mRowReader = AccountRowReader.of(cursor, mRowReader);
+            final String accountUID = row.getUID();
             mAccountsDbAdapter = AccountsDbAdapter.getInstance();
             holder.accoundId = mAccountsDbAdapter.getID(accountUID);
 
-            holder.accountName.setText(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_NAME)));
+            holder.accountName.setText(row.getName());
             int subAccountCount = mAccountsDbAdapter.getSubAccountCount(accountUID);
             if (subAccountCount > 0) {
                 holder.description.setVisibility(View.VISIBLE);
@@ -509,12 +630,11 @@ public class AccountsListFragment extends Fragment implements
                 // Make sure the balance task is truly multithread
             new AccountBalanceTask(holder.accountBalance).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, accountUID);
 
-            String accountColor = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_COLOR_CODE));
+            String accountColor = row.getColorCode();
             int colorCode = accountColor == null ? Color.TRANSPARENT : Color.parseColor(accountColor);
             holder.colorStripView.setBackgroundColor(colorCode);
 
-            boolean isPlaceholderAccount = mAccountsDbAdapter.isPlaceholderAccount(accountUID);
-            if (isPlaceholderAccount) {
+            if (row.isPlaceholder()) {
                 holder.createTransaction.setVisibility(View.GONE);
             } else {
                 holder.createTransaction.setOnClickListener(new View.OnClickListener() {
@@ -544,7 +664,7 @@ public class AccountsListFragment extends Fragment implements
             }
 
 
-            if (mAccountsDbAdapter.isFavoriteAccount(accountUID)){
+            if (row.isFavorite()){
                 holder.favoriteStatus.setImageResource(R.drawable.ic_star_black_24dp);
             } else {
                 holder.favoriteStatus.setImageResource(R.drawable.ic_star_border_black_24dp);
@@ -562,8 +682,6 @@ public class AccountsListFragment extends Fragment implements
                     int drawableResource = !isFavoriteAccount ?
                             R.drawable.ic_star_black_24dp : R.drawable.ic_star_border_black_24dp;
                     holder.favoriteStatus.setImageResource(drawableResource);
-                    if (mDisplayMode == DisplayMode.FAVORITES)
-                        refresh();
                 }
             });
 
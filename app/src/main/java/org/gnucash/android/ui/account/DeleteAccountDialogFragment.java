@@ -15,12 +15,12 @@
  */
 package org.gnucash.android.ui.account;
 
-import android.database.Cursor;
+import android.app.ProgressDialog;
 import android.os.Bundle;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.DialogFragment;
-import androidx.cursoradapter.widget.SimpleCursorAdapter;
-import android.text.TextUtils;
+import androidx.fragment.app.Fragment;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -29,10 +29,12 @@ import android.widget.CompoundButton;
 import android.widget.RadioButton;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.Repository;
+import org.gnucash.android.model.db.AccountPickerModel;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
@@ -40,13 +42,22 @@ import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.data.AccountType;
 import org.gnucash.android.ui.common.Refreshable;
 import org.gnucash.android.ui.homescreen.WidgetConfigurationActivity;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
 
+import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
 
 import dagger.hilt.android.AndroidEntryPoint;
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.ObservableEmitter;
+import io.reactivex.rxjava3.core.ObservableOnSubscribe;
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 /**
  * Delete confirmation dialog for accounts.
@@ -59,6 +70,8 @@ import dagger.hilt.android.AndroidEntryPoint;
 @AndroidEntryPoint
 public class DeleteAccountDialogFragment extends DialogFragment {
 
+    private static final String LOG_TAG = "DeleteAccountDialog";
+
     /**
      * Spinner for selecting the account to move the transactions to
      */
@@ -89,6 +102,13 @@ public class DeleteAccountDialogFragment extends DialogFragment {
     private int mTransactionCount;
     private int mSubAccountCount;
 
+    /**
+     * Subscription of the account deletion running in the background, if any
+     */
+    private Disposable mDeleteDisposable;
+
+    private ProgressDialog mProgressDialog;
+
     @Inject
     Repository mRepository;
 
@@ -150,33 +170,25 @@ public class DeleteAccountDialogFragment extends DialogFragment {
         String currencyCode = accountsDbAdapter.getCurrencyCode(mOriginAccountUID);
         AccountType accountType = accountsDbAdapter.getAccountType(mOriginAccountUID);
 
-        String transactionDeleteConditions = "(" + DatabaseSchema.AccountEntry.COLUMN_UID + " != ? AND "
-                + DatabaseSchema.AccountEntry.COLUMN_CURRENCY               + " = ? AND "
-                + DatabaseSchema.AccountEntry.COLUMN_TYPE         + " = ? AND "
-                + DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER + " = 0 AND "
-                + DatabaseSchema.AccountEntry.COLUMN_UID + " NOT IN ('" + TextUtils.join("','", descendantAccountUIDs) + "')"
-                + ")";
-        Cursor cursor = accountsDbAdapter.fetchAccountsOrderedByFullName(transactionDeleteConditions,
-                new String[]{mOriginAccountUID, currencyCode, accountType.name()});
-
-        SimpleCursorAdapter mCursorAdapter = new QualifiedAccountNameCursorAdapter(getActivity(), cursor);
-        mTransactionsDestinationAccountSpinner.setAdapter(mCursorAdapter);
+        AccountPickerModel pickerModel = accountsDbAdapter.getAccountPickerModel();
+        AccountPickerModel.Selection transactionTargets = pickerModel.select(new AccountPickerModel.Filter()
+                .excluding(mOriginAccountUID).excluding(descendantAccountUIDs)
+                .withCurrency(currencyCode).withTypes(Collections.singleton(accountType))
+                .withoutPlaceholders(), false);
+        mTransactionsDestinationAccountSpinner.setAdapter(
+                new QualifiedAccountNameAdapter(getActivity(), transactionTargets));
 
         //target accounts for transactions and accounts have different conditions
-        String accountMoveConditions = "(" + DatabaseSchema.AccountEntry.COLUMN_UID + " != ? AND "
-                + DatabaseSchema.AccountEntry.COLUMN_CURRENCY               + " = ? AND "
-                + DatabaseSchema.AccountEntry.COLUMN_TYPE         + " = ? AND "
-                + DatabaseSchema.AccountEntry.COLUMN_UID + " NOT IN ('" + TextUtils.join("','", descendantAccountUIDs) + "')"
-                + ")";
-        cursor = accountsDbAdapter.fetchAccountsOrderedByFullName(accountMoveConditions,
-                new String[]{mOriginAccountUID, currencyCode, accountType.name()});
-        mCursorAdapter = new QualifiedAccountNameCursorAdapter(getActivity(), cursor);
-        mAccountsDestinationAccountSpinner.setAdapter(mCursorAdapter);
+        AccountPickerModel.Selection accountTargets = pickerModel.select(new AccountPickerModel.Filter()
+                .excluding(mOriginAccountUID).excluding(descendantAccountUIDs)
+                .withCurrency(currencyCode).withTypes(Collections.singleton(accountType)), false);
+        mAccountsDestinationAccountSpinner.setAdapter(
+                new QualifiedAccountNameAdapter(getActivity(), accountTargets));
 
         setListeners();
 
         //this comes after the listeners because of some useful bindings done there
-        if (cursor.getCount() == 0){
+        if (accountTargets.size() == 0){
             mMoveAccountsRadioButton.setEnabled(false);
             mMoveAccountsRadioButton.setChecked(false);
             mDeleteAccountsRadioButton.setChecked(true);
@@ -220,32 +232,115 @@ public class DeleteAccountDialogFragment extends DialogFragment {
             public void onClick(View v) {
                 mRepository.backupActiveBook();
 
-                AccountsDbAdapter accountsDbAdapter = AccountsDbAdapter.getInstance();
+                final String transactionsTargetUID = (mTransactionCount > 0) && mMoveTransactionsRadioButton.isChecked()
+                        ? (String) mTransactionsDestinationAccountSpinner.getSelectedItem() : null;
+                final String accountsTargetUID = (mSubAccountCount > 0) && mMoveAccountsRadioButton.isChecked()
+                        ? (String) mAccountsDestinationAccountSpinner.getSelectedItem() : null;
+                deleteAccount(transactionsTargetUID, accountsTargetUID);
+            }
+        });
+    }
+
+    /**
+     * Deletes the account in a background thread, showing the progress.
+     * <p>The dialog stays open, with its buttons disabled, until the account has been deleted.
+     * If the deletion fails, the buttons are enabled again so that the user can retry or cancel.</p>
+     * @param transactionsTargetUID GUID of the account to move the transactions to, {@code null} to delete them
+     * @param accountsTargetUID GUID of the account to move the sub-accounts to, {@code null} to delete them
+     */
+    private void deleteAccount(final String transactionsTargetUID, final String accountsTargetUID) {
+        final AccountsDbAdapter accountsDbAdapter = AccountsDbAdapter.getInstance();
+        final String originAccountUID = mOriginAccountUID;
+        setButtonsEnabled(false);
 
-                if ((mTransactionCount > 0) && mMoveTransactionsRadioButton.isChecked()){
-                    long targetAccountId = mTransactionsDestinationAccountSpinner.getSelectedItemId();
+        mProgressDialog = new ProgressDialog(getActivity());
+        Observable.create(new ObservableOnSubscribe<Integer>() {
+            @Override
+            public void subscribe(@NonNull final ObservableEmitter<Integer> emitter) {
+                if (transactionsTargetUID != null){
                     //move all the splits
                     SplitsDbAdapter.getInstance().updateRecords(DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID + " = ?",
-                            new String[]{mOriginAccountUID}, DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID, accountsDbAdapter.getUID(targetAccountId));
+                            new String[]{originAccountUID}, DatabaseSchema.SplitEntry.COLUMN_ACCOUNT_UID, transactionsTargetUID);
                 }
 
-                if ((mSubAccountCount > 0) && mMoveAccountsRadioButton.isChecked()){
-                    long targetAccountId = mAccountsDestinationAccountSpinner.getSelectedItemId();
-                    AccountsDbAdapter.getInstance().reassignDescendantAccounts(mOriginAccountUID, accountsDbAdapter.getUID(targetAccountId));
+                if (accountsTargetUID != null){
+                    accountsDbAdapter.reassignDescendantAccounts(originAccountUID, accountsTargetUID);
                 }
 
                 if (GnuCashApplication.isDoubleEntryEnabled()){ //reassign splits to imbalance
-                    TransactionsDbAdapter.getInstance().deleteTransactionsForAccount(mOriginAccountUID);
+                    TransactionsDbAdapter.getInstance().deleteTransactionsForAccount(originAccountUID);
                 }
 
                 //now kill them all!!
-                accountsDbAdapter.recursiveDeleteAccount(accountsDbAdapter.getID(mOriginAccountUID));
-
-                WidgetConfigurationActivity.updateAllWidgets(getActivity());
-                ((Refreshable)getTargetFragment()).refresh();
-                dismiss();
+                accountsDbAdapter.recursiveDeleteAccount(accountsDbAdapter.getID(originAccountUID),
+                        new AccountsDbAdapter.ProgressListener() {
+                            @Override
+                            public void onProgress(int step, int stepCount) {
+                                emitter.onNext(100 * step / stepCount);
+                            }
+                        });
+                emitter.onComplete();
             }
-        });
+        })
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Observer<Integer>() {
+                    @Override
+                    public void onSubscribe(@NonNull Disposable d) {
+                        mDeleteDisposable = d;
+                        mProgressDialog.setTitle(R.string.title_progress_deleting_accounts);
+                        mProgressDialog.setProgressStyle(ProgressDialog.STYLE_HORIZONTAL);
+                        mProgressDialog.setMax(100);
+                        mProgressDialog.setCancelable(false);
+                        mProgressDialog.show();
+                    }
+
+                    @Override
+                    public void onNext(@NonNull Integer progress) {
+                        mProgressDialog.setProgress(progress);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Throwable e) {
+                        Log.e(LOG_TAG, "Error deleting account " + originAccountUID, e);
+                        dismissProgressDialog();
+                        Toast.makeText(getActivity(), R.string.toast_error_deleting_account,
+                                Toast.LENGTH_LONG).show();
+                        setButtonsEnabled(true);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        dismissProgressDialog();
+                        WidgetConfigurationActivity.updateAllWidgets(getActivity());
+                        Fragment targetFragment = getTargetFragment();
+                        if (targetFragment instanceof Refreshable)
+                            ((Refreshable) targetFragment).refresh();
+                        dismiss();
+                    }
+                });
+    }
+
+    private void setButtonsEnabled(boolean enabled) {
+        mOkButton.setEnabled(enabled);
+        mCancelButton.setEnabled(enabled);
+        setCancelable(enabled);
+    }
+
+    private void dismissProgressDialog() {
+        if (mProgressDialog != null && mProgressDialog.isShowing())
+            mProgressDialog.dismiss();
+        mProgressDialog = null;
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (mDeleteDisposable != null) {
+            mDeleteDisposable.dispose();
+            mDeleteDisposable = null;
+        }
+        dismissProgressDialog();
     }
 
 }
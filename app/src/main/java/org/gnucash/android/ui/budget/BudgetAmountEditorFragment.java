@@ -17,7 +17,6 @@ package org.gnucash.android.ui.budget;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.database.Cursor;
 import android.inputmethodservice.KeyboardView;
 import android.os.Bundle;
 import androidx.annotation.Nullable;
@@ -38,14 +37,14 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import org.gnucash.android.R;
-import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.AccountPickerModel;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.data.BudgetAmount;
 import org.gnucash.android.model.data.Commodity;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.ui.common.UxArgument;
 import org.gnucash.android.ui.util.widget.CalculatorEditText;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -56,8 +55,7 @@ import java.util.List;
  */
 public class BudgetAmountEditorFragment extends Fragment {
 
-    private Cursor mAccountCursor;
-    private QualifiedAccountNameCursorAdapter mAccountCursorAdapter;
+    private QualifiedAccountNameAdapter mAccountAdapter;
     private List<View> mBudgetAmountViews = new ArrayList<>();
     private AccountsDbAdapter mAccountsDbAdapter;
 
@@ -196,14 +194,10 @@ public class BudgetAmountEditorFragment extends Fragment {
      * Loads the accounts in the spinner
      */
     private void setupAccountSpinnerAdapter(){
-        String conditions = "(" + DatabaseSchema.AccountEntry.COLUMN_HIDDEN + " = 0 )";
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel()
+                .select(new AccountPickerModel.Filter().visibleOnly(), true);
 
-        if (mAccountCursor != null) {
-            mAccountCursor.close();
-        }
-        mAccountCursor = mAccountsDbAdapter.fetchAccountsOrderedByFavoriteAndFullName(conditions, null);
-
-        mAccountCursorAdapter = new QualifiedAccountNameCursorAdapter(getActivity(), mAccountCursor);
+        mAccountAdapter = new QualifiedAccountNameAdapter(getActivity(), accounts);
     }
 
     /**
@@ -217,8 +211,8 @@ public class BudgetAmountEditorFragment extends Fragment {
             BigDecimal amountValue = viewHolder.amountEditText.getValue();
             if (amountValue == null)
                 continue;
-            Money amount = new Money(amountValue, Commodity.DEFAULT_COMMODITY);
-            String accountUID = mAccountsDbAdapter.getUID(viewHolder.budgetAccountSpinner.getSelectedItemId());
+            Money amount = new Money(amountValue, Commodity.getDefaultCommodity());
+            String accountUID = (String) viewHolder.budgetAccountSpinner.getSelectedItem();
             BudgetAmount budgetAmount = new BudgetAmount(amount, accountUID);
             budgetAmounts.add(budgetAmount);
         }
@@ -244,12 +238,12 @@ public class BudgetAmountEditorFragment extends Fragment {
             itemView.setTag(this);
 
             amountEditText.bindListeners(mKeyboardView);
-            budgetAccountSpinner.setAdapter(mAccountCursorAdapter);
+            budgetAccountSpinner.setAdapter(mAccountAdapter);
 
             budgetAccountSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
                 @Override
                 public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                    String currencyCode = mAccountsDbAdapter.getCurrencyCode(mAccountsDbAdapter.getUID(id));
+                    String currencyCode = mAccountsDbAdapter.getCurrencyCode(mAccountAdapter.getItem(position));
                     Commodity commodity = Commodity.getInstance(currencyCode);
                     currencySymbolTextView.setText(commodity.getSymbol());
                 }
@@ -271,7 +265,7 @@ public class BudgetAmountEditorFragment extends Fragment {
 
         public void bindViews(BudgetAmount budgetAmount){
             amountEditText.setValue(budgetAmount.getAmount().asBigDecimal());
-            budgetAccountSpinner.setSelection(mAccountCursorAdapter.getPosition(budgetAmount.getAccountUID()));
+            budgetAccountSpinner.setSelection(mAccountAdapter.getPosition(budgetAmount.getAccountUID()));
         }
     }
 }
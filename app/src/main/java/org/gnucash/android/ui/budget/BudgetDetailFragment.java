@@ -190,10 +190,12 @@ public class BudgetDetailFragment extends Fragment implements Refreshable {
     public class BudgetAmountAdapter extends RecyclerView.Adapter<BudgetAmountAdapter.BudgetAmountViewHolder> {
         private List<BudgetAmount> mBudgetAmounts;
         private Budget mBudget;
+        private BudgetProgressCalculator.BudgetProgress mBudgetProgress;
 
         public BudgetAmountAdapter(){
             mBudget = mBudgetsDbAdapter.getRecord(mBudgetUID);
             mBudgetAmounts = mBudget.getCompactedBudgetAmounts();
+            mBudgetProgress = BudgetProgressCalculator.getInstance().getProgress(mBudget, true);
         }
 
         @Override
@@ -211,8 +213,7 @@ public class BudgetDetailFragment extends Fragment implements Refreshable {
             holder.budgetAccount.setText(accountsDbAdapter.getAccountFullName(budgetAmount.getAccountUID()));
             holder.budgetAmount.setText(projectedAmount.formattedString());
 
-            Money spentAmount = accountsDbAdapter.getAccountBalance(budgetAmount.getAccountUID(),
-                    mBudget.getStartofCurrentPeriod(), mBudget.getEndOfCurrentPeriod());
+            Money spentAmount = mBudgetProgress.getSpentInCurrentPeriod(budgetAmount.getAccountUID());
 
             holder.budgetSpent.setText(spentAmount.abs().formattedString());
             holder.budgetLeft.setText(projectedAmount.subtract(spentAmount.abs()).formattedString());
@@ -253,14 +254,9 @@ public class BudgetDetailFragment extends Fragment implements Refreshable {
             List<BarEntry> barEntries = new ArrayList<>();
             List<String> xVals = new ArrayList<>();
 
-            //todo: refactor getNumberOfPeriods into budget
-            int budgetPeriods = (int) mBudget.getNumberOfPeriods();
-            budgetPeriods = budgetPeriods == 0 ? 12 : budgetPeriods;
-            int periods = mBudget.getRecurrence().getNumberOfPeriods(budgetPeriods); //// FIXME: 15.08.2016 why do we need number of periods
-
+            int periods = mBudgetProgress.getNumberOfPeriods();
             for (int periodNum = 1; periodNum <= periods; periodNum++) {
-                BigDecimal amount = accountsDbAdapter.getAccountBalance(budgetAmount.getAccountUID(),
-                        mBudget.getStartOfPeriod(periodNum), mBudget.getEndOfPeriod(periodNum))
+                BigDecimal amount = mBudgetProgress.getSpentInPeriod(budgetAmount.getAccountUID(), periodNum)
                         .asBigDecimal();
 
                 if (amount.equals(BigDecimal.ZERO))
@@ -18,7 +18,6 @@ package org.gnucash.android.ui.budget;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.database.Cursor;
 import android.inputmethodservice.KeyboardView;
 import android.os.Bundle;
 import androidx.annotation.Nullable;
@@ -45,7 +44,7 @@ import com.codetroopers.betterpickers.recurrencepicker.RecurrencePickerDialogFra
 import com.google.android.material.textfield.TextInputLayout;
 
 import org.gnucash.android.R;
-import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.AccountPickerModel;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BudgetsDbAdapter;
 import org.gnucash.android.model.db.adapter.DatabaseAdapter;
@@ -60,7 +59,7 @@ import org.gnucash.android.ui.transaction.TransactionFormFragment;
 import org.gnucash.android.ui.util.RecurrenceParser;
 import org.gnucash.android.ui.util.RecurrenceViewClickListener;
 import org.gnucash.android.ui.util.widget.CalculatorEditText;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
@@ -96,7 +95,7 @@ public class BudgetFormFragment extends Fragment implements RecurrencePickerDial
     private Calendar mStartDate;
     private ArrayList<BudgetAmount> mBudgetAmounts;
     private AccountsDbAdapter mAccountsDbAdapter;
-    private QualifiedAccountNameCursorAdapter mAccountsCursorAdapter;
+    private QualifiedAccountNameAdapter mAccountsAdapter;
 
     @Nullable
     @Override
@@ -128,10 +127,10 @@ public class BudgetFormFragment extends Fragment implements RecurrencePickerDial
         mBudgetsDbAdapter = BudgetsDbAdapter.getInstance();
         mStartDate = Calendar.getInstance();
         mBudgetAmounts = new ArrayList<>();
-        String conditions = "(" + DatabaseSchema.AccountEntry.COLUMN_HIDDEN + " = 0 )";
         mAccountsDbAdapter = AccountsDbAdapter.getInstance();
-        Cursor accountCursor = mAccountsDbAdapter.fetchAccountsOrderedByFavoriteAndFullName(conditions, null);
-        mAccountsCursorAdapter = new QualifiedAccountNameCursorAdapter(getActivity(), accountCursor);
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel()
+                .select(new AccountPickerModel.Filter().visibleOnly(), true);
+        mAccountsAdapter = new QualifiedAccountNameAdapter(getActivity(), accounts);
     }
 
     @Override
@@ -140,7 +139,7 @@ public class BudgetFormFragment extends Fragment implements RecurrencePickerDial
 
         setHasOptionsMenu(true);
 
-        mBudgetAccountSpinner.setAdapter(mAccountsCursorAdapter);
+        mBudgetAccountSpinner.setAdapter(mAccountsAdapter);
         String budgetUID = getArguments().getString(UxArgument.BUDGET_UID);
         if (budgetUID != null){ //if we are editing the budget
             initViews(mBudget = mBudgetsDbAdapter.getRecord(budgetUID));
@@ -186,8 +185,8 @@ public class BudgetFormFragment extends Fragment implements RecurrencePickerDial
 
         if (mBudgetAmounts.isEmpty()){ //has not been set in budget amounts editor
             ArrayList<BudgetAmount> budgetAmounts = new ArrayList<>();
-            Money amount = new Money(value, Commodity.DEFAULT_COMMODITY);
-            String accountUID = mAccountsDbAdapter.getUID(mBudgetAccountSpinner.getSelectedItemId());
+            Money amount = new Money(value, Commodity.getDefaultCommodity());
+            String accountUID = (String) mBudgetAccountSpinner.getSelectedItem();
             BudgetAmount budgetAmount = new BudgetAmount(amount, accountUID);
             budgetAmounts.add(budgetAmount);
             return budgetAmounts;
@@ -361,7 +360,7 @@ public class BudgetFormFragment extends Fragment implements RecurrencePickerDial
             if (!mBudgetAmounts.isEmpty()) {
                 BudgetAmount budgetAmount = mBudgetAmounts.get(0);
                 mBudgetAmountInput.setValue(budgetAmount.getAmount().asBigDecimal());
-                mBudgetAccountSpinner.setSelection(mAccountsCursorAdapter.getPosition(budgetAmount.getAccountUID()));
+                mBudgetAccountSpinner.setSelection(mAccountsAdapter.getPosition(budgetAmount.getAccountUID()));
             }
         }
     }
@@ -51,7 +51,6 @@ import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BudgetsDbAdapter;
 import org.gnucash.android.model.data.Budget;
-import org.gnucash.android.model.data.BudgetAmount;
 import org.gnucash.android.model.data.Commodity;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.ui.common.FormActivity;
@@ -62,6 +61,10 @@ import org.gnucash.android.ui.util.widget.EmptyRecyclerView;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Budget list fragment
@@ -77,6 +80,11 @@ public class BudgetListFragment extends Fragment implements Refreshable,
 
     private BudgetsDbAdapter mBudgetsDbAdapter;
 
+    /**
+     * Progress of the listed budgets, computed by the loader
+     */
+    private Map<String, BudgetProgressCalculator.BudgetProgress> mBudgetProgress = Collections.emptyMap();
+
     private EmptyRecyclerView mRecyclerView;
     private Button mProposeBudgets;
 
@@ -121,6 +129,7 @@ public class BudgetListFragment extends Fragment implements Refreshable,
     @Override
     public void onLoadFinished(Loader<Cursor> loaderCursor, Cursor cursor) {
         Log.d(LOG_TAG, "Budget loader finished. Swapping in cursor");
+        mBudgetProgress = ((BudgetsCursorLoader) loaderCursor).getBudgetProgress();
         mBudgetRecyclerAdapter.swapCursor(cursor);
         mBudgetRecyclerAdapter.notifyDataSetChanged();
     }
@@ -222,12 +231,10 @@ public class BudgetListFragment extends Fragment implements Refreshable,
             holder.budgetRecurrence.setText(budget.getRecurrence().getRepeatString() + " - "
                     + budget.getRecurrence().getDaysLeftInCurrentPeriod() + " days left");
 
-            BigDecimal spentAmountValue = BigDecimal.ZERO;
-            for (BudgetAmount budgetAmount : budget.getCompactedBudgetAmounts()) {
-                Money balance = accountsDbAdapter.getAccountBalance(budgetAmount.getAccountUID(),
-                        budget.getStartofCurrentPeriod(), budget.getEndOfCurrentPeriod());
-                spentAmountValue = spentAmountValue.add(balance.asBigDecimal());
-            }
+            BudgetProgressCalculator.BudgetProgress progress = mBudgetProgress.get(budget.getUID());
+            if (progress == null) //budget added after the loader finished
+                progress = BudgetProgressCalculator.getInstance().getProgress(budget, false);
+            BigDecimal spentAmountValue = progress.getTotalSpentInCurrentPeriod();
 
             Money budgetTotal = budget.getAmountSum();
             Commodity commodity = budgetTotal.getCommodity();
@@ -308,10 +315,12 @@ public class BudgetListFragment extends Fragment implements Refreshable,
     }
 
     /**
-     * Loads Budgets asynchronously from the database
+     * Loads Budgets asynchronously from the database, together with their progress in the current period
      */
     private static class BudgetsCursorLoader extends DatabaseCursorLoader {
 
+        private volatile Map<String, BudgetProgressCalculator.BudgetProgress> mBudgetProgress = Collections.emptyMap();
+
         /**
          * Constructor
          * Initializes the content observer
@@ -324,8 +333,25 @@ public class BudgetListFragment extends Fragment implements Refreshable,
 
         @Override
         public Cursor loadInBackground() {
-            mDatabaseAdapter = BudgetsDbAdapter.getInstance();
-            return mDatabaseAdapter.fetchAllRecords(null, null, DatabaseSchema.BudgetEntry.COLUMN_NAME + " ASC");
+            BudgetsDbAdapter budgetsDbAdapter = BudgetsDbAdapter.getInstance();
+            mDatabaseAdapter = budgetsDbAdapter;
+            Cursor cursor = budgetsDbAdapter.fetchAllRecords(null, null, DatabaseSchema.BudgetEntry.COLUMN_NAME + " ASC");
+
+            List<Budget> budgets = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                budgets.add(budgetsDbAdapter.buildModelInstance(cursor));
+            }
+            cursor.moveToPosition(-1);
+            mBudgetProgress = BudgetProgressCalculator.getInstance().getProgress(budgets, false);
+            return cursor;
+        }
+
+        /**
+         * Returns the progress of the loaded budgets
+         * @return Budget progress keyed by budget GUID
+         */
+        public Map<String, BudgetProgressCalculator.BudgetProgress> getBudgetProgress() {
+            return mBudgetProgress;
         }
     }
 }
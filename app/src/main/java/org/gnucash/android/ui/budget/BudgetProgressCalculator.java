@@ -0,0 +1,498 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.ui.budget;
+
+import android.database.Cursor;
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.model.data.Budget;
+import org.gnucash.android.model.data.BudgetAmount;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseChangeBus;
+import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.DatabaseSchema.AccountEntry;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Computes how much has been spent on budgeted accounts, for many budgets at once.
+ * <p>The period boundaries of all budgets are computed once, and the balances of all budgeted
+ * accounts and their sub-accounts in all periods are summed up between consecutive boundaries
+ * from the split rollups, instead of one balance query per account and period.</p>
+ * <p>Results are cached, so rebinding budget cards or charts does not hit the database again.
+ * Changes published on the {@link DatabaseChangeBus} only evict the budgets whose accounts
+ * or sub-accounts are affected.</p>
+ */
+public class BudgetProgressCalculator {
+
+    private static final String LOG_TAG = "BudgetProgressCalc";
+
+    /**
+     * Number of periods shown in the history of a budget without a fixed number of periods
+     */
+    private static final int DEFAULT_NUMBER_OF_PERIODS = 12;
+
+    private static BudgetProgressCalculator sInstance;
+
+    private final AccountsDbAdapter mAccountsDbAdapter;
+    private final SplitsDbAdapter mSplitsDbAdapter;
+
+    /**
+     * Cached progress keyed by budget GUID.
+     * <p>An entry is only valid in the budget period it was computed in, see {@link CacheEntry#periodStart}.
+     * Entries are evicted on the writing thread without locking the calculator, since the writer
+     * may hold the database lock which a computation in progress is waiting for</p>
+     */
+    private final Map<String, CacheEntry> mCache = new ConcurrentHashMap<>();
+
+    /**
+     * Number of evictions so far. Progress computed while an eviction happened is not cached,
+     * as it may have been read before the change
+     */
+    private final AtomicLong mGeneration = new AtomicLong();
+
+    private final Disposable mChangesSubscription;
+
+    public BudgetProgressCalculator(AccountsDbAdapter accountsDbAdapter, SplitsDbAdapter splitsDbAdapter) {
+        mAccountsDbAdapter = accountsDbAdapter;
+        mSplitsDbAdapter = splitsDbAdapter;
+        mChangesSubscription = DatabaseChangeBus.changes().subscribe(this::invalidate,
+                throwable -> Log.e(LOG_TAG, "Error observing database changes", throwable));
+    }
+
+    /**
+     * Returns the calculator for the currently active book
+     * @return Budget progress calculator
+     */
+    public static synchronized BudgetProgressCalculator getInstance() {
+        SplitsDbAdapter splitsDbAdapter = SplitsDbAdapter.getInstance();
+        if (sInstance == null || sInstance.mSplitsDbAdapter != splitsDbAdapter) {
+            if (sInstance != null)
+                sInstance.close();
+            sInstance = new BudgetProgressCalculator(AccountsDbAdapter.getInstance(), splitsDbAdapter);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Stops observing database changes and discards the cached progress
+     */
+    public void close() {
+        mChangesSubscription.dispose();
+        mCache.clear();
+    }
+
+    /**
+     * Evicts the cached progress which may be affected by a database change.
+     * <p>Changes to accounts or budgets evict everything, since they may change the
+     * budgeted accounts or their sub-accounts</p>
+     * @param change Database change
+     */
+    private void invalidate(DatabaseChange change) {
+        String tableName = change.getTableName();
+        boolean evictAll = change.affectsAllBalances()
+                || tableName.equals(AccountEntry.TABLE_NAME)
+                || tableName.equals(DatabaseSchema.BudgetEntry.TABLE_NAME)
+                || tableName.equals(DatabaseSchema.BudgetAmountEntry.TABLE_NAME);
+        if (!evictAll && change.getAccountUIDs().isEmpty())
+            return;
+
+        mGeneration.incrementAndGet();
+        for (Map.Entry<String, CacheEntry> entry : mCache.entrySet()) {
+            if (evictAll || !Collections.disjoint(entry.getValue().accountUIDs, change.getAccountUIDs()))
+                mCache.remove(entry.getKey());
+        }
+    }
+
+    /**
+     * Returns the progress of a single budget
+     * @param budget Budget
+     * @param includePeriodHistory Also compute the amounts spent in each period of the budget
+     * @return Progress of the budget
+     * @see #getProgress(List, boolean)
+     */
+    public BudgetProgress getProgress(@NonNull Budget budget, boolean includePeriodHistory) {
+        return getProgress(Collections.singletonList(budget), includePeriodHistory).get(budget.getUID());
+    }
+
+    /**
+     * Returns the progress of the budgets, computing it for those which are not cached
+     * @param budgets Budgets
+     * @param includePeriodHistory Also compute the amounts spent in each period of the budgets,
+     *                             and not only in the current period
+     * @return Progress of the budgets keyed by budget GUID
+     */
+    public synchronized Map<String, BudgetProgress> getProgress(@NonNull List<Budget> budgets,
+                                                                boolean includePeriodHistory) {
+        Map<String, BudgetProgress> progressMap = new HashMap<>();
+        List<Budget> pendingBudgets = new ArrayList<>();
+        for (Budget budget : budgets) {
+            CacheEntry entry = mCache.get(budget.getUID());
+            if (entry != null && entry.periodStart == budget.getStartofCurrentPeriod()
+                    && (entry.progress.hasPeriodHistory() || !includePeriodHistory)) {
+                progressMap.put(budget.getUID(), entry.progress);
+            } else {
+                pendingBudgets.add(budget);
+            }
+        }
+
+        if (!pendingBudgets.isEmpty()) {
+            long generation = mGeneration.get();
+            List<CacheEntry> entries = computeProgress(pendingBudgets, includePeriodHistory);
+            boolean cacheable = generation == mGeneration.get();
+            for (CacheEntry entry : entries) {
+                if (cacheable)
+                    mCache.put(entry.progress.getBudgetUID(), entry);
+                progressMap.put(entry.progress.getBudgetUID(), entry.progress);
+            }
+        }
+        return progressMap;
+    }
+
+    /**
+     * Computes the progress of the budgets from the database
+     */
+    private List<CacheEntry> computeProgress(List<Budget> budgets, boolean includePeriodHistory) {
+        Map<String, AccountInfo> accounts = loadAccounts();
+        Map<Budget, Set<String>> budgetAccountUIDs = new HashMap<>();
+        Map<Budget, Long> budgetPeriodStarts = new HashMap<>();
+
+        List<BudgetTarget> targets = new ArrayList<>();
+        Set<String> subtreeAccountUIDs = new HashSet<>();
+        //the periods of all budgets cut time into ranges, whose sums are then added up per period
+        TreeSet<Long> boundarySet = new TreeSet<>();
+        for (Budget budget : budgets) {
+            //period boundaries are the same for all accounts of the budget
+            List<long[]> periods = new ArrayList<>();
+            long periodStart = budget.getStartofCurrentPeriod();
+            budgetPeriodStarts.put(budget, periodStart);
+            periods.add(new long[]{periodStart, budget.getEndOfCurrentPeriod()});
+            if (includePeriodHistory) {
+                int budgetPeriods = (int) budget.getNumberOfPeriods();
+                budgetPeriods = budgetPeriods == 0 ? DEFAULT_NUMBER_OF_PERIODS : budgetPeriods;
+                int numberOfPeriods = budget.getRecurrence().getNumberOfPeriods(budgetPeriods);
+                for (int periodNum = 1; periodNum <= numberOfPeriods; periodNum++) {
+                    periods.add(new long[]{budget.getStartOfPeriod(periodNum), budget.getEndOfPeriod(periodNum)});
+                }
+            }
+            for (long[] period : periods) {
+                boundarySet.add(period[0]);
+                boundarySet.add(period[1] + 1);
+            }
+
+            Set<String> accountUIDs = new HashSet<>();
+            budgetAccountUIDs.put(budget, accountUIDs);
+            Set<String> budgetTargets = new HashSet<>();
+            for (BudgetAmount budgetAmount : budget.getCompactedBudgetAmounts()) {
+                String accountUID = budgetAmount.getAccountUID();
+                if (!budgetTargets.add(accountUID))
+                    continue;
+
+                AccountInfo account = accounts.get(accountUID);
+                String currencyCode = account != null ? account.currencyCode
+                        : budgetAmount.getAmount().getCommodity().getCurrencyCode();
+                List<String> subtree = account != null ? getSubtree(accountUID, accounts)
+                        : Collections.<String>emptyList();
+                targets.add(new BudgetTarget(budget, accountUID, subtree, currencyCode,
+                        account == null || account.hasDebitNormalBalance, periods));
+                accountUIDs.add(accountUID);
+                accountUIDs.addAll(subtree);
+                subtreeAccountUIDs.addAll(subtree);
+            }
+        }
+
+        long[] boundaries = new long[boundarySet.size()];
+        int boundaryCount = 0;
+        for (long boundary : boundarySet) {
+            boundaries[boundaryCount++] = boundary;
+        }
+        Log.d(LOG_TAG, "Computing progress of " + budgets.size() + " budgets over "
+                + subtreeAccountUIDs.size() + " accounts and " + (boundaries.length - 1) + " time ranges");
+        List<Map<String, Map<Pair<String, Long>, Long>>> rangeSums =
+                mSplitsDbAdapter.sumSplitQuantitiesByRange(new ArrayList<>(subtreeAccountUIDs), boundaries);
+
+        Map<Budget, BudgetProgress.Builder> builders = new LinkedHashMap<>();
+        for (Budget budget : budgets) {
+            builders.put(budget, new BudgetProgress.Builder(budget, includePeriodHistory));
+        }
+        for (BudgetTarget target : targets) {
+            List<Money> balances = new ArrayList<>(target.periods.size());
+            for (long[] period : target.periods) {
+                //the ranges of the period run from its start up to the range starting after its end
+                int firstRange = Arrays.binarySearch(boundaries, period[0]);
+                int endRange = Arrays.binarySearch(boundaries, period[1] + 1);
+                Map<Pair<String, Long>, Long> quantitySums = new HashMap<>();
+                for (int range = firstRange; range < endRange; range++) {
+                    Map<String, Map<Pair<String, Long>, Long>> accountSums = rangeSums.get(range);
+                    for (String accountUID : target.subtreeAccountUIDs) {
+                        Map<Pair<String, Long>, Long> sums = accountSums.get(accountUID);
+                        if (sums != null)
+                            addQuantitySums(sums, quantitySums);
+                    }
+                }
+                balances.add(mSplitsDbAdapter.convertQuantitySums(quantitySums,
+                        target.currencyCode, target.hasDebitNormalBalance));
+            }
+            builders.get(target.budget).put(target.accountUID, balances);
+        }
+
+        List<CacheEntry> entries = new ArrayList<>(builders.size());
+        for (Map.Entry<Budget, BudgetProgress.Builder> entry : builders.entrySet()) {
+            entries.add(new CacheEntry(entry.getValue().build(), budgetAccountUIDs.get(entry.getKey()),
+                    budgetPeriodStarts.get(entry.getKey())));
+        }
+        return entries;
+    }
+
+    /**
+     * Adds quantity sums keyed by currency code and quantity denominator to {@code total}
+     */
+    private static void addQuantitySums(Map<Pair<String, Long>, Long> sums, Map<Pair<String, Long>, Long> total) {
+        for (Map.Entry<Pair<String, Long>, Long> entry : sums.entrySet()) {
+            Long sum = total.get(entry.getKey());
+            total.put(entry.getKey(), (sum == null ? 0 : sum) + entry.getValue());
+        }
+    }
+
+    /**
+     * Loads the parent, currency and type of all accounts with a single query
+     */
+    private Map<String, AccountInfo> loadAccounts() {
+        Map<String, AccountInfo> accounts = new HashMap<>();
+        Cursor cursor = mAccountsDbAdapter.fetchAccounts(null, null, null);
+        try {
+            int uidIndex = cursor.getColumnIndexOrThrow(AccountEntry.COLUMN_UID);
+            int parentIndex = cursor.getColumnIndexOrThrow(AccountEntry.COLUMN_PARENT_ACCOUNT_UID);
+            int currencyIndex = cursor.getColumnIndexOrThrow(AccountEntry.COLUMN_CURRENCY);
+            int typeIndex = cursor.getColumnIndexOrThrow(AccountEntry.COLUMN_TYPE);
+            while (cursor.moveToNext()) {
+                AccountInfo account = new AccountInfo(cursor.getString(parentIndex), cursor.getString(currencyIndex),
+                        AccountType.valueOf(cursor.getString(typeIndex)).hasDebitNormalBalance());
+                accounts.put(cursor.getString(uidIndex), account);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        for (Map.Entry<String, AccountInfo> entry : accounts.entrySet()) {
+            AccountInfo parent = accounts.get(entry.getValue().parentUID);
+            if (parent != null)
+                parent.childrenUIDs.add(entry.getKey());
+        }
+        return accounts;
+    }
+
+    /**
+     * Returns the GUIDs of an account and all its descendants
+     */
+    private static List<String> getSubtree(String accountUID, Map<String, AccountInfo> accounts) {
+        List<String> subtree = new ArrayList<>();
+        subtree.add(accountUID);
+        for (int i = 0; i < subtree.size(); i++) {
+            AccountInfo account = accounts.get(subtree.get(i));
+            if (account != null)
+                subtree.addAll(account.childrenUIDs);
+        }
+        return subtree;
+    }
+
+    /**
+     * Cached progress of a budget, with the accounts and the period it was computed from
+     */
+    private static class CacheEntry {
+        final BudgetProgress progress;
+        /**
+         * GUIDs of the budgeted accounts and their descendants
+         */
+        final Set<String> accountUIDs;
+        /**
+         * Start of the current period of the budget when the progress was computed.
+         * The entry is stale once the budget has moved on to the next period
+         */
+        final long periodStart;
+
+        CacheEntry(BudgetProgress progress, Set<String> accountUIDs, long periodStart) {
+            this.progress = progress;
+            this.accountUIDs = accountUIDs;
+            this.periodStart = periodStart;
+        }
+    }
+
+    private static class AccountInfo {
+        final String parentUID;
+        final String currencyCode;
+        final boolean hasDebitNormalBalance;
+        final List<String> childrenUIDs = new ArrayList<>();
+
+        AccountInfo(String parentUID, String currencyCode, boolean hasDebitNormalBalance) {
+            this.parentUID = parentUID;
+            this.currencyCode = currencyCode;
+            this.hasDebitNormalBalance = hasDebitNormalBalance;
+        }
+    }
+
+    /**
+     * Budgeted account, with its descendants and the periods in which its balance is computed
+     */
+    private static class BudgetTarget {
+        final Budget budget;
+        final String accountUID;
+        /**
+         * GUIDs of the account and its descendants, empty if the account does not exist
+         */
+        final List<String> subtreeAccountUIDs;
+        final String currencyCode;
+        final boolean hasDebitNormalBalance;
+        final List<long[]> periods;
+
+        BudgetTarget(Budget budget, String accountUID, List<String> subtreeAccountUIDs, String currencyCode,
+                     boolean hasDebitNormalBalance, List<long[]> periods) {
+            this.budget = budget;
+            this.accountUID = accountUID;
+            this.subtreeAccountUIDs = subtreeAccountUIDs;
+            this.currencyCode = currencyCode;
+            this.hasDebitNormalBalance = hasDebitNormalBalance;
+            this.periods = periods;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the amounts spent on the accounts of a budget
+     */
+    public static final class BudgetProgress {
+        private final String mBudgetUID;
+        private final Map<String, Money> mCurrentPeriodSpent;
+        private final Map<String, List<Money>> mPeriodSpent;
+        private final BigDecimal mTotalCurrentPeriodSpent;
+        private final int mNumberOfPeriods;
+
+        private BudgetProgress(String budgetUID, Map<String, Money> currentPeriodSpent,
+                               Map<String, List<Money>> periodSpent, BigDecimal totalCurrentPeriodSpent,
+                               int numberOfPeriods) {
+            mBudgetUID = budgetUID;
+            mCurrentPeriodSpent = Collections.unmodifiableMap(currentPeriodSpent);
+            mPeriodSpent = periodSpent == null ? null : Collections.unmodifiableMap(periodSpent);
+            mTotalCurrentPeriodSpent = totalCurrentPeriodSpent;
+            mNumberOfPeriods = numberOfPeriods;
+        }
+
+        /**
+         * Returns the GUID of the budget
+         * @return Budget GUID
+         */
+        public String getBudgetUID() {
+            return mBudgetUID;
+        }
+
+        /**
+         * Returns the balance of a budgeted account, including its sub-accounts, in the current period
+         * @param accountUID GUID of the budgeted account
+         * @return Balance of the account in the current period
+         */
+        public Money getSpentInCurrentPeriod(String accountUID) {
+            return mCurrentPeriodSpent.get(accountUID);
+        }
+
+        /**
+         * Returns the sum of the balances of all budgeted accounts in the current period
+         * @return Total amount spent in the current period
+         */
+        public BigDecimal getTotalSpentInCurrentPeriod() {
+            return mTotalCurrentPeriodSpent;
+        }
+
+        /**
+         * Returns {@code true} if the amounts spent in each period of the budget were computed
+         * @return {@code true} if the period history is available
+         */
+        public boolean hasPeriodHistory() {
+            return mPeriodSpent != null;
+        }
+
+        /**
+         * Returns the number of periods in the period history
+         * @return Number of periods, 0 if the period history was not computed
+         */
+        public int getNumberOfPeriods() {
+            return mNumberOfPeriods;
+        }
+
+        /**
+         * Returns the balance of a budgeted account, including its sub-accounts, in a period of the budget
+         * @param accountUID GUID of the budgeted account
+         * @param periodNum Number of the period, starting at 1
+         * @return Balance of the account in the period
+         * @throws IllegalStateException if the period history was not computed
+         * @see Budget#getStartOfPeriod(int)
+         */
+        public Money getSpentInPeriod(String accountUID, int periodNum) {
+            if (mPeriodSpent == null)
+                throw new IllegalStateException("Budget progress was computed without period history");
+            return mPeriodSpent.get(accountUID).get(periodNum - 1);
+        }
+
+        private static class Builder {
+            private final Budget mBudget;
+            private final boolean mIncludePeriodHistory;
+            private final Map<String, Money> mCurrentPeriodSpent = new HashMap<>();
+            private final Map<String, List<Money>> mPeriodSpent = new HashMap<>();
+
+            Builder(Budget budget, boolean includePeriodHistory) {
+                mBudget = budget;
+                mIncludePeriodHistory = includePeriodHistory;
+            }
+
+            /**
+             * @param balances Balance in the current period, followed by the balances in each period of the budget
+             */
+            void put(String accountUID, List<Money> balances) {
+                mCurrentPeriodSpent.put(accountUID, balances.get(0));
+                mPeriodSpent.put(accountUID, Collections.unmodifiableList(balances.subList(1, balances.size())));
+            }
+
+            BudgetProgress build() {
+                BigDecimal total = BigDecimal.ZERO;
+                for (BudgetAmount budgetAmount : mBudget.getCompactedBudgetAmounts()) {
+                    total = total.add(mCurrentPeriodSpent.get(budgetAmount.getAccountUID()).asBigDecimal());
+                }
+                int numberOfPeriods = 0;
+                if (mIncludePeriodHistory && !mPeriodSpent.isEmpty())
+                    numberOfPeriods = mPeriodSpent.values().iterator().next().size();
+                return new BudgetProgress(mBudget.getUID(), mCurrentPeriodSpent,
+                        mIncludePeriodHistory ? mPeriodSpent : null, total, numberOfPeriods);
+            }
+        }
+    }
+}
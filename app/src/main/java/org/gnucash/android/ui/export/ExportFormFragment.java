@@ -84,6 +84,7 @@ import java.text.ParseException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.zip.Deflater;
 
 import javax.inject.Inject;
 
@@ -160,6 +161,16 @@ public class ExportFormFragment extends Fragment implements
 	private RadioButton mSeparatorSemicolonButton;
 	private LinearLayout mCsvOptionsLayout;
 
+	private RadioButton mCompressionNoneButton;
+	private RadioButton mCompressionFastButton;
+	private RadioButton mCompressionBestButton;
+	private LinearLayout mXmlOptionsLayout;
+
+	private CheckBox mAdditionalCsvTransactionsCheckBox;
+	private CheckBox mAdditionalQifCheckBox;
+	private CheckBox mAdditionalXmlCheckBox;
+	private CheckBox mAdditionalOfxCheckBox;
+
 	private View mRecurrenceOptionsView;
 	@Inject
 	DropboxHelper mDropboxHelper;
@@ -196,6 +207,11 @@ public class ExportFormFragment extends Fragment implements
 
 	private char mExportCsvSeparator = ',';
 
+	/**
+	 * Gzip compression level of XML exports, saved with scheduled backups
+	 */
+	private int mExportCompressionLevel = ExportParams.UNCOMPRESSED;
+
 	/**
 	 * Flag to determine if export has been started.
 	 * Used to continue export after user has picked a destination file
@@ -215,6 +231,7 @@ public class ExportFormFragment extends Fragment implements
 
 				OptionsViewAnimationUtils.expand(mExportDateLayout);
 				OptionsViewAnimationUtils.collapse(mCsvOptionsLayout);
+				OptionsViewAnimationUtils.collapse(mXmlOptionsLayout);
                 break;
 
             case R.id.radio_qif_format:
@@ -229,6 +246,7 @@ public class ExportFormFragment extends Fragment implements
 
 				OptionsViewAnimationUtils.expand(mExportDateLayout);
 				OptionsViewAnimationUtils.collapse(mCsvOptionsLayout);
+				OptionsViewAnimationUtils.collapse(mXmlOptionsLayout);
 				break;
 
 			case R.id.radio_xml_format:
@@ -236,6 +254,7 @@ public class ExportFormFragment extends Fragment implements
 				mExportWarningTextView.setText(R.string.export_warning_xml);
 				OptionsViewAnimationUtils.collapse(mExportDateLayout);
 				OptionsViewAnimationUtils.collapse(mCsvOptionsLayout);
+				OptionsViewAnimationUtils.expand(mXmlOptionsLayout);
 				break;
 
 			case R.id.radio_csv_transactions_format:
@@ -243,20 +262,70 @@ public class ExportFormFragment extends Fragment implements
 				mExportWarningTextView.setText(R.string.export_notice_csv);
 				OptionsViewAnimationUtils.expand(mExportDateLayout);
 				OptionsViewAnimationUtils.expand(mCsvOptionsLayout);
+				OptionsViewAnimationUtils.collapse(mXmlOptionsLayout);
 				break;
 
 			case R.id.radio_separator_comma_format:
 				mExportCsvSeparator = ',';
-				break;
+				return;
 			case R.id.radio_separator_colon_format:
 				mExportCsvSeparator = ':';
-				break;
+				return;
 			case R.id.radio_separator_semicolon_format:
 				mExportCsvSeparator = ';';
-				break;
+				return;
+
+			case R.id.radio_compression_none:
+				mExportCompressionLevel = ExportParams.UNCOMPRESSED;
+				return;
+			case R.id.radio_compression_fast:
+				mExportCompressionLevel = Deflater.BEST_SPEED;
+				return;
+			case R.id.radio_compression_best:
+				mExportCompressionLevel = Deflater.BEST_COMPRESSION;
+				return;
         }
+		updateAdditionalFormatsVisibility();
     }
 
+	/**
+	 * Shows the additional formats which can be exported together with the selected format.
+	 * <p>The selected format itself is hidden, as well as the formats not available in the
+	 * current double-entry mode</p>
+	 */
+	private void updateAdditionalFormatsVisibility(){
+		boolean doubleEntry = GnuCashApplication.isDoubleEntryEnabled();
+		setAdditionalFormatVisible(mAdditionalCsvTransactionsCheckBox, mExportFormat != ExportFormat.CSVT);
+		setAdditionalFormatVisible(mAdditionalQifCheckBox, mExportFormat != ExportFormat.QIF);
+		setAdditionalFormatVisible(mAdditionalXmlCheckBox, doubleEntry && mExportFormat != ExportFormat.XML);
+		setAdditionalFormatVisible(mAdditionalOfxCheckBox, !doubleEntry && mExportFormat != ExportFormat.OFX);
+		if (mAdditionalCsvTransactionsCheckBox.isChecked())
+			OptionsViewAnimationUtils.expand(mCsvOptionsLayout);
+		else if (mExportFormat != ExportFormat.CSVT)
+			OptionsViewAnimationUtils.collapse(mCsvOptionsLayout);
+	}
+
+	private void setAdditionalFormatVisible(CheckBox checkBox, boolean visible){
+		checkBox.setVisibility(visible ? View.VISIBLE : View.GONE);
+		if (!visible)
+			checkBox.setChecked(false);
+	}
+
+	/**
+	 * Adds the additional formats selected by the user to the export parameters
+	 * @param exportParams Export parameters
+	 */
+	private void addAdditionalFormats(ExportParams exportParams){
+		if (mAdditionalCsvTransactionsCheckBox.isChecked())
+			exportParams.addExportFormat(ExportFormat.CSVT);
+		if (mAdditionalQifCheckBox.isChecked())
+			exportParams.addExportFormat(ExportFormat.QIF);
+		if (mAdditionalXmlCheckBox.isChecked())
+			exportParams.addExportFormat(ExportFormat.XML);
+		if (mAdditionalOfxCheckBox.isChecked())
+			exportParams.addExportFormat(ExportFormat.OFX);
+	}
+
 	@Override
 	public View onCreateView(LayoutInflater inflater, ViewGroup container,
 			Bundle savedInstanceState) {
@@ -278,6 +347,14 @@ public class ExportFormFragment extends Fragment implements
 		 mSeparatorColonButton = view.findViewById(R.id.radio_separator_colon_format);
 		 mSeparatorSemicolonButton = view.findViewById(R.id.radio_separator_semicolon_format);
 		 mCsvOptionsLayout = view.findViewById(R.id.layout_csv_options);
+		 mCompressionNoneButton = view.findViewById(R.id.radio_compression_none);
+		 mCompressionFastButton = view.findViewById(R.id.radio_compression_fast);
+		 mCompressionBestButton = view.findViewById(R.id.radio_compression_best);
+		 mXmlOptionsLayout = view.findViewById(R.id.layout_xml_options);
+		 mAdditionalCsvTransactionsCheckBox = view.findViewById(R.id.checkbox_additional_csv_transactions_format);
+		 mAdditionalQifCheckBox = view.findViewById(R.id.checkbox_additional_qif_format);
+		 mAdditionalXmlCheckBox = view.findViewById(R.id.checkbox_additional_xml_format);
+		 mAdditionalOfxCheckBox = view.findViewById(R.id.checkbox_additional_ofx_format);
 		 mRecurrenceOptionsView = view.findViewById(R.id.recurrence_options);
 		 mCompositeDisposable = new CompositeDisposable();
 
@@ -351,17 +428,23 @@ public class ExportFormFragment extends Fragment implements
 		}
 
 		ExportParams exportParameters = new ExportParams(mExportFormat);
+		addAdditionalFormats(exportParameters);
 
 		if (mExportAllSwitch.isChecked()){
 			exportParameters.setExportStartTime(TimestampHelper.getTimestampFromEpochZero());
 		} else {
 			exportParameters.setExportStartTime(new Timestamp(mExportStartCalendar.getTimeInMillis()));
+			// unless the user picked another start time, export the changes since the last export
+			String bookUID = BooksDbAdapter.getInstance().getActiveBookUID();
+			if (mExportStartCalendar.getTimeInMillis() == PreferencesHelper.getLastExportTime(bookUID).getTime())
+				exportParameters.setExportSinceSequence(PreferencesHelper.getLastExportSequence(bookUID));
 		}
 
 		exportParameters.setExportTarget(mExportTarget);
 		exportParameters.setExportLocation(mExportUri != null ? mExportUri.toString() : null);
 		exportParameters.setDeleteTransactionsAfterExport(mDeleteAllCheckBox.isChecked());
 		exportParameters.setCsvSeparator(mExportCsvSeparator);
+		exportParameters.setCompressionLevel(mExportCompressionLevel);
 
 		Log.i(TAG, "Commencing async export of transactions");
 //		new ExportAsyncUtil(getActivity(), GnuCashApplication.getActiveDb()).execute(exportParameters);
@@ -403,7 +486,7 @@ public class ExportFormFragment extends Fragment implements
 						} else {
 							Toast.makeText(getActivity(),
 									getString(R.string.toast_export_error,
-											exportParameters.getExportFormat().name())
+											exportParameters.getExportFormatsDisplayName())
 											+ "\n" + e.getMessage(),
 									Toast.LENGTH_SHORT).show();
 						}
@@ -588,6 +671,22 @@ public class ExportFormFragment extends Fragment implements
 		mSeparatorColonButton.setOnClickListener(radioClickListener);
 		mSeparatorSemicolonButton.setOnClickListener(radioClickListener);
 
+		mCompressionNoneButton.setOnClickListener(radioClickListener);
+		mCompressionFastButton.setOnClickListener(radioClickListener);
+		mCompressionBestButton.setOnClickListener(radioClickListener);
+
+		mAdditionalCsvTransactionsCheckBox.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+			@Override
+			public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+				if (mExportFormat == ExportFormat.CSVT)
+					return;
+				if (isChecked)
+					OptionsViewAnimationUtils.expand(mCsvOptionsLayout);
+				else
+					OptionsViewAnimationUtils.collapse(mCsvOptionsLayout);
+			}
+		});
+
 		ExportFormat defaultFormat = ExportFormat.valueOf(defaultExportFormat.toUpperCase());
 		switch (defaultFormat){
 			case QIF: mQifRadioButton.performClick(); break;
@@ -19,7 +19,6 @@ package org.gnucash.android.ui.homescreen;
 import android.app.Activity;
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -27,6 +26,7 @@ import android.content.SharedPreferences.Editor;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.os.Bundle;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.cursoradapter.widget.SimpleCursorAdapter;
 import androidx.preference.PreferenceManager;
@@ -40,6 +40,7 @@ import android.widget.Spinner;
 import android.widget.Toast;
 
 import org.gnucash.android.R;
+import org.gnucash.android.model.db.AccountPickerModel;
 import org.gnucash.android.model.db.BookDbHelper;
 import org.gnucash.android.model.db.DatabaseHelper;
 import org.gnucash.android.model.db.DatabaseSchema;
@@ -48,14 +49,14 @@ import org.gnucash.android.model.db.adapter.BooksDbAdapter;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.Book;
 import org.gnucash.android.model.data.Money;
-import org.gnucash.android.receivers.TransactionAppWidgetProvider;
 import org.gnucash.android.ui.account.AccountsActivity;
 import org.gnucash.android.ui.common.FormActivity;
 import org.gnucash.android.ui.common.UxArgument;
 import org.gnucash.android.ui.settings.PreferenceActivity;
 import org.gnucash.android.ui.transaction.TransactionsActivity;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
 
+import java.util.Collection;
 import java.util.Locale;
 
 /**
@@ -74,7 +75,7 @@ public class WidgetConfigurationActivity extends Activity {
 	private Button mCancelButton;
 
 
-	private SimpleCursorAdapter mAccountsCursorAdapter;
+	private QualifiedAccountNameAdapter mAccountsAdapter;
 
 
 	@Override
@@ -111,17 +112,17 @@ public class WidgetConfigurationActivity extends Activity {
 		mBooksSpinner.setSelection(position);
 
 		mAccountsDbAdapter = AccountsDbAdapter.getInstance();
-		Cursor cursor = mAccountsDbAdapter.fetchAllRecordsOrderedByFullName();
-		
-		if (cursor.getCount() <= 0){
+		AccountPickerModel.Selection accounts = selectAccounts(mAccountsDbAdapter);
+
+		if (accounts.size() <= 0){
 			Toast.makeText(this, R.string.error_no_accounts, Toast.LENGTH_LONG).show();
 			finish();
 		}
 
-		mAccountsCursorAdapter = new QualifiedAccountNameCursorAdapter(this, cursor);
+		mAccountsAdapter = new QualifiedAccountNameAdapter(this, accounts);
 		//without this line, the app crashes when a user tries to select an account
-		mAccountsCursorAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-		mAccountsSpinner.setAdapter(mAccountsCursorAdapter);
+		mAccountsAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+		mAccountsSpinner.setAdapter(mAccountsAdapter);
 
 		boolean passcodeEnabled = PreferenceManager.getDefaultSharedPreferences(getApplicationContext())
 				.getBoolean(UxArgument.ENABLED_PASSCODE, false);
@@ -130,6 +131,16 @@ public class WidgetConfigurationActivity extends Activity {
 		bindListeners();
 	}
 
+	/**
+	 * Selects the visible accounts of a book, which the widget can display
+	 * @param accountsDbAdapter Accounts database adapter for the book
+	 * @return Accounts sorted by full name
+	 */
+	private static AccountPickerModel.Selection selectAccounts(AccountsDbAdapter accountsDbAdapter) {
+		return accountsDbAdapter.getAccountPickerModel().select(
+				new AccountPickerModel.Filter().withoutRoot().visibleOnly(), false);
+	}
+
 	/**
 	 * Sets click listeners for the buttons in the dialog
 	 */
@@ -141,9 +152,7 @@ public class WidgetConfigurationActivity extends Activity {
 				SQLiteDatabase db = new DatabaseHelper(WidgetConfigurationActivity.this, book.getUID()).getWritableDatabase();
 				mAccountsDbAdapter = new AccountsDbAdapter(db);
 
-				Cursor cursor = mAccountsDbAdapter.fetchAllRecordsOrderedByFullName();
-				mAccountsCursorAdapter.swapCursor(cursor);
-				mAccountsCursorAdapter.notifyDataSetChanged();
+				mAccountsAdapter.setAccounts(selectAccounts(mAccountsDbAdapter));
 			}
 
 			@Override
@@ -170,7 +179,7 @@ public class WidgetConfigurationActivity extends Activity {
 				}
 
 				String bookUID = BooksDbAdapter.getInstance().getUID(mBooksSpinner.getSelectedItemId());
-				String accountUID = mAccountsDbAdapter.getUID(mAccountsSpinner.getSelectedItemId());
+				String accountUID = (String) mAccountsSpinner.getSelectedItem();
 				boolean hideAccountBalance = mHideAccountBalance.isChecked();
 				
 				configureWidget(WidgetConfigurationActivity.this, mAppWidgetId, bookUID, accountUID, hideAccountBalance);
@@ -249,20 +258,38 @@ public class WidgetConfigurationActivity extends Activity {
 	 */
 	public static void updateWidget(final Context context, int appWidgetId) {
 		Log.i("WidgetConfiguration", "Updating widget: " + appWidgetId);
-		AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
 
 		loadOldPreferences(context, appWidgetId);
 
 		SharedPreferences preferences = context.getSharedPreferences("widget:" + appWidgetId, MODE_PRIVATE);
 		String bookUID = preferences.getString(UxArgument.BOOK_UID, null);
 		String accountUID = preferences.getString(UxArgument.SELECTED_ACCOUNT_UID, null);
-		boolean hideAccountBalance = preferences.getBoolean(UxArgument.HIDE_ACCOUNT_BALANCE_IN_WIDGET, false);
 
 		if (bookUID == null || accountUID == null) {
 			return;
 		}
 
 		AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(BookDbHelper.getDatabase(bookUID));
+		updateWidget(context, appWidgetId, bookUID, accountUID, accountsDbAdapter, null, System.currentTimeMillis());
+	}
+
+	/**
+	 * Updates the widget with id <code>appWidgetId</code> which displays the account <code>accountUID</code>
+	 * <p>The account balance can be passed in when it is already known, e.g. when several widgets
+	 * display the same account.</p>
+	 * @param appWidgetId ID of the widget to be updated
+	 * @param bookUID GUID of the book of the account
+	 * @param accountUID GUID of the account displayed in the widget
+	 * @param accountsDbAdapter Accounts database adapter for the book
+	 * @param accountBalance Balance of the account, or {@code null} if it should be computed
+	 * @param time Time up to which the balance is computed
+	 * @return Balance of the account, or {@code accountBalance} if it was not needed
+	 */
+	static Money updateWidget(final Context context, int appWidgetId, String bookUID, String accountUID,
+							  AccountsDbAdapter accountsDbAdapter, @Nullable Money accountBalance, long time) {
+		AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+		SharedPreferences preferences = context.getSharedPreferences("widget:" + appWidgetId, MODE_PRIVATE);
+		boolean hideAccountBalance = preferences.getBoolean(UxArgument.HIDE_ACCOUNT_BALANCE_IN_WIDGET, false);
 
 		final Account account;
         try {
@@ -283,18 +310,18 @@ public class WidgetConfigurationActivity extends Activity {
 			Editor editor = PreferenceActivity.getActiveBookSharedPreferences().edit(); //PreferenceManager.getDefaultSharedPreferences(context).edit();
 			editor.remove(UxArgument.SELECTED_ACCOUNT_UID + appWidgetId);
 			editor.apply();
-			return;
+			return accountBalance;
 		}
 		
 		final RemoteViews views = new RemoteViews(context.getPackageName(),
 				R.layout.widget_4x1);
 		views.setTextViewText(R.id.account_name, account.getName());
 
-		Money accountBalance = accountsDbAdapter.getAccountBalance(accountUID, -1, System.currentTimeMillis());
-
 		if (hideAccountBalance) {
 			views.setViewVisibility(R.id.transactions_summary, View.GONE);
 		} else {
+			if (accountBalance == null)
+				accountBalance = accountsDbAdapter.getAccountBalance(accountUID, -1, time);
 			views.setTextViewText(R.id.transactions_summary,
 					accountBalance.formattedString(Locale.getDefault()));
 			int color = accountBalance.isNegative() ? R.color.debit_red : R.color.credit_green;
@@ -328,27 +355,29 @@ public class WidgetConfigurationActivity extends Activity {
 		}
 		
 		appWidgetManager.updateAppWidget(appWidgetId, views);
+		return accountBalance;
 	}
 
 	/**
-	 * Updates all widgets belonging to the application
+	 * Updates all widgets belonging to the application.
+	 * <p>The update is done asynchronously and coalesced with other requests made shortly after</p>
 	 * @param context Application context
+	 * @see WidgetRefreshScheduler
 	 */
 	public static void updateAllWidgets(final Context context){
 		Log.i("WidgetConfiguration", "Updating all widgets");
-		AppWidgetManager widgetManager = AppWidgetManager.getInstance(context);
-		ComponentName componentName = new ComponentName(context, TransactionAppWidgetProvider.class);
-		final int[] appWidgetIds = widgetManager.getAppWidgetIds(componentName);
+		WidgetRefreshScheduler.getInstance(context).requestRefresh();
+	}
 
-		//update widgets asynchronously so as not to block method which called the update
-		//inside the computation of the account balance
-		new Thread(new Runnable() {
-			@Override
-			public void run() {
-				for (final int widgetId : appWidgetIds) {
-					updateWidget(context, widgetId);
-				}
-			}
-		}).start();
+	/**
+	 * Updates the widgets displaying any of the accounts <code>accountUIDs</code> or one of their ancestors.
+	 * <p>The update is done asynchronously and coalesced with other requests made shortly after</p>
+	 * @param context Application context
+	 * @param bookUID GUID of the book containing the accounts
+	 * @param accountUIDs GUIDs of the accounts which were modified
+	 * @see WidgetRefreshScheduler
+	 */
+	public static void updateWidgets(final Context context, String bookUID, Collection<String> accountUIDs){
+		WidgetRefreshScheduler.getInstance(context).requestRefresh(bookUID, accountUIDs);
 	}
 }
@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gnucash.android.ui.homescreen;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.util.Log;
+
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.db.BookDbHelper;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.receivers.TransactionAppWidgetProvider;
+import org.gnucash.android.ui.common.UxArgument;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static android.content.Context.MODE_PRIVATE;
+
+/**
+ * Coalesces requests for refreshing the home screen widgets.
+ * <p>Refresh requests arriving within {@link #DEBOUNCE_MILLIS} of each other are merged and
+ * executed once on a background thread. Widgets are grouped by book and account so that the
+ * balance of each account is computed only once, and only the widgets whose account (or one of
+ * its descendants) was touched are refreshed.</p>
+ * @see WidgetConfigurationActivity#updateAllWidgets(Context)
+ */
+public class WidgetRefreshScheduler {
+    private static final String LOG_TAG = "WidgetRefreshScheduler";
+
+    /**
+     * Time to wait for further requests before refreshing the widgets
+     */
+    static final long DEBOUNCE_MILLIS = 500;
+
+    private static WidgetRefreshScheduler sInstance;
+
+    private final Context mContext;
+    private final Handler mHandler;
+
+    /**
+     * Accounts touched since the last refresh, per book UID
+     */
+    private final Map<String, Set<String>> mPendingAccounts = new HashMap<>();
+
+    /**
+     * Whether all widgets have to be refreshed, regardless of book or account
+     */
+    private boolean mRefreshAll = false;
+
+    private boolean mRefreshScheduled = false;
+
+    private final Runnable mRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            refreshPendingWidgets();
+        }
+    };
+
+    private WidgetRefreshScheduler(Context context) {
+        this(context, startRefreshThread());
+    }
+
+    /**
+     * Creates a scheduler which refreshes the widgets on the thread of {@code looper}
+     * @param context Context used to access the widgets
+     * @param looper Looper of the thread on which the widgets are refreshed
+     */
+    WidgetRefreshScheduler(Context context, Looper looper) {
+        mContext = context.getApplicationContext();
+        mHandler = new Handler(looper);
+    }
+
+    private static Looper startRefreshThread() {
+        HandlerThread thread = new HandlerThread(LOG_TAG, Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        return thread.getLooper();
+    }
+
+    /**
+     * Returns the application-wide widget refresh scheduler
+     * @param context Context used to access the widgets
+     * @return Widget refresh scheduler
+     */
+    public static synchronized WidgetRefreshScheduler getInstance(Context context) {
+        if (sInstance == null)
+            sInstance = new WidgetRefreshScheduler(context);
+        return sInstance;
+    }
+
+    /**
+     * Requests a refresh of all the widgets
+     */
+    public void requestRefresh() {
+        synchronized (this) {
+            mRefreshAll = true;
+            mPendingAccounts.clear();
+        }
+        scheduleRefresh();
+    }
+
+    /**
+     * Requests a refresh of the widgets displaying any of {@code accountUIDs} or one of their
+     * ancestor accounts
+     * @param bookUID GUID of the book containing the accounts
+     * @param accountUIDs GUIDs of the accounts which were modified
+     */
+    public void requestRefresh(@NonNull String bookUID, @NonNull Collection<String> accountUIDs) {
+        synchronized (this) {
+            if (!mRefreshAll) {
+                Set<String> pending = mPendingAccounts.get(bookUID);
+                if (pending == null) {
+                    pending = new HashSet<>();
+                    mPendingAccounts.put(bookUID, pending);
+                }
+                pending.addAll(accountUIDs);
+            }
+        }
+        scheduleRefresh();
+    }
+
+    private synchronized void scheduleRefresh() {
+        if (!mRefreshScheduled) {
+            mRefreshScheduled = true;
+            mHandler.postDelayed(mRefreshRunnable, DEBOUNCE_MILLIS);
+        }
+    }
+
+    /**
+     * Refreshes the widgets affected by the requests received since the last refresh
+     */
+    private void refreshPendingWidgets() {
+        boolean refreshAll;
+        Map<String, Set<String>> pendingAccounts;
+        synchronized (this) {
+            refreshAll = mRefreshAll;
+            pendingAccounts = new HashMap<>(mPendingAccounts);
+            mRefreshAll = false;
+            mPendingAccounts.clear();
+            mRefreshScheduled = false;
+        }
+
+        int[] appWidgetIds = getAppWidgetIds();
+        Log.i(LOG_TAG, "Refreshing widgets: " + (refreshAll ? "all" : pendingAccounts.keySet()));
+
+        //book UID -> account UID -> widgets displaying the account
+        Map<String, Map<String, List<Integer>>> widgetsByBook = new HashMap<>();
+        for (int appWidgetId : appWidgetIds) {
+            SharedPreferences preferences = mContext.getSharedPreferences("widget:" + appWidgetId, MODE_PRIVATE);
+            String bookUID = preferences.getString(UxArgument.BOOK_UID, null);
+            String accountUID = preferences.getString(UxArgument.SELECTED_ACCOUNT_UID, null);
+            if (bookUID == null || accountUID == null) {
+                //not yet migrated to the new configuration format, let the widget handle it
+                WidgetConfigurationActivity.updateWidget(mContext, appWidgetId);
+                continue;
+            }
+            if (!refreshAll && !pendingAccounts.containsKey(bookUID))
+                continue;
+
+            Map<String, List<Integer>> widgetsByAccount = widgetsByBook.get(bookUID);
+            if (widgetsByAccount == null) {
+                widgetsByAccount = new HashMap<>();
+                widgetsByBook.put(bookUID, widgetsByAccount);
+            }
+            List<Integer> widgetIds = widgetsByAccount.get(accountUID);
+            if (widgetIds == null) {
+                widgetIds = new ArrayList<>();
+                widgetsByAccount.put(accountUID, widgetIds);
+            }
+            widgetIds.add(appWidgetId);
+        }
+
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Map<String, List<Integer>>> bookEntry : widgetsByBook.entrySet()) {
+            String bookUID = bookEntry.getKey();
+            AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(BookDbHelper.getDatabase(bookUID));
+            Set<String> touchedAccounts = refreshAll ? null : pendingAccounts.get(bookUID);
+            Set<String> affectedAccounts = touchedAccounts == null
+                    ? null : getAccountsAndAncestors(accountsDbAdapter, touchedAccounts);
+
+            for (Map.Entry<String, List<Integer>> accountEntry : bookEntry.getValue().entrySet()) {
+                String accountUID = accountEntry.getKey();
+                if (affectedAccounts != null && !affectedAccounts.contains(accountUID))
+                    continue;
+
+                Money balance = null;
+                for (int appWidgetId : accountEntry.getValue()) {
+                    balance = updateWidget(appWidgetId, bookUID, accountUID, accountsDbAdapter, balance, now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the transaction widgets placed on the home screen
+     */
+    int[] getAppWidgetIds() {
+        AppWidgetManager widgetManager = AppWidgetManager.getInstance(mContext);
+        return widgetManager.getAppWidgetIds(new ComponentName(mContext, TransactionAppWidgetProvider.class));
+    }
+
+    /**
+     * Updates one widget displaying {@code accountUID}
+     * @param accountBalance Balance of the account, or {@code null} if it should be computed
+     * @return Balance of the account, to be reused for the other widgets displaying it
+     * @see WidgetConfigurationActivity#updateWidget(Context, int, String, String, AccountsDbAdapter, Money, long)
+     */
+    Money updateWidget(int appWidgetId, String bookUID, String accountUID,
+                       AccountsDbAdapter accountsDbAdapter, @Nullable Money accountBalance, long time) {
+        return WidgetConfigurationActivity.updateWidget(mContext, appWidgetId, bookUID, accountUID,
+                accountsDbAdapter, accountBalance, time);
+    }
+
+    /**
+     * Returns the accounts in {@code accountUIDs} together with all their ancestors.
+     * <p>A widget has to be refreshed if its account is in this set, because the balance
+     * shown in the widget includes the balances of the sub-accounts.</p>
+     * @param accountsDbAdapter Accounts database adapter of the book
+     * @param accountUIDs GUIDs of the modified accounts
+     * @return Set of account GUIDs whose balance may have changed
+     */
+    private static Set<String> getAccountsAndAncestors(AccountsDbAdapter accountsDbAdapter,
+                                                       Collection<String> accountUIDs) {
+        Set<String> result = new HashSet<>();
+        for (String accountUID : accountUIDs) {
+            String uid = accountUID;
+            while (uid != null && result.add(uid)) {
+                uid = accountsDbAdapter.getParentAccountUID(uid);
+            }
+        }
+        return result;
+    }
+}
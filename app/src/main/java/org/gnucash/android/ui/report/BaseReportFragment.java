@@ -17,9 +17,10 @@ package org.gnucash.android.ui.report;
 
 import android.content.Context;
 import android.graphics.Color;
-import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import androidx.annotation.LayoutRes;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StringRes;
 import androidx.fragment.app.Fragment;
@@ -31,6 +32,7 @@ import android.view.MenuInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.highlight.Highlight;
@@ -49,15 +51,19 @@ import org.joda.time.Years;
 /**
  * Base class for report fragments.
  * <p>All report fragments should extend this class. At the minimum, reports must implement
- * {@link #getLayoutResource()}, {@link #getReportType()}, {@link #generateReport()}, {@link #displayReport()} and {@link #getTitle()}</p>
+ * {@link #getLayoutResource()}, {@link #getReportType()}, {@link #generateReport(ReportEngine.Progress)},
+ * {@link #displayReport(Object)} and {@link #getTitle()}</p>
  * <p>Implementing classes should create their own XML layouts and provide it in {@link #getLayoutResource()}.
  * </p>
  * <p>Any custom information to be initialized for the report should be done in {@link #onActivityCreated(Bundle)} in implementing classes.
  * The report is then generated in {@link #onStart()}
  * </p>
+ * <p>Reports are generated by the {@link ReportEngine} of the {@link ReportsActivity}, which caches
+ * the report data for each combination of report parameters.</p>
+ * @param <T> Type of the data generated for the report
  * @author Ngewi Fet <ngewif@gmail.com>
  */
-public abstract class BaseReportFragment extends Fragment implements
+public abstract class BaseReportFragment<T> extends Fragment implements
         OnChartValueSelectedListener, ReportOptionsListener, Refreshable {
 
     /**
@@ -100,7 +106,7 @@ public abstract class BaseReportFragment extends Fragment implements
 
     protected TextView mSelectedValueTextView;
 
-    private AsyncTask<Void, Void, Void> mReportGenerator;
+    private CancellationSignal mReportCancellationSignal;
 
     /**
      * Return the title of this report
@@ -141,16 +147,51 @@ public abstract class BaseReportFragment extends Fragment implements
     /**
      * Generates the data for the report
      * <p>This method should not call any methods which modify the UI as it will be run in a background thread
-     * <br>Put any code to update the UI in {@link #displayReport()}
+     * <br>Put any code to update the UI in {@link #displayReport(Object)}
      * </p>
+     * <p>Long running reports should call {@link ReportEngine.Progress#throwIfCanceled()} between periods,
+     * and may publish the data generated so far with {@link ReportEngine.Progress#publish(Object)}.
+     * The returned data may be cached and displayed again later, so it should not depend on UI state.</p>
+     * @param progress Handle for cancellation and partial results
+     * @return Report data
      */
-    protected abstract void generateReport();
+    @NonNull
+    protected abstract T generateReport(ReportEngine.Progress<T> progress);
 
     /**
-     * Update the view after the report chart has been generated <br/>
-     * Sub-classes should call to the base method
+     * Update the view after the report chart has been generated
+     * @param report Report data returned by {@link #generateReport(ReportEngine.Progress)}
      */
-    protected abstract void displayReport();
+    protected abstract void displayReport(T report);
+
+    /**
+     * Update the view with incomplete report data while the report is still being generated.
+     * <p>The base implementation does nothing</p>
+     * @param partialReport Report data published by {@link #generateReport(ReportEngine.Progress)}
+     */
+    protected void displayPartialReport(T partialReport) {
+        //nothing to see here, move along
+    }
+
+    /**
+     * Returns the key identifying the data of this report with the current report parameters
+     * @return Report cache key
+     */
+    protected ReportEngine.ReportKey getReportKey() {
+        return new ReportEngine.ReportKey(getReportType(),
+                requiresAccountTypeOptions() ? mAccountType : null,
+                mCommodity.getCurrencyCode(), mReportPeriodStart, mReportPeriodEnd, mGroupInterval,
+                isAccountColorUsed());
+    }
+
+    /**
+     * Returns {@code true} if the report is drawn with the colors of the accounts.
+     * <p>The base implementation returns {@code false}</p>
+     * @return {@code true} if account colors are used, {@code false} for the default chart colors
+     */
+    protected boolean isAccountColorUsed() {
+        return false;
+    }
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -210,8 +251,14 @@ public abstract class BaseReportFragment extends Fragment implements
     @Override
     public void onDetach() {
         super.onDetach();
-        if (mReportGenerator != null)
-            mReportGenerator.cancel(true);
+        cancelReportGeneration();
+    }
+
+    private void cancelReportGeneration() {
+        if (mReportCancellationSignal != null) {
+            mReportCancellationSignal.cancel();
+            mReportCancellationSignal = null;
+        }
     }
 
     private void toggleBaseReportingOptionsVisibility() {
@@ -267,29 +314,35 @@ public abstract class BaseReportFragment extends Fragment implements
 
     @Override
     public void refresh() {
-        if (mReportGenerator != null)
-            mReportGenerator.cancel(true);
-
-        mReportGenerator = new AsyncTask<Void, Void, Void>() {
-
-            @Override
-            protected void onPreExecute() {
-                mReportsActivity.getProgressBar().setVisibility(View.VISIBLE);
-            }
-
-            @Override
-            protected Void doInBackground(Void... params) {
-                generateReport();
-                return null;
-            }
-
-            @Override
-            protected void onPostExecute(Void aVoid) {
-                displayReport();
-                mReportsActivity.getProgressBar().setVisibility(View.GONE);
-            }
-        };
-        mReportGenerator.execute();
+        cancelReportGeneration();
+
+        mReportsActivity.getProgressBar().setVisibility(View.VISIBLE);
+        mReportCancellationSignal = mReportsActivity.getReportEngine().submit(getReportKey(),
+                this::generateReport, new ReportEngine.ReportCallback<T>() {
+                    @Override
+                    public void onPartialReport(T partialReport) {
+                        displayPartialReport(partialReport);
+                    }
+
+                    @Override
+                    public void onReport(T report) {
+                        displayReport(report);
+                        mReportsActivity.getProgressBar().setVisibility(View.GONE);
+                    }
+
+                    @Override
+                    public void onReportFailed(Exception error) {
+                        mReportsActivity.getProgressBar().setVisibility(View.GONE);
+                        Toast.makeText(mReportsActivity, R.string.toast_error_generating_report,
+                                Toast.LENGTH_SHORT).show();
+                    }
+
+                    @Override
+                    public void onReportCancelled() {
+                        mReportCancellationSignal = null;
+                        mReportsActivity.getProgressBar().setVisibility(View.GONE);
+                    }
+                });
     }
 
     /**
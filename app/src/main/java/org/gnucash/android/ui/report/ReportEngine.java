@@ -0,0 +1,420 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.ui.report;
+
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseChangeBus;
+import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Runs report generation off the main thread, with cooperative cancellation and memoization.
+ * <p>Reports are generated one at a time on a dedicated worker thread, since they all read from
+ * the same database connection anyway. Superseded reports are cancelled through their
+ * {@link CancellationSignal} and stop at the next call to {@link Progress#throwIfCanceled()}.</p>
+ * <p>Completed reports are kept in a small LRU cache keyed by {@link ReportKey}, so going back to
+ * a previously displayed period, grouping or account type does not hit the database again.
+ * The cache lives as long as the owning {@link ReportsActivity} and is dropped by {@link #clearCache()}.
+ * Changes published on the {@link DatabaseChangeBus} only evict the reports of the affected account types.</p>
+ */
+public class ReportEngine {
+
+    private static final String LOG_TAG = "ReportEngine";
+
+    /**
+     * Maximum number of generated reports kept in memory
+     */
+    private static final int CACHE_SIZE = 16;
+
+    /**
+     * Maximum number of reports waiting for the worker thread.
+     * Older requests are dropped first, they have been superseded by newer ones anyway.
+     * The callback of a dropped request is notified through {@link ReportCallback#onReportCancelled()}.
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static final Executor REPORT_EXECUTOR;
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-generator");
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                (runnable, threadPoolExecutor) -> {
+                    if (threadPoolExecutor.isShutdown())
+                        return;
+                    Runnable droppedTask = threadPoolExecutor.getQueue().poll();
+                    if (droppedTask instanceof ReportTask)
+                        ((ReportTask<?>) droppedTask).discard();
+                    threadPoolExecutor.execute(runnable);
+                });
+        executor.allowCoreThreadTimeOut(true);
+        REPORT_EXECUTOR = executor;
+    }
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final LruCache<ReportKey, Object> mCache = new LruCache<>(CACHE_SIZE);
+
+    /**
+     * Number of evictions so far. Reports generated while an eviction happened are not cached,
+     * as they may have been read before the change
+     */
+    private final AtomicLong mGeneration = new AtomicLong();
+
+    private final Disposable mChangesSubscription;
+
+    public ReportEngine() {
+        mChangesSubscription = DatabaseChangeBus.batchedChanges(DatabaseChangeBus.DEFAULT_BATCH_MILLIS)
+                .observeOn(Schedulers.io())
+                .subscribe(this::invalidate,
+                        throwable -> Log.e(LOG_TAG, "Error observing database changes", throwable));
+    }
+
+    /**
+     * Generates the report data in a background thread
+     * @param <T> Type of the report data
+     */
+    public interface ReportGenerator<T> {
+        /**
+         * Generates the report.
+         * <p>This method is called from a worker thread and must not touch the UI</p>
+         * @param progress Handle for checking cancellation and publishing partial results
+         * @return Report data, never {@code null}
+         */
+        @NonNull T generate(Progress<T> progress);
+    }
+
+    /**
+     * Receives report results on the main thread
+     * @param <T> Type of the report data
+     */
+    public interface ReportCallback<T> {
+        /**
+         * Called with intermediate data while the report is being generated
+         * @param partialReport Incomplete report data
+         */
+        void onPartialReport(T partialReport);
+
+        /**
+         * Called once with the complete report data
+         * @param report Report data
+         */
+        void onReport(T report);
+
+        /**
+         * Called if the report generation failed
+         * @param error Exception thrown by the generator
+         */
+        void onReportFailed(Exception error);
+
+        /**
+         * Called if the report was dropped from the queue before it was generated,
+         * because too many newer reports were submitted
+         */
+        void onReportCancelled();
+    }
+
+    /**
+     * Handle passed to a {@link ReportGenerator} for cooperative cancellation and partial results
+     * @param <T> Type of the report data
+     */
+    public static class Progress<T> {
+        private final CancellationSignal mCancellationSignal;
+        private final Handler mHandler;
+        private final ReportCallback<T> mCallback;
+        private final AtomicReference<T> mPendingPartialReport = new AtomicReference<>();
+
+        Progress(CancellationSignal cancellationSignal, Handler handler, ReportCallback<T> callback) {
+            mCancellationSignal = cancellationSignal;
+            mHandler = handler;
+            mCallback = callback;
+        }
+
+        /**
+         * Stops the report generation if it has been cancelled.
+         * <p>Generators should call this between units of work, e.g. once per period</p>
+         * @throws OperationCanceledException if the report was cancelled
+         */
+        public void throwIfCanceled() {
+            mCancellationSignal.throwIfCanceled();
+        }
+
+        /**
+         * Publishes intermediate report data to the main thread.
+         * <p>Partial reports published faster than the main thread can display them are coalesced,
+         * only the latest one is delivered.</p>
+         * @param partialReport Incomplete report data. Must not be modified after publishing
+         */
+        public void publish(T partialReport) {
+            if (mPendingPartialReport.getAndSet(partialReport) != null)
+                return; //a delivery is already scheduled and will pick up the latest data
+
+            mHandler.post(() -> {
+                T report = mPendingPartialReport.getAndSet(null);
+                if (report != null && !mCancellationSignal.isCanceled())
+                    mCallback.onPartialReport(report);
+            });
+        }
+    }
+
+    /**
+     * Returns the report for {@code key}, generating it if it is not in the cache.
+     * <p>Cached reports are delivered immediately on the calling thread. Otherwise the callback
+     * is invoked on the main thread once the report has been generated, unless it was cancelled.</p>
+     * @param key Parameters which uniquely identify the report data
+     * @param generator Generator for the report data
+     * @param callback Callback for receiving the report
+     * @param <T> Type of the report data
+     * @return Signal for cancelling the report generation
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CancellationSignal submit(@NonNull final ReportKey key,
+                                         @NonNull final ReportGenerator<T> generator,
+                                         @NonNull final ReportCallback<T> callback) {
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        T cachedReport = (T) mCache.get(key);
+        if (cachedReport != null) {
+            callback.onReport(cachedReport);
+            return cancellationSignal;
+        }
+
+        REPORT_EXECUTOR.execute(new ReportTask<>(key, generator, callback, cancellationSignal));
+        return cancellationSignal;
+    }
+
+    /**
+     * Generates one report on the worker thread and delivers it on the main thread
+     * @param <T> Type of the report data
+     */
+    private class ReportTask<T> implements Runnable {
+        private final ReportKey mKey;
+        private final ReportGenerator<T> mGenerator;
+        private final ReportCallback<T> mCallback;
+        private final CancellationSignal mCancellationSignal;
+
+        ReportTask(ReportKey key, ReportGenerator<T> generator, ReportCallback<T> callback,
+                   CancellationSignal cancellationSignal) {
+            mKey = key;
+            mGenerator = generator;
+            mCallback = callback;
+            mCancellationSignal = cancellationSignal;
+        }
+
+        @Override
+        public void run() {
+            if (mCancellationSignal.isCanceled())
+                return;
+            try {
+                long generation = mGeneration.get();
+                final T report = mGenerator.generate(new Progress<>(mCancellationSignal, mMainHandler, mCallback));
+                //a cancelled generator may have seen report parameters which no longer match the key
+                if (mCancellationSignal.isCanceled())
+                    return;
+                if (generation == mGeneration.get())
+                    mCache.put(mKey, report);
+                mMainHandler.post(() -> {
+                    if (!mCancellationSignal.isCanceled())
+                        mCallback.onReport(report);
+                });
+            } catch (OperationCanceledException e) {
+                Log.d(LOG_TAG, "Report generation cancelled: " + mKey);
+            } catch (final Exception e) {
+                Log.e(LOG_TAG, "Error generating report " + mKey, e);
+                mMainHandler.post(() -> {
+                    if (!mCancellationSignal.isCanceled())
+                        mCallback.onReportFailed(e);
+                });
+            }
+        }
+
+        /**
+         * Cancels the report after it was dropped from the queue of the worker thread.
+         * <p>The callback is only notified if the caller did not cancel the report itself</p>
+         */
+        void discard() {
+            Log.d(LOG_TAG, "Report dropped from the queue: " + mKey);
+            if (mCancellationSignal.isCanceled())
+                return;
+            mCancellationSignal.cancel();
+            mMainHandler.post(mCallback::onReportCancelled);
+        }
+    }
+
+    /**
+     * Discards all cached reports.
+     * <p>Should be called whenever the underlying data may have changed</p>
+     */
+    public void clearCache() {
+        mGeneration.incrementAndGet();
+        mCache.evictAll();
+    }
+
+    /**
+     * Stops observing database changes and discards all cached reports.
+     * <p>Should be called when the owning activity is destroyed</p>
+     */
+    public void close() {
+        mChangesSubscription.dispose();
+        clearCache();
+    }
+
+    /**
+     * Evicts the cached reports which may include data changed in the database.
+     * <p>Reports are only generated from accounts, transactions, splits and prices. Reports for
+     * a specific account type are kept if none of the changed accounts has that type.</p>
+     * @param changes Batch of database changes
+     */
+    private void invalidate(List<DatabaseChange> changes) {
+        Set<AccountType> accountTypes = EnumSet.noneOf(AccountType.class);
+        AccountsDbAdapter accountsDbAdapter = null;
+        for (DatabaseChange change : changes) {
+            String tableName = change.getTableName();
+            if (!tableName.equals(DatabaseSchema.AccountEntry.TABLE_NAME)
+                    && !tableName.equals(DatabaseSchema.TransactionEntry.TABLE_NAME)
+                    && !tableName.equals(DatabaseSchema.SplitEntry.TABLE_NAME)
+                    && !tableName.equals(DatabaseSchema.PriceEntry.TABLE_NAME))
+                continue;
+            if (change.affectsAllBalances()) {
+                Log.d(LOG_TAG, "Evicting all reports after " + change);
+                clearCache();
+                return;
+            }
+            if (accountsDbAdapter == null)
+                accountsDbAdapter = AccountsDbAdapter.getInstance();
+            for (String accountUID : change.getAccountUIDs()) {
+                try {
+                    accountTypes.add(accountsDbAdapter.getAccountType(accountUID));
+                } catch (IllegalArgumentException e) {
+                    //the account was deleted, its type is unknown
+                    clearCache();
+                    return;
+                }
+            }
+        }
+        if (accountTypes.isEmpty())
+            return;
+        mGeneration.incrementAndGet();
+        for (ReportKey key : mCache.snapshot().keySet()) {
+            if (key.getAccountType() == null || accountTypes.contains(key.getAccountType())) {
+                Log.d(LOG_TAG, "Evicting report " + key);
+                mCache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Parameters which identify the data of a generated report
+     */
+    public static final class ReportKey {
+        private final ReportType mReportType;
+        private final AccountType mAccountType;
+        private final String mCurrencyCode;
+        private final long mPeriodStart;
+        private final long mPeriodEnd;
+        private final ReportsActivity.GroupInterval mGroupInterval;
+        private final boolean mUseAccountColor;
+
+        public ReportKey(@NonNull ReportType reportType, @Nullable AccountType accountType,
+                         @NonNull String currencyCode, long periodStart, long periodEnd,
+                         @Nullable ReportsActivity.GroupInterval groupInterval) {
+            this(reportType, accountType, currencyCode, periodStart, periodEnd, groupInterval, false);
+        }
+
+        /**
+         * @param useAccountColor {@code true} if the report data holds the colors of the accounts,
+         *                        instead of the default chart colors
+         */
+        public ReportKey(@NonNull ReportType reportType, @Nullable AccountType accountType,
+                         @NonNull String currencyCode, long periodStart, long periodEnd,
+                         @Nullable ReportsActivity.GroupInterval groupInterval, boolean useAccountColor) {
+            mReportType = reportType;
+            mAccountType = accountType;
+            mCurrencyCode = currencyCode;
+            mPeriodStart = periodStart;
+            mPeriodEnd = periodEnd;
+            mGroupInterval = groupInterval;
+            mUseAccountColor = useAccountColor;
+        }
+
+        /**
+         * Returns the type of the accounts included in the report
+         * @return Account type, or {@code null} if the report includes all account types
+         */
+        @Nullable
+        public AccountType getAccountType() {
+            return mAccountType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ReportKey that = (ReportKey) o;
+            return mPeriodStart == that.mPeriodStart
+                    && mPeriodEnd == that.mPeriodEnd
+                    && mReportType == that.mReportType
+                    && mAccountType == that.mAccountType
+                    && mCurrencyCode.equals(that.mCurrencyCode)
+                    && mGroupInterval == that.mGroupInterval
+                    && mUseAccountColor == that.mUseAccountColor;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mReportType.hashCode();
+            result = 31 * result + (mAccountType != null ? mAccountType.hashCode() : 0);
+            result = 31 * result + mCurrencyCode.hashCode();
+            result = 31 * result + (int) (mPeriodStart ^ (mPeriodStart >>> 32));
+            result = 31 * result + (int) (mPeriodEnd ^ (mPeriodEnd >>> 32));
+            result = 31 * result + (mGroupInterval != null ? mGroupInterval.hashCode() : 0);
+            result = 31 * result + (mUseAccountColor ? 1 : 0);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return mReportType + " " + mAccountType + " " + mCurrencyCode
+                    + " [" + mPeriodStart + ", " + mPeriodEnd + "] " + mGroupInterval
+                    + (mUseAccountColor ? " account colors" : "");
+        }
+    }
+}
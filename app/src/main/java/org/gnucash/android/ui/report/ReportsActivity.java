@@ -82,6 +82,7 @@ public class ReportsActivity extends BaseDrawerActivity implements AdapterView.O
     private AccountType mAccountType = AccountType.EXPENSE;
     private ReportType mReportType = ReportType.NONE;
     private ReportsOverviewFragment mReportsOverviewFragment;
+    private final ReportEngine mReportEngine = new ReportEngine();
 
     public enum GroupInterval {WEEK, MONTH, QUARTER, YEAR, ALL}
 
@@ -402,8 +403,17 @@ public class ReportsActivity extends BaseDrawerActivity implements AdapterView.O
         return super.onKeyUp(keyCode, event);
     }
 
+    /**
+     * Returns the engine which generates and caches the reports displayed in this activity
+     * @return Report engine
+     */
+    public ReportEngine getReportEngine() {
+        return mReportEngine;
+    }
+
     @Override
     public void refresh() {
+        mReportEngine.clearCache();
         List<Fragment> fragments = getSupportFragmentManager().getFragments();
         for (Fragment fragment : fragments) {
             if (fragment instanceof Refreshable){
@@ -420,6 +430,12 @@ public class ReportsActivity extends BaseDrawerActivity implements AdapterView.O
         refresh();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mReportEngine.close();
+    }
+
     @Override
     protected void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
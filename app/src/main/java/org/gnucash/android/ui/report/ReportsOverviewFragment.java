@@ -18,6 +18,7 @@ package org.gnucash.android.ui.report;
 import android.content.res.ColorStateList;
 import android.os.Build;
 import android.os.Bundle;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.widget.AppCompatButton;
 import androidx.core.view.ViewCompat;
@@ -60,7 +61,7 @@ import static com.github.mikephil.charting.components.Legend.LegendPosition;
  * Shows a summary of reports
  * @author Ngewi Fet <ngewif@gmail.com>
  */
-public class ReportsOverviewFragment extends BaseReportFragment {
+public class ReportsOverviewFragment extends BaseReportFragment<ReportsOverviewFragment.Summary> {
 
     public static final int LEGEND_TEXT_SIZE = 14;
 
@@ -75,10 +76,15 @@ public class ReportsOverviewFragment extends BaseReportFragment {
     private TextView mNetWorth;
 
     private AccountsDbAdapter mAccountsDbAdapter;
-    private Money mAssetsBalance;
-    private Money mLiabilitiesBalance;
 
-    private boolean mChartHasData = false;
+    /**
+     * Data displayed in the reports overview
+     */
+    static class Summary {
+        PieData expenses;
+        Money assetsBalance;
+        Money liabilitiesBalance;
+    }
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -162,44 +168,36 @@ public class ReportsOverviewFragment extends BaseReportFragment {
         menu.findItem(R.id.menu_group_reports_by).setVisible(false);
     }
 
+    @NonNull
     @Override
-    protected void generateReport() {
-        PieData pieData = PieChartFragment.groupSmallerSlices(getData(), getActivity());
-        if (pieData != null && pieData.getYValCount() != 0) {
-            mChart.setData(pieData);
-            float sum = mChart.getData().getYValueSum();
-            String total = getResources().getString(R.string.label_chart_total);
-            String currencySymbol = mCommodity.getSymbol();
-            mChart.setCenterText(String.format(PieChartFragment.TOTAL_VALUE_LABEL_PATTERN, total, sum, currencySymbol));
-            mChartHasData = true;
-        } else {
-            mChart.setData(getEmptyData());
-            mChart.setCenterText(getResources().getString(R.string.label_chart_no_data));
-            mChart.getLegend().setEnabled(false);
-            mChartHasData = false;
-        }
+    protected Summary generateReport(ReportEngine.Progress<Summary> progress) {
+        Summary summary = new Summary();
+        summary.expenses = getData(progress);
 
         List<AccountType> accountTypes = new ArrayList<>();
         accountTypes.add(AccountType.ASSET);
         accountTypes.add(AccountType.CASH);
         accountTypes.add(AccountType.BANK);
-        mAssetsBalance = mAccountsDbAdapter.getAccountBalance(accountTypes, -1, System.currentTimeMillis());
+        summary.assetsBalance = mAccountsDbAdapter.getAccountBalance(accountTypes, -1, System.currentTimeMillis());
 
         accountTypes.clear();
         accountTypes.add(AccountType.LIABILITY);
         accountTypes.add(AccountType.CREDIT);
-        mLiabilitiesBalance = mAccountsDbAdapter.getAccountBalance(accountTypes, -1, System.currentTimeMillis());
+        summary.liabilitiesBalance = mAccountsDbAdapter.getAccountBalance(accountTypes, -1, System.currentTimeMillis());
+        return summary;
     }
 
     /**
      * Returns {@code PieData} instance with data entries, colors and labels
+     * @param progress Report progress, checked for cancellation after each account
      * @return {@code PieData} instance
      */
-    private PieData getData() {
+    private PieData getData(ReportEngine.Progress<Summary> progress) {
         PieDataSet dataSet = new PieDataSet(null, "");
         List<String> labels = new ArrayList<>();
         List<Integer> colors = new ArrayList<>();
         for (Account account : mAccountsDbAdapter.getSimpleAccountList()) {
+            progress.throwIfCanceled();
             if (account.getAccountType() == AccountType.EXPENSE
                     && !account.isPlaceholderAccount()
                     && account.getCommodity().equals(mCommodity)) {
@@ -223,19 +221,28 @@ public class ReportsOverviewFragment extends BaseReportFragment {
     }
 
     @Override
-    protected void displayReport() {
-        if (mChartHasData){
+    protected void displayReport(Summary summary) {
+        PieData pieData = PieChartFragment.groupSmallerSlices(summary.expenses, getActivity());
+        if (pieData.getYValCount() != 0) {
+            mChart.setData(pieData);
+            float sum = mChart.getData().getYValueSum();
+            String total = getResources().getString(R.string.label_chart_total);
+            String currencySymbol = mCommodity.getSymbol();
+            mChart.setCenterText(String.format(PieChartFragment.TOTAL_VALUE_LABEL_PATTERN, total, sum, currencySymbol));
             mChart.animateXY(1800, 1800);
             mChart.setTouchEnabled(true);
         } else {
+            mChart.setData(getEmptyData());
+            mChart.setCenterText(getResources().getString(R.string.label_chart_no_data));
+            mChart.getLegend().setEnabled(false);
             mChart.setTouchEnabled(false);
         }
         mChart.highlightValues(null);
         mChart.invalidate();
 
-        TransactionsActivity.displayBalance(mTotalAssets, mAssetsBalance);
-        TransactionsActivity.displayBalance(mTotalLiabilities, mLiabilitiesBalance);
-        TransactionsActivity.displayBalance(mNetWorth, mAssetsBalance.subtract(mLiabilitiesBalance));
+        TransactionsActivity.displayBalance(mTotalAssets, summary.assetsBalance);
+        TransactionsActivity.displayBalance(mTotalLiabilities, summary.liabilitiesBalance);
+        TransactionsActivity.displayBalance(mNetWorth, summary.assetsBalance.subtract(summary.liabilitiesBalance));
     }
 
     /**
@@ -19,6 +19,7 @@ package org.gnucash.android.ui.report.barchart;
 
 import android.os.Bundle;
 import android.preference.PreferenceManager;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -43,6 +44,7 @@ import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.AccountType;
 import org.gnucash.android.ui.report.BaseReportFragment;
+import org.gnucash.android.ui.report.ReportEngine;
 import org.gnucash.android.ui.report.ReportType;
 import org.joda.time.LocalDate;
 import org.joda.time.LocalDateTime;
@@ -63,7 +65,7 @@ import static org.gnucash.android.ui.report.ReportsActivity.COLORS;
  * @author Oleksandr Tyshkovets <olexandr.tyshkovets@gmail.com>
  * @author Ngewi Fet <ngewif@gmail.com>
  */
-public class StackedBarChartFragment extends BaseReportFragment {
+public class StackedBarChartFragment extends BaseReportFragment<BarData> {
 
     private static final String X_AXIS_MONTH_PATTERN = "MMM YY";
     private static final String X_AXIS_QUARTER_PATTERN = "Q%d %s";
@@ -79,6 +81,10 @@ public class StackedBarChartFragment extends BaseReportFragment {
     private boolean mUseAccountColor = true;
     private boolean mTotalPercentageMode = true;
     private boolean mChartDataPresent = true;
+    /**
+     * Bars are not animated again once partial results have been drawn
+     */
+    private boolean mPartialReportDisplayed = false;
 
     @Override
     public int getTitle() {
@@ -103,6 +109,11 @@ public class StackedBarChartFragment extends BaseReportFragment {
         return view;
     }
 
+    @Override
+    protected boolean isAccountColorUsed() {
+        return mUseAccountColor;
+    }
+
     @Override
     public void onActivityCreated(@Nullable Bundle savedInstanceState) {
         super.onActivityCreated(savedInstanceState);
@@ -128,9 +139,11 @@ public class StackedBarChartFragment extends BaseReportFragment {
 
     /**
      * Returns a data object that represents a user data of the specified account types
+     * <p>The bars of the periods generated so far are published after each period</p>
+     * @param progress Report progress for cancellation and partial results
      * @return a {@code BarData} instance that represents a user data
      */
-    protected BarData getData() {
+    protected BarData getData(ReportEngine.Progress<BarData> progress) {
         List<BarEntry> values = new ArrayList<>();
         List<String> labels = new ArrayList<>();
         List<Integer> colors = new ArrayList<>();
@@ -140,6 +153,7 @@ public class StackedBarChartFragment extends BaseReportFragment {
         int count = getDateDiff(new LocalDateTime(getStartDate(mAccountType).toDate().getTime()),
                 new LocalDateTime(getEndDate(mAccountType).toDate().getTime()));
         for (int i = 0; i <= count; i++) {
+            progress.throwIfCanceled();
             long start = 0;
             long end = 0;
             switch (mGroupInterval) {
@@ -168,6 +182,7 @@ public class StackedBarChartFragment extends BaseReportFragment {
             }
             List<Float> stack = new ArrayList<>();
             for (Account account : mAccountsDbAdapter.getSimpleAccountList()) {
+                progress.throwIfCanceled();
                 if (account.getAccountType() == mAccountType
                         && !account.isPlaceholderAccount()
                         && account.getCommodity().equals(mCommodity)) {
@@ -211,19 +226,28 @@ public class StackedBarChartFragment extends BaseReportFragment {
 
             String stackLabels = labels.subList(labels.size() - stack.size(), labels.size()).toString();
             values.add(new BarEntry(floatListToArray(stack), i, stackLabels));
+            if (i < count)
+                progress.publish(createBarData(xValues, values, labels, colors));
         }
 
-        BarDataSet set = new BarDataSet(values, "");
+        return createBarData(xValues, values, labels, colors);
+    }
+
+    /**
+     * Creates the bar data from copies of the specified lists, which may still be modified afterwards
+     * @param xValues x-axis labels of the bars
+     * @param values Stacked bar entries
+     * @param labels Labels of the stack entries
+     * @param colors Colors of the stack entries
+     * @return a {@code BarData} instance
+     */
+    private BarData createBarData(List<String> xValues, List<BarEntry> values,
+                                  List<String> labels, List<Integer> colors) {
+        BarDataSet set = new BarDataSet(new ArrayList<>(values), "");
         set.setDrawValues(false);
         set.setStackLabels(labels.toArray(new String[labels.size()]));
-        set.setColors(colors);
-
-        if (set.getYValueSum() == 0) {
-            mChartDataPresent = false;
-            return getEmptyData();
-        }
-        mChartDataPresent = true;
-        return new BarData(xValues, set);
+        set.setColors(new ArrayList<>(colors));
+        return new BarData(new ArrayList<>(xValues), set);
     }
 
     /**
@@ -296,26 +320,46 @@ public class StackedBarChartFragment extends BaseReportFragment {
     }
 
 
+    @NonNull
     @Override
-    public void generateReport() {
-        mChart.setData(getData());
+    protected BarData generateReport(ReportEngine.Progress<BarData> progress) {
+        return getData(progress);
+    }
+
+    @Override
+    protected void displayPartialReport(BarData barData) {
+        if (barData.getYValueSum() == 0)
+            return;
+
+        mPartialReportDisplayed = true;
+        mChart.setData(barData);
+        setCustomLegend();
+        mChart.getAxisLeft().setDrawLabels(true);
+        mChart.getXAxis().setDrawLabels(true);
+        mChart.notifyDataSetChanged();
+        mChart.invalidate();
+    }
+
+    @Override
+    protected void displayReport(BarData barData) {
+        mChartDataPresent = barData.getYValueSum() != 0;
+        mChart.setData(mChartDataPresent ? barData : getEmptyData());
         setCustomLegend();
 
         mChart.getAxisLeft().setDrawLabels(mChartDataPresent);
         mChart.getXAxis().setDrawLabels(mChartDataPresent);
         mChart.setTouchEnabled(mChartDataPresent);
-    }
 
-    @Override
-    protected void displayReport() {
         mChart.notifyDataSetChanged();
         mChart.highlightValues(null);
         if (mChartDataPresent) {
-            mChart.animateY(ANIMATION_DURATION);
+            if (!mPartialReportDisplayed)
+                mChart.animateY(ANIMATION_DURATION);
         } else {
             mChart.clearAnimation();
             mSelectedValueTextView.setText(R.string.label_chart_no_data);
         }
+        mPartialReportDisplayed = false;
 
         mChart.invalidate();
     }
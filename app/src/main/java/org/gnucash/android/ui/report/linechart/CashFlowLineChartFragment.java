@@ -26,6 +26,7 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.github.mikephil.charting.charts.LineChart;
@@ -43,8 +44,8 @@ import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.AccountType;
 import org.gnucash.android.ui.report.BaseReportFragment;
+import org.gnucash.android.ui.report.ReportEngine;
 import org.gnucash.android.ui.report.ReportType;
-import org.gnucash.android.ui.report.ReportsActivity.GroupInterval;
 import org.joda.time.LocalDate;
 import org.joda.time.LocalDateTime;
 
@@ -62,7 +63,7 @@ import java.util.Map;
  * @author Oleksandr Tyshkovets <olexandr.tyshkovets@gmail.com>
  * @author Ngewi Fet <ngewif@gmail.com>
  */
-public class CashFlowLineChartFragment extends BaseReportFragment {
+public class CashFlowLineChartFragment extends BaseReportFragment<LineData> {
 
     private static final String X_AXIS_PATTERN = "MMM YY";
     private static final int ANIMATION_DURATION = 3000;
@@ -82,6 +83,10 @@ public class CashFlowLineChartFragment extends BaseReportFragment {
     private long mEarliestTransactionTimestamp;
     private long mLatestTransactionTimestamp;
     private boolean mChartDataPresent = true;
+    /**
+     * Lines are not animated again once partial results have been drawn
+     */
+    private boolean mPartialReportDisplayed = false;
 
     private LineChart mChart;
 
@@ -128,10 +133,12 @@ public class CashFlowLineChartFragment extends BaseReportFragment {
 
     /**
      * Returns a data object that represents a user data of the specified account types
+     * <p>The lines generated so far are published after each account type</p>
      * @param accountTypeList account's types which will be displayed
+     * @param progress Report progress for cancellation and partial results
      * @return a {@code LineData} instance that represents a user data
      */
-    private LineData getData(List<AccountType> accountTypeList) {
+    private LineData getData(List<AccountType> accountTypeList, ReportEngine.Progress<LineData> progress) {
         Log.w(TAG, "getData");
         calculateEarliestAndLatestTimestamps(accountTypeList);
         // LocalDateTime?
@@ -172,21 +179,18 @@ public class CashFlowLineChartFragment extends BaseReportFragment {
 
         List<LineDataSet> dataSets = new ArrayList<>();
         for (AccountType accountType : accountTypeList) {
-            LineDataSet set = new LineDataSet(getEntryList(accountType), accountType.toString());
+            LineDataSet set = new LineDataSet(getEntryList(accountType, progress), accountType.toString());
             set.setDrawFilled(true);
             set.setLineWidth(2);
             set.setColor(COLORS[dataSets.size()]);
             set.setFillColor(FILL_COLORS[dataSets.size()]);
 
             dataSets.add(set);
+            if (dataSets.size() < accountTypeList.size())
+                progress.publish(new LineData(xValues, new ArrayList<>(dataSets)));
         }
 
-        LineData lineData = new LineData(xValues, dataSets);
-        if (lineData.getYValueSum() == 0) {
-            mChartDataPresent = false;
-            return getEmptyData();
-        }
-        return lineData;
+        return new LineData(xValues, dataSets);
     }
 
     /**
@@ -212,9 +216,10 @@ public class CashFlowLineChartFragment extends BaseReportFragment {
     /**
      * Returns entries which represent a user data of the specified account type
      * @param accountType account's type which user data will be processed
+     * @param progress Report progress, checked for cancellation after each period
      * @return entries which represent a user data
      */
-    private List<Entry> getEntryList(AccountType accountType) {
+    private List<Entry> getEntryList(AccountType accountType, ReportEngine.Progress<LineData> progress) {
         List<String> accountUIDList = new ArrayList<>();
         for (Account account : mAccountsDbAdapter.getSimpleAccountList()) {
             if (account.getAccountType() == accountType
@@ -240,6 +245,7 @@ public class CashFlowLineChartFragment extends BaseReportFragment {
         int count = getDateDiff(earliest, latest);
         List<Entry> values = new ArrayList<>(count + 1);
         for (int i = 0; i <= count; i++) {
+            progress.throwIfCanceled();
             long start = 0;
             long end = 0;
             switch (mGroupInterval) {
@@ -312,50 +318,44 @@ public class CashFlowLineChartFragment extends BaseReportFragment {
         return false;
     }
 
+    @NonNull
     @Override
-    protected void generateReport() {
-        LineData lineData = getData(new ArrayList<>(Arrays.asList(AccountType.INCOME, AccountType.EXPENSE)));
-        if (lineData != null) {
-            mChart.setData(lineData);
-            mChartDataPresent = true;
-        } else {
-            mChartDataPresent = false;
-        }
+    protected LineData generateReport(ReportEngine.Progress<LineData> progress) {
+        return getData(new ArrayList<>(Arrays.asList(AccountType.INCOME, AccountType.EXPENSE)), progress);
     }
 
     @Override
-    protected void displayReport() {
+    protected void displayPartialReport(LineData lineData) {
+        if (lineData.getYValueSum() == 0)
+            return;
+
+        mPartialReportDisplayed = true;
+        mChart.setData(lineData);
+        mChart.invalidate();
+    }
+
+    @Override
+    protected void displayReport(LineData lineData) {
+        mChartDataPresent = lineData.getYValueSum() != 0;
         if (!mChartDataPresent) {
+            mChart.setData(getEmptyData());
             mChart.getAxisLeft().setAxisMaxValue(10);
             mChart.getAxisLeft().setDrawLabels(false);
             mChart.getXAxis().setDrawLabels(false);
             mChart.setTouchEnabled(false);
             mSelectedValueTextView.setText(getResources().getString(R.string.label_chart_no_data));
         } else {
-            mChart.animateX(ANIMATION_DURATION);
+            mChart.setData(lineData);
+            mChart.getAxisLeft().setDrawLabels(true);
+            mChart.getXAxis().setDrawLabels(true);
+            mChart.setTouchEnabled(true);
+            if (!mPartialReportDisplayed)
+                mChart.animateX(ANIMATION_DURATION);
         }
+        mPartialReportDisplayed = false;
         mChart.invalidate();
     }
 
-    @Override
-    public void onTimeRangeUpdated(long start, long end) {
-        if (mReportPeriodStart != start || mReportPeriodEnd != end) {
-            mReportPeriodStart = start;
-            mReportPeriodEnd = end;
-            mChart.setData(getData(new ArrayList<>(Arrays.asList(AccountType.INCOME, AccountType.EXPENSE))));
-            mChart.invalidate();
-        }
-    }
-
-    @Override
-    public void onGroupingUpdated(GroupInterval groupInterval) {
-        if (mGroupInterval != groupInterval) {
-            mGroupInterval = groupInterval;
-            mChart.setData(getData(new ArrayList<>(Arrays.asList(AccountType.INCOME, AccountType.EXPENSE))));
-            mChart.invalidate();
-        }
-    }
-
     @Override
     public void onPrepareOptionsMenu(Menu menu) {
         menu.findItem(R.id.menu_toggle_average_lines).setVisible(mChartDataPresent);
@@ -21,6 +21,7 @@ import android.content.Context;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import android.view.LayoutInflater;
@@ -39,6 +40,7 @@ import org.gnucash.android.R;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.ui.report.BaseReportFragment;
+import org.gnucash.android.ui.report.ReportEngine;
 import org.gnucash.android.ui.report.ReportType;
 import org.gnucash.android.ui.report.ReportsActivity;
 
@@ -55,7 +57,7 @@ import static com.github.mikephil.charting.components.Legend.LegendPosition;
  * @author Oleksandr Tyshkovets <olexandr.tyshkovets@gmail.com>
  * @author Ngewi Fet <ngewif@gmail.com>
  */
-public class PieChartFragment extends BaseReportFragment {
+public class PieChartFragment extends BaseReportFragment<PieData> {
 
     public static final String TOTAL_VALUE_LABEL_PATTERN = "%s\n%.2f %s";
     private static final int ANIMATION_DURATION = 1800;
@@ -87,6 +89,11 @@ public class PieChartFragment extends BaseReportFragment {
         return view;
     }
 
+    @Override
+    protected boolean isAccountColorUsed() {
+        return mUseAccountColor;
+    }
+
     @Override
     public void onActivityCreated(@Nullable Bundle savedInstanceState) {
         super.onActivityCreated(savedInstanceState);
@@ -121,10 +128,15 @@ public class PieChartFragment extends BaseReportFragment {
         return R.layout.fragment_pie_chart;
     }
 
+    @NonNull
+    @Override
+    protected PieData generateReport(ReportEngine.Progress<PieData> progress) {
+        return getData(progress);
+    }
+
     @Override
-    protected void generateReport() {
-        PieData pieData = getData();
-        if (pieData != null && pieData.getYValCount() != 0) {
+    protected void displayReport(PieData pieData) {
+        if (pieData.getYValCount() != 0) {
             mChartDataPresent = true;
             mChart.setData(mGroupSmallerSlices ? groupSmallerSlices(pieData, getActivity()) : pieData);
             float sum = mChart.getData().getYValueSum();
@@ -136,10 +148,7 @@ public class PieChartFragment extends BaseReportFragment {
             mChart.setCenterText(getResources().getString(R.string.label_chart_no_data));
             mChart.setData(getEmptyData());
         }
-    }
 
-    @Override
-    protected void displayReport() {
         if (mChartDataPresent){
             mChart.animateXY(ANIMATION_DURATION, ANIMATION_DURATION);
         }
@@ -152,13 +161,15 @@ public class PieChartFragment extends BaseReportFragment {
 
     /**
      * Returns {@code PieData} instance with data entries, colors and labels
+     * @param progress Report progress, checked for cancellation after each account
      * @return {@code PieData} instance
      */
-    private PieData getData() {
+    private PieData getData(ReportEngine.Progress<PieData> progress) {
         PieDataSet dataSet = new PieDataSet(null, "");
         List<String> labels = new ArrayList<>();
         List<Integer> colors = new ArrayList<>();
         for (Account account : mAccountsDbAdapter.getSimpleAccountList()) {
+            progress.throwIfCanceled();
             if (account.getAccountType() == mAccountType
                     && !account.isPlaceholderAccount()
                     && account.getCommodity().equals(mCommodity)) {
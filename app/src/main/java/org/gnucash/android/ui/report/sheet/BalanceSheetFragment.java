@@ -18,6 +18,7 @@ package org.gnucash.android.ui.report.sheet;
 import android.database.Cursor;
 import android.graphics.Typeface;
 import android.os.Bundle;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -33,6 +34,7 @@ import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.data.AccountType;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.ui.report.BaseReportFragment;
+import org.gnucash.android.ui.report.ReportEngine;
 import org.gnucash.android.ui.report.ReportType;
 import org.gnucash.android.ui.transaction.TransactionsActivity;
 
@@ -43,7 +45,7 @@ import java.util.List;
  * Balance sheet report fragment
  * @author Ngewi Fet <ngewif@gmail.com>
  */
-public class BalanceSheetFragment extends BaseReportFragment {
+public class BalanceSheetFragment extends BaseReportFragment<Money[]> {
 
     private TableLayout mAssetsTableLayout;
     private TableLayout mLiabilitiesTableLayout;
@@ -52,8 +54,6 @@ public class BalanceSheetFragment extends BaseReportFragment {
 
     AccountsDbAdapter mAccountsDbAdapter = AccountsDbAdapter.getInstance();
 
-    private Money mAssetsBalance;
-    private Money mLiabilitiesBalance;
     private List<AccountType> mAssetAccountTypes;
     private List<AccountType> mLiabilityAccountTypes;
     private List<AccountType> mEquityAccountTypes;
@@ -110,19 +110,25 @@ public class BalanceSheetFragment extends BaseReportFragment {
         return false;
     }
 
+    /**
+     * Generates the total balances of the asset and liability accounts, in that order
+     */
+    @NonNull
     @Override
-    protected void generateReport() {
-        mAssetsBalance = mAccountsDbAdapter.getAccountBalance(mAssetAccountTypes, -1, System.currentTimeMillis());
-        mLiabilitiesBalance = mAccountsDbAdapter.getAccountBalance(mLiabilityAccountTypes, -1, System.currentTimeMillis());
+    protected Money[] generateReport(ReportEngine.Progress<Money[]> progress) {
+        Money assetsBalance = mAccountsDbAdapter.getAccountBalance(mAssetAccountTypes, -1, System.currentTimeMillis());
+        progress.throwIfCanceled();
+        Money liabilitiesBalance = mAccountsDbAdapter.getAccountBalance(mLiabilityAccountTypes, -1, System.currentTimeMillis());
+        return new Money[]{assetsBalance, liabilitiesBalance};
     }
 
     @Override
-    protected void displayReport() {
+    protected void displayReport(Money[] balances) {
         loadAccountViews(mAssetAccountTypes, mAssetsTableLayout);
         loadAccountViews(mLiabilityAccountTypes, mLiabilitiesTableLayout);
         loadAccountViews(mEquityAccountTypes, mEquityTableLayout);
 
-        TransactionsActivity.displayBalance(mNetWorth, mAssetsBalance.subtract(mLiabilitiesBalance));
+        TransactionsActivity.displayBalance(mNetWorth, balances[0].subtract(balances[1]));
     }
 
     @Override
@@ -19,10 +19,12 @@ package org.gnucash.android.ui.settings;
 import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.ProgressDialog;
+import android.content.ActivityNotFoundException;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.database.Cursor;
+import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import androidx.appcompat.app.ActionBar;
@@ -50,6 +52,7 @@ import org.gnucash.android.model.export.ExportFormat;
 import org.gnucash.android.model.export.ExportParams;
 import org.gnucash.android.model.export.Exporter;
 import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.importer.ImportAsyncUtil;
 import org.gnucash.android.ui.account.AccountsActivity;
 import org.gnucash.android.ui.account.AccountsListFragment;
 import org.gnucash.android.ui.settings.dialog.DeleteAllAccountsConfirmationDialog;
@@ -82,6 +85,8 @@ public class AccountPreferencesFragment extends PreferenceFragmentCompat impleme
 
     private static final int REQUEST_EXPORT_FILE = 0xC5;
 
+    private static final int REQUEST_SYNC_FILE = 0xC6;
+
     List<CharSequence> mCurrencyEntries = new ArrayList<>();
     List<CharSequence> mCurrencyEntryValues = new ArrayList<>();
     private CompositeDisposable mCompositeDisposable;
@@ -130,6 +135,9 @@ public class AccountPreferencesFragment extends PreferenceFragmentCompat impleme
         Preference preference = findPreference(getString(R.string.key_import_accounts));
         preference.setOnPreferenceClickListener(this);
 
+        preference = findPreference(getString(R.string.key_sync_gnucash_file));
+        preference.setOnPreferenceClickListener(this);
+
         preference = findPreference(getString(R.string.key_export_accounts_csv));
         preference.setOnPreferenceClickListener(this);
 
@@ -153,7 +161,7 @@ public class AccountPreferencesFragment extends PreferenceFragmentCompat impleme
                         .setPositiveButton(R.string.btn_create_accounts, new DialogInterface.OnClickListener() {
                             @Override
                             public void onClick(DialogInterface dialogInterface, int i) {
-                                AccountsActivity.createDefaultAccounts(Money.DEFAULT_CURRENCY_CODE, getActivity());
+                                AccountsActivity.createDefaultAccounts(Money.getDefaultCurrencyCode(), getActivity());
                             }
                         })
                         .setNegativeButton(R.string.btn_cancel, new DialogInterface.OnClickListener() {
@@ -179,6 +187,11 @@ public class AccountPreferencesFragment extends PreferenceFragmentCompat impleme
             return true;
         }
 
+        if (key.equals(getString(R.string.key_sync_gnucash_file))){
+            selectSyncFile();
+            return true;
+        }
+
         if (key.equals(getString(R.string.key_export_accounts_csv))){
             selectExportFile();
             return true;
@@ -187,6 +200,51 @@ public class AccountPreferencesFragment extends PreferenceFragmentCompat impleme
         return false;
     }
 
+    /**
+     * Open a chooser for user to pick the GnuCash XML file to sync the book with
+     */
+    private void selectSyncFile() {
+        Intent pickIntent = new Intent(Intent.ACTION_GET_CONTENT);
+        pickIntent.addCategory(Intent.CATEGORY_OPENABLE);
+        pickIntent.setType("*/*");
+        try {
+            startActivityForResult(Intent.createChooser(pickIntent, getString(R.string.title_sync_gnucash_file)),
+                    REQUEST_SYNC_FILE);
+        } catch (ActivityNotFoundException ex){
+            Toast.makeText(getActivity(), R.string.toast_install_file_manager, Toast.LENGTH_LONG).show();
+        }
+    }
+
+    /**
+     * Merges the changes of a GnuCash XML file into the active book, showing a progress dialog meanwhile
+     * @param uri URI of the GnuCash XML file
+     */
+    private void syncWithFile(Uri uri) {
+        final Activity activity = getActivity();
+        ProgressDialog progressDialog = new ProgressDialog(activity);
+        progressDialog.setTitle(R.string.title_progress_syncing_file);
+        progressDialog.setIndeterminate(true);
+        progressDialog.setCancelable(false);
+        progressDialog.show();
+
+        mCompositeDisposable.add(ImportAsyncUtil.syncDataSingle(activity, uri)
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .doFinally(() -> {
+                    if (progressDialog.isShowing())
+                        progressDialog.dismiss();
+                })
+                .subscribe(summary -> Toast.makeText(activity, getString(R.string.toast_sync_finished,
+                                        summary.getAccountsAdded() + summary.getAccountsUpdated() + summary.getAccountsDeleted(),
+                                        summary.getTransactionsAdded() + summary.getTransactionsUpdated() + summary.getTransactionsDeleted(),
+                                        summary.getConflicts().size()),
+                                Toast.LENGTH_LONG).show(),
+                        throwable -> {
+                            Log.e(TAG, "Error syncing with " + uri, throwable);
+                            Toast.makeText(activity, R.string.toast_error_syncing_file, Toast.LENGTH_LONG).show();
+                        }));
+    }
+
     /**
      * Open a chooser for user to pick a file to export to
      */
@@ -236,6 +294,12 @@ public class AccountPreferencesFragment extends PreferenceFragmentCompat impleme
                 }
                 break;
 
+            case REQUEST_SYNC_FILE:
+                if (resultCode == Activity.RESULT_OK && data != null) {
+                    syncWithFile(data.getData());
+                }
+                break;
+
             case REQUEST_EXPORT_FILE:
                 if (resultCode == Activity.RESULT_OK && data != null){
                     ExportParams exportParams = new ExportParams(ExportFormat.CSVA);
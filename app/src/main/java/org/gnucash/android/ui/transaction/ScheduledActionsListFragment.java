@@ -585,7 +585,7 @@ public class ScheduledActionsListFragment extends ListFragment implements
             if (params.getExportTarget() == ExportParams.ExportTarget.URI){
                 exportDestination = exportDestination + " (" + Uri.parse(params.getExportLocation()).getHost() + ")";
             }
-            primaryTextView.setText(params.getExportFormat().name() + " "
+            primaryTextView.setText(params.getExportFormatsDisplayName() + " "
                     + scheduledAction.getActionType().name().toLowerCase() + " to "
                     + exportDestination);
 
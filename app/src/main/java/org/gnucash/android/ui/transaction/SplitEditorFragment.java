@@ -18,11 +18,9 @@ package org.gnucash.android.ui.transaction;
 import android.app.Activity;
 import android.content.Intent;
 import android.content.res.Configuration;
-import android.database.Cursor;
 import android.inputmethodservice.KeyboardView;
 import android.os.Bundle;
 import androidx.fragment.app.Fragment;
-import androidx.cursoradapter.widget.SimpleCursorAdapter;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import android.text.Editable;
@@ -47,7 +45,7 @@ import net.objecthunter.exp4j.Expression;
 import net.objecthunter.exp4j.ExpressionBuilder;
 
 import org.gnucash.android.R;
-import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.AccountPickerModel;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
 import org.gnucash.android.model.data.AccountType;
@@ -63,7 +61,7 @@ import org.gnucash.android.ui.transaction.dialog.TransferFundsDialogFragment;
 import org.gnucash.android.ui.util.widget.CalculatorEditText;
 import org.gnucash.android.ui.util.widget.CalculatorKeyboard;
 import org.gnucash.android.ui.util.widget.TransactionTypeSwitch;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -81,8 +79,7 @@ public class SplitEditorFragment extends Fragment {
     private TextView mImbalanceTextView;
 
     private AccountsDbAdapter mAccountsDbAdapter;
-    private Cursor mCursor;
-    private SimpleCursorAdapter mCursorAdapter;
+    private AccountPickerModel.Selection mAccounts;
     private List<View> mSplitItemViewList;
     private String mAccountUID;
     private Commodity mCommodity;
@@ -215,11 +212,10 @@ public class SplitEditorFragment extends Fragment {
         mAccountUID = ((FormActivity) getActivity()).getCurrentAccountUID();
         mBaseAmount = new BigDecimal(args.getString(UxArgument.AMOUNT_STRING));
 
-        String conditions = "("
-                + DatabaseSchema.AccountEntry.COLUMN_HIDDEN + " = 0 AND "
-                + DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER + " = 0"
-                + ")";
-        mCursor = mAccountsDbAdapter.fetchAccountsOrderedByFullName(conditions, null);
+        AccountPickerModel.Filter filter = new AccountPickerModel.Filter()
+                .visibleOnly()
+                .withoutPlaceholders();
+        mAccounts = mAccountsDbAdapter.getAccountPickerModel().select(filter, false);
         mCommodity = CommoditiesDbAdapter.getInstance().getCommodity(mAccountsDbAdapter.getCurrencyCode(mAccountUID));
     }
 
@@ -283,7 +279,7 @@ public class SplitEditorFragment extends Fragment {
                 splitMemoEditText.setText(split.getMemo());
                 splitUidTextView.setText(split.getUID());
                 String splitAccountUID = split.getAccountUID();
-                setSelectedTransferAccount(mAccountsDbAdapter.getID(splitAccountUID), accountsSpinner);
+                setSelectedTransferAccount(splitAccountUID, accountsSpinner);
                 splitTypeSwitch.setAccountType(mAccountsDbAdapter.getAccountType(splitAccountUID));
                 splitTypeSwitch.setChecked(split.getType());
             }
@@ -330,23 +326,19 @@ public class SplitEditorFragment extends Fragment {
 
     /**
      * Updates the spinner to the selected transfer account
-     * @param accountId Database ID of the transfer account
+     * @param accountUID GUID of the transfer account
      */
-    private void setSelectedTransferAccount(long accountId, final Spinner accountsSpinner){
-        for (int pos = 0; pos < mCursorAdapter.getCount(); pos++) {
-            if (mCursorAdapter.getItemId(pos) == accountId){
-                accountsSpinner.setSelection(pos);
-                break;
-            }
-        }
+    private void setSelectedTransferAccount(String accountUID, final Spinner accountsSpinner){
+        int position = mAccounts.getPosition(accountUID);
+        if (position >= 0)
+            accountsSpinner.setSelection(position);
     }
     /**
      * Updates the list of possible transfer accounts.
      * Only accounts with the same currency can be transferred to
      */
     private void updateTransferAccountsList(Spinner transferAccountSpinner){
-        mCursorAdapter = new QualifiedAccountNameCursorAdapter(getActivity(), mCursor);
-        transferAccountSpinner.setAdapter(mCursorAdapter);
+        transferAccountSpinner.setAdapter(new QualifiedAccountNameAdapter(getActivity(), mAccounts));
     }
 
     /**
@@ -398,7 +390,7 @@ public class SplitEditorFragment extends Fragment {
             String currencyCode = mAccountsDbAdapter.getCurrencyCode(mAccountUID);
             Money valueAmount = new Money(amountBigDecimal.abs(), Commodity.getInstance(currencyCode));
 
-            String accountUID = mAccountsDbAdapter.getUID(viewHolder.accountsSpinner.getSelectedItemId());
+            String accountUID = (String) viewHolder.accountsSpinner.getSelectedItem();
             Split split = new Split(valueAmount, accountUID);
             split.setMemo(viewHolder.splitMemoEditText.getText().toString());
             split.setType(viewHolder.splitTypeSwitch.getTransactionType());
@@ -58,6 +58,8 @@ import com.codetroopers.betterpickers.recurrencepicker.RecurrencePickerDialogFra
 
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.AccountPickerModel;
+import org.gnucash.android.model.db.AutofillIndex;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
@@ -82,7 +84,7 @@ import org.gnucash.android.ui.util.RecurrenceParser;
 import org.gnucash.android.ui.util.RecurrenceViewClickListener;
 import org.gnucash.android.ui.util.widget.CalculatorEditText;
 import org.gnucash.android.ui.util.widget.TransactionTypeSwitch;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
 
 import java.math.BigDecimal;
 import java.text.DateFormat;
@@ -108,6 +110,11 @@ public class TransactionFormFragment extends Fragment implements
 	 */
 	private TransactionsDbAdapter mTransactionsDbAdapter;
 
+    /**
+     * Index of the past transactions, for the description suggestions
+     */
+    private AutofillIndex mAutofillIndex;
+
 	/**
 	 * Accounts database adapter
 	 */
@@ -116,12 +123,7 @@ public class TransactionFormFragment extends Fragment implements
 	/**
 	 * Adapter for transfer account spinner
 	 */
-	private QualifiedAccountNameCursorAdapter mAccountCursorAdapter;
-
-	/**
-	 * Cursor for transfer account spinner
-	 */
-	private Cursor mCursor;
+	private QualifiedAccountNameAdapter mAccountNameAdapter;
 
     /**
 	 * Transaction to be created/updated
@@ -279,8 +281,7 @@ public class TransactionFormFragment extends Fragment implements
      */
     private void startTransferFunds() {
         Commodity fromCommodity = Commodity.getInstance((mTransactionsDbAdapter.getAccountCurrencyCode(mAccountUID)));
-        long id = mTransferAccountSpinner.getSelectedItemId();
-        String targetCurrencyCode = mAccountsDbAdapter.getCurrencyCode(mAccountsDbAdapter.getUID(id));
+        String targetCurrencyCode = mAccountsDbAdapter.getCurrencyCode((String) mTransferAccountSpinner.getSelectedItem());
 
         if (fromCommodity.equals(Commodity.getInstance(targetCurrencyCode))
                 || !mAmountEditText.isInputModified()
@@ -322,6 +323,7 @@ public class TransactionFormFragment extends Fragment implements
 
         String transactionUID = getArguments().getString(UxArgument.SELECTED_TRANSACTION_UID);
 		mTransactionsDbAdapter = TransactionsDbAdapter.getInstance();
+        mAutofillIndex = mTransactionsDbAdapter.getAutofillIndex();
 		if (transactionUID != null) {
             mTransaction = mTransactionsDbAdapter.getRecord(transactionUID);
         }
@@ -398,24 +400,30 @@ public class TransactionFormFragment extends Fragment implements
         @Override
         public void bindView(View view, Context context, Cursor cursor) {
             super.bindView(view, context, cursor);
-            String transactionUID = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.TransactionEntry.COLUMN_UID));
-            Money balance = TransactionsDbAdapter.getInstance().getBalance(transactionUID, mAccountUID);
+            TextView secondaryTextView = (TextView) view.findViewById(R.id.secondary_text);
+            long entryId = cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.AutofillEntry.COLUMN_ID));
+            AutofillIndex.Entry entry = mAutofillIndex.getEntry(entryId);
+            if (entry == null) { //the index changed since the suggestions were fetched
+                //the view may be recycled from another suggestion
+                secondaryTextView.setText("");
+                return;
+            }
+            Money balance = mAutofillIndex.buildTransaction(entry).getBalance(mAccountUID);
 
-            long timestamp = cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.TransactionEntry.COLUMN_TIMESTAMP));
+            long timestamp = cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.AutofillEntry.COLUMN_LAST_USED));
             String dateString = DateUtils.formatDateTime(getActivity(), timestamp,
                     DateUtils.FORMAT_SHOW_WEEKDAY | DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR);
 
-            TextView secondaryTextView = (TextView) view.findViewById(R.id.secondary_text);
             secondaryTextView.setText(balance.formattedString() + " on " + dateString); //TODO: Extract string
         }
     }
 
     /**
-     * Initializes the transaction name field for autocompletion with existing transaction names in the database
+     * Initializes the transaction name field for autocompletion with the descriptions of the {@link AutofillIndex}
      */
     private void initTransactionNameAutocomplete() {
         final int[] to = new int[]{R.id.primary_text};
-        final String[] from = new String[]{DatabaseSchema.TransactionEntry.COLUMN_DESCRIPTION};
+        final String[] from = new String[]{DatabaseSchema.AutofillEntry.COLUMN_DESCRIPTION};
 
         SimpleCursorAdapter adapter = new DropDownCursorAdapter(
                 getActivity(), R.layout.dropdown_item_2lines, null, from, to);
@@ -423,7 +431,7 @@ public class TransactionFormFragment extends Fragment implements
         adapter.setCursorToStringConverter(new SimpleCursorAdapter.CursorToStringConverter() {
             @Override
             public CharSequence convertToString(Cursor cursor) {
-                final int colIndex = cursor.getColumnIndexOrThrow(DatabaseSchema.TransactionEntry.COLUMN_DESCRIPTION);
+                final int colIndex = cursor.getColumnIndexOrThrow(DatabaseSchema.AutofillEntry.COLUMN_DESCRIPTION);
                 return cursor.getString(colIndex);
             }
         });
@@ -438,7 +446,11 @@ public class TransactionFormFragment extends Fragment implements
         mDescriptionEditText.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> adapterView, View view, int position, long id) {
-                mTransaction = new Transaction(mTransactionsDbAdapter.getRecord(id), true);
+                AutofillIndex.Entry entry = mAutofillIndex.getEntry(id);
+                if (entry == null)
+                    return;
+                //the suggestion already holds the splits to copy, the transaction is not read again
+                mTransaction = mAutofillIndex.buildTransaction(entry);
                 mTransaction.setTime(System.currentTimeMillis());
                 //we check here because next method will modify it and we want to catch user-modification
                 boolean amountEntered = mAmountEditText.isInputModified();
@@ -594,18 +606,13 @@ public class TransactionFormFragment extends Fragment implements
      * Only accounts with the same currency can be transferred to
      */
 	private void updateTransferAccountsList(){
-		String conditions = "(" + DatabaseSchema.AccountEntry.COLUMN_UID + " != ?"
-                            + " AND " + DatabaseSchema.AccountEntry.COLUMN_TYPE + " != ?"
-                            + " AND " + DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER + " = 0"
-                            + ")";
-
-        if (mCursor != null) {
-            mCursor.close();
-        }
-		mCursor = mAccountsDbAdapter.fetchAccountsOrderedByFavoriteAndFullName(conditions, new String[]{mAccountUID, AccountType.ROOT.name()});
-
-        mAccountCursorAdapter = new QualifiedAccountNameCursorAdapter(getActivity(), mCursor);
-		mTransferAccountSpinner.setAdapter(mAccountCursorAdapter);
+        AccountPickerModel.Filter filter = new AccountPickerModel.Filter()
+                .excluding(mAccountUID)
+                .withoutRoot()
+                .withoutPlaceholders();
+        mAccountNameAdapter = new QualifiedAccountNameAdapter(getActivity(),
+                mAccountsDbAdapter.getAccountPickerModel().select(filter, true));
+		mTransferAccountSpinner.setAdapter(mAccountNameAdapter);
 	}
 
     /**
@@ -701,7 +708,7 @@ public class TransactionFormFragment extends Fragment implements
      * @param accountId Database ID of the transfer account
      */
 	private void setSelectedTransferAccount(long accountId){
-        int position = mAccountCursorAdapter.getPosition(mAccountsDbAdapter.getUID(accountId));
+        int position = mAccountNameAdapter.getPosition(accountId);
         if (position >= 0)
             mTransferAccountSpinner.setSelection(position);
 	}
@@ -775,8 +782,7 @@ public class TransactionFormFragment extends Fragment implements
     private @NonNull String getTransferAccountUID() {
         String transferAcctUID;
         if (mUseDoubleEntry) {
-            long transferAcctId = mTransferAccountSpinner.getSelectedItemId();
-            transferAcctUID = mAccountsDbAdapter.getUID(transferAcctId);
+            transferAcctUID = (String) mTransferAccountSpinner.getSelectedItem();
         } else {
             Commodity baseCommodity = mAccountsDbAdapter.getRecord(mAccountUID).getCommodity();
             transferAcctUID = mAccountsDbAdapter.getOrCreateImbalanceAccountUID(baseCommodity);
@@ -832,7 +838,7 @@ public class TransactionFormFragment extends Fragment implements
         if (!mUseDoubleEntry)
             return false;
 
-        String transferAcctUID = mAccountsDbAdapter.getUID(mTransferAccountSpinner.getSelectedItemId());
+        String transferAcctUID = (String) mTransferAccountSpinner.getSelectedItem();
         String currencyCode = mAccountsDbAdapter.getAccountCurrencyCode(mAccountUID);
         String transferCurrencyCode = mAccountsDbAdapter.getCurrencyCode(transferAcctUID);
 
@@ -928,13 +934,6 @@ public class TransactionFormFragment extends Fragment implements
     }
 
 
-    @Override
-	public void onDestroyView() {
-		super.onDestroyView();
-		if (mCursor != null)
-			mCursor.close();
-	}
-
 	@Override
 	public void onCreateOptionsMenu(Menu menu, MenuInflater inflater) {
 		inflater.inflate(R.menu.default_save_actions, menu);
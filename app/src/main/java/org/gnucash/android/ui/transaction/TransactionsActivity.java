@@ -19,7 +19,6 @@ package org.gnucash.android.ui.transaction;
 
 import android.content.Context;
 import android.content.Intent;
-import android.database.Cursor;
 import android.graphics.drawable.ColorDrawable;
 import android.os.AsyncTask;
 import android.os.Build;
@@ -41,11 +40,11 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.Spinner;
-import android.widget.SpinnerAdapter;
 import android.widget.TextView;
 
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.AccountPickerModel;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
@@ -59,7 +58,7 @@ import org.gnucash.android.ui.common.FormActivity;
 import org.gnucash.android.ui.common.Refreshable;
 import org.gnucash.android.ui.common.UxArgument;
 import org.gnucash.android.ui.util.AccountBalanceTask;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
 import org.joda.time.LocalDate;
 
 import java.math.BigDecimal;
@@ -105,9 +104,9 @@ public class TransactionsActivity extends BaseDrawerActivity implements
     private AccountsDbAdapter mAccountsDbAdapter;
 
     /**
-     * Hold the accounts cursor that will be used in the Navigation
+     * Adapter of the accounts listed in the navigation spinner
      */
-    private Cursor mAccountsCursor = null;
+    private QualifiedAccountNameAdapter mAccountsAdapter;
 
     private ViewPager mViewPager;
     private Spinner mToolbarSpinner;
@@ -127,7 +126,7 @@ public class TransactionsActivity extends BaseDrawerActivity implements
 
         @Override
         public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-            mAccountUID = mAccountsDbAdapter.getUID(id);
+            mAccountUID = mAccountsAdapter.getItem(position);
             getIntent().putExtra(UxArgument.SELECTED_ACCOUNT_UID, mAccountUID); //update the intent in case the account gets rotated
             mIsPlaceholderAccount = mAccountsDbAdapter.isPlaceholderAccount(mAccountUID);
             if (mIsPlaceholderAccount){
@@ -379,15 +378,13 @@ public class TransactionsActivity extends BaseDrawerActivity implements
 	 */
 	private void setupActionBarNavigation() {
 		// set up spinner adapter for navigation list
-        if (mAccountsCursor != null) {
-            mAccountsCursor.close();
-        }
-		mAccountsCursor = mAccountsDbAdapter.fetchAllRecordsOrderedByFullName();
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel()
+                .select(new AccountPickerModel.Filter().withoutRoot().visibleOnly(), false);
 
-        SpinnerAdapter mSpinnerAdapter = new QualifiedAccountNameCursorAdapter(
-                getSupportActionBar().getThemedContext(), mAccountsCursor, R.layout.account_spinner_item);
+        mAccountsAdapter = new QualifiedAccountNameAdapter(
+                getSupportActionBar().getThemedContext(), accounts, R.layout.account_spinner_item);
 
-        mToolbarSpinner.setAdapter(mSpinnerAdapter);
+        mToolbarSpinner.setAdapter(mAccountsAdapter);
         mToolbarSpinner.setOnItemSelectedListener(mTransactionListNavigationListener);
         getSupportActionBar().setDisplayHomeAsUpEnabled(true);
 
@@ -400,17 +397,10 @@ public class TransactionsActivity extends BaseDrawerActivity implements
 	 */
 	public void updateNavigationSelection() {
 		// set the selected item in the spinner
-		int i = 0;
-		Cursor accountsCursor = mAccountsDbAdapter.fetchAllRecordsOrderedByFullName();
-        while (accountsCursor.moveToNext()) {
-            String uid = accountsCursor.getString(accountsCursor.getColumnIndexOrThrow(DatabaseSchema.AccountEntry.COLUMN_UID));
-            if (mAccountUID.equals(uid)) {
-                mToolbarSpinner.setSelection(i);
-                break;
-            }
-            ++i;
-        }
-        accountsCursor.close();
+		int position = mAccountsAdapter.getPosition(mAccountUID);
+		if (position >= 0) {
+			mToolbarSpinner.setSelection(position);
+		}
 	}
 
     @Override
@@ -466,12 +456,6 @@ public class TransactionsActivity extends BaseDrawerActivity implements
         super.onActivityResult(requestCode, resultCode, data);
     }
 
-    @Override
-	protected void onDestroy() {
-		super.onDestroy();
-        mAccountsCursor.close();
-	}
-
 	/**
 	 * Returns the global unique ID of the current account
 	 * @return GUID of the current account
@@ -44,12 +44,16 @@ import android.widget.TextView;
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.Repository;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseChangeBus;
 import org.gnucash.android.model.db.DatabaseCursorLoader;
 import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.DatabaseAdapter;
 import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.model.db.row.TransactionRow;
+import org.gnucash.android.model.db.row.TransactionRowReader;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.model.data.Split;
 import org.gnucash.android.model.data.Transaction;
@@ -62,11 +66,15 @@ import org.gnucash.android.ui.transaction.dialog.BulkMoveDialogFragment;
 import org.gnucash.android.ui.util.CursorRecyclerAdapter;
 import org.gnucash.android.ui.util.widget.EmptyRecyclerView;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 
 import dagger.hilt.android.AndroidEntryPoint;
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.disposables.Disposable;
 
 /**
  * List Fragment for displaying list of transactions for an account
@@ -90,6 +98,22 @@ public class TransactionsListFragment extends Fragment implements
 	private TransactionRecyclerAdapter mTransactionRecyclerAdapter;
 	private EmptyRecyclerView mRecyclerView;
 
+	/**
+	 * Subscription to the database changes which affect the list
+	 */
+	private Disposable mChangesSubscription;
+
+	/**
+	 * Whether all rows have to be bound again once the cursor being reloaded is swapped in
+	 */
+	private boolean mPendingRebindAll = false;
+
+	/**
+	 * GUIDs of the transactions whose rows have to be bound again once the cursor being
+	 * reloaded is swapped in
+	 */
+	private final Set<String> mPendingTransactionUIDs = new HashSet<>();
+
 	@Inject
 	Repository mRepository;
 
@@ -145,7 +169,67 @@ public class TransactionsListFragment extends Fragment implements
 		mTransactionRecyclerAdapter = new TransactionRecyclerAdapter(null);
 		mRecyclerView.setAdapter(mTransactionRecyclerAdapter);
 
-		setHasOptionsMenu(true);		
+		setHasOptionsMenu(true);
+
+		mChangesSubscription = DatabaseChangeBus.batchedChanges(DatabaseChangeBus.DEFAULT_BATCH_MILLIS)
+				.observeOn(AndroidSchedulers.mainThread())
+				.subscribe(this::onDatabaseChanged,
+						throwable -> Log.e(LOG_TAG, "Error observing database changes", throwable));
+		//the list is kept up to date by the database changes, not reloaded on every resume
+		getLoaderManager().initLoader(0, null, this);
+	}
+
+	/**
+	 * Reloads the list if the database changes affect the account, and binds the rows of the
+	 * changed transactions again.
+	 * <p>The amounts shown are computed from the splits, which are not part of the loaded rows,
+	 * so changed transactions are rebound even if their rows are the same after reloading.
+	 * This happens once the reloaded cursor is swapped in.</p>
+	 * @param changes Batch of database changes
+	 */
+	private void onDatabaseChanged(List<DatabaseChange> changes) {
+		if (!isAdded() || mAccountUID == null)
+			return;
+		boolean reload = false;
+		for (DatabaseChange change : changes) {
+			if (change.affectsAllBalances()) {
+				reload = mPendingRebindAll = true;
+			} else if (change.affectsAccount(mAccountUID)) {
+				reload = true;
+				mPendingTransactionUIDs.addAll(change.getTransactionUIDs());
+			}
+		}
+		if (reload)
+			refresh();
+	}
+
+	/**
+	 * Binds again the rows of the transactions changed since the last reload
+	 */
+	private void rebindPendingRows() {
+		boolean rebindAll = mPendingRebindAll;
+		Set<String> transactionUIDs = new HashSet<>(mPendingTransactionUIDs);
+		mPendingRebindAll = false;
+		mPendingTransactionUIDs.clear();
+
+		int itemCount = mTransactionRecyclerAdapter.getItemCount();
+		if (rebindAll) {
+			mTransactionRecyclerAdapter.notifyItemRangeChanged(0, itemCount);
+		} else if (!transactionUIDs.isEmpty() && itemCount > 0) {
+			Cursor cursor = mTransactionRecyclerAdapter.getCursor();
+			int uidColumn = cursor.getColumnIndexOrThrow(DatabaseSchema.TransactionEntry.COLUMN_UID);
+			for (int position = 0; position < itemCount && cursor.moveToPosition(position); position++) {
+				if (transactionUIDs.contains(cursor.getString(uidColumn)))
+					mTransactionRecyclerAdapter.notifyItemChanged(position);
+			}
+		}
+	}
+
+	@Override
+	public void onDestroy() {
+		super.onDestroy();
+		if (mChangesSubscription != null)
+			mChangesSubscription.dispose();
 	}
 
     /**
@@ -170,7 +254,6 @@ public class TransactionsListFragment extends Fragment implements
 	public void onResume() {
 		super.onResume();
 		((TransactionsActivity)getActivity()).updateNavigationSelection();
-		refresh();
 	}
 
 	public void onListItemClick(long id) {
@@ -200,7 +283,8 @@ public class TransactionsListFragment extends Fragment implements
 			case R.id.menu_compact_trn_view:
 				item.setChecked(!item.isChecked());
 				mUseCompactView = !mUseCompactView;
-				refresh();
+				//the rows are the same, but they are shown with a different layout
+				mTransactionRecyclerAdapter.notifyDataSetChanged();
 				return true;
 			default:
                 return super.onOptionsItemSelected(item);
@@ -216,8 +300,8 @@ public class TransactionsListFragment extends Fragment implements
 	@Override
 	public void onLoadFinished(Loader<Cursor> loader, Cursor cursor) {
 		Log.d(LOG_TAG, "Transactions loader finished. Swapping in cursor");
-		mTransactionRecyclerAdapter.swapCursor(cursor);
-		mTransactionRecyclerAdapter.notifyDataSetChanged();
+		mTransactionRecyclerAdapter.swapCursorAndDiff(cursor);
+		rebindPendingRows();
 	}
 
 	@Override
@@ -253,6 +337,11 @@ public class TransactionsListFragment extends Fragment implements
 		public static final int ITEM_TYPE_COMPACT 	= 0x111;
 		public static final int ITEM_TYPE_FULL		= 0x100;
 
+		/**
+		 * Reader of the transaction columns, kept from one bound row to the next
+		 */
+		private TransactionRowReader mRowReader;
+
 		public TransactionRecyclerAdapter(Cursor cursor) {
 			super(cursor);
 		}
@@ -272,16 +361,17 @@ public class TransactionsListFragment extends Fragment implements
 
 		@Override
 		public void onBindViewHolderCursor(ViewHolder holder, Cursor cursor) {
-			holder.transactionId = cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.TransactionEntry._ID));
+			TransactionRow row = mRowReader = TransactionRowReader.of(cursor, mRowReader);
+			holder.transactionId = row.getId();
 
-			String description = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.TransactionEntry.COLUMN_DESCRIPTION));
+			String description = row.getDescription();
 			holder.primaryText.setText(description);
 
-			final String transactionUID = cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.TransactionEntry.COLUMN_UID));
+			final String transactionUID = row.getUID();
 			Money amount = mTransactionsDbAdapter.getBalance(transactionUID, mAccountUID);
 			TransactionsActivity.displayBalance(holder.transactionAmount, amount);
 
-			long dateMillis = cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.TransactionEntry.COLUMN_TIMESTAMP));
+			long dateMillis = row.getTimestamp();
 			String dateText = TransactionsActivity.getPrettyDateFormat(getActivity(), dateMillis);
 
 			final long id = holder.transactionId;
@@ -367,7 +457,6 @@ public class TransactionsListFragment extends Fragment implements
 						mRepository.backupActiveBook();
 						mTransactionsDbAdapter.deleteRecord(transactionId);
 						WidgetConfigurationActivity.updateAllWidgets(getActivity());
-						refresh();
 						return true;
 
 					case R.id.context_menu_duplicate_transaction:
@@ -375,7 +464,6 @@ public class TransactionsListFragment extends Fragment implements
 						Transaction duplicate = new Transaction(transaction, true);
 						duplicate.setTime(System.currentTimeMillis());
 						mTransactionsDbAdapter.addRecord(duplicate, DatabaseAdapter.UpdateMethod.insert);
-						refresh();
 						return true;
 
 					case R.id.context_menu_move_transaction:
@@ -16,10 +16,8 @@
 
 package org.gnucash.android.ui.transaction.dialog;
 
-import android.database.Cursor;
 import android.os.Bundle;
 import androidx.fragment.app.DialogFragment;
-import androidx.cursoradapter.widget.SimpleCursorAdapter;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -29,14 +27,19 @@ import android.widget.Spinner;
 import android.widget.Toast;
 
 import org.gnucash.android.R;
-import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.AccountPickerModel;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BooksDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.ui.common.Refreshable;
 import org.gnucash.android.ui.common.UxArgument;
 import org.gnucash.android.ui.homescreen.WidgetConfigurationActivity;
 import org.gnucash.android.ui.transaction.TransactionsActivity;
-import org.gnucash.android.util.QualifiedAccountNameCursorAdapter;
+import org.gnucash.android.util.QualifiedAccountNameAdapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Dialog fragment for moving transactions from one account to another
@@ -120,16 +123,13 @@ public class BulkMoveDialogFragment extends DialogFragment {
 		getDialog().setTitle(title);
 
         AccountsDbAdapter accountsDbAdapter = AccountsDbAdapter.getInstance();
-        String conditions = "(" + DatabaseSchema.AccountEntry.COLUMN_UID    + " != ? AND "
-                + DatabaseSchema.AccountEntry.COLUMN_CURRENCY               + " = ? AND "
-                + DatabaseSchema.AccountEntry.COLUMN_HIDDEN         + " = 0 AND "
-                + DatabaseSchema.AccountEntry.COLUMN_PLACEHOLDER + " = 0"
-                + ")";
-		Cursor cursor = accountsDbAdapter.fetchAccountsOrderedByFullName(conditions,
-                new String[]{mOriginAccountUID, accountsDbAdapter.getCurrencyCode(mOriginAccountUID)});
-
-		SimpleCursorAdapter mCursorAdapter = new QualifiedAccountNameCursorAdapter(getActivity(), cursor);
-		mDestinationAccountSpinner.setAdapter(mCursorAdapter);
+        AccountPickerModel.Filter filter = new AccountPickerModel.Filter()
+                .excluding(mOriginAccountUID)
+                .withCurrency(accountsDbAdapter.getCurrencyCode(mOriginAccountUID))
+                .visibleOnly()
+                .withoutPlaceholders();
+		mDestinationAccountSpinner.setAdapter(new QualifiedAccountNameAdapter(getActivity(),
+                accountsDbAdapter.getAccountPickerModel().select(filter, false)));
 		setListeners();
 	}
 	
@@ -153,8 +153,7 @@ public class BulkMoveDialogFragment extends DialogFragment {
 					dismiss();
 				}
 
-				long dstAccountId = mDestinationAccountSpinner.getSelectedItemId();
-				String dstAccountUID = AccountsDbAdapter.getInstance().getUID(dstAccountId);
+				String dstAccountUID = (String) mDestinationAccountSpinner.getSelectedItem();
 				TransactionsDbAdapter trxnAdapter = TransactionsDbAdapter.getInstance();
 				if (!trxnAdapter.getAccountCurrencyCode(dstAccountUID).equals(trxnAdapter.getAccountCurrencyCode(mOriginAccountUID))) {
 					Toast.makeText(getActivity(), R.string.toast_incompatible_currency, Toast.LENGTH_LONG).show();
@@ -162,11 +161,17 @@ public class BulkMoveDialogFragment extends DialogFragment {
 				}
 				String srcAccountUID = ((TransactionsActivity) getActivity()).getCurrentAccountUID();
 
+				List<Long> transactionIds = new ArrayList<>(mTransactionIds.length);
 				for (long trxnId : mTransactionIds) {
-					trxnAdapter.moveTransaction(trxnAdapter.getUID(trxnId), srcAccountUID, dstAccountUID);
+					transactionIds.add(trxnId);
 				}
+				int movedCount = trxnAdapter.moveTransactions(transactionIds, srcAccountUID, dstAccountUID);
+				Toast.makeText(getActivity(), getResources().getQuantityString(
+						R.plurals.toast_transactions_moved, movedCount, movedCount), Toast.LENGTH_SHORT).show();
 
-				WidgetConfigurationActivity.updateAllWidgets(getActivity());
+				WidgetConfigurationActivity.updateWidgets(getActivity(),
+						BooksDbAdapter.getInstance().getActiveBookUID(),
+						Arrays.asList(srcAccountUID, dstAccountUID));
 				((Refreshable) getTargetFragment()).refresh();
 				dismiss();
 			}
@@ -28,6 +28,8 @@ import android.database.ContentObserver;
 import android.database.Cursor;
 import android.database.DataSetObserver;
 import android.os.Handler;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import android.widget.Filter;
 import android.widget.FilterQueryProvider;
@@ -54,6 +56,19 @@ import android.widget.Filterable;
 public abstract class CursorRecyclerAdapter<VH
         extends androidx.recyclerview.widget.RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH>
         implements Filterable, CursorFilter.CursorFilterClient {
+
+    /**
+     * Maximum number of rows of the old or new cursor for which a diff is computed.
+     * Larger lists are rebound completely, since reading all their rows costs more than rebinding
+     */
+    private static final int MAX_DIFF_ROWS = 2000;
+
+    /**
+     * Column updated by the database whenever a row changes. Rows whose version is the same
+     * in the old and new cursor are not bound again
+     */
+    private static final String VERSION_COLUMN = "modified_at";
+
     private boolean mDataValid;
     private int mRowIDColumn;
     private Cursor mCursor;
@@ -167,6 +182,76 @@ public abstract class CursorRecyclerAdapter<VH
         if (newCursor == mCursor) {
             return null;
         }
+        int oldCount = getItemCount();
+        Cursor oldCursor = replaceCursor(newCursor);
+        if (newCursor != null) {
+            // notify the observers about the new cursor
+            notifyDataSetChanged();
+        } else {
+            // notify the observers about the lack of a data set
+            // notifyDataSetInvalidated();
+            notifyItemRangeRemoved(0, oldCount);
+        }
+        return oldCursor;
+    }
+
+    /**
+     * Swap in a new Cursor like {@link #swapCursor(Cursor)}, but notify the observers about
+     * the rows which were inserted, removed or moved, instead of a complete change.
+     * <p>Rows are matched by their stable {@code _id}. Rows which are kept are only notified as
+     * changed if their {@code modified_at} column differs, or if the cursors have no such column.
+     * Values computed while binding, such as balances, are not covered and have to be rebound by
+     * the caller. If either cursor is missing or too large to be compared, the observers are
+     * notified about a complete change.</p>
+     * <p>The returned old Cursor is <em>not</em> closed.</p>
+     *
+     * @param newCursor The new cursor to be used.
+     * @return Returns the previously set Cursor, or null if there was not one.
+     */
+    public Cursor swapCursorAndDiff(Cursor newCursor) {
+        Cursor oldCursor = mCursor;
+        if (newCursor == oldCursor || newCursor == null || oldCursor == null || oldCursor.isClosed()
+                || !mDataValid || oldCursor.getCount() > MAX_DIFF_ROWS || newCursor.getCount() > MAX_DIFF_ROWS) {
+            return swapCursor(newCursor);
+        }
+        final long[] oldIds = readIds(oldCursor);
+        final long[] newIds = readIds(newCursor);
+        final String[] oldVersions = readVersions(oldCursor);
+        final String[] newVersions = readVersions(newCursor);
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldIds.length;
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newIds.length;
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldIds[oldItemPosition] == newIds[newItemPosition];
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                if (oldVersions == null || newVersions == null)
+                    return false;
+                String oldVersion = oldVersions[oldItemPosition];
+                return oldVersion != null && oldVersion.equals(newVersions[newItemPosition]);
+            }
+        });
+        replaceCursor(newCursor);
+        diff.dispatchUpdatesTo(this);
+        return oldCursor;
+    }
+
+    /**
+     * Replaces the cursor and its observers, without notifying the observers of the adapter
+     * @return Previously set cursor
+     */
+    private Cursor replaceCursor(Cursor newCursor) {
         Cursor oldCursor = mCursor;
         if (oldCursor != null) {
             if (mChangeObserver != null) oldCursor.unregisterContentObserver(mChangeObserver);
@@ -178,18 +263,40 @@ public abstract class CursorRecyclerAdapter<VH
             if (mDataSetObserver != null) newCursor.registerDataSetObserver(mDataSetObserver);
             mRowIDColumn = newCursor.getColumnIndexOrThrow("_id");
             mDataValid = true;
-            // notify the observers about the new cursor
-            notifyDataSetChanged();
         } else {
             mRowIDColumn = -1;
             mDataValid = false;
-            // notify the observers about the lack of a data set
-            // notifyDataSetInvalidated();
-            notifyItemRangeRemoved(0, getItemCount());
         }
         return oldCursor;
     }
 
+    /**
+     * Reads the {@code _id} column of all rows of a cursor, used for computing diffs
+     */
+    private static long[] readIds(@NonNull Cursor cursor) {
+        int idColumn = cursor.getColumnIndexOrThrow("_id");
+        long[] ids = new long[cursor.getCount()];
+        for (int position = 0; position < ids.length && cursor.moveToPosition(position); position++) {
+            ids[position] = cursor.getLong(idColumn);
+        }
+        return ids;
+    }
+
+    /**
+     * Reads the {@link #VERSION_COLUMN} of all rows of a cursor, used for computing diffs
+     * @return Versions of the rows, or {@code null} if the cursor has no version column
+     */
+    private static String[] readVersions(@NonNull Cursor cursor) {
+        int versionColumn = cursor.getColumnIndex(VERSION_COLUMN);
+        if (versionColumn < 0)
+            return null;
+        String[] versions = new String[cursor.getCount()];
+        for (int position = 0; position < versions.length && cursor.moveToPosition(position); position++) {
+            versions[position] = cursor.getString(versionColumn);
+        }
+        return versions;
+    }
+
     /**
      * <p>Converts the cursor into a CharSequence. Subclasses should override this
      * method to convert their results. The default implementation returns an
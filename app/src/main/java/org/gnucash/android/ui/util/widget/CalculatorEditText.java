@@ -54,7 +54,7 @@ import java.util.Locale;
 public class CalculatorEditText extends AppCompatEditText {
     private CalculatorKeyboard mCalculatorKeyboard;
 
-    private Commodity mCommodity = Commodity.DEFAULT_COMMODITY;
+    private Commodity mCommodity = Commodity.getDefaultCommodity();
     private Context mContext;
 
     /**
@@ -44,7 +44,7 @@ import java.io.OutputStreamWriter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.Deflater;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -60,6 +60,11 @@ public class BackupManager {
     private static final String LOG_TAG = "BackupManager";
     public static final String KEY_BACKUP_FILE = "book_backup_file_key";
 
+    /**
+     * Gzip compression level of the automatic backups
+     */
+    private static final int BACKUP_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
     private Context mContext;
 
     @Inject
@@ -84,10 +89,13 @@ public class BackupManager {
 
             try (BufferedOutputStream bufferedOutputStream =
                     new BufferedOutputStream(mContext.getContentResolver().openOutputStream(Uri.parse(backupFile)))){
-                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bufferedOutputStream);
+                ParallelGzipOutputStream gzipOutputStream =
+                        new ParallelGzipOutputStream(bufferedOutputStream, BACKUP_COMPRESSION_LEVEL);
                 OutputStreamWriter writer = new OutputStreamWriter(gzipOutputStream);
                 ExportParams params = new ExportParams(ExportFormat.XML);
-                new GncXmlExporter(params).generateExport(writer);
+                GncXmlExporter exporter = new GncXmlExporter(params);
+                exporter.setParallel(true);
+                exporter.generateExport(writer);
                 writer.close();
             } catch (IOException ex) {
                 Log.e(LOG_TAG, "Auto backup failed for book " + bookUID);
@@ -125,11 +133,14 @@ public class BackupManager {
             }
 
             BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
-            GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bufferedOutputStream);
+            ParallelGzipOutputStream gzipOutputStream =
+                    new ParallelGzipOutputStream(bufferedOutputStream, BACKUP_COMPRESSION_LEVEL);
             OutputStreamWriter writer = new OutputStreamWriter(gzipOutputStream);
 
             ExportParams params = new ExportParams(ExportFormat.XML);
-            new GncXmlExporter(params).generateExport(writer);
+            GncXmlExporter exporter = new GncXmlExporter(params);
+            exporter.setParallel(true);
+            exporter.generateExport(writer);
             writer.close();
             return true;
         } catch (IOException | Exporter.ExporterException e) {
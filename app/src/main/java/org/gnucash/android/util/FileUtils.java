@@ -59,6 +59,43 @@ public final class FileUtils {
         srcFile.delete();
     }
 
+    /**
+     * Size of the buffer for copying files to streams which are not files
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Copies a file to an output stream, without closing the stream.
+     * <p>Files are copied to other files with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * which lets the kernel copy the data. Other streams, like those of the Storage Access Framework,
+     * are written with a large buffer</p>
+     * @param src File to copy
+     * @param outputStream Destination of the copy
+     * @throws IOException if the file could not be read or the stream written
+     */
+    public static void copyFile(@NonNull File src, @NonNull OutputStream outputStream) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(src)) {
+            if (outputStream instanceof FileOutputStream) {
+                FileChannel inChannel = inputStream.getChannel();
+                FileChannel outChannel = ((FileOutputStream) outputStream).getChannel();
+                long size = inChannel.size();
+                long position = 0;
+                while (position < size) {
+                    long count = inChannel.transferTo(position, size - position, outChannel);
+                    if (count <= 0)
+                        break;
+                    position += count;
+                }
+                return;
+            }
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
     /**
      * Move file from a location on disk to an outputstream.
      * The outputstream could be for a URI in the Storage Access Framework
@@ -68,12 +105,8 @@ public final class FileUtils {
      */
     public static void moveFile(@NonNull String src, @NonNull OutputStream outputStream)
             throws IOException {
-        byte[] buffer = new byte[1024];
-        int read;
-        try (FileInputStream inputStream = new FileInputStream(src)) {
-            while ((read = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, read);
-            }
+        try {
+            copyFile(new File(src), outputStream);
         } finally {
             outputStream.flush();
             outputStream.close();
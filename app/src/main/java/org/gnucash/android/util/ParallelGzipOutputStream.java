@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.util;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream which gzips its data on several threads.
+ * <p>The data is cut into blocks which are compressed independently on a worker pool. Each block
+ * is written as a complete gzip member, in order, so the output is a standard multi-member gzip
+ * stream (RFC 1952) which {@link java.util.zip.GZIPInputStream}, desktop GnuCash and gunzip read
+ * as one file. Compressing blocks independently costs a little compression ratio, as the
+ * dictionary does not carry over between blocks.</p>
+ * <p>Flushing the stream ends the current block, so frequent flushes produce small members.</p>
+ */
+public class ParallelGzipOutputStream extends FilterOutputStream {
+
+    /**
+     * Size of the uncompressed blocks, large enough for the compression ratio to be close
+     * to that of a single gzip member
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 512 * 1024;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int DEFLATE_CHUNK_SIZE = 64 * 1024;
+    private static final int OS_UNKNOWN = 255;
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 10;
+
+    private final int mLevel;
+    private final int mBlockSize;
+    private final int mMaxPendingBlocks;
+    private final ExecutorService mExecutor;
+
+    /**
+     * Compressed members, in stream order, not yet written to the underlying stream
+     */
+    private final ArrayDeque<Future<byte[]>> mPendingMembers = new ArrayDeque<>();
+
+    private byte[] mBuffer;
+    private int mCount;
+    private int mMemberCount;
+    private boolean mClosed;
+
+    /**
+     * Creates a stream compressing blocks of {@link #DEFAULT_BLOCK_SIZE} on one thread per processor
+     * @param out Stream receiving the gzip data
+     * @param level Compression level, from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION},
+     *              or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public ParallelGzipOutputStream(@NonNull OutputStream out, int level) {
+        this(out, level, DEFAULT_BLOCK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a stream compressing blocks of {@code blockSize} bytes on {@code threadCount} threads
+     * @param out Stream receiving the gzip data
+     * @param level Compression level, from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION},
+     *              or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param blockSize Number of uncompressed bytes in each gzip member
+     * @param threadCount Number of blocks compressed at the same time
+     */
+    public ParallelGzipOutputStream(@NonNull OutputStream out, int level, int blockSize, int threadCount) {
+        super(out);
+        if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+                && level != Deflater.DEFAULT_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        if (blockSize <= 0 || threadCount <= 0)
+            throw new IllegalArgumentException("Block size and thread count must be positive");
+        mLevel = level;
+        mBlockSize = blockSize;
+        // a few blocks ahead keep the threads busy, without buffering the whole file in memory
+        mMaxPendingBlocks = threadCount * 2;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount,
+                WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        // the workers of a stream which is abandoned after an error without being closed still terminate
+        executor.allowCoreThreadTimeOut(true);
+        mExecutor = executor;
+        mBuffer = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        mBuffer[mCount++] = (byte) b;
+        if (mCount == mBlockSize)
+            submitBlock();
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if ((off | len) < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        while (len > 0) {
+            int length = Math.min(len, mBlockSize - mCount);
+            System.arraycopy(b, off, mBuffer, mCount, length);
+            mCount += length;
+            off += length;
+            len -= length;
+            if (mCount == mBlockSize)
+                submitBlock();
+        }
+    }
+
+    /**
+     * Compresses the buffered data as a member of its own and writes all the pending members
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (mCount > 0)
+            submitBlock();
+        while (!mPendingMembers.isEmpty()) {
+            writeNextMember();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining data and closes the underlying stream.
+     * <p>An empty stream still gets one empty member, so that the output is a valid gzip file</p>
+     */
+    @Override
+    public void close() throws IOException {
+        if (mClosed)
+            return;
+        try {
+            if (mCount > 0 || mMemberCount == 0)
+                submitBlock();
+            while (!mPendingMembers.isEmpty()) {
+                writeNextMember();
+            }
+            out.flush();
+        } finally {
+            mClosed = true;
+            mExecutor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (mClosed)
+            throw new IOException("Stream closed");
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] block = mBuffer;
+        final int length = mCount;
+        mPendingMembers.add(mExecutor.submit(() -> compressMember(block, length, mLevel)));
+        mMemberCount++;
+        mBuffer = new byte[mBlockSize];
+        mCount = 0;
+        if (mPendingMembers.size() >= mMaxPendingBlocks)
+            writeNextMember();
+    }
+
+    private void writeNextMember() throws IOException {
+        Future<byte[]> member = mPendingMembers.poll();
+        try {
+            out.write(member.get());
+        } catch (ExecutionException e) {
+            throw new IOException("Error compressing a block", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        }
+    }
+
+    /**
+     * Compresses data into a complete gzip member: header, deflate data, CRC-32 and size
+     * @param data Buffer holding the data
+     * @param length Number of bytes of {@code data} to compress
+     * @param level Compression level
+     * @return Bytes of the gzip member
+     */
+    static byte[] compressMember(byte[] data, int length, int level) {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + 64);
+        writeShort(member, GZIP_MAGIC);
+        member.write(Deflater.DEFLATED);
+        member.write(0);    // flags
+        writeInt(member, 0); // modification time
+        member.write(level == Deflater.BEST_COMPRESSION ? 2 : level == Deflater.BEST_SPEED ? 4 : 0);
+        member.write(OS_UNKNOWN);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] chunk = new byte[DEFLATE_CHUNK_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                member.write(chunk, 0, count);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        writeInt(member, (int) crc.getValue());
+        writeInt(member, length);
+        return member.toByteArray();
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        writeShort(out, value & 0xffff);
+        writeShort(out, (value >> 16) & 0xffff);
+    }
+}
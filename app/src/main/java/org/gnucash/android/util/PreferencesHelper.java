@@ -44,6 +44,26 @@ public final class PreferencesHelper {
      */
     public static final String PREFERENCE_LAST_EXPORT_TIME_KEY = "last_export_time";
 
+    /**
+     * Preference key for saving the change log sequence number of the last export
+     */
+    public static final String PREFERENCE_LAST_EXPORT_SEQUENCE_KEY = "last_export_sequence";
+
+    /**
+     * Value of the last export sequence number when none has been saved
+     */
+    public static final long NO_EXPORT_SEQUENCE = -1;
+
+    /**
+     * Preference key for saving the change log sequence number of the last sync
+     */
+    public static final String PREFERENCE_LAST_SYNC_SEQUENCE_KEY = "last_sync_sequence";
+
+    /**
+     * Value of the last sync sequence number when the book has never been synced
+     */
+    public static final long NO_SYNC_SEQUENCE = -1;
+
     /**
      * Set the last export time in UTC time zone of the currently active Book in the application.
      * This method calls through to {@link #setLastExportTime(Timestamp, String)}
@@ -99,4 +119,88 @@ public final class PreferencesHelper {
         Log.d(LOG_TAG, "Retrieving '" + utcString + "' as lastExportTime from Android Preferences.");
         return TimestampHelper.getTimestampFromUtcString(utcString);
     }
-}
\ No newline at end of file
+
+    /**
+     * Set the change log sequence number up to which the changes of a specific book have been exported.
+     * The next export will include only the changes after this sequence number
+     *
+     * @param sequence the last exported sequence number
+     * @param bookUID GUID of the book
+     * @see org.gnucash.android.model.db.adapter.DatabaseAdapter#getLastChangeSequence()
+     */
+    public static void setLastExportSequence(long sequence, String bookUID) {
+        Log.d(LOG_TAG, "Storing " + sequence + " as lastExportSequence in Android Preferences.");
+        GnuCashApplication.getAppContext().getSharedPreferences(bookUID, Context.MODE_PRIVATE)
+                .edit()
+                .putLong(PREFERENCE_LAST_EXPORT_SEQUENCE_KEY, sequence)
+                .apply();
+    }
+
+    /**
+     * Get the change log sequence number up to which the changes of a specific book have been exported.
+     *
+     * @param bookUID GUID of the book
+     * @return the last exported sequence number, or {@link #NO_EXPORT_SEQUENCE} if the book was not exported since
+     * the change log was introduced
+     */
+    public static long getLastExportSequence(String bookUID) {
+        return GnuCashApplication.getAppContext()
+                .getSharedPreferences(bookUID, Context.MODE_PRIVATE)
+                .getLong(PREFERENCE_LAST_EXPORT_SEQUENCE_KEY, NO_EXPORT_SEQUENCE);
+    }
+
+    /**
+     * Set the change log sequence number up to which the changes of a book have been exported by a scheduled backup.
+     * Each scheduled backup keeps its own sequence number, independent of the exports started by the user
+     *
+     * @param sequence the last exported sequence number
+     * @param bookUID GUID of the book
+     * @param scheduledActionUID GUID of the scheduled backup
+     */
+    public static void setScheduledExportSequence(long sequence, String bookUID, String scheduledActionUID) {
+        GnuCashApplication.getAppContext().getSharedPreferences(bookUID, Context.MODE_PRIVATE)
+                .edit()
+                .putLong(PREFERENCE_LAST_EXPORT_SEQUENCE_KEY + "_" + scheduledActionUID, sequence)
+                .apply();
+    }
+
+    /**
+     * Get the change log sequence number up to which the changes of a book have been exported by a scheduled backup.
+     *
+     * @param bookUID GUID of the book
+     * @param scheduledActionUID GUID of the scheduled backup
+     * @return the last exported sequence number, or {@link #NO_EXPORT_SEQUENCE} if the backup has not run yet
+     */
+    public static long getScheduledExportSequence(String bookUID, String scheduledActionUID) {
+        return GnuCashApplication.getAppContext()
+                .getSharedPreferences(bookUID, Context.MODE_PRIVATE)
+                .getLong(PREFERENCE_LAST_EXPORT_SEQUENCE_KEY + "_" + scheduledActionUID, NO_EXPORT_SEQUENCE);
+    }
+
+    /**
+     * Set the change log sequence number at which a book was last synchronized with an external GnuCash file.
+     * Local changes recorded after this sequence number are the ones which may conflict with the next sync
+     *
+     * @param sequence the change log sequence number after the sync
+     * @param bookUID GUID of the book
+     */
+    public static void setLastSyncSequence(long sequence, String bookUID) {
+        Log.d(LOG_TAG, "Storing " + sequence + " as lastSyncSequence in Android Preferences.");
+        GnuCashApplication.getAppContext().getSharedPreferences(bookUID, Context.MODE_PRIVATE)
+                .edit()
+                .putLong(PREFERENCE_LAST_SYNC_SEQUENCE_KEY, sequence)
+                .apply();
+    }
+
+    /**
+     * Get the change log sequence number at which a book was last synchronized with an external GnuCash file.
+     *
+     * @param bookUID GUID of the book
+     * @return the last sync sequence number, or {@link #NO_SYNC_SEQUENCE} if the book has never been synced
+     */
+    public static long getLastSyncSequence(String bookUID) {
+        return GnuCashApplication.getAppContext()
+                .getSharedPreferences(bookUID, Context.MODE_PRIVATE)
+                .getLong(PREFERENCE_LAST_SYNC_SEQUENCE_KEY, NO_SYNC_SEQUENCE);
+    }
+}
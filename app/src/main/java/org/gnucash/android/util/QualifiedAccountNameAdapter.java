@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2013 - 2014 Ngewi Fet <ngewif@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.util;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import androidx.annotation.LayoutRes;
+import androidx.annotation.NonNull;
+
+import org.gnucash.android.R;
+import org.gnucash.android.model.db.AccountPickerModel;
+
+/**
+ * Spinner adapter which shows the fully qualified account names of a selection of the {@link AccountPickerModel}.
+ * <p>The fully qualified account name includes the parent hierarchy. Item IDs are the database
+ * record IDs of the accounts, and positions are looked up through the index of the selection</p>
+ *
+ * @author Ngewi Fet <ngewif@gmail.com>
+ */
+public class QualifiedAccountNameAdapter extends BaseAdapter {
+
+    private final LayoutInflater mInflater;
+    private final @LayoutRes int mItemLayout;
+    private @LayoutRes int mDropDownItemLayout = R.layout.account_spinner_dropdown_item;
+    private AccountPickerModel.Selection mAccounts;
+
+    /**
+     * Initialize the adapter for account names using default spinner views
+     * @param context Application context
+     * @param accounts Accounts to show
+     */
+    public QualifiedAccountNameAdapter(Context context, @NonNull AccountPickerModel.Selection accounts) {
+        this(context, accounts, android.R.layout.simple_spinner_item);
+    }
+
+    /**
+     * Overloaded constructor. Specifies the view to use for displaying selected spinner text
+     * @param context Application context
+     * @param accounts Accounts to show
+     * @param selectedSpinnerItem Layout resource for selected item text
+     */
+    public QualifiedAccountNameAdapter(Context context, @NonNull AccountPickerModel.Selection accounts,
+                                       @LayoutRes int selectedSpinnerItem) {
+        mInflater = LayoutInflater.from(context);
+        mItemLayout = selectedSpinnerItem;
+        mAccounts = accounts;
+    }
+
+    /**
+     * Sets the layout of the items of the drop down list
+     * @param dropDownItemLayout Layout resource with a text view {@code android.R.id.text1}
+     */
+    public void setDropDownViewResource(@LayoutRes int dropDownItemLayout) {
+        mDropDownItemLayout = dropDownItemLayout;
+    }
+
+    /**
+     * Replaces the accounts shown by the adapter
+     * @param accounts New selection of accounts
+     */
+    public void setAccounts(@NonNull AccountPickerModel.Selection accounts) {
+        mAccounts = accounts;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Returns the accounts shown by the adapter
+     */
+    public AccountPickerModel.Selection getAccounts() {
+        return mAccounts;
+    }
+
+    @Override
+    public int getCount() {
+        return mAccounts.size();
+    }
+
+    /**
+     * Returns the GUID of the account at {@code position}
+     */
+    @Override
+    public String getItem(int position) {
+        return mAccounts.getUID(position);
+    }
+
+    /**
+     * Returns the database record ID of the account at {@code position}
+     */
+    @Override
+    public long getItemId(int position) {
+        return mAccounts.getId(position);
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        return bindView(position, convertView, parent, mItemLayout);
+    }
+
+    @Override
+    public View getDropDownView(int position, View convertView, ViewGroup parent) {
+        return bindView(position, convertView, parent, mDropDownItemLayout);
+    }
+
+    private View bindView(int position, View convertView, ViewGroup parent, @LayoutRes int layout) {
+        View view = convertView != null ? convertView : mInflater.inflate(layout, parent, false);
+        TextView textView = (TextView) view.findViewById(android.R.id.text1);
+        textView.setText(mAccounts.getFullName(position));
+        textView.setEllipsize(TextUtils.TruncateAt.MIDDLE);
+
+        if (mAccounts.isFavorite(position)) {
+            textView.setCompoundDrawablesWithIntrinsicBounds(0,0,R.drawable.ic_star_black_18dp,0);
+        } else {
+            textView.setCompoundDrawablesWithIntrinsicBounds(0,0,0,0);
+        }
+        return view;
+    }
+
+    /**
+     * Returns the position of a given account in the adapter
+     * @param accountUID GUID of the account
+     * @return Position of the account or -1 if the account is not found
+     */
+    public int getPosition(String accountUID){
+        return mAccounts.getPosition(accountUID);
+    }
+
+    /**
+     * Returns the position of a given account in the adapter
+     * @param accountId Database record ID of the account
+     * @return Position of the account or -1 if the account is not found
+     */
+    public int getPosition(long accountId){
+        return mAccounts.getPosition(accountId);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.app;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.app.StartupTrace;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class ApplicationStartupTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    @Test
+    public void onCreate_shouldNotAccessTheDatabaseOnTheMainThread() throws InterruptedException {
+        //poll instead of awaitDatabase(), which opens the database on this thread if the background thread has not started yet
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!GnuCashApplication.isDatabaseReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(GnuCashApplication.isDatabaseReady()).isTrue();
+
+        List<String> phaseNames = new ArrayList<>();
+        for (StartupTrace.Phase phase : StartupTrace.getPhases()) {
+            phaseNames.add(phase.getName());
+            if (phase.getName().equals("Application.onCreate")) {
+                assertThat(phase.isOnMainThread()).isTrue();
+            } else {
+                assertThat(phase.isOnMainThread()).as(phase.toString()).isFalse();
+            }
+        }
+        assertThat(phaseNames).contains("Application.onCreate", "initializeDatabase",
+                "openBooksDatabase", "openBook", "createAdapters", "setDefaultCurrency");
+        assertThat(phaseNames).doesNotContain("awaitDatabase");
+    }
+
+    @Test
+    public void adapters_shouldWaitForTheDatabase() {
+        assertThat(AccountsDbAdapter.getInstance()).isNotNull();
+        assertThat(GnuCashApplication.isDatabaseReady()).isTrue();
+        assertThat(AccountsDbAdapter.getInstance().getOrCreateGnuCashRootAccountUID()).isNotNull();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.db;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.model.db.AccountDirectory;
+import org.gnucash.android.model.db.BookSession;
+import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class AccountDirectoryTest {
+
+    private AccountsDbAdapter mAccountsDbAdapter;
+    private BookSession mSession;
+
+    private Account mExpenses;
+    private Account mFood;
+    private Account mGroceries;
+
+    @Before
+    public void setUp() {
+        mAccountsDbAdapter = AccountsDbAdapter.getInstance();
+        mSession = BookSession.of(GnuCashApplication.getActiveDb());
+
+        mExpenses = new Account("Expenses");
+        mExpenses.setAccountType(AccountType.EXPENSE);
+        mFood = new Account("Food");
+        mFood.setAccountType(AccountType.EXPENSE);
+        mFood.setParentUID(mExpenses.getUID());
+        mFood.setPlaceHolderFlag(true);
+        mGroceries = new Account("Groceries");
+        mGroceries.setAccountType(AccountType.EXPENSE);
+        mGroceries.setParentUID(mFood.getUID());
+        mGroceries.setColor("#1E88E5");
+        mAccountsDbAdapter.addRecord(mExpenses);
+        mAccountsDbAdapter.addRecord(mFood);
+        mAccountsDbAdapter.addRecord(mGroceries);
+    }
+
+    @After
+    public void tearDown() {
+        mAccountsDbAdapter.deleteAllRecords();
+    }
+
+    @Test
+    public void directory_shouldHoldTheAccountHierarchy() {
+        AccountDirectory accounts = mSession.getAccountDirectory();
+
+        int groceries = accounts.indexOf(mGroceries.getUID());
+        assertThat(accounts.getName(groceries)).isEqualTo("Groceries");
+        assertThat(accounts.getQualifiedName(groceries)).isEqualTo("Expenses:Food:Groceries");
+        assertThat(accounts.getType(groceries)).isEqualTo(AccountType.EXPENSE);
+        assertThat(accounts.getColorCode(groceries)).isEqualTo("#1E88E5");
+        assertThat(accounts.getParentUID(mGroceries.getUID())).isEqualTo(mFood.getUID());
+        assertThat(accounts.isPlaceholder(accounts.indexOf(mFood.getUID()))).isTrue();
+        assertThat(accounts.getChildUIDs(mExpenses.getUID())).containsExactly(mFood.getUID());
+        assertThat(accounts.getDescendantUIDs(mExpenses.getUID()))
+                .containsExactly(mFood.getUID(), mGroceries.getUID());
+        assertThat(accounts.indexOf(accounts.getId(groceries))).isEqualTo(groceries);
+        assertThat(accounts.getCommodityUIDForCurrency("USD"))
+                .isEqualTo(mAccountsDbAdapter.getCommodityUID("USD"));
+
+        assertThat(mAccountsDbAdapter.getFullyQualifiedAccountName(mGroceries.getUID()))
+                .isEqualTo("Expenses:Food:Groceries");
+        assertThat(mAccountsDbAdapter.getAccountFullName(mGroceries.getUID()))
+                .isEqualTo("Expenses:Food:Groceries");
+    }
+
+    @Test
+    public void directory_shouldBeReplacedAfterAccountWrites() {
+        AccountDirectory before = mSession.getAccountDirectory();
+        assertThat(mSession.getAccountDirectory()).isSameAs(before);
+
+        mAccountsDbAdapter.updateRecord(mFood.getUID(), DatabaseSchema.AccountEntry.COLUMN_NAME, "Dining");
+
+        AccountDirectory after = mSession.getAccountDirectory();
+        assertThat(after).isNotSameAs(before);
+        assertThat(mAccountsDbAdapter.getAccountName(mFood.getUID())).isEqualTo("Dining");
+        assertThat(after.getQualifiedName(after.indexOf(mGroceries.getUID())))
+                .isEqualTo("Expenses:Dining:Groceries");
+        //the previous snapshot is not modified
+        assertThat(before.getName(before.indexOf(mFood.getUID()))).isEqualTo("Food");
+    }
+
+    @Test
+    public void directory_shouldNotKeepRolledBackChanges() {
+        SQLiteDatabase db = GnuCashApplication.getActiveDb();
+        db.beginTransaction();
+        try {
+            mAccountsDbAdapter.updateRecord(mFood.getUID(), DatabaseSchema.AccountEntry.COLUMN_NAME, "Dining");
+            assertThat(mAccountsDbAdapter.getAccountName(mFood.getUID())).isEqualTo("Dining");
+        } finally {
+            db.endTransaction();
+        }
+
+        assertThat(mAccountsDbAdapter.getAccountName(mFood.getUID())).isEqualTo("Food");
+    }
+}
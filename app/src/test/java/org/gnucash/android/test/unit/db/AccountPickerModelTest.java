@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.db;
+
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.model.db.AccountPickerModel;
+import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class AccountPickerModelTest {
+
+    private AccountsDbAdapter mAccountsDbAdapter;
+
+    private Account mAssets;
+    private Account mCash;
+    private Account mExpenses;
+    private Account mFood;
+    private Account mGroceries;
+
+    @Before
+    public void setUp() {
+        mAccountsDbAdapter = AccountsDbAdapter.getInstance();
+
+        mAssets = new Account("Assets");
+        mAssets.setAccountType(AccountType.ASSET);
+        mCash = new Account("Cash");
+        mCash.setAccountType(AccountType.CASH);
+        mCash.setParentUID(mAssets.getUID());
+        mCash.setFavorite(true);
+        mExpenses = new Account("Expenses");
+        mExpenses.setAccountType(AccountType.EXPENSE);
+        mFood = new Account("Food");
+        mFood.setAccountType(AccountType.EXPENSE);
+        mFood.setParentUID(mExpenses.getUID());
+        mFood.setPlaceHolderFlag(true);
+        mGroceries = new Account("Groceries");
+        mGroceries.setAccountType(AccountType.EXPENSE);
+        mGroceries.setParentUID(mFood.getUID());
+        mAccountsDbAdapter.addRecord(mAssets);
+        mAccountsDbAdapter.addRecord(mCash);
+        mAccountsDbAdapter.addRecord(mExpenses);
+        mAccountsDbAdapter.addRecord(mFood);
+        mAccountsDbAdapter.addRecord(mGroceries);
+    }
+
+    @After
+    public void tearDown() {
+        mAccountsDbAdapter.deleteAllRecords();
+    }
+
+    private static List<String> uidsOf(AccountPickerModel.Selection accounts) {
+        List<String> uids = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            uids.add(accounts.getUID(i));
+        }
+        return uids;
+    }
+
+    @Test
+    public void select_shouldSortByFullName() {
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel()
+                .select(new AccountPickerModel.Filter().withoutRoot(), false);
+
+        assertThat(uidsOf(accounts)).containsExactly(mAssets.getUID(), mCash.getUID(),
+                mExpenses.getUID(), mFood.getUID(), mGroceries.getUID());
+        assertThat(accounts.getFullName(2)).isEqualTo("Expenses");
+        assertThat(accounts.getFullName(4)).isEqualTo("Expenses:Food:Groceries");
+    }
+
+    @Test
+    public void select_shouldListFavoritesFirst() {
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel()
+                .select(new AccountPickerModel.Filter().withoutRoot(), true);
+
+        assertThat(accounts.getUID(0)).isEqualTo(mCash.getUID());
+        assertThat(accounts.isFavorite(0)).isTrue();
+        assertThat(accounts.getUID(1)).isEqualTo(mAssets.getUID());
+    }
+
+    @Test
+    public void select_shouldApplyFilter() {
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel()
+                .select(new AccountPickerModel.Filter().withoutRoot().withoutPlaceholders()
+                        .excluding(mAssets.getUID()), false);
+
+        assertThat(uidsOf(accounts)).containsExactly(mCash.getUID(), mExpenses.getUID(), mGroceries.getUID());
+    }
+
+    @Test
+    public void getPosition_shouldFindAccountsByUIDAndId() {
+        AccountPickerModel.Selection accounts = mAccountsDbAdapter.getAccountPickerModel()
+                .select(new AccountPickerModel.Filter().withoutRoot().withoutPlaceholders(), false);
+
+        assertThat(accounts.getPosition(mGroceries.getUID())).isEqualTo(3);
+        assertThat(accounts.getPosition(mAccountsDbAdapter.getID(mCash.getUID()))).isEqualTo(1);
+        assertThat(accounts.getPosition(mFood.getUID())).isEqualTo(-1);
+        assertThat(accounts.getPosition("not-an-account")).isEqualTo(-1);
+        assertThat(accounts.getPosition((String) null)).isEqualTo(-1);
+    }
+
+    @Test
+    public void model_shouldBeReplacedAfterAccountWrites() {
+        AccountPickerModel before = mAccountsDbAdapter.getAccountPickerModel();
+        assertThat(mAccountsDbAdapter.getAccountPickerModel()).isSameAs(before);
+
+        mAccountsDbAdapter.updateRecord(mAssets.getUID(), DatabaseSchema.AccountEntry.COLUMN_FULL_NAME, "Zebra");
+
+        AccountPickerModel after = mAccountsDbAdapter.getAccountPickerModel();
+        assertThat(after).isNotSameAs(before);
+        AccountPickerModel.Selection accounts = after.select(new AccountPickerModel.Filter().withoutRoot(), false);
+        assertThat(accounts.getUID(accounts.size() - 1)).isEqualTo(mAssets.getUID());
+    }
+}
@@ -21,6 +21,7 @@ import org.assertj.core.data.Index;
 import org.gnucash.android.R;
 import org.gnucash.android.app.GnuCashApplication;
 import org.gnucash.android.model.db.DatabaseHelper;
+import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
 import org.gnucash.android.model.db.adapter.BooksDbAdapter;
 import org.gnucash.android.model.db.adapter.BudgetAmountsDbAdapter;
@@ -391,6 +392,57 @@ public class AccountsDbAdapterTest{
 
     }
 
+    @Test
+    public void recursiveDelete_shouldDeleteScheduledActionsAndBudgetAmountsOfSubtree(){
+        Account account = new Account("Parent");
+        Account child = new Account("Child");
+        child.setParentUID(account.getUID());
+        Account otherAccount = new Account("Other");
+        mAccountsDbAdapter.addRecord(account);
+        mAccountsDbAdapter.addRecord(child);
+        mAccountsDbAdapter.addRecord(otherAccount);
+
+        Transaction template = new Transaction("Template");
+        template.setTemplate(true);
+        Split split = new Split(Money.getZeroInstance(), child.getUID());
+        template.addSplit(split);
+        template.addSplit(split.createPair(otherAccount.getUID()));
+        mTransactionsDbAdapter.addRecord(template);
+
+        ScheduledActionDbAdapter scheduledActionDbAdapter = ScheduledActionDbAdapter.getInstance();
+        ScheduledAction scheduledTransaction = new ScheduledAction(ScheduledAction.ActionType.TRANSACTION);
+        scheduledTransaction.setActionUID(template.getUID());
+        scheduledTransaction.setRecurrence(new Recurrence(PeriodType.MONTH));
+        scheduledActionDbAdapter.addRecord(scheduledTransaction);
+        ScheduledAction scheduledBackup = new ScheduledAction(ScheduledAction.ActionType.BACKUP);
+        scheduledBackup.setActionUID("backup-uid");
+        scheduledBackup.setRecurrence(new Recurrence(PeriodType.WEEK));
+        scheduledActionDbAdapter.addRecord(scheduledBackup);
+
+        Budget budget = new Budget("Budget");
+        budget.addBudgetAmount(new BudgetAmount(Money.getZeroInstance(), child.getUID()));
+        BudgetAmount otherBudgetAmount = new BudgetAmount(Money.getZeroInstance(), otherAccount.getUID());
+        budget.addBudgetAmount(otherBudgetAmount);
+        budget.setRecurrence(new Recurrence(PeriodType.MONTH));
+        BudgetsDbAdapter.getInstance().addRecord(budget);
+
+        final List<Integer> steps = new ArrayList<>();
+        mAccountsDbAdapter.recursiveDeleteAccount(mAccountsDbAdapter.getID(account.getUID()),
+                new AccountsDbAdapter.ProgressListener() {
+                    @Override
+                    public void onProgress(int step, int stepCount) {
+                        steps.add(step * 100 / stepCount);
+                    }
+                });
+
+        assertThat(steps).isSorted().endsWith(100);
+        assertThat(mTransactionsDbAdapter.getRecordsCount()).isZero();
+        assertThat(scheduledActionDbAdapter.getAllRecords()).extracting("mActionUID").containsExactly("backup-uid");
+        assertThat(BudgetsDbAdapter.getInstance().getRecordsCount()).isEqualTo(1);
+        assertThat(BudgetAmountsDbAdapter.getInstance().getAllRecords())
+                .extracting("mAccountUID").containsExactly(otherAccount.getUID());
+    }
+
     @Test
     public void shouldGetDescendantAccounts(){
         loadDefaultAccounts();
@@ -418,6 +470,40 @@ public class AccountsDbAdapterTest{
 
     }
 
+    @Test
+    public void reassigningDescendants_shouldUpdateStoredFullNames(){
+        loadDefaultAccounts();
+
+        String savingsAcctUID = mAccountsDbAdapter.findAccountUidByFullName("Assets:Current Assets:Savings Account");
+        String currentAssetsUID = mAccountsDbAdapter.findAccountUidByFullName("Assets:Current Assets");
+        String rootUID = mAccountsDbAdapter.getOrCreateGnuCashRootAccountUID();
+
+        mAccountsDbAdapter.reassignDescendantAccounts(currentAssetsUID, rootUID);
+
+        assertThat(mAccountsDbAdapter.getParentAccountUID(savingsAcctUID)).isEqualTo(rootUID);
+        assertThat(mAccountsDbAdapter.getAccountFullName(savingsAcctUID)).isEqualTo("Savings Account");
+    }
+
+    @Test
+    public void renamingAccount_shouldUpdateFullNamesOfWholeSubtree(){
+        loadDefaultAccounts();
+
+        String expensesUID = mAccountsDbAdapter.findAccountUidByFullName("Expenses");
+        List<String> descendants = mAccountsDbAdapter.getDescendantAccountUIDs(expensesUID, null, null);
+        String autoUID = mAccountsDbAdapter.findAccountUidByFullName("Expenses:Auto");
+        String gasUID = mAccountsDbAdapter.findAccountUidByFullName("Expenses:Auto:Gas");
+
+        mAccountsDbAdapter.updateRecord(expensesUID, DatabaseSchema.AccountEntry.COLUMN_NAME, "Costs");
+        mAccountsDbAdapter.updateRecord(expensesUID, DatabaseSchema.AccountEntry.COLUMN_FULL_NAME, "Costs");
+        int updated = mAccountsDbAdapter.updateDescendantFullNames(expensesUID, "Expenses", "Costs");
+
+        assertThat(updated).isEqualTo(descendants.size());
+        assertThat(mAccountsDbAdapter.getAccountFullName(autoUID)).isEqualTo("Costs:Auto");
+        assertThat(mAccountsDbAdapter.getAccountFullName(gasUID)).isEqualTo("Costs:Auto:Gas");
+        assertThat(mAccountsDbAdapter.getFullyQualifiedAccountName(gasUID)).isEqualTo("Costs:Auto:Gas");
+        assertThat(mAccountsDbAdapter.findAccountUidByFullName("Expenses:Auto")).isNull();
+    }
+
     @Test
     public void shouldCreateImbalanceAccountOnDemand(){
         assertThat(mAccountsDbAdapter.getRecordsCount()).isEqualTo(1L);
@@ -516,6 +602,45 @@ public class AccountsDbAdapterTest{
         System.out.println("Default currency is now: " + Commodity.DEFAULT_COMMODITY);
     }
 
+    @Test
+    public void accountStats_shouldFollowAccountAndSplitWrites(){
+        Account parent = new Account("Parent");
+        Account child = new Account("Child");
+        child.setParentUID(parent.getUID());
+        Account other = new Account("Other");
+        mAccountsDbAdapter.addRecord(parent);
+        mAccountsDbAdapter.addRecord(child);
+        mAccountsDbAdapter.addRecord(other);
+
+        Transaction transaction = new Transaction("Counted");
+        Split split = new Split(new Money(BigDecimal.TEN, Commodity.DEFAULT_COMMODITY), child.getUID());
+        transaction.addSplit(split);
+        transaction.addSplit(split.createPair(other.getUID()));
+        transaction.addSplit(new Split(new Money(BigDecimal.ONE, Commodity.DEFAULT_COMMODITY), child.getUID()));
+        mTransactionsDbAdapter.addRecord(transaction);
+        //saving again replaces the rows, which must not count them twice
+        mTransactionsDbAdapter.addRecord(transaction);
+
+        assertThat(mAccountsDbAdapter.getSubAccountCount(parent.getUID())).isEqualTo(1);
+        assertThat(mTransactionsDbAdapter.getTransactionsCount(child.getUID())).isEqualTo(1);
+        assertThat(mAccountsDbAdapter.getSplitCount(child.getUID())).isEqualTo(2);
+        assertThat(mAccountsDbAdapter.verifyAccountStats()).isZero();
+
+        mAccountsDbAdapter.updateRecord(child.getUID(), DatabaseSchema.AccountEntry.COLUMN_PARENT_ACCOUNT_UID, other.getUID());
+        mSplitsDbAdapter.deleteRecord(split.getUID());
+
+        assertThat(mAccountsDbAdapter.getSubAccountCount(parent.getUID())).isZero();
+        assertThat(mAccountsDbAdapter.getSubAccountCount(other.getUID())).isEqualTo(1);
+        assertThat(mAccountsDbAdapter.getSplitCount(child.getUID())).isEqualTo(1);
+        assertThat(mAccountsDbAdapter.verifyAccountStats()).isZero();
+
+        mTransactionsDbAdapter.deleteRecord(transaction.getUID());
+
+        assertThat(mTransactionsDbAdapter.getTransactionsCount(child.getUID())).isZero();
+        assertThat(mTransactionsDbAdapter.getTransactionsCount(other.getUID())).isZero();
+        assertThat(mAccountsDbAdapter.verifyAccountStats()).isZero();
+    }
+
     /**
      * Loads the default accounts from file resource
      */
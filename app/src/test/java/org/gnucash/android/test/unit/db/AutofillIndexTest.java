@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.db;
+
+import android.database.Cursor;
+
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.Commodity;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.db.AutofillIndex;
+import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class AutofillIndexTest {
+    private static final Commodity DEFAULT_CURRENCY = Commodity.getInstance(Money.DEFAULT_CURRENCY_CODE);
+    private static final long DAY = DatabaseSchema.SplitRollupEntry.MILLIS_PER_DAY;
+
+    private AccountsDbAdapter mAccountsDbAdapter;
+    private TransactionsDbAdapter mTransactionsDbAdapter;
+    private AutofillIndex mAutofillIndex;
+    private Account mCash;
+    private Account mExpenses;
+
+    @Before
+    public void setUp() {
+        mTransactionsDbAdapter = TransactionsDbAdapter.getInstance();
+        mAccountsDbAdapter = AccountsDbAdapter.getInstance();
+        mAutofillIndex = mTransactionsDbAdapter.getAutofillIndex();
+
+        mCash = new Account("Cash");
+        mExpenses = new Account("Expenses");
+        mAccountsDbAdapter.addRecord(mCash);
+        mAccountsDbAdapter.addRecord(mExpenses);
+    }
+
+    private Transaction addTransaction(String description, String amount, long timestamp) {
+        Transaction transaction = new Transaction(description);
+        transaction.setTime(timestamp);
+        Split split = new Split(new Money(new BigDecimal(amount), DEFAULT_CURRENCY), mExpenses.getUID());
+        transaction.addSplit(split);
+        transaction.addSplit(split.createPair(mCash.getUID()));
+        mTransactionsDbAdapter.addRecord(transaction);
+        return transaction;
+    }
+
+    private List<String> suggest(String prefix, String accountUID) {
+        List<String> descriptions = new ArrayList<>();
+        for (AutofillIndex.Entry entry : mAutofillIndex.getSuggestions(prefix, accountUID)) {
+            descriptions.add(entry.getDescription());
+        }
+        return descriptions;
+    }
+
+    @Test
+    public void shouldNormalizeDescriptions() {
+        assertThat(AutofillIndex.normalize("  Coffee \t Shop ")).isEqualTo("coffee shop");
+        assertThat(AutofillIndex.normalize(" ")).isEmpty();
+        assertThat(AutofillIndex.normalize(null)).isEmpty();
+    }
+
+    @Test
+    public void shouldRankByUseCountAndRecency() {
+        long now = System.currentTimeMillis();
+        addTransaction("Groceries", "20", now - DAY);
+        addTransaction("Groceries", "20", now - 2 * DAY);
+        addTransaction("Gym", "30", now);
+        addTransaction("Rent", "500", now - 730 * DAY);
+        addTransaction("Rent", "500", now - 731 * DAY);
+        addTransaction("Restaurant", "40", now - DAY);
+
+        assertThat(suggest("g", mCash.getUID())).containsExactly("Groceries", "Gym");
+        //the old rent payments weigh less than one recent restaurant visit
+        assertThat(suggest("  RE", mCash.getUID())).containsExactly("Restaurant", "Rent");
+        assertThat(suggest("gym ", mCash.getUID())).isEmpty();
+    }
+
+    @Test
+    public void shouldSuggestOnlyAccountsOfTheTransactions() {
+        Account other = new Account("Other");
+        mAccountsDbAdapter.addRecord(other);
+        addTransaction("Taxi", "15", System.currentTimeMillis());
+
+        assertThat(suggest("ta", mExpenses.getUID())).containsExactly("Taxi");
+        assertThat(suggest("ta", other.getUID())).isEmpty();
+    }
+
+    @Test
+    public void shouldPrefillMostFrequentTemplate() {
+        long now = System.currentTimeMillis();
+        addTransaction("Coffee", "3.50", now - 2 * DAY);
+        addTransaction("coffee ", "3.50", now - DAY);
+        addTransaction("Coffee", "4.20", now);
+
+        List<AutofillIndex.Entry> suggestions = mAutofillIndex.getSuggestions("Cof", mCash.getUID());
+        assertThat(suggestions).hasSize(1);
+        AutofillIndex.Entry entry = suggestions.get(0);
+        assertThat(entry.getUseCount()).isEqualTo(2);
+        assertThat(entry.getDescription()).isEqualTo("coffee ");
+
+        Transaction transaction = mAutofillIndex.buildTransaction(entry);
+        assertThat(transaction.getSplits()).hasSize(2);
+        assertThat(transaction.getSplits().get(0).isPairOf(transaction.getSplits().get(1))).isTrue();
+        assertThat(transaction.getBalance(mExpenses.getUID()).asBigDecimal().abs()).isEqualByComparingTo("3.50");
+    }
+
+    @Test
+    public void shouldFollowChangedAndDeletedTransactions() {
+        long now = System.currentTimeMillis();
+        Transaction lunch = addTransaction("Lunch", "12", now);
+        assertThat(suggest("lu", mCash.getUID())).containsExactly("Lunch");
+
+        lunch.setDescription("Dinner");
+        mTransactionsDbAdapter.addRecord(lunch);
+        assertThat(suggest("lu", mCash.getUID())).isEmpty();
+        assertThat(suggest("di", mCash.getUID())).containsExactly("Dinner");
+
+        mTransactionsDbAdapter.deleteRecord(lunch.getUID());
+        assertThat(suggest("di", mCash.getUID())).isEmpty();
+    }
+
+    @Test
+    public void shouldRebuildAfterInvalidation() {
+        addTransaction("Books", "25", System.currentTimeMillis());
+        assertThat(suggest("bo", mCash.getUID())).containsExactly("Books");
+
+        mAutofillIndex.invalidate();
+        assertThat(mAutofillIndex.getEntry(1)).isNull();
+        assertThat(suggest("bo", mCash.getUID())).containsExactly("Books");
+    }
+
+    @Test
+    public void suggestionCursorShouldHoldEntryIds() {
+        long now = System.currentTimeMillis();
+        addTransaction("Fuel", "60", now);
+
+        Cursor cursor = mTransactionsDbAdapter.fetchTransactionSuggestions("fu", mCash.getUID());
+        try {
+            assertThat(cursor.moveToFirst()).isTrue();
+            long entryId = cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.AutofillEntry.COLUMN_ID));
+            assertThat(mAutofillIndex.getEntry(entryId).getDescription()).isEqualTo("Fuel");
+            assertThat(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseSchema.AutofillEntry.COLUMN_LAST_USED)))
+                    .isEqualTo(now);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mAccountsDbAdapter.deleteAllRecords();
+    }
+}
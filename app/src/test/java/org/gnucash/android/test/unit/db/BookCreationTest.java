@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gnucash.android.test.unit.db;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.data.BaseModel;
+import org.gnucash.android.model.data.Commodity;
+import org.gnucash.android.model.db.DatabaseHelper;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
+import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the creation of a new book database, which includes seeding the commodities table.
+ * <p>The time taken is logged rather than asserted, since it depends on the machine.</p>
+ */
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class BookCreationTest {
+    private static final String LOG_TAG = "BookCreationTest";
+
+    /**
+     * Number of currencies defined in res/raw/iso_4217_currencies.xml
+     */
+    private static final int ISO_4217_CURRENCY_COUNT = 224;
+
+    private String mBookUID;
+    private DatabaseHelper mDbHelper;
+
+    @Before
+    public void setUp() {
+        mBookUID = BaseModel.generateUID();
+    }
+
+    @After
+    public void tearDown() {
+        if (mDbHelper != null)
+            mDbHelper.close();
+        GnuCashApplication.getAppContext().deleteDatabase(mBookUID);
+    }
+
+    @Test
+    public void bookCreation_shouldSeedAllCommodities() {
+        long startNanos = System.nanoTime();
+
+        mDbHelper = new DatabaseHelper(GnuCashApplication.getAppContext(), mBookUID);
+        SQLiteDatabase db = mDbHelper.getWritableDatabase();
+        AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(db,
+                new TransactionsDbAdapter(db, new SplitsDbAdapter(db)));
+        String rootAccountUID = accountsDbAdapter.getOrCreateGnuCashRootAccountUID();
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+        Log.i(LOG_TAG, "Book created in " + elapsedMillis + "ms");
+
+        assertThat(rootAccountUID).isNotNull();
+        CommoditiesDbAdapter commoditiesDbAdapter = new CommoditiesDbAdapter(db);
+        assertThat(commoditiesDbAdapter.getRecordsCount()).isEqualTo(ISO_4217_CURRENCY_COUNT);
+    }
+
+    @Test
+    public void seededCommodities_shouldMatchCurrencyList() {
+        mDbHelper = new DatabaseHelper(GnuCashApplication.getAppContext(), mBookUID);
+        CommoditiesDbAdapter commoditiesDbAdapter = new CommoditiesDbAdapter(mDbHelper.getWritableDatabase());
+
+        Commodity euro = commoditiesDbAdapter.getCommodity("EUR");
+        assertThat(euro).isNotNull();
+        assertThat(euro.getFullname()).isEqualTo("Euro");
+        assertThat(euro.getSmallestFraction()).isEqualTo(100);
+        assertThat(euro.getLocalSymbol()).isEqualTo("€");
+        assertThat(euro.getCusip()).isEqualTo("978");
+        assertThat(euro.getNamespace()).isEqualTo(Commodity.Namespace.ISO4217);
+
+        Commodity yen = commoditiesDbAdapter.getCommodity("JPY");
+        assertThat(yen.getSmallestFraction()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.db;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.BookSession;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class BookSessionTest {
+
+    @Test
+    public void session_shouldShareAdaptersOfTheActiveDatabase() {
+        SQLiteDatabase db = GnuCashApplication.getActiveDb();
+        BookSession session = BookSession.of(db);
+
+        assertThat(BookSession.of(db)).isSameAs(session);
+        assertThat(session.getAccountsDbAdapter()).isSameAs(AccountsDbAdapter.getInstance());
+        assertThat(session.getTransactionsDbAdapter()).isSameAs(TransactionsDbAdapter.getInstance());
+        assertThat(session.getCommoditiesDbAdapter()).isSameAs(session.getCommoditiesDbAdapter());
+    }
+
+    @Test
+    public void views_shouldBePartOfTheSchema() {
+        Cursor cursor = GnuCashApplication.getActiveDb().rawQuery(
+                "SELECT name FROM sqlite_master WHERE type = 'view' ORDER BY name", null);
+        try {
+            assertThat(cursor.getCount()).isEqualTo(2);
+            cursor.moveToFirst();
+            assertThat(cursor.getString(0)).isEqualTo("trans_extra_info");
+            cursor.moveToNext();
+            assertThat(cursor.getString(0)).isEqualTo("trans_split_acct");
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.db;
+
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.data.TransactionType;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseChangeBus;
+import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the changes published by the database adapters
+ */
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class DatabaseChangeBusTest {
+
+    private AccountsDbAdapter mAccountsDbAdapter;
+    private TransactionsDbAdapter mTransactionsDbAdapter;
+
+    private Account mCash;
+    private Account mFood;
+    private Account mRent;
+
+    private final List<DatabaseChange> mChanges = new ArrayList<>();
+    private Disposable mSubscription;
+
+    @Before
+    public void setUp() {
+        mAccountsDbAdapter = AccountsDbAdapter.getInstance();
+        mTransactionsDbAdapter = TransactionsDbAdapter.getInstance();
+        mCash = new Account("Cash");
+        mFood = new Account("Food");
+        mRent = new Account("Rent");
+        mAccountsDbAdapter.addRecord(mCash);
+        mAccountsDbAdapter.addRecord(mFood);
+        mAccountsDbAdapter.addRecord(mRent);
+        mSubscription = DatabaseChangeBus.changes().subscribe(mChanges::add);
+    }
+
+    @After
+    public void tearDown() {
+        mSubscription.dispose();
+        mAccountsDbAdapter.deleteAllRecords();
+    }
+
+    @Test
+    public void savingTransaction_shouldPublishAccountsOfSplits() {
+        Transaction transaction = createTransaction(mFood);
+        mChanges.clear();
+
+        Split foodSplit = transaction.getSplits(mFood.getUID()).get(0);
+        foodSplit.setAccountUID(mRent.getUID());
+        mTransactionsDbAdapter.addRecord(transaction);
+
+        Set<String> accountUIDs = new HashSet<>();
+        Set<String> transactionUIDs = new HashSet<>();
+        for (DatabaseChange change : mChanges) {
+            assertThat(change.isTableChange()).isFalse();
+            assertThat(change.affectsAllBalances()).isFalse();
+            accountUIDs.addAll(change.getAccountUIDs());
+            transactionUIDs.addAll(change.getTransactionUIDs());
+        }
+        //the previous account of the moved split is affected as well
+        assertThat(accountUIDs).containsOnly(mCash.getUID(), mFood.getUID(), mRent.getUID());
+        assertThat(transactionUIDs).containsOnly(transaction.getUID());
+    }
+
+    @Test
+    public void changesInTransaction_shouldBePublishedAfterItEnds() {
+        mTransactionsDbAdapter.beginTransaction();
+        try {
+            createTransaction(mFood);
+            assertThat(mChanges).isEmpty();
+            mTransactionsDbAdapter.setTransactionSuccessful();
+        } finally {
+            mTransactionsDbAdapter.endTransaction();
+        }
+
+        assertThat(mChanges).isNotEmpty();
+        boolean affectsFood = false;
+        for (DatabaseChange change : mChanges) {
+            affectsFood |= change.affectsAccount(mFood.getUID());
+        }
+        assertThat(affectsFood).isTrue();
+    }
+
+    @Test
+    public void deletingSplit_shouldPublishItsAccount() {
+        Transaction transaction = createTransaction(mFood);
+        mChanges.clear();
+
+        Split foodSplit = transaction.getSplits(mFood.getUID()).get(0);
+        mTransactionsDbAdapter.getSplitDbAdapter().deleteRecord(foodSplit.getUID());
+
+        assertThat(mChanges).isNotEmpty();
+        DatabaseChange change = mChanges.get(0);
+        assertThat(change.getTableName()).isEqualTo(DatabaseSchema.SplitEntry.TABLE_NAME);
+        assertThat(change.getRecordUIDs()).containsOnly(foodSplit.getUID());
+        assertThat(change.affectsAccount(mFood.getUID())).isTrue();
+        assertThat(change.affectsAccount(mRent.getUID())).isFalse();
+    }
+
+    @Test
+    public void deletingAllRecords_shouldPublishTableChanges() {
+        createTransaction(mFood);
+        mChanges.clear();
+
+        mTransactionsDbAdapter.deleteAllRecords();
+
+        assertThat(mChanges).hasSize(1);
+        DatabaseChange change = mChanges.get(0);
+        assertThat(change.getTableName()).isEqualTo(DatabaseSchema.TransactionEntry.TABLE_NAME);
+        assertThat(change.isTableChange()).isTrue();
+        assertThat(change.affectsAllBalances()).isTrue();
+        assertThat(change.affectsAccount(mRent.getUID())).isTrue();
+    }
+
+    private Transaction createTransaction(Account expenseAccount) {
+        Transaction transaction = new Transaction("Lunch");
+        Split split = new Split(new Money("12.50", "USD"), expenseAccount.getUID());
+        split.setType(TransactionType.DEBIT);
+        transaction.addSplit(split);
+        transaction.addSplit(split.createPair(mCash.getUID()));
+        mTransactionsDbAdapter.addRecord(transaction);
+        return transaction;
+    }
+}
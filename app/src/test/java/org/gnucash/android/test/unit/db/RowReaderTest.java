@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.db;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.row.AccountRow;
+import org.gnucash.android.model.db.row.AccountRowReader;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class RowReaderTest {
+
+    private AccountsDbAdapter mAccountsDbAdapter;
+
+    @Before
+    public void setUp() {
+        mAccountsDbAdapter = AccountsDbAdapter.getInstance();
+    }
+
+    @After
+    public void tearDown() {
+        mAccountsDbAdapter.deleteAllRecords();
+    }
+
+    @Test
+    public void reader_shouldReadTheCurrentRow() {
+        Account account = new Account("Groceries");
+        account.setAccountType(AccountType.EXPENSE);
+        account.setDescription("Food and drinks");
+        account.setFavorite(true);
+        account.setPlaceHolderFlag(true);
+        mAccountsDbAdapter.addRecord(account);
+
+        Cursor cursor = mAccountsDbAdapter.fetchRecord(account.getUID());
+        try {
+            AccountRow row = new AccountRowReader(cursor);
+            assertThat(cursor.moveToFirst()).isTrue();
+            assertThat(row.getUID()).isEqualTo(account.getUID());
+            assertThat(row.getName()).isEqualTo("Groceries");
+            assertThat(row.getDescription()).isEqualTo("Food and drinks");
+            assertThat(row.getType()).isEqualTo(AccountType.EXPENSE.name());
+            assertThat(row.isFavorite()).isTrue();
+            assertThat(row.isPlaceholder()).isTrue();
+            assertThat(row.isHidden()).isFalse();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void reader_shouldBeReusedForTheSameCursor() {
+        Cursor cursor = mAccountsDbAdapter.fetchAllRecords();
+        Cursor other = mAccountsDbAdapter.fetchAllRecords();
+        try {
+            AccountRowReader reader = AccountRowReader.of(cursor, null);
+            assertThat(AccountRowReader.of(cursor, reader)).isSameAs(reader);
+            assertThat(AccountRowReader.of(other, reader)).isNotSameAs(reader);
+            assertThat(AccountRowReader.of(other, reader).getCursor()).isSameAs(other);
+        } finally {
+            cursor.close();
+            other.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reader_shouldRejectCursorsWithoutTheColumns() {
+        new AccountRowReader(new MatrixCursor(new String[]{DatabaseSchema.AccountEntry.COLUMN_UID}));
+    }
+}
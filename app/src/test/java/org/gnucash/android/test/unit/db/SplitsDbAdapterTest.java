@@ -25,6 +25,7 @@ import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.Money;
 import org.gnucash.android.model.data.Split;
 import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.data.TransactionType;
 import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
 import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
 import org.junit.After;
@@ -119,6 +120,49 @@ public class SplitsDbAdapterTest {
         assertThat(Boolean.parseBoolean(isExported)).isFalse();
     }
 
+    /**
+     * Balances over a time range are summed from the daily rollups and the splits at the edges of the range,
+     * which should give the same result as summing all splits in the range
+     */
+    @Test
+    public void balanceOverRange_shouldCombineRollupsAndEdgeSplits(){
+        final long day = DatabaseSchema.SplitRollupEntry.MILLIS_PER_DAY;
+        final long hour = day / 24;
+        Transaction first = addTransaction(10 * day + hour, "10", TransactionType.DEBIT);
+        Transaction second = addTransaction(11 * day + 23 * hour, "5", TransactionType.DEBIT);
+        addTransaction(12 * day + 12 * hour, "2", TransactionType.CREDIT);
+
+        String accountUID = mAccount.getUID();
+        assertThat(mAccountsDbAdapter.getAccountBalance(accountUID)).isEqualTo(new Money("13.00", "USD"));
+        assertThat(mAccountsDbAdapter.getAccountBalance(accountUID, 10 * day, 12 * day + 12 * hour))
+                .isEqualTo(new Money("13.00", "USD"));
+        assertThat(mAccountsDbAdapter.getAccountBalance(accountUID, 10 * day + 2 * hour, 13 * day))
+                .isEqualTo(new Money("3.00", "USD"));
+        assertThat(mAccountsDbAdapter.getAccountBalance(accountUID, 11 * day + 23 * hour, 11 * day + 23 * hour))
+                .isEqualTo(new Money("5.00", "USD"));
+
+        second.setTime(20 * day);
+        mTransactionsDbAdapter.addRecord(second);
+        mTransactionsDbAdapter.deleteRecord(first.getUID());
+        assertThat(mAccountsDbAdapter.getAccountBalance(accountUID, 10 * day, 12 * day + 12 * hour))
+                .isEqualTo(new Money("-2.00", "USD"));
+        assertThat(mAccountsDbAdapter.getAccountBalance(accountUID, 20 * day, 21 * day))
+                .isEqualTo(new Money("5.00", "USD"));
+
+        mSplitsDbAdapter.rebuildSplitRollups();
+        assertThat(mAccountsDbAdapter.getAccountBalance(accountUID)).isEqualTo(new Money("3.00", "USD"));
+    }
+
+    private Transaction addTransaction(long time, String amount, TransactionType type) {
+        Transaction transaction = new Transaction("Rollup");
+        transaction.setTime(time);
+        Split split = new Split(new Money(amount, "USD"), mAccount.getUID());
+        split.setType(type);
+        transaction.addSplit(split);
+        mTransactionsDbAdapter.addRecord(transaction);
+        return transaction;
+    }
+
     @After
     public void tearDown(){
         mAccountsDbAdapter.deleteAllRecords();
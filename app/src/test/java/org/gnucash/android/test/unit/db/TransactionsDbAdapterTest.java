@@ -15,17 +15,32 @@
  */
 package org.gnucash.android.test.unit.db;
 
+import android.content.ContentValues;
+import android.database.Cursor;
+
 import org.assertj.core.data.Index;
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.db.BookSession;
+import org.gnucash.android.model.db.DatabaseChange;
+import org.gnucash.android.model.db.DatabaseChangeBus;
+import org.gnucash.android.model.db.DatabaseSchema;
 import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BooksDbAdapter;
+import org.gnucash.android.model.db.adapter.DatabaseAdapter;
+import org.gnucash.android.model.db.adapter.ScheduledActionDbAdapter;
 import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
 import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.Commodity;
 import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.PeriodType;
+import org.gnucash.android.model.data.Recurrence;
+import org.gnucash.android.model.data.ScheduledAction;
 import org.gnucash.android.model.data.Split;
 import org.gnucash.android.model.data.Transaction;
 import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
 import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.gnucash.android.util.PreferencesHelper;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -34,8 +49,11 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
+import io.reactivex.rxjava3.disposables.Disposable;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 
@@ -143,6 +161,178 @@ public class TransactionsDbAdapterTest {
 		assertThat(savedBalance.getCommodity()).isEqualTo(secondSplitAmount.getCommodity());
 	}
 
+	@Test
+	public void addRecords_shouldSaveAndBalanceAllTransactions(){
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Transaction transaction = new Transaction("Batch " + i);
+			transaction.addSplit(new Split(new Money(BigDecimal.TEN, DEFAULT_CURRENCY), alphaAccount.getUID()));
+			transactions.add(transaction);
+		}
+
+		int saved = mTransactionsDbAdapter.addRecords(transactions, DatabaseAdapter.UpdateMethod.insert);
+
+		assertThat(saved).isEqualTo(10);
+		assertThat(mTransactionsDbAdapter.getRecordsCount()).isEqualTo(10);
+		String imbalanceAccountUID = mAccountsDbAdapter.getImbalanceAccountUID(DEFAULT_CURRENCY);
+		assertThat(imbalanceAccountUID).isNotNull();
+		for (Transaction transaction : transactions) {
+			Transaction trn = mTransactionsDbAdapter.getRecord(transaction.getUID());
+			assertThat(trn.getSplits()).hasSize(2);
+			assertThat(trn.getSplits()).extracting("mAccountUID").contains(imbalanceAccountUID);
+		}
+	}
+
+	@Test
+	public void moveTransactions_shouldMoveOnlySplitsOfSourceAccount(){
+		Account charlieAccount = new Account("Charlie");
+		mAccountsDbAdapter.addRecord(charlieAccount);
+
+		List<Long> movedTransactionIds = new ArrayList<>();
+		Transaction keptTransaction = null;
+		for (int i = 0; i < 3; i++) {
+			Transaction transaction = new Transaction("Move " + i);
+			Split split = new Split(new Money(BigDecimal.TEN, DEFAULT_CURRENCY), alphaAccount.getUID());
+			transaction.addSplit(split);
+			transaction.addSplit(split.createPair(bravoAccount.getUID()));
+			mTransactionsDbAdapter.addRecord(transaction);
+			if (i < 2)
+				movedTransactionIds.add(mTransactionsDbAdapter.getID(transaction.getUID()));
+			else
+				keptTransaction = transaction;
+		}
+
+		int movedTransactions = mTransactionsDbAdapter.moveTransactions(movedTransactionIds,
+				alphaAccount.getUID(), charlieAccount.getUID());
+
+		assertThat(movedTransactions).isEqualTo(2);
+		assertThat(mTransactionsDbAdapter.getTransactionsCount(charlieAccount.getUID())).isEqualTo(2);
+		assertThat(mTransactionsDbAdapter.getTransactionsCount(alphaAccount.getUID())).isEqualTo(1);
+		assertThat(mTransactionsDbAdapter.getTransactionsCount(bravoAccount.getUID())).isEqualTo(3);
+		assertThat(mSplitsDbAdapter.getSplitsForTransactionInAccount(keptTransaction.getUID(),
+				alphaAccount.getUID())).hasSize(1);
+	}
+
+	@Test
+	public void moveTransactions_shouldSkipTransactionsWithoutSplitInSourceAccount(){
+		Account charlieAccount = new Account("Charlie");
+		mAccountsDbAdapter.addRecord(charlieAccount);
+
+		Transaction moved = new Transaction("Moved");
+		Split split = new Split(new Money(BigDecimal.TEN, DEFAULT_CURRENCY), alphaAccount.getUID());
+		moved.addSplit(split);
+		moved.addSplit(split.createPair(bravoAccount.getUID()));
+		mTransactionsDbAdapter.addRecord(moved);
+		Transaction untouched = new Transaction("Untouched");
+		split = new Split(new Money(BigDecimal.ONE, DEFAULT_CURRENCY), bravoAccount.getUID());
+		untouched.addSplit(split);
+		untouched.addSplit(split.createPair(charlieAccount.getUID()));
+		mTransactionsDbAdapter.addRecord(untouched);
+
+		ContentValues exported = new ContentValues();
+		exported.put(DatabaseSchema.TransactionEntry.COLUMN_EXPORTED, 1);
+		mTransactionsDbAdapter.updateTransaction(exported, null, null);
+
+		List<DatabaseChange> changes = new ArrayList<>();
+		Disposable subscription = DatabaseChangeBus.changes().subscribe(changes::add);
+		int movedTransactions;
+		try {
+			List<Long> transactionIds = new ArrayList<>();
+			transactionIds.add(mTransactionsDbAdapter.getID(moved.getUID()));
+			transactionIds.add(mTransactionsDbAdapter.getID(untouched.getUID()));
+			movedTransactions = mTransactionsDbAdapter.moveTransactions(transactionIds,
+					alphaAccount.getUID(), charlieAccount.getUID());
+		} finally {
+			subscription.dispose();
+		}
+
+		assertThat(movedTransactions).isEqualTo(1);
+		assertThat(mTransactionsDbAdapter.getRecord(moved.getUID()).isExported()).isFalse();
+		assertThat(mTransactionsDbAdapter.getRecord(untouched.getUID()).isExported()).isTrue();
+		assertThat(changes).hasSize(1);
+		assertThat(changes.get(0).getTransactionUIDs()).containsOnly(moved.getUID());
+	}
+
+	@Test
+	public void changeLog_shouldTrackChangedAndDeletedTransactions(){
+		Transaction unchanged = new Transaction("Unchanged");
+		unchanged.addSplit(new Split(new Money(BigDecimal.TEN, DEFAULT_CURRENCY), alphaAccount.getUID()));
+		mTransactionsDbAdapter.addRecord(unchanged);
+		Transaction changed = new Transaction("Changed");
+		Split split = new Split(new Money(BigDecimal.ONE, DEFAULT_CURRENCY), alphaAccount.getUID());
+		changed.addSplit(split);
+		mTransactionsDbAdapter.addRecord(changed);
+		Transaction deleted = new Transaction("Deleted");
+		deleted.addSplit(new Split(new Money(BigDecimal.ONE, DEFAULT_CURRENCY), bravoAccount.getUID()));
+		mTransactionsDbAdapter.addRecord(deleted);
+
+		long sequence = mTransactionsDbAdapter.getLastChangeSequence();
+		assertThat(sequence).isGreaterThan(0);
+		assertThat(mTransactionsDbAdapter.getTransactionUIDsChangedSince(sequence)).isEmpty();
+
+		mSplitsDbAdapter.updateRecord(split.getUID(), DatabaseSchema.SplitEntry.COLUMN_MEMO, "Edited");
+		mTransactionsDbAdapter.deleteRecord(deleted.getUID());
+		ContentValues exported = new ContentValues();
+		exported.put(DatabaseSchema.TransactionEntry.COLUMN_EXPORTED, 1);
+		mTransactionsDbAdapter.updateTransaction(exported, null, null);
+
+		assertThat(mTransactionsDbAdapter.getLastChangeSequence()).isGreaterThan(sequence);
+		assertThat(mTransactionsDbAdapter.getTransactionUIDsChangedSince(sequence)).containsOnly(changed.getUID());
+		assertThat(mAccountsDbAdapter.getExportableAccounts(sequence)).extracting("mUID")
+				.contains(alphaAccount.getUID()).doesNotContain(bravoAccount.getUID());
+
+		Cursor cursor = mTransactionsDbAdapter.fetchChangesSince(sequence);
+		try {
+			assertThat(cursor.moveToLast()).isTrue();
+			assertThat(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.ChangeLogEntry.COLUMN_RECORD_UID)))
+					.isEqualTo(deleted.getUID());
+			assertThat(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseSchema.ChangeLogEntry.COLUMN_OPERATION)))
+					.isEqualTo(DatabaseSchema.ChangeLogEntry.OPERATION_DELETE);
+		} finally {
+			cursor.close();
+		}
+	}
+
+	@Test
+	public void changeLogCompaction_shouldKeepChangesNotConsumedByAllConsumers(){
+		String bookUID = BooksDbAdapter.getInstance().getActiveBookUID();
+		BookSession session = BookSession.of(GnuCashApplication.getActiveDb());
+		ScheduledAction backup = new ScheduledAction(ScheduledAction.ActionType.BACKUP);
+		backup.setActionUID("backup-uid");
+		backup.setRecurrence(new Recurrence(PeriodType.WEEK));
+		ScheduledActionDbAdapter.getInstance().addRecord(backup);
+
+		long[] sequences = new long[3];
+		Transaction[] transactions = new Transaction[3];
+		for (int i = 0; i < transactions.length; i++) {
+			transactions[i] = new Transaction("Transaction " + i);
+			transactions[i].addSplit(new Split(new Money(BigDecimal.ONE, DEFAULT_CURRENCY), alphaAccount.getUID()));
+			mTransactionsDbAdapter.addRecord(transactions[i]);
+			sequences[i] = mTransactionsDbAdapter.getLastChangeSequence();
+		}
+		PreferencesHelper.setLastExportSequence(sequences[2], bookUID);
+		PreferencesHelper.setLastSyncSequence(sequences[1], bookUID);
+		PreferencesHelper.setScheduledExportSequence(sequences[0], bookUID, backup.getUID());
+		session.getAutofillIndex().invalidate();
+
+		assertThat(session.compactChangeLog(bookUID)).isGreaterThan(0);
+		assertThat(mTransactionsDbAdapter.getTransactionUIDsChangedSince(sequences[0]))
+				.containsOnly(transactions[1].getUID(), transactions[2].getUID());
+
+		//the sync is now the last consumer behind
+		PreferencesHelper.setScheduledExportSequence(sequences[2], bookUID, backup.getUID());
+		session.compactChangeLog(bookUID);
+		assertThat(mTransactionsDbAdapter.getTransactionUIDsChangedSince(sequences[1]))
+				.containsOnly(transactions[2].getUID());
+		assertThat(mTransactionsDbAdapter.getTransactionUIDsChangedSince(0))
+				.doesNotContain(transactions[0].getUID());
+
+		//the last change is kept, so that the sequence does not go back
+		PreferencesHelper.setLastSyncSequence(sequences[2], bookUID);
+		session.compactChangeLog(bookUID);
+		assertThat(mTransactionsDbAdapter.getLastChangeSequence()).isEqualTo(sequences[2]);
+	}
+
 	@After
 	public void tearDown() throws Exception {
 		mAccountsDbAdapter.deleteAllRecords();
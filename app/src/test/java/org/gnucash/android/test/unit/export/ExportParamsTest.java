@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.export;
+
+import org.gnucash.android.model.export.ExportFormat;
+import org.gnucash.android.model.export.ExportParams;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21,
+        packageName = "org.gnucash.android",
+        shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class ExportParamsTest {
+
+    @Test
+    public void compressionLevel_shouldSurviveCsvRoundTrip() {
+        ExportParams params = new ExportParams(ExportFormat.XML);
+        params.setExportTarget(ExportParams.ExportTarget.SD_CARD);
+        params.setCompressionLevel(Deflater.BEST_SPEED);
+
+        ExportParams parsed = ExportParams.parseCsv(params.toCsv());
+        assertThat(parsed.getCompressionLevel()).isEqualTo(Deflater.BEST_SPEED);
+        assertThat(parsed.getExportLocation()).isNull();
+
+        ExportParams legacy = ExportParams.parseCsv("XML;SD_CARD;2016-06-25 12:56:07.175;false");
+        assertThat(legacy.isCompressed()).isFalse();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.export;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.Book;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.db.BookDbHelper;
+import org.gnucash.android.model.db.DatabaseHelper;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BooksDbAdapter;
+import org.gnucash.android.model.export.ExportFormat;
+import org.gnucash.android.model.export.ExportParams;
+import org.gnucash.android.model.export.ExportSink;
+import org.gnucash.android.model.export.csv.CsvAccountExporter;
+import org.gnucash.android.model.export.qif.QifExporter;
+import org.gnucash.android.model.export.xml.GncXmlExporter;
+import org.gnucash.android.test.unit.testutil.FakeExportSink;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.gnucash.android.util.TimestampHelper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21,
+        packageName = "org.gnucash.android",
+        shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class ExportSinkTest {
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void setUp() throws Exception {
+        BookDbHelper bookDbHelper = new BookDbHelper(GnuCashApplication.getAppContext());
+        BooksDbAdapter booksDbAdapter = new BooksDbAdapter(bookDbHelper.getWritableDatabase());
+        Book testBook = new Book("testRootAccountUID");
+        booksDbAdapter.addRecord(testBook);
+        DatabaseHelper databaseHelper =
+                new DatabaseHelper(GnuCashApplication.getAppContext(), testBook.getUID());
+        mDb = databaseHelper.getWritableDatabase();
+
+        AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(mDb);
+        Account account = new Account("Basic Account");
+        Transaction transaction = new Transaction("One transaction");
+        transaction.addSplit(new Split(new Money("12.50", "EUR"), account.getUID()));
+        account.addTransaction(transaction);
+        accountsDbAdapter.addRecord(account);
+    }
+
+    private static ExportParams createExportParams(ExportFormat format) {
+        ExportParams exportParameters = new ExportParams(format);
+        exportParameters.setExportStartTime(TimestampHelper.getTimestampFromEpochZero());
+        exportParameters.setExportTarget(ExportParams.ExportTarget.SD_CARD);
+        exportParameters.setDeleteTransactionsAfterExport(false);
+        return exportParameters;
+    }
+
+    @Test
+    public void xmlExport_shouldStreamSameContentAsCacheFile() throws IOException {
+        GncXmlExporter exporter = new GncXmlExporter(createExportParams(ExportFormat.XML), mDb);
+        File cacheFile = new File(exporter.generateExport().get(0));
+
+        FakeExportSink sink = new FakeExportSink();
+        List<String> exportedFiles = exporter.generateExport(sink);
+
+        assertThat(exportedFiles).containsExactly(cacheFile.getName());
+        assertThat(sink.getFileNames()).containsExactly(cacheFile.getName());
+        assertThat(sink.getMimeType(cacheFile.getName())).isEqualTo(exporter.getExportMimeType());
+        assertThat(sink.getContent(cacheFile.getName())).isEqualTo(Files.readAllBytes(cacheFile.toPath()));
+    }
+
+    @Test
+    public void compressedXmlExport_shouldStreamGzipData() throws IOException {
+        ExportParams exportParameters = createExportParams(ExportFormat.XML);
+        exportParameters.setCompressionLevel(Deflater.BEST_SPEED);
+        GncXmlExporter exporter = new GncXmlExporter(exportParameters, mDb);
+
+        FakeExportSink sink = new FakeExportSink();
+        String fileName = exporter.generateExport(sink).get(0);
+
+        byte[] xml;
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(sink.getContent(fileName)))) {
+            xml = readAll(inputStream);
+        }
+        assertThat(new String(xml, StandardCharsets.UTF_8)).startsWith("<?xml").contains("Basic Account");
+    }
+
+    @Test
+    public void csvExport_shouldStreamSameContentAsCacheFile() throws IOException {
+        CsvAccountExporter exporter = new CsvAccountExporter(createExportParams(ExportFormat.CSVA), mDb);
+        File cacheFile = new File(exporter.generateExport().get(0));
+
+        FakeExportSink sink = new FakeExportSink();
+        exporter.generateExport(sink);
+
+        assertThat(sink.getContent(cacheFile.getName())).isEqualTo(Files.readAllBytes(cacheFile.toPath()));
+    }
+
+    /**
+     * Exporters without a streaming implementation have their cache files copied to the sink
+     */
+    @Test
+    public void qifExport_shouldCopyCacheFileToSink() {
+        QifExporter exporter = new QifExporter(createExportParams(ExportFormat.QIF), mDb);
+
+        FakeExportSink sink = new FakeExportSink();
+        List<String> exportedFiles = exporter.generateExport(sink);
+
+        assertThat(exportedFiles).hasSize(1);
+        String fileName = exportedFiles.get(0);
+        assertThat(fileName).endsWith(".qif");
+        assertThat(sink.getContent(fileName)).isNotEmpty();
+        File cacheDir = new File(GnuCashApplication.getAppContext().getCacheDir(), ExportFormat.QIF.name());
+        assertThat(new File(cacheDir, fileName)).doesNotExist();
+    }
+
+    @Test
+    public void directorySink_shouldWriteExportedFile() throws IOException {
+        File directory = mTemporaryFolder.newFolder();
+        GncXmlExporter exporter = new GncXmlExporter(createExportParams(ExportFormat.XML), mDb);
+
+        String fileName = exporter.generateExport(ExportSink.toDirectory(directory)).get(0);
+
+        File exportedFile = new File(directory, fileName);
+        assertThat(exportedFile).exists().hasExtension("gnca");
+        assertThat(exportedFile.length()).isGreaterThan(0L);
+        assertThat(directory.list()).containsExactly(fileName);
+    }
+
+    /**
+     * A stream closed without commit, as after a failed export, must not leave a truncated file
+     */
+    @Test
+    public void directorySink_shouldDiscardUncommittedFile() throws IOException {
+        File directory = mTemporaryFolder.newFolder();
+        ExportSink sink = ExportSink.toDirectory(directory);
+
+        try (ExportSink.ExportStream exportStream = sink.openStream("export.qif", "text/plain")) {
+            exportStream.write("!Account".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(directory.list()).isEmpty();
+    }
+
+    @Test
+    public void directorySink_shouldKeepPreviousFileUntilCommit() throws IOException {
+        File directory = mTemporaryFolder.newFolder();
+        File file = new File(directory, "export.qif");
+        Files.write(file.toPath(), "previous".getBytes(StandardCharsets.UTF_8));
+        ExportSink sink = ExportSink.toDirectory(directory);
+
+        try (ExportSink.ExportStream exportStream = sink.openStream(file.getName(), "text/plain")) {
+            exportStream.write("new".getBytes(StandardCharsets.UTF_8));
+            assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)).isEqualTo("previous");
+            exportStream.commit();
+        }
+
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)).isEqualTo("new");
+        assertThat(directory.list()).containsExactly(file.getName());
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = inputStream.read(buffer)) > 0) {
+            output.write(buffer, 0, count);
+        }
+        return output.toByteArray();
+    }
+}
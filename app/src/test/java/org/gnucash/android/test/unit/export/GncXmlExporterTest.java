@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.export;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.Book;
+import org.gnucash.android.model.data.Budget;
+import org.gnucash.android.model.data.BudgetAmount;
+import org.gnucash.android.model.data.Commodity;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.PeriodType;
+import org.gnucash.android.model.data.Price;
+import org.gnucash.android.model.data.Recurrence;
+import org.gnucash.android.model.data.ScheduledAction;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.db.BookDbHelper;
+import org.gnucash.android.model.db.BookSession;
+import org.gnucash.android.model.db.DatabaseHelper;
+import org.gnucash.android.model.db.adapter.BooksDbAdapter;
+import org.gnucash.android.model.db.adapter.CommoditiesDbAdapter;
+import org.gnucash.android.model.db.adapter.DatabaseAdapter;
+import org.gnucash.android.model.export.ExportFormat;
+import org.gnucash.android.model.export.ExportParams;
+import org.gnucash.android.model.export.xml.GncXmlExporter;
+import org.gnucash.android.model.export.xml.GncXmlHelper;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21,
+        packageName = "org.gnucash.android",
+        shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class GncXmlExporterTest {
+
+    /**
+     * Enough transactions to be exported in two time ranges in parallel mode
+     */
+    private static final int TRANSACTION_COUNT = 4200;
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private SQLiteDatabase mDb;
+    private BookSession mSession;
+
+    @Before
+    public void setUp() throws Exception {
+        BookDbHelper bookDbHelper = new BookDbHelper(GnuCashApplication.getAppContext());
+        BooksDbAdapter booksDbAdapter = new BooksDbAdapter(bookDbHelper.getWritableDatabase());
+        Book testBook = new Book("testRootAccountUID");
+        booksDbAdapter.addRecord(testBook);
+        DatabaseHelper databaseHelper =
+                new DatabaseHelper(GnuCashApplication.getAppContext(), testBook.getUID());
+        mDb = databaseHelper.getWritableDatabase();
+        mSession = BookSession.of(mDb);
+    }
+
+    @Test
+    public void parallelExport_shouldMatchSequentialExport() {
+        Account expenses = new Account("Expenses");
+        Account cash = new Account("Cash & <Coins>");
+        mSession.getAccountsDbAdapter().addRecord(expenses);
+        mSession.getAccountsDbAdapter().addRecord(cash);
+
+        List<Transaction> transactions = new ArrayList<>(TRANSACTION_COUNT);
+        long startTime = System.currentTimeMillis() - 1000 * DAY_MILLIS;
+        for (int i = 0; i < TRANSACTION_COUNT; i++) {
+            Transaction transaction = new Transaction("Groceries " + i);
+            //several transactions per day, so that some share their timestamp
+            transaction.setTime(startTime + (i / 5) * DAY_MILLIS);
+            if (i % 7 == 0)
+                transaction.setNote("Receipt #" + i + " in the \"red\" folder");
+            Split split = new Split(new Money(BigDecimal.valueOf(i + 1, 2), Commodity.USD), expenses.getUID());
+            transaction.addSplit(split);
+            transaction.addSplit(split.createPair(cash.getUID()));
+            transactions.add(transaction);
+        }
+        mSession.getTransactionsDbAdapter().addRecords(transactions, DatabaseAdapter.UpdateMethod.insert);
+
+        CommoditiesDbAdapter commoditiesDbAdapter = mSession.getCommoditiesDbAdapter();
+        Price price = new Price(commoditiesDbAdapter.getCommodityUID("EUR"), commoditiesDbAdapter.getCommodityUID("USD"));
+        price.setValueNum(117);
+        price.setValueDenom(100);
+        mSession.getPricesDbAdapter().addRecord(price);
+
+        //templates, scheduled actions and budgets are serialized in sections of their own
+        for (int i = 0; i < 3; i++) {
+            Transaction template = new Transaction("Rent " + i);
+            template.setTemplate(true);
+            Split split = new Split(new Money(BigDecimal.valueOf(500 + i), Commodity.USD), expenses.getUID());
+            template.addSplit(split);
+            template.addSplit(split.createPair(cash.getUID()));
+            mSession.getTransactionsDbAdapter().addRecord(template, DatabaseAdapter.UpdateMethod.insert);
+
+            ScheduledAction scheduledAction = new ScheduledAction(ScheduledAction.ActionType.TRANSACTION);
+            scheduledAction.setActionUID(template.getUID());
+            scheduledAction.setStartTime(startTime + i * DAY_MILLIS);
+            scheduledAction.setRecurrence(new Recurrence(PeriodType.MONTH));
+            mSession.getScheduledActionDbAdapter().addRecord(scheduledAction);
+        }
+
+        Budget budget = new Budget("Household");
+        budget.addBudgetAmount(new BudgetAmount(new Money("250", "USD"), expenses.getUID()));
+        budget.addBudgetAmount(new BudgetAmount(new Money("40", "USD"), cash.getUID()));
+        budget.setRecurrence(new Recurrence(PeriodType.MONTH));
+        mSession.getBudgetsDbAdapter().addRecord(budget);
+
+        GncXmlExporter exporter = new GncXmlExporter(new ExportParams(ExportFormat.XML), mDb);
+        String sequentialExport = export(exporter);
+        exporter.setParallel(true);
+        String parallelExport = export(exporter);
+
+        assertThat(sequentialExport).contains("Groceries " + (TRANSACTION_COUNT - 1));
+        assertThat(sequentialExport).contains("Rent 2", GncXmlHelper.TAG_SCHEDULED_ACTION, "Household");
+        assertThat(parallelExport).isEqualTo(sequentialExport);
+    }
+
+    @Test
+    public void parallelExport_shouldExportEmptyBook() {
+        GncXmlExporter exporter = new GncXmlExporter(new ExportParams(ExportFormat.XML), mDb);
+        String sequentialExport = export(exporter);
+        exporter.setParallel(true);
+
+        assertThat(export(exporter)).isEqualTo(sequentialExport);
+    }
+
+    private static String export(GncXmlExporter exporter) {
+        StringWriter writer = new StringWriter();
+        exporter.generateExport(writer);
+        return writer.toString();
+    }
+}
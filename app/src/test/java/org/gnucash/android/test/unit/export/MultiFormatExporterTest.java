@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gnucash.android.test.unit.export;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.Book;
+import org.gnucash.android.model.data.Commodity;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.db.BookDbHelper;
+import org.gnucash.android.model.db.BookSession;
+import org.gnucash.android.model.db.DatabaseHelper;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BooksDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.model.export.ExportFormat;
+import org.gnucash.android.model.export.ExportParams;
+import org.gnucash.android.model.export.MultiFormatExporter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.gnucash.android.util.PreferencesHelper;
+import org.gnucash.android.util.TimestampHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21,
+        packageName = "org.gnucash.android",
+        shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class MultiFormatExporterTest {
+    private SQLiteDatabase mDb;
+    private String mBookUID;
+    private Transaction mTransaction;
+
+    @Before
+    public void setUp() throws Exception {
+        BookDbHelper bookDbHelper = new BookDbHelper(GnuCashApplication.getAppContext());
+        BooksDbAdapter booksDbAdapter = new BooksDbAdapter(bookDbHelper.getWritableDatabase());
+        Book testBook = new Book("testRootAccountUID");
+        booksDbAdapter.addRecord(testBook);
+        DatabaseHelper databaseHelper =
+                new DatabaseHelper(GnuCashApplication.getAppContext(), testBook.getUID());
+        mDb = databaseHelper.getWritableDatabase();
+        mBookUID = testBook.getUID();
+
+        AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(mDb);
+        Account account = new Account("Basic Account");
+        mTransaction = new Transaction("One transaction");
+        mTransaction.addSplit(new Split(Money.createZeroInstance("EUR"), account.getUID()));
+        account.addTransaction(mTransaction);
+        accountsDbAdapter.addRecord(account);
+    }
+
+    private ExportParams createExportParams(ExportParams.ExportTarget target) {
+        ExportParams exportParameters = new ExportParams(ExportFormat.QIF);
+        exportParameters.addExportFormat(ExportFormat.CSVT);
+        exportParameters.setExportStartTime(TimestampHelper.getTimestampFromEpochZero());
+        exportParameters.setExportTarget(target);
+        exportParameters.setDeleteTransactionsAfterExport(false);
+        return exportParameters;
+    }
+
+    /**
+     * Each selected format should produce its own file in one export run
+     */
+    @Test
+    public void multiFormatExport_shouldGenerateFileForEachFormat() {
+        ExportParams exportParameters = createExportParams(ExportParams.ExportTarget.SD_CARD);
+
+        List<String> exportedFiles = new MultiFormatExporter(exportParameters, mDb).generateExport();
+
+        assertThat(exportedFiles).hasSize(2);
+        File qifFile = new File(exportedFiles.get(0));
+        assertThat(qifFile).exists().hasExtension("qif");
+        assertThat(qifFile.length()).isGreaterThan(0L);
+        File csvFile = new File(exportedFiles.get(1));
+        assertThat(csvFile).exists().hasExtension("csv");
+        assertThat(csvFile.length()).isGreaterThan(0L);
+    }
+
+    /**
+     * A URI target can only receive one file, so the formats should be zipped together
+     */
+    @Test
+    public void multiFormatExportToUri_shouldZipFiles() throws IOException {
+        ExportParams exportParameters = createExportParams(ExportParams.ExportTarget.URI);
+
+        List<String> exportedFiles = new MultiFormatExporter(exportParameters, mDb).generateExport();
+
+        assertThat(exportedFiles).hasSize(1);
+        File file = new File(exportedFiles.get(0));
+        assertThat(file).exists().hasExtension("zip");
+        ZipFile zipFile = new ZipFile(file);
+        assertThat(zipFile.size()).isEqualTo(2);
+        zipFile.close();
+    }
+
+    /**
+     * The transactions are read once for all the formats, and the export is recorded once they all succeeded
+     */
+    @Test
+    public void multiFormatExport_shouldMarkTransactionsExportedOnce() {
+        ExportParams exportParameters = createExportParams(ExportParams.ExportTarget.SD_CARD);
+        exportParameters.addExportFormat(ExportFormat.OFX);
+        exportParameters.addExportFormat(ExportFormat.XML);
+        long lastChangeSequence = BookSession.of(mDb).getTransactionsDbAdapter().getLastChangeSequence();
+
+        List<String> exportedFiles = new MultiFormatExporter(exportParameters, mDb).generateExport();
+
+        assertThat(exportedFiles).hasSize(4);
+        assertThat(exportedFiles.get(0)).endsWith(".qif");
+        assertThat(exportedFiles.get(1)).endsWith(".ofx");
+        assertThat(exportedFiles.get(2)).endsWith(".gnca");
+        assertThat(exportedFiles.get(3)).endsWith(".csv");
+        TransactionsDbAdapter transactionsDbAdapter = BookSession.of(mDb).getTransactionsDbAdapter();
+        assertThat(transactionsDbAdapter.getRecord(mTransaction.getUID()).isExported()).isTrue();
+        assertThat(PreferencesHelper.getLastExportSequence(mBookUID)).isEqualTo(lastChangeSequence);
+    }
+
+    /**
+     * The QIF writer streams each currency into its own file, which are zipped together when finished
+     */
+    @Test
+    public void multiCurrencyQif_shouldZipCurrencyFiles() throws IOException {
+        AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(mDb);
+        for (String currencyCode : new String[]{"EUR", "USD"}) {
+            Account account = new Account(currencyCode + " Account", Commodity.getInstance(currencyCode));
+            Transaction transaction = new Transaction(currencyCode + " transaction");
+            transaction.addSplit(new Split(new Money("10", currencyCode), account.getUID()));
+            account.addTransaction(transaction);
+            accountsDbAdapter.addRecord(account);
+        }
+        ExportParams exportParameters = createExportParams(ExportParams.ExportTarget.SD_CARD);
+
+        List<String> exportedFiles = new MultiFormatExporter(exportParameters, mDb).generateExport();
+
+        assertThat(exportedFiles).hasSize(2);
+        File qifFile = new File(exportedFiles.get(0));
+        assertThat(qifFile).exists().hasExtension("zip");
+        ZipFile zipFile = new ZipFile(qifFile);
+        assertThat(zipFile.getEntry(qifFile.getName().replace(".qif.zip", "_EUR.qif"))).isNotNull();
+        assertThat(zipFile.getEntry(qifFile.getName().replace(".qif.zip", "_USD.qif"))).isNotNull();
+        zipFile.close();
+        //the currency files are only kept in the zip
+        assertThat(new File(qifFile.getPath().replace(".qif.zip", "_EUR.qif"))).doesNotExist();
+        assertThat(new File(exportedFiles.get(1))).exists().hasExtension("csv");
+    }
+
+    /**
+     * The transactions are deleted once after the whole export run, not by the exporter of each format
+     */
+    @Test
+    public void copyForFormat_shouldNotDeleteTransactions() {
+        ExportParams exportParameters = createExportParams(ExportParams.ExportTarget.SD_CARD);
+        exportParameters.setDeleteTransactionsAfterExport(true);
+
+        ExportParams copy = exportParameters.copyForFormat(ExportFormat.CSVT);
+
+        assertThat(copy.getExportFormat()).isEqualTo(ExportFormat.CSVT);
+        assertThat(copy.isMultiFormat()).isFalse();
+        assertThat(copy.shouldDeleteTransactionsAfterExport()).isFalse();
+    }
+
+    @Test
+    public void exportFormats_shouldSurviveCsvRoundTrip() {
+        ExportParams exportParameters = createExportParams(ExportParams.ExportTarget.SHARING);
+        exportParameters.addExportFormat(ExportFormat.XML);
+
+        ExportParams parsed = ExportParams.parseCsv(exportParameters.toCsv());
+
+        assertThat(parsed.getExportFormat()).isEqualTo(ExportFormat.QIF);
+        assertThat(parsed.getExportFormats())
+                .containsExactly(ExportFormat.QIF, ExportFormat.XML, ExportFormat.CSVT);
+        assertThat(parsed.isMultiFormat()).isTrue();
+    }
+}
@@ -26,6 +26,7 @@ import org.gnucash.android.model.db.adapter.BooksDbAdapter;
 import org.gnucash.android.model.export.ExportFormat;
 import org.gnucash.android.model.export.ExportParams;
 import org.gnucash.android.model.export.qif.QifExporter;
+import org.gnucash.android.model.export.qif.QifHelper;
 import org.gnucash.android.model.data.Account;
 import org.gnucash.android.model.data.Book;
 import org.gnucash.android.model.data.Commodity;
@@ -42,10 +43,16 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -183,6 +190,103 @@ public class QifExporterTest {
         assertThat(fileContent.contains(expectedMemo));
     }
 
+    /**
+     * The QIF file should be written directly, starting with the account header
+     */
+    @Test
+    public void exportedQif_shouldStartWithAccountHeader() throws IOException {
+        AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(mDb);
+
+        Account account = new Account("Basic Account", Commodity.getInstance("EUR"));
+        Transaction transaction = new Transaction("One transaction");
+        transaction.addSplit(new Split(Money.createZeroInstance("EUR"), account.getUID()));
+        account.addTransaction(transaction);
+        accountsDbAdapter.addRecord(account);
+
+        ExportParams exportParameters = new ExportParams(ExportFormat.QIF);
+        exportParameters.setExportStartTime(TimestampHelper.getTimestampFromEpochZero());
+        exportParameters.setExportTarget(ExportParams.ExportTarget.SD_CARD);
+        exportParameters.setDeleteTransactionsAfterExport(false);
+
+        List<String> exportedFiles = new QifExporter(exportParameters, mDb).generateExport();
+
+        assertThat(exportedFiles).hasSize(1);
+        File file = new File(exportedFiles.get(0));
+        assertThat(file.getName()).endsWith("_EUR.qif");
+        assertThat(readFileContent(file)).startsWith(QifHelper.ACCOUNT_HEADER + "\n");
+    }
+
+    /**
+     * Each currency should be written once, into its own entry of the zip
+     */
+    @Test
+    public void multiCurrencyExport_shouldWriteEachCurrencyIntoItsOwnZipEntry() throws IOException {
+        AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(mDb);
+
+        Account euroAccount = new Account("Euro Account", Commodity.getInstance("EUR"));
+        Transaction euroTransaction = new Transaction("Euro transaction");
+        euroTransaction.addSplit(new Split(new Money("10", "EUR"), euroAccount.getUID()));
+        euroAccount.addTransaction(euroTransaction);
+        accountsDbAdapter.addRecord(euroAccount);
+
+        Account dollarAccount = new Account("Dollar Account", Commodity.getInstance("USD"));
+        Transaction dollarTransaction = new Transaction("Dollar transaction");
+        dollarTransaction.addSplit(new Split(new Money("20", "USD"), dollarAccount.getUID()));
+        dollarAccount.addTransaction(dollarTransaction);
+        accountsDbAdapter.addRecord(dollarAccount);
+
+        ExportParams exportParameters = new ExportParams(ExportFormat.QIF);
+        exportParameters.setExportStartTime(TimestampHelper.getTimestampFromEpochZero());
+        exportParameters.setExportTarget(ExportParams.ExportTarget.SD_CARD);
+        exportParameters.setDeleteTransactionsAfterExport(false);
+
+        List<String> exportedFiles = new QifExporter(exportParameters, mDb).generateExport();
+
+        assertThat(exportedFiles).hasSize(1);
+        File file = new File(exportedFiles.get(0));
+        assertThat(file).exists().hasExtension("zip");
+        Map<String, String> entries = readZipEntries(file);
+        assertThat(entries).hasSize(2);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            String content = entry.getValue();
+            assertThat(content).startsWith(QifHelper.ACCOUNT_HEADER + "\n");
+            if (entry.getKey().endsWith("_EUR.qif")) {
+                assertThat(content).contains("Euro Account", "Euro transaction")
+                        .doesNotContain("Dollar");
+            } else {
+                assertThat(entry.getKey()).endsWith("_USD.qif");
+                assertThat(content).contains("Dollar Account", "Dollar transaction")
+                        .doesNotContain("Euro");
+            }
+        }
+    }
+
+    private static Map<String, String> readZipEntries(File file) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        ZipFile zipFile = new ZipFile(file);
+        try {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                InputStream inputStream = zipFile.getInputStream(zipEntry);
+                try {
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ((count = inputStream.read(buffer)) > 0) {
+                        content.write(buffer, 0, count);
+                    }
+                } finally {
+                    inputStream.close();
+                }
+                entries.put(zipEntry.getName(), content.toString("UTF-8"));
+            }
+        } finally {
+            zipFile.close();
+        }
+        return entries;
+    }
+
     @NonNull
     public String readFileContent(File file) throws IOException {
         StringBuilder fileContentsBuilder = new StringBuilder();
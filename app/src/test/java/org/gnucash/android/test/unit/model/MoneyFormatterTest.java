@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.model;
+
+import org.gnucash.android.model.data.Commodity;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class MoneyFormatterTest {
+
+    private static final Locale[] LOCALES = {Locale.US, Locale.GERMANY, Locale.FRANCE, Locale.JAPAN, Locale.CANADA};
+    private static final Commodity[] COMMODITIES = {Commodity.USD, Commodity.EUR, Commodity.JPY, Commodity.CHF};
+    private static final String[] AMOUNTS = {"0", "15.75", "-1234567.89", "1000", "-0.05"};
+
+    private static final int BENCHMARK_ITERATIONS = 10000;
+
+    /**
+     * Formatting code used by {@link Money#formattedString(Locale)} before the formatters were cached
+     */
+    private static String legacyFormattedString(Money money, Locale locale) {
+        Commodity commodity = money.getCommodity();
+        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(locale);
+        String symbol;
+        if (commodity.equals(Commodity.USD) && !locale.equals(Locale.US)) {
+            symbol = "US$";
+        } else {
+            symbol = commodity.getSymbol();
+        }
+        DecimalFormatSymbols decimalFormatSymbols = ((DecimalFormat) currencyFormat).getDecimalFormatSymbols();
+        decimalFormatSymbols.setCurrencySymbol(symbol);
+        ((DecimalFormat) currencyFormat).setDecimalFormatSymbols(decimalFormatSymbols);
+        currencyFormat.setMinimumFractionDigits(commodity.getSmallestFractionDigits());
+        currencyFormat.setMaximumFractionDigits(commodity.getSmallestFractionDigits());
+        return currencyFormat.format(money.asDouble());
+    }
+
+    @Test
+    public void formattedString_shouldMatchUncachedFormatting() {
+        for (Locale locale : LOCALES) {
+            for (Commodity commodity : COMMODITIES) {
+                for (String amount : AMOUNTS) {
+                    Money money = new Money(new BigDecimal(amount), commodity);
+                    assertThat(money.formattedString(locale)).isEqualTo(legacyFormattedString(money, locale));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void formattedString_shouldKeepAllDigitsOfLargeAmounts() {
+        Money money = new Money(new BigDecimal("12345678901234567.89"), Commodity.EUR);
+        assertThat(money.formattedString(Locale.US)).contains("12,345,678,901,234,567.89");
+    }
+
+    @Test
+    public void formattedString_shouldFollowCommoditySymbolChanges() {
+        Commodity commodity = new Commodity("Bitcoin", "XBT", 100);
+        Money money = new Money(new BigDecimal("2.50"), commodity);
+        assertThat(money.formattedString(Locale.US)).contains("XBT");
+
+        commodity.setLocalSymbol("₿");
+        assertThat(money.formattedString(Locale.US)).contains("₿").doesNotContain("XBT");
+    }
+
+    @Test
+    public void formattedString_shouldBeThreadSafe() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (final Locale locale : LOCALES) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 1000; i++) {
+                            Money money = new Money(BigDecimal.valueOf(i, 2), COMMODITIES[i % COMMODITIES.length]);
+                            if (!money.formattedString(locale).equals(legacyFormattedString(money, locale)))
+                                return false;
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Compares the bytes allocated per formatted amount with and without the cached formatters
+     */
+    @Test
+    public void formattedString_shouldAllocateLessThanUncachedFormatting() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported());
+
+        final Money money = new Money(new BigDecimal("-1234.56"), Commodity.EUR);
+        long legacyBytes = measureAllocatedBytes(allocations, new Runnable() {
+            @Override
+            public void run() {
+                legacyFormattedString(money, Locale.GERMANY);
+            }
+        });
+        long cachedBytes = measureAllocatedBytes(allocations, new Runnable() {
+            @Override
+            public void run() {
+                money.formattedString(Locale.GERMANY);
+            }
+        });
+
+        assertThat(cachedBytes).isLessThan(legacyBytes / 2);
+    }
+
+    private static long measureAllocatedBytes(com.sun.management.ThreadMXBean allocations, Runnable format) {
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) { //warm up
+            format.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long startBytes = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            format.run();
+        }
+        return (allocations.getThreadAllocatedBytes(threadId) - startBytes) / BENCHMARK_ITERATIONS;
+    }
+}
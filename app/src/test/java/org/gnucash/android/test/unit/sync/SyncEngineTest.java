@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.sync;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.data.TransactionType;
+import org.gnucash.android.model.db.DatabaseHelper;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BooksDbAdapter;
+import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.model.importer.GncXmlHandler;
+import org.gnucash.android.model.importer.GncXmlImporter;
+import org.gnucash.android.model.sync.SyncConflict;
+import org.gnucash.android.model.sync.SyncEngine.ConflictResolution;
+import org.gnucash.android.model.sync.SyncSummary;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.gnucash.android.util.PreferencesHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Merges GnuCash XML files into imported books and checks the local and remote changes end up in the book
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class SyncEngineTest {
+    private static final String KAHUNA_BURGER_UID = "b33c8a6160494417558fd143731fc26a";
+    private static final String FARMERS_MARKET_UID = "7d2f9e1c3b5a4c6e8f0a1b2c3d4e5f60";
+    private static final String GROCERIES_UID = "4e1a2c9d5b7f4d3a8c6e0f1b2a3d4c5e";
+    private static final String EXPENSES_UID = "9b607f63aecb1a175556676904432365";
+    private static final String DINING_UID = "6a7cf8267314992bdddcee56d71a3908";
+    private static final String CASH_UID = "dae686a1636addc0dae1ae670701aa4a";
+
+    private String mBookUID;
+    private SQLiteDatabase mDb;
+    private TransactionsDbAdapter mTransactionsDbAdapter;
+    private AccountsDbAdapter mAccountsDbAdapter;
+
+    @Before
+    public void setUp() {
+        BooksDbAdapter.getInstance().deleteAllRecords();
+    }
+
+    private void importBook(String filename) throws Exception {
+        XMLReader reader = SAXParserFactory.newInstance().newSAXParser().getXMLReader();
+        GncXmlHandler handler = new GncXmlHandler();
+        reader.setContentHandler(handler);
+        reader.parse(new InputSource(new BufferedInputStream(openResource(filename))));
+        mBookUID = handler.getBookUID();
+        PreferencesHelper.setLastSyncSequence(0, mBookUID);
+
+        mDb = new DatabaseHelper(GnuCashApplication.getAppContext(), mBookUID).getWritableDatabase();
+        mTransactionsDbAdapter = new TransactionsDbAdapter(mDb, new SplitsDbAdapter(mDb));
+        mAccountsDbAdapter = new AccountsDbAdapter(mDb, mTransactionsDbAdapter);
+    }
+
+    private SyncSummary sync(String filename, ConflictResolution resolution) throws Exception {
+        return GncXmlImporter.sync(openResource(filename), mDb, mBookUID, resolution);
+    }
+
+    private InputStream openResource(String filename) {
+        return getClass().getClassLoader().getResourceAsStream(filename);
+    }
+
+    @Test
+    public void sync_shouldApplyRemoteChangesAndKeepLocalChanges() throws Exception {
+        importBook("simpleTransactionImport.xml");
+        Transaction coffee = new Transaction("Coffee");
+        Split split = new Split(new Money("3.50", "USD"), DINING_UID);
+        split.setType(TransactionType.DEBIT);
+        coffee.addSplit(split);
+        coffee.addSplit(split.createPair(CASH_UID));
+        mTransactionsDbAdapter.addRecord(coffee);
+
+        SyncSummary summary = sync("syncRemoteChanges.xml", ConflictResolution.KEEP_LOCAL);
+
+        assertThat(summary.getConflicts()).isEmpty();
+        assertThat(summary.getAccountsAdded()).isEqualTo(1);
+        assertThat(summary.getAccountsUpdated()).isZero();
+        assertThat(summary.getTransactionsAdded()).isEqualTo(1);
+        assertThat(summary.getTransactionsUpdated()).isEqualTo(1);
+        assertThat(summary.getTransactionsDeleted()).isZero();
+        assertThat(summary.getLocalChanges()).isEqualTo(1);
+
+        assertThat(mTransactionsDbAdapter.getRecord(KAHUNA_BURGER_UID).getDescription()).isEqualTo("Big Kahuna Burger");
+        assertThat(mTransactionsDbAdapter.getRecord(coffee.getUID()).getSplits()).hasSize(2);
+        Transaction farmersMarket = mTransactionsDbAdapter.getRecord(FARMERS_MARKET_UID);
+        assertThat(farmersMarket.getSplits()).hasSize(2);
+        assertThat(farmersMarket.getSplits(GROCERIES_UID)).hasSize(1);
+        Account groceries = mAccountsDbAdapter.getRecord(GROCERIES_UID);
+        assertThat(groceries.getParentUID()).isEqualTo(EXPENSES_UID);
+        assertThat(groceries.getFullName()).isEqualTo("Expenses:Groceries");
+
+        assertThat(PreferencesHelper.getLastSyncSequence(mBookUID)).isEqualTo(summary.getSyncSequence());
+        SyncSummary resync = sync("syncRemoteChanges.xml", ConflictResolution.KEEP_LOCAL);
+        assertThat(resync.hasRemoteChanges()).isFalse();
+        assertThat(resync.getConflicts()).isEmpty();
+        assertThat(resync.getLocalChanges()).isEqualTo(1);
+    }
+
+    @Test
+    public void sync_shouldDeleteRecordsRemovedFromRemoteBook() throws Exception {
+        importBook("syncRemoteChanges.xml");
+
+        SyncSummary summary = sync("simpleTransactionImport.xml", ConflictResolution.KEEP_LOCAL);
+
+        assertThat(summary.getConflicts()).isEmpty();
+        assertThat(summary.getTransactionsUpdated()).isEqualTo(1);
+        assertThat(summary.getTransactionsDeleted()).isEqualTo(1);
+        assertThat(summary.getAccountsDeleted()).isEqualTo(1);
+        assertThat(mTransactionsDbAdapter.getRecord(KAHUNA_BURGER_UID).getDescription()).isEqualTo("Kahuna Burger");
+        assertThat(mTransactionsDbAdapter.getRecordsCount()).isEqualTo(1);
+        assertThat(mAccountsDbAdapter.getRecordsCount()).isEqualTo(5); // 4 accounts + root
+    }
+
+    @Test
+    public void sync_shouldResolveConflictsWithTheChosenVersion() throws Exception {
+        importBook("simpleTransactionImport.xml");
+        Transaction transaction = mTransactionsDbAdapter.getRecord(KAHUNA_BURGER_UID);
+        transaction.setDescription("Royale with Cheese");
+        mTransactionsDbAdapter.addRecord(transaction);
+
+        SyncSummary summary = sync("syncRemoteChanges.xml", ConflictResolution.KEEP_LOCAL);
+
+        assertThat(summary.getConflicts()).hasSize(1);
+        SyncConflict conflict = summary.getConflicts().get(0);
+        assertThat(conflict.getRecordUID()).isEqualTo(KAHUNA_BURGER_UID);
+        assertThat(conflict.getKind()).isEqualTo(SyncConflict.Kind.MODIFIED_ON_BOTH_SIDES);
+        assertThat(conflict.isResolvedWithRemote()).isFalse();
+        assertThat(summary.getTransactionsAdded()).isEqualTo(1);
+        assertThat(mTransactionsDbAdapter.getRecord(KAHUNA_BURGER_UID).getDescription()).isEqualTo("Royale with Cheese");
+
+        transaction.setDescription("Le Big Mac");
+        mTransactionsDbAdapter.addRecord(transaction);
+        summary = sync("syncRemoteChanges.xml", ConflictResolution.KEEP_REMOTE);
+
+        assertThat(summary.getConflicts()).hasSize(1);
+        assertThat(summary.getConflicts().get(0).isResolvedWithRemote()).isTrue();
+        assertThat(summary.getTransactionsUpdated()).isEqualTo(1);
+        assertThat(mTransactionsDbAdapter.getRecord(KAHUNA_BURGER_UID).getDescription()).isEqualTo("Big Kahuna Burger");
+    }
+}
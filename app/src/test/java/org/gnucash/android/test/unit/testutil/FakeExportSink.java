@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.testutil;
+
+import androidx.annotation.NonNull;
+
+import org.gnucash.android.model.export.ExportSink;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Export target which keeps the exported files in memory.
+ * <p>A file is only recorded when its stream is committed and closed, like a file which is completely uploaded</p>
+ */
+public class FakeExportSink implements ExportSink {
+
+    private final Map<String, byte[]> mFiles = new LinkedHashMap<>();
+    private final Map<String, String> mMimeTypes = new LinkedHashMap<>();
+
+    @NonNull
+    @Override
+    public ExportStream openStream(@NonNull final String fileName, @NonNull String mimeType) {
+        mMimeTypes.put(fileName, mimeType);
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        return new ExportStream(content) {
+            @Override
+            protected void publish() {
+                mFiles.put(fileName, content.toByteArray());
+            }
+
+            @Override
+            protected void discard() {
+                mFiles.remove(fileName);
+            }
+        };
+    }
+
+    /**
+     * Returns the names of the completely written files, in the order they were opened
+     */
+    public Set<String> getFileNames() {
+        return mFiles.keySet();
+    }
+
+    /**
+     * Returns the content of a completely written file, or {@code null} if there is no such file
+     */
+    public byte[] getContent(String fileName) {
+        return mFiles.get(fileName);
+    }
+
+    /**
+     * Returns the MIME type a file was opened with
+     */
+    public String getMimeType(String fileName) {
+        return mMimeTypes.get(fileName);
+    }
+}
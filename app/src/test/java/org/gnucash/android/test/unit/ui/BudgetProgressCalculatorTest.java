@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.ui;
+
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.model.data.Budget;
+import org.gnucash.android.model.data.BudgetAmount;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.data.PeriodType;
+import org.gnucash.android.model.data.Recurrence;
+import org.gnucash.android.model.data.Split;
+import org.gnucash.android.model.data.Transaction;
+import org.gnucash.android.model.data.TransactionType;
+import org.gnucash.android.model.db.DatabaseSchema;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.SplitsDbAdapter;
+import org.gnucash.android.model.db.adapter.TransactionsDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.gnucash.android.ui.budget.BudgetProgressCalculator;
+import org.joda.time.DateTimeUtils;
+import org.joda.time.LocalDateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class BudgetProgressCalculatorTest {
+
+    private AccountsDbAdapter mAccountsDbAdapter;
+    private TransactionsDbAdapter mTransactionsDbAdapter;
+    private BudgetProgressCalculator mCalculator;
+
+    private Account mGroceries;
+    private Account mVegetables;
+    private Account mRent;
+
+    @Before
+    public void setUp() {
+        mAccountsDbAdapter = AccountsDbAdapter.getInstance();
+        mTransactionsDbAdapter = TransactionsDbAdapter.getInstance();
+        mCalculator = new BudgetProgressCalculator(mAccountsDbAdapter, SplitsDbAdapter.getInstance());
+
+        mGroceries = new Account("Groceries");
+        mGroceries.setAccountType(AccountType.EXPENSE);
+        mVegetables = new Account("Vegetables");
+        mVegetables.setAccountType(AccountType.EXPENSE);
+        mVegetables.setParentUID(mGroceries.getUID());
+        mRent = new Account("Rent");
+        mRent.setAccountType(AccountType.EXPENSE);
+        mAccountsDbAdapter.addRecord(mGroceries);
+        mAccountsDbAdapter.addRecord(mVegetables);
+        mAccountsDbAdapter.addRecord(mRent);
+    }
+
+    @After
+    public void tearDown() {
+        mCalculator.close();
+        mAccountsDbAdapter.deleteAllRecords();
+    }
+
+    @Test
+    public void progress_shouldMatchAccountBalancesIncludingSubAccounts() {
+        long now = System.currentTimeMillis();
+        addExpense(mGroceries, "12.50", now);
+        addExpense(mVegetables, "7.50", now);
+        addExpense(mRent, "500.00", now);
+
+        Budget groceriesBudget = createBudget("Groceries", mGroceries, "100");
+        Budget householdBudget = createBudget("Household", mRent, "600");
+        householdBudget.addBudgetAmount(new BudgetAmount(new Money("50", "USD"), mVegetables.getUID()));
+
+        Map<String, BudgetProgressCalculator.BudgetProgress> progress =
+                mCalculator.getProgress(Arrays.asList(groceriesBudget, householdBudget), true);
+
+        BudgetProgressCalculator.BudgetProgress groceries = progress.get(groceriesBudget.getUID());
+        assertThat(groceries.getSpentInCurrentPeriod(mGroceries.getUID())).isEqualTo(new Money("20.00", "USD"));
+        assertThat(groceries.getTotalSpentInCurrentPeriod()).isEqualByComparingTo(new BigDecimal("20"));
+
+        BudgetProgressCalculator.BudgetProgress household = progress.get(householdBudget.getUID());
+        assertThat(household.getSpentInCurrentPeriod(mVegetables.getUID())).isEqualTo(new Money("7.50", "USD"));
+        assertThat(household.getTotalSpentInCurrentPeriod()).isEqualByComparingTo(new BigDecimal("507.50"));
+
+        assertThat(groceries.hasPeriodHistory()).isTrue();
+        assertThat(groceries.getNumberOfPeriods()).isGreaterThan(0);
+        for (int periodNum = 1; periodNum <= groceries.getNumberOfPeriods(); periodNum++) {
+            Money expected = mAccountsDbAdapter.getAccountBalance(mGroceries.getUID(),
+                    groceriesBudget.getStartOfPeriod(periodNum), groceriesBudget.getEndOfPeriod(periodNum));
+            assertThat(groceries.getSpentInPeriod(mGroceries.getUID(), periodNum)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void progress_shouldBeCachedUntilSplitsChange() {
+        long now = System.currentTimeMillis();
+        addExpense(mVegetables, "7.50", now);
+        Budget budget = createBudget("Groceries", mGroceries, "100");
+
+        BudgetProgressCalculator.BudgetProgress progress = mCalculator.getProgress(budget, false);
+        assertThat(progress.hasPeriodHistory()).isFalse();
+        assertThat(mCalculator.getProgress(budget, false)).isSameAs(progress);
+
+        addExpense(mVegetables, "2.50", now);
+        BudgetProgressCalculator.BudgetProgress updated = mCalculator.getProgress(budget, false);
+        assertThat(updated).isNotSameAs(progress);
+        assertThat(updated.getSpentInCurrentPeriod(mGroceries.getUID())).isEqualTo(new Money("10.00", "USD"));
+
+        assertThat(mCalculator.getProgress(budget, true).hasPeriodHistory()).isTrue();
+    }
+
+    @Test
+    public void progress_shouldBeRecomputedInNextPeriod() {
+        long now = System.currentTimeMillis();
+        addExpense(mGroceries, "12.50", now);
+        Budget budget = createBudget("Groceries", mGroceries, "100");
+
+        BudgetProgressCalculator.BudgetProgress progress = mCalculator.getProgress(budget, false);
+        assertThat(progress.getSpentInCurrentPeriod(mGroceries.getUID())).isEqualTo(new Money("12.50", "USD"));
+
+        DateTimeUtils.setCurrentMillisFixed(new LocalDateTime(now).plusMonths(1).toDate().getTime());
+        try {
+            BudgetProgressCalculator.BudgetProgress nextPeriod = mCalculator.getProgress(budget, false);
+            assertThat(nextPeriod).isNotSameAs(progress);
+            assertThat(nextPeriod.getSpentInCurrentPeriod(mGroceries.getUID())).isEqualTo(
+                    mAccountsDbAdapter.getAccountBalance(mGroceries.getUID(),
+                            budget.getStartofCurrentPeriod(), budget.getEndOfCurrentPeriod()));
+        } finally {
+            DateTimeUtils.setCurrentMillisSystem();
+        }
+    }
+
+    @Test
+    public void periodHistory_shouldMatchBalancesAtPeriodEdges() {
+        Budget budget = createBudget("Groceries", mGroceries, "100");
+        for (int periodNum = 1; periodNum <= 3; periodNum++) {
+            long start = budget.getStartOfPeriod(periodNum);
+            long end = budget.getEndOfPeriod(periodNum);
+            //first and last moment of the period are read from the splits, the middle from the rollups
+            addExpense(mGroceries, "1.00", start);
+            addExpense(mVegetables, "2.00", start + 10 * DatabaseSchema.SplitRollupEntry.MILLIS_PER_DAY);
+            addExpense(mGroceries, "4.00", end);
+        }
+
+        BudgetProgressCalculator.BudgetProgress progress = mCalculator.getProgress(budget, true);
+
+        for (int periodNum = 1; periodNum <= 3; periodNum++) {
+            Money expected = mAccountsDbAdapter.getAccountBalance(mGroceries.getUID(),
+                    budget.getStartOfPeriod(periodNum), budget.getEndOfPeriod(periodNum));
+            assertThat(expected.isAmountZero()).isFalse();
+            assertThat(progress.getSpentInPeriod(mGroceries.getUID(), periodNum)).isEqualTo(expected);
+        }
+    }
+
+    private Budget createBudget(String name, Account account, String amount) {
+        Budget budget = new Budget(name);
+        budget.addBudgetAmount(new BudgetAmount(new Money(amount, "USD"), account.getUID()));
+        budget.setRecurrence(new Recurrence(PeriodType.MONTH));
+        return budget;
+    }
+
+    private void addExpense(Account account, String amount, long time) {
+        Transaction transaction = new Transaction("Expense");
+        transaction.setTime(time);
+        Split split = new Split(new Money(amount, "USD"), account.getUID());
+        split.setType(TransactionType.DEBIT);
+        transaction.addSplit(split);
+        mTransactionsDbAdapter.addRecord(transaction);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.ui;
+
+import android.os.CancellationSignal;
+
+import org.gnucash.android.model.data.AccountType;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.gnucash.android.ui.report.ReportEngine;
+import org.gnucash.android.ui.report.ReportType;
+import org.gnucash.android.ui.report.ReportsActivity;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android", shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class ReportEngineTest {
+
+    private ReportEngine.ReportKey mMonthlyKey;
+    private ReportEngine mReportEngine;
+    private AtomicInteger mGeneratorCalls;
+    private List<String> mReports;
+    private AtomicInteger mCancelledReports;
+
+    @Before
+    public void setUp() {
+        mMonthlyKey = new ReportEngine.ReportKey(ReportType.BAR_CHART,
+                AccountType.EXPENSE, "USD", 0, 1000, ReportsActivity.GroupInterval.MONTH);
+        mReportEngine = new ReportEngine();
+        mGeneratorCalls = new AtomicInteger();
+        mReports = new ArrayList<>();
+        mCancelledReports = new AtomicInteger();
+    }
+
+    @Test
+    public void submit_shouldReuseReportWithEqualKey() throws InterruptedException {
+        submitAndWait(mMonthlyKey, "monthly");
+        assertThat(mReports).containsExactly("monthly");
+
+        ReportEngine.ReportKey sameKey = new ReportEngine.ReportKey(ReportType.BAR_CHART,
+                AccountType.EXPENSE, "USD", 0, 1000, ReportsActivity.GroupInterval.MONTH);
+        mReportEngine.submit(sameKey, progress -> "regenerated", new RecordingCallback(null));
+
+        assertThat(mReports).containsExactly("monthly", "monthly");
+        assertThat(mGeneratorCalls.get()).isEqualTo(1);
+
+        ReportEngine.ReportKey quarterlyKey = new ReportEngine.ReportKey(ReportType.BAR_CHART,
+                AccountType.EXPENSE, "USD", 0, 1000, ReportsActivity.GroupInterval.QUARTER);
+        submitAndWait(quarterlyKey, "quarterly");
+        assertThat(mReports).containsExactly("monthly", "monthly", "quarterly");
+        assertThat(mGeneratorCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void cancelledReport_shouldNotBeDeliveredOrCached() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        CancellationSignal signal = mReportEngine.submit(mMonthlyKey, progress -> {
+            try {
+                started.countDown();
+                cancelled.await(5, TimeUnit.SECONDS);
+                progress.throwIfCanceled();
+                return "stale";
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                finished.countDown();
+            }
+        }, new RecordingCallback(null));
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        signal.cancel();
+        cancelled.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertThat(mReports).isEmpty();
+
+        submitAndWait(mMonthlyKey, "fresh");
+        assertThat(mReports).containsExactly("fresh");
+    }
+
+    @Test
+    public void partialReports_shouldBeDeliveredBeforeFinalReport() throws InterruptedException {
+        final List<String> partialReports = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        mReportEngine.submit(mMonthlyKey, progress -> {
+            progress.publish("first period");
+            return "all periods";
+        }, new RecordingCallback(done) {
+            @Override
+            public void onPartialReport(String partialReport) {
+                partialReports.add(partialReport);
+            }
+        });
+        awaitReport(done);
+
+        assertThat(partialReports).containsExactly("first period");
+        assertThat(mReports).containsExactly("all periods");
+    }
+
+    @Test
+    public void reportKey_shouldDependOnAccountColors() {
+        ReportEngine.ReportKey accountColorKey = new ReportEngine.ReportKey(ReportType.BAR_CHART,
+                AccountType.EXPENSE, "USD", 0, 1000, ReportsActivity.GroupInterval.MONTH, true);
+        assertThat(accountColorKey).isNotEqualTo(mMonthlyKey);
+        assertThat(new ReportEngine.ReportKey(ReportType.BAR_CHART, AccountType.EXPENSE, "USD", 0, 1000,
+                ReportsActivity.GroupInterval.MONTH, false)).isEqualTo(mMonthlyKey);
+    }
+
+    @Test
+    public void reportGeneratedDuringEviction_shouldNotBeCached() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        mReportEngine.submit(mMonthlyKey, progress -> {
+            mGeneratorCalls.incrementAndGet();
+            //the data changes while the report is being generated
+            mReportEngine.clearCache();
+            return "stale";
+        }, new RecordingCallback(done));
+        awaitReport(done);
+
+        submitAndWait(mMonthlyKey, "fresh");
+        assertThat(mReports).containsExactly("stale", "fresh");
+        assertThat(mGeneratorCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void droppedReport_shouldBeCancelled() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        mReportEngine.submit(mMonthlyKey, progress -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "blocking";
+        }, new RecordingCallback(null));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //fill the queue of the worker thread, so that the oldest waiting report is dropped
+        List<CancellationSignal> signals = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ReportEngine.ReportKey key = new ReportEngine.ReportKey(ReportType.BAR_CHART,
+                    AccountType.EXPENSE, "USD", i + 1, 1000, ReportsActivity.GroupInterval.MONTH);
+            signals.add(mReportEngine.submit(key, progress -> "queued", new RecordingCallback(i == 4 ? done : null)));
+        }
+        assertThat(signals.get(0).isCanceled()).isTrue();
+        assertThat(signals.get(1).isCanceled()).isFalse();
+
+        release.countDown();
+        awaitReport(done);
+        assertThat(mCancelledReports.get()).isEqualTo(1);
+        assertThat(mReports).containsExactly("blocking", "queued", "queued", "queued", "queued");
+    }
+
+    private void submitAndWait(ReportEngine.ReportKey key, final String report) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        mReportEngine.submit(key, progress -> {
+            mGeneratorCalls.incrementAndGet();
+            return report;
+        }, new RecordingCallback(done));
+        awaitReport(done);
+    }
+
+    /**
+     * Runs the main looper until the report has been delivered
+     */
+    private void awaitReport(CountDownLatch done) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (done.getCount() > 0 && System.currentTimeMillis() < timeout) {
+            ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+            Thread.sleep(10);
+        }
+        assertThat(done.getCount()).isEqualTo(0);
+    }
+
+    private class RecordingCallback implements ReportEngine.ReportCallback<String> {
+        private final CountDownLatch mDone;
+
+        RecordingCallback(CountDownLatch done) {
+            mDone = done;
+        }
+
+        @Override
+        public void onPartialReport(String partialReport) {
+            //not recorded by default
+        }
+
+        @Override
+        public void onReport(String report) {
+            mReports.add(report);
+            if (mDone != null)
+                mDone.countDown();
+        }
+
+        @Override
+        public void onReportFailed(Exception error) {
+            throw new AssertionError(error);
+        }
+
+        @Override
+        public void onReportCancelled() {
+            mCancelledReports.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.test.unit.util;
+
+import org.gnucash.android.model.export.ExportParams;
+import org.gnucash.android.util.ParallelGzipOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelGzipOutputStreamTest {
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) > 0) {
+                output.write(buffer, 0, count);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] sampleData(int size) {
+        // compressible data, like an XML export
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return data;
+    }
+
+    @Test
+    public void severalBlocks_shouldBeReadAsOneGzipStream() throws IOException {
+        byte[] data = sampleData(10_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream gzip =
+                     new ParallelGzipOutputStream(compressed, Deflater.DEFAULT_COMPRESSION, 1000, 3)) {
+            // mix single bytes and arrays spanning several blocks
+            gzip.write(data[0]);
+            gzip.write(data, 1, 2499);
+            gzip.write(data, 2500, 7500);
+        }
+
+        assertThat(compressed.size()).isLessThan(data.length);
+        assertThat(gunzip(compressed.toByteArray())).isEqualTo(data);
+    }
+
+    @Test
+    public void flush_shouldEndTheMember() throws IOException {
+        byte[] data = sampleData(3000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, Deflater.BEST_SPEED, 1000, 2);
+        gzip.write(data, 0, 1500);
+        gzip.flush();
+        assertThat(gunzip(compressed.toByteArray())).isEqualTo(Arrays.copyOf(data, 1500));
+
+        gzip.write(data, 1500, 1500);
+        gzip.close();
+        assertThat(gunzip(compressed.toByteArray())).isEqualTo(data);
+    }
+
+    @Test
+    public void emptyStream_shouldBeValidGzip() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(compressed, Deflater.BEST_COMPRESSION).close();
+
+        assertThat(gunzip(compressed.toByteArray())).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidLevel_shouldBeRejected() {
+        new ParallelGzipOutputStream(new ByteArrayOutputStream(), ExportParams.UNCOMPRESSED);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.ui.homescreen;
+
+import android.content.Context;
+import android.os.Looper;
+
+import org.gnucash.android.app.GnuCashApplication;
+import org.gnucash.android.model.data.Account;
+import org.gnucash.android.model.data.Book;
+import org.gnucash.android.model.data.Money;
+import org.gnucash.android.model.db.BookDbHelper;
+import org.gnucash.android.model.db.adapter.AccountsDbAdapter;
+import org.gnucash.android.model.db.adapter.BooksDbAdapter;
+import org.gnucash.android.test.unit.testutil.ShadowCrashlytics;
+import org.gnucash.android.test.unit.testutil.ShadowUserVoice;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(RobolectricTestRunner.class) //package is required so that resources can be found in dev mode
+@Config(sdk = 21, packageName = "org.gnucash.android",
+        shadows = {ShadowCrashlytics.class, ShadowUserVoice.class})
+public class WidgetRefreshSchedulerTest {
+    private String mBookUID;
+    private String mAssetsUID;
+    private String mCashUID;
+    private String mExpensesUID;
+    private RecordingScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        Context context = GnuCashApplication.getAppContext();
+        BookDbHelper bookDbHelper = new BookDbHelper(context);
+        BooksDbAdapter booksDbAdapter = new BooksDbAdapter(bookDbHelper.getWritableDatabase());
+        Book book = new Book("testRootAccountUID");
+        booksDbAdapter.addRecord(book);
+        mBookUID = book.getUID();
+
+        AccountsDbAdapter accountsDbAdapter = new AccountsDbAdapter(BookDbHelper.getDatabase(mBookUID));
+        Account assets = new Account("Assets");
+        Account cash = new Account("Cash");
+        cash.setParentUID(assets.getUID());
+        Account expenses = new Account("Expenses");
+        accountsDbAdapter.addRecord(assets);
+        accountsDbAdapter.addRecord(cash);
+        accountsDbAdapter.addRecord(expenses);
+        mAssetsUID = assets.getUID();
+        mCashUID = cash.getUID();
+        mExpensesUID = expenses.getUID();
+
+        //two widgets show the same account
+        WidgetConfigurationActivity.configureWidget(context, 1, mBookUID, mAssetsUID, false);
+        WidgetConfigurationActivity.configureWidget(context, 2, mBookUID, mAssetsUID, false);
+        WidgetConfigurationActivity.configureWidget(context, 3, mBookUID, mCashUID, false);
+        WidgetConfigurationActivity.configureWidget(context, 4, mBookUID, mExpensesUID, false);
+        mScheduler = new RecordingScheduler(context, new int[]{1, 2, 3, 4});
+    }
+
+    /**
+     * Requests arriving within the debounce delay should be handled in one refresh pass
+     */
+    @Test
+    public void requestsWithinDebounceDelay_shouldBeRefreshedOnce() {
+        mScheduler.requestRefresh(mBookUID, Collections.singletonList(mCashUID));
+        mScheduler.requestRefresh(mBookUID, Collections.singletonList(mExpensesUID));
+        mScheduler.requestRefresh();
+        assertThat(mScheduler.mRefreshCount).isZero();
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(mScheduler.mRefreshCount).isEqualTo(1);
+        assertThat(mScheduler.mUpdatedWidgets).containsOnly(1, 2, 3, 4);
+
+        mScheduler.requestRefresh(mBookUID, Collections.singletonList(mCashUID));
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertThat(mScheduler.mRefreshCount).isEqualTo(2);
+    }
+
+    /**
+     * Only the widgets showing a touched account or one of its ancestors should be refreshed
+     */
+    @Test
+    public void touchedAccount_shouldRefreshWidgetsOfAccountAndAncestors() {
+        mScheduler.requestRefresh(mBookUID, Collections.singletonList(mCashUID));
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(mScheduler.mUpdatedWidgets).containsOnly(1, 2, 3);
+
+        mScheduler.mUpdatedWidgets.clear();
+        mScheduler.requestRefresh("otherBookUID", Collections.singletonList(mExpensesUID));
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(mScheduler.mUpdatedWidgets).isEmpty();
+    }
+
+    /**
+     * Widgets showing the same account should share one balance computation
+     */
+    @Test
+    public void widgetsOfSameAccount_shouldComputeBalanceOnce() {
+        mScheduler.requestRefresh();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(mScheduler.mUpdatedWidgets).hasSize(4);
+        assertThat(mScheduler.mComputedBalances)
+                .containsOnlyOnce(mAssetsUID, mCashUID, mExpensesUID)
+                .hasSize(3);
+    }
+
+    /**
+     * Records the widget updates instead of drawing the widgets
+     */
+    private static class RecordingScheduler extends WidgetRefreshScheduler {
+        private final int[] mAppWidgetIds;
+        int mRefreshCount = 0;
+        final List<Integer> mUpdatedWidgets = new ArrayList<>();
+        final List<String> mComputedBalances = new ArrayList<>();
+
+        RecordingScheduler(Context context, int[] appWidgetIds) {
+            super(context, Looper.getMainLooper());
+            mAppWidgetIds = appWidgetIds;
+        }
+
+        @Override
+        int[] getAppWidgetIds() {
+            mRefreshCount++;
+            return mAppWidgetIds;
+        }
+
+        @Override
+        Money updateWidget(int appWidgetId, String bookUID, String accountUID,
+                           AccountsDbAdapter accountsDbAdapter, Money accountBalance, long time) {
+            mUpdatedWidgets.add(appWidgetId);
+            if (accountBalance == null) {
+                mComputedBalances.add(accountUID);
+                accountBalance = accountsDbAdapter.getAccountBalance(accountUID, -1, time);
+            }
+            return accountBalance;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gnucash.android.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates the cursor readers of the interfaces annotated with {@code RowReader}.
+ * <p>For each interface {@code FooRow}, a final class {@code FooRowReader} is generated in the same package,
+ * with the same visibility. It holds the cursor and the index of each column, which are resolved
+ * with {@code getColumnIndexOrThrow} in its constructor, and implements each accessor with the
+ * {@code Cursor} getter matching its return type.</p>
+ */
+public class RowReaderProcessor extends AbstractProcessor {
+
+    static final String ROW_READER = "org.gnucash.android.model.db.row.RowReader";
+    static final String COLUMN = "org.gnucash.android.model.db.row.Column";
+
+    /**
+     * Expression reading a column, by accessor return type.
+     * {@code %1$s} is the cursor and {@code %2$s} the column index
+     */
+    private static final Map<String, String> READERS = new LinkedHashMap<>();
+    static {
+        READERS.put("java.lang.String",     "%1$s.getString(%2$s)");
+        READERS.put("long",                 "%1$s.getLong(%2$s)");
+        READERS.put("int",                  "%1$s.getInt(%2$s)");
+        READERS.put("double",               "%1$s.getDouble(%2$s)");
+        READERS.put("boolean",              "%1$s.getInt(%2$s) != 0");
+        READERS.put("byte[]",               "%1$s.getBlob(%2$s)");
+        READERS.put("java.lang.Long",       "%1$s.isNull(%2$s) ? null : %1$s.getLong(%2$s)");
+        READERS.put("java.lang.Integer",    "%1$s.isNull(%2$s) ? null : %1$s.getInt(%2$s)");
+        READERS.put("java.lang.Double",     "%1$s.isNull(%2$s) ? null : %1$s.getDouble(%2$s)");
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(ROW_READER, COLUMN));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            if (!annotation.getQualifiedName().contentEquals(ROW_READER))
+                continue; //columns are read with the interface declaring them
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.INTERFACE) {
+                    error(element, "@RowReader can only be applied to interfaces");
+                    continue;
+                }
+                TypeElement rowType = (TypeElement) element;
+                List<Accessor> accessors = new ArrayList<>();
+                if (collectAccessors(rowType, accessors)) {
+                    writeReader(rowType, accessors);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Column accessor of a row interface
+     */
+    private static final class Accessor {
+        final String name;
+        final String column;
+        final String returnType;
+
+        Accessor(String name, String column, String returnType) {
+            this.name = name;
+            this.column = column;
+            this.returnType = returnType;
+        }
+
+        /**
+         * Returns the name of the field holding the column index, e.g. {@code mNameIndex} for {@code getName()}
+         */
+        String indexField() {
+            String property = name;
+            if (name.length() > 3 && name.startsWith("get") && Character.isUpperCase(name.charAt(3)))
+                property = name.substring(3);
+            else if (name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2)))
+                property = name.substring(2);
+            return "m" + Character.toUpperCase(property.charAt(0)) + property.substring(1) + "Index";
+        }
+    }
+
+    /**
+     * Collects the accessors of a row interface, those of its super interfaces first
+     * @return {@code true} if all the methods are valid accessors
+     */
+    private boolean collectAccessors(TypeElement rowType, List<Accessor> accessors) {
+        boolean valid = true;
+        for (TypeMirror superInterface : rowType.getInterfaces()) {
+            TypeElement superType = (TypeElement) ((DeclaredType) superInterface).asElement();
+            valid &= collectAccessors(superType, accessors);
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(rowType.getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.STATIC) || method.isDefault())
+                continue;
+            String name = method.getSimpleName().toString();
+            String column = getColumnName(method);
+            String returnType = method.getReturnType().toString();
+            if (column == null) {
+                error(method, "Row accessors must be annotated with @Column");
+                valid = false;
+            } else if (!method.getParameters().isEmpty()) {
+                error(method, "Row accessors cannot have parameters");
+                valid = false;
+            } else if (!READERS.containsKey(returnType)) {
+                error(method, "Unsupported column type " + returnType);
+                valid = false;
+            } else if (!containsAccessor(accessors, name)) {
+                accessors.add(new Accessor(name, column, returnType));
+            }
+        }
+        return valid;
+    }
+
+    private static boolean containsAccessor(List<Accessor> accessors, String name) {
+        for (Accessor accessor : accessors) {
+            if (accessor.name.equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    private static String getColumnName(ExecutableElement method) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(COLUMN))
+                continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value"))
+                    return (String) entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeReader(TypeElement rowType, List<Accessor> accessors) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(rowType);
+        String packageName = packageElement.getQualifiedName().toString();
+        String rowName = rowType.getQualifiedName().toString();
+        String readerName = readerName(rowType);
+        String visibility = rowType.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+        source.append("import android.database.Cursor;\n\n")
+                .append("/**\n")
+                .append(" * Reads {@link ").append(rowName).append("} rows from a cursor.\n")
+                .append(" * <p>Generated by ").append(RowReaderProcessor.class.getSimpleName())
+                .append(", do not edit. The column indexes are resolved when the reader is created</p>\n")
+                .append(" */\n")
+                .append(visibility).append("final class ").append(readerName)
+                .append(" implements ").append(rowName).append(" {\n\n")
+                .append("    private final Cursor mCursor;\n");
+        for (Accessor accessor : accessors) {
+            source.append("    private final int ").append(accessor.indexField()).append(";\n");
+        }
+
+        source.append("\n    ").append(visibility).append(readerName).append("(Cursor cursor) {\n")
+                .append("        mCursor = cursor;\n");
+        for (Accessor accessor : accessors) {
+            source.append("        ").append(accessor.indexField())
+                    .append(" = cursor.getColumnIndexOrThrow(\"").append(escape(accessor.column)).append("\");\n");
+        }
+        source.append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Returns {@code reader} if it reads {@code cursor}, or a new reader for {@code cursor}\n")
+                .append("     */\n")
+                .append("    ").append(visibility).append("static ").append(readerName).append(" of(Cursor cursor, ")
+                .append(readerName).append(" reader) {\n")
+                .append("        return reader != null && reader.mCursor == cursor ? reader : new ")
+                .append(readerName).append("(cursor);\n")
+                .append("    }\n\n")
+                .append("    ").append(visibility).append("Cursor getCursor() {\n")
+                .append("        return mCursor;\n")
+                .append("    }\n");
+
+        for (Accessor accessor : accessors) {
+            source.append("\n    @Override\n")
+                    .append("    public ").append(accessor.returnType).append(" ").append(accessor.name).append("() {\n")
+                    .append("        return ")
+                    .append(String.format(READERS.get(accessor.returnType), "mCursor", accessor.indexField()))
+                    .append(";\n    }\n");
+        }
+        source.append("}\n");
+
+        String qualifiedReaderName = packageName.isEmpty() ? readerName : packageName + "." + readerName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedReaderName, rowType).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(rowType, "Could not write " + qualifiedReaderName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the simple name of the reader, prefixed by the enclosing types of nested interfaces
+     */
+    private static String readerName(TypeElement rowType) {
+        StringBuilder name = new StringBuilder(rowType.getSimpleName()).append("Reader");
+        Element enclosing = rowType.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.toString();
+    }
+
+    private static String escape(String column) {
+        return column.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}